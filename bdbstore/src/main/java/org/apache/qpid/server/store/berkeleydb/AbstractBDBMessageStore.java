@@ -757,17 +757,20 @@ public abstract class AbstractBDBMessageStore implements MessageStore
      * Commits all operations performed within a given transaction.
      *
      * @param tx The transaction to commit all operations for.
+     * @param replicaAcknowledgmentRequired true if the commit must not be confirmed before replicas acknowledge it.
      *
      * @throws org.apache.qpid.server.store.StoreException If the operation fails for any reason.
      */
-    private ListenableFuture<Void> commitTranImpl(final Transaction tx, boolean syncCommit) throws StoreException
+    private ListenableFuture<Void> commitTranImpl(final Transaction tx,
+                                                  boolean syncCommit,
+                                                  boolean replicaAcknowledgmentRequired) throws StoreException
     {
         if (tx == null)
         {
             throw new StoreException("Fatal internal error: transactional is null at commitTran");
         }
 
-        ListenableFuture<Void> result = getEnvironmentFacade().commit(tx, syncCommit);
+        ListenableFuture<Void> result = getEnvironmentFacade().commit(tx, syncCommit, replicaAcknowledgmentRequired);
 
         getLogger().debug("commitTranImpl completed {} transaction {}",
                           syncCommit ? "synchronous" : "asynchronous", tx);
@@ -1269,6 +1272,7 @@ public abstract class AbstractBDBMessageStore implements MessageStore
     {
         private Transaction _txn;
         private int _storeSizeIncrease;
+        private boolean _replicaAcknowledgmentRequired;
         private final List<Runnable> _preCommitActions = new ArrayList<>();
         private final List<Runnable> _postCommitActions = new ArrayList<>();
 
@@ -1305,6 +1309,11 @@ public abstract class AbstractBDBMessageStore implements MessageStore
 
             }
 
+            if (!_replicaAcknowledgmentRequired && getEnvironmentFacade().isReplicaAcknowledgmentRequired(queue))
+            {
+                _replicaAcknowledgmentRequired = true;
+            }
+
             AbstractBDBMessageStore.this.enqueueMessage(_txn, queue, message.getMessageNumber());
             return new BDBEnqueueRecord(queue.getId(), message.getMessageNumber());
         }
@@ -1323,7 +1332,7 @@ public abstract class AbstractBDBMessageStore implements MessageStore
         {
             checkMessageStoreOpen();
             doPreCommitActions();
-            AbstractBDBMessageStore.this.commitTranImpl(_txn, true);
+            AbstractBDBMessageStore.this.commitTranImpl(_txn, true, _replicaAcknowledgmentRequired);
             doPostCommitActions();
             AbstractBDBMessageStore.this.storedSizeChangeOccurred(_storeSizeIncrease);
         }
@@ -1352,7 +1361,7 @@ public abstract class AbstractBDBMessageStore implements MessageStore
             checkMessageStoreOpen();
             doPreCommitActions();
             AbstractBDBMessageStore.this.storedSizeChangeOccurred(_storeSizeIncrease);
-            ListenableFuture<Void> futureResult = AbstractBDBMessageStore.this.commitTranImpl(_txn, false);
+            ListenableFuture<Void> futureResult = AbstractBDBMessageStore.this.commitTranImpl(_txn, false, _replicaAcknowledgmentRequired);
             doPostCommitActions();
             return futureResult;
         }
@@ -35,6 +35,7 @@ import com.sleepycat.je.Transaction;
 
 import com.sleepycat.je.TransactionConfig;
 import org.apache.qpid.server.model.ConfiguredObject;
+import org.apache.qpid.server.store.TransactionLogResource;
 
 public interface EnvironmentFacade
 {
@@ -57,6 +58,10 @@ public interface EnvironmentFacade
 
     ListenableFuture<Void> commit(com.sleepycat.je.Transaction tx, boolean sync);
 
+    ListenableFuture<Void> commit(com.sleepycat.je.Transaction tx, boolean sync, boolean replicaAcknowledgmentRequired);
+
+    boolean isReplicaAcknowledgmentRequired(TransactionLogResource queue);
+
     RuntimeException handleDatabaseException(String contextMessage, RuntimeException e);
 
     void closeDatabase(String name);
@@ -46,6 +46,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.apache.qpid.server.store.StoreException;
+import org.apache.qpid.server.store.TransactionLogResource;
 import org.apache.qpid.server.store.berkeleydb.logging.Slf4jLoggingHandler;
 
 public class StandardEnvironmentFacade implements EnvironmentFacade
@@ -151,6 +152,18 @@ public class StandardEnvironmentFacade implements EnvironmentFacade
         return _committer.commit(tx, syncCommit);
     }
 
+    @Override
+    public ListenableFuture<Void> commit(final Transaction tx, final boolean syncCommit, final boolean replicaAcknowledgmentRequired)
+    {
+        return commit(tx, syncCommit);
+    }
+
+    @Override
+    public boolean isReplicaAcknowledgmentRequired(final TransactionLogResource queue)
+    {
+        return false;
+    }
+
     @Override
     public void close()
     {
@@ -0,0 +1,127 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.store.berkeleydb.replication;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Decides which commits may be confirmed on local durability alone, so that at most window - 1 commits are ever
+ * unacknowledged by replicas.
+ * <p>
+ * A commit inside the window reserves a slot before committing and reports when it has committed.  Once the window is
+ * full the next commit has to wait for replica acknowledgments.  As the replication stream is ordered, that
+ * acknowledgment also covers every windowed commit which had completed before the acknowledged commit began.  The
+ * acknowledged commit claims those commits when it begins, so that concurrent acknowledged commits never release the
+ * same slots twice, and releases their slots once it has been acknowledged.  Windowed commits still in progress keep
+ * their slots.
+ */
+class ReplicaAcknowledgmentWindow
+{
+    private volatile int _size;
+    /** windowed commits begun and not yet covered by an acknowledged commit */
+    private final AtomicInteger _reserved = new AtomicInteger();
+    /** windowed commits completed and not yet claimed by an acknowledged commit */
+    private final AtomicInteger _committed = new AtomicInteger();
+
+    int getSize()
+    {
+        return _size;
+    }
+
+    void setSize(final int size)
+    {
+        if (size < 0)
+        {
+            throw new IllegalArgumentException("Replica acknowledgment window cannot be negative: " + size);
+        }
+        _size = size;
+    }
+
+    /**
+     * @return true if a slot in the window was reserved, and the commit need not wait for replica acknowledgments
+     */
+    boolean reserve()
+    {
+        final int size = _size;
+        int reserved;
+        do
+        {
+            reserved = _reserved.get();
+            if (reserved >= size - 1)
+            {
+                return false;
+            }
+        }
+        while (!_reserved.compareAndSet(reserved, reserved + 1));
+        return true;
+    }
+
+    /**
+     * Called once a commit which reserved a slot has finished, successfully or not.  A failed commit is not in the
+     * replication stream, so its slot is released.
+     */
+    void windowedCommitCompleted(final boolean committed)
+    {
+        if (committed)
+        {
+            _committed.incrementAndGet();
+        }
+        else
+        {
+            _reserved.decrementAndGet();
+        }
+    }
+
+    /**
+     * Called before a commit waiting for replica acknowledgments.
+     *
+     * @return the number of windowed commits its acknowledgment will cover, to be passed to
+     *         {@link #acknowledgedCommitCompleted(int, boolean)}
+     */
+    int acknowledgedCommitStarting()
+    {
+        return _committed.getAndSet(0);
+    }
+
+    /**
+     * Called once a commit waiting for replica acknowledgments has finished.  If it failed, the windowed commits it
+     * claimed are left for the next acknowledged commit to cover.
+     */
+    void acknowledgedCommitCompleted(final int covered, final boolean acknowledged)
+    {
+        if (acknowledged)
+        {
+            _reserved.addAndGet(-covered);
+        }
+        else
+        {
+            _committed.addAndGet(covered);
+        }
+    }
+
+    /**
+     * @return the number of windowed commits begun and not yet known to be acknowledged by replicas
+     */
+    int getUnacknowledgedCommits()
+    {
+        return _size > 0 ? _reserved.get() : 0;
+    }
+}
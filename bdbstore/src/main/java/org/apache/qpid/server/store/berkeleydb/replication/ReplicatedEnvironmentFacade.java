@@ -80,6 +80,7 @@ import org.slf4j.LoggerFactory;
 
 import org.apache.qpid.server.configuration.IllegalConfigurationException;
 import org.apache.qpid.server.store.StoreException;
+import org.apache.qpid.server.store.TransactionLogResource;
 import org.apache.qpid.server.store.berkeleydb.BDBUtils;
 import org.apache.qpid.server.store.berkeleydb.CoalescingCommiter;
 import org.apache.qpid.server.store.berkeleydb.EnvHomeRegistry;
@@ -202,6 +203,10 @@ public class ReplicatedEnvironmentFacade implements EnvironmentFacade, StateChan
     private volatile Durability _realMessageStoreDurability = null;
     private volatile Durability _messageStoreDurability;
     private volatile CoalescingCommiter _coalescingCommiter = null;
+    /** durability used for commits inside the replica acknowledgment window: as the real durability, but without acks */
+    private volatile Durability _windowedMessageStoreDurability = null;
+    private final ReplicaAcknowledgmentWindow _replicaAcknowledgmentWindow = new ReplicaAcknowledgmentWindow();
+    private volatile Set<String> _replicaAcknowledgmentRequiredQueues = Collections.emptySet();
     private volatile long _joinTime;
     private volatile ReplicatedEnvironment.State _lastKnownEnvironmentState;
     private volatile long _envSetupTimeoutMillis;
@@ -273,16 +278,40 @@ public class ReplicatedEnvironmentFacade implements EnvironmentFacade, StateChan
     @Override
     public ListenableFuture<Void> commit(final Transaction tx, boolean syncCommit)
     {
+        return commit(tx, syncCommit, false);
+    }
+
+    @Override
+    public ListenableFuture<Void> commit(final Transaction tx, boolean syncCommit, boolean replicaAcknowledgmentRequired)
+    {
+        final Durability durability = _realMessageStoreDurability;
+        final boolean windowed = !replicaAcknowledgmentRequired
+                                 && durability.getReplicaAck() != ReplicaAckPolicy.NONE
+                                 && _replicaAcknowledgmentWindow.reserve();
+        final int coveredCommits = windowed ? 0 : _replicaAcknowledgmentWindow.acknowledgedCommitStarting();
+        boolean committed = false;
         try
         {
             // Using commit() instead of commitNoSync() for the HA store to allow
             // the HA durability configuration to influence resulting behaviour.
-            tx.commit(_realMessageStoreDurability);
+            tx.commit(windowed ? _windowedMessageStoreDurability : durability);
+            committed = true;
         }
         catch (DatabaseException de)
         {
             throw handleDatabaseException("Got DatabaseException on commit, closing environment", de);
         }
+        finally
+        {
+            if (windowed)
+            {
+                _replicaAcknowledgmentWindow.windowedCommitCompleted(committed);
+            }
+            else
+            {
+                _replicaAcknowledgmentWindow.acknowledgedCommitCompleted(coveredCommits, committed);
+            }
+        }
 
         if (_coalescingCommiter != null && _realMessageStoreDurability.getLocalSync() == SyncPolicy.NO_SYNC
                 && _messageStoreDurability.getLocalSync() == SyncPolicy.SYNC)
@@ -292,6 +321,13 @@ public class ReplicatedEnvironmentFacade implements EnvironmentFacade, StateChan
         return Futures.immediateFuture(null);
     }
 
+    @Override
+    public boolean isReplicaAcknowledgmentRequired(final TransactionLogResource queue)
+    {
+        return _replicaAcknowledgmentWindow.getSize() > 0
+               && _replicaAcknowledgmentRequiredQueues.contains(queue.getName());
+    }
+
     @Override
     public void close()
     {
@@ -1482,9 +1518,35 @@ public class ReplicatedEnvironmentFacade implements EnvironmentFacade, StateChan
                 _coalescingCommiter.start();
             }
             _realMessageStoreDurability = new Durability(localTransactionSynchronizationPolicy, remoteTransactionSynchronizationPolicy, replicaAcknowledgmentPolicy);
+            _windowedMessageStoreDurability = new Durability(localTransactionSynchronizationPolicy, remoteTransactionSynchronizationPolicy, ReplicaAckPolicy.NONE);
         }
     }
 
+    /**
+     * Sets the number of commits which may be confirmed on local durability alone before a commit is made to wait for
+     * replica acknowledgments.  A window of zero (the default) makes every commit wait.  Transactions enqueueing to
+     * any of the given queues always wait.
+     */
+    public void setReplicaAcknowledgmentWindow(int window, Collection<String> replicaAcknowledgmentRequiredQueues)
+    {
+        _replicaAcknowledgmentWindow.setSize(window);
+        _replicaAcknowledgmentRequiredQueues = replicaAcknowledgmentRequiredQueues == null
+                ? Collections.<String>emptySet()
+                : Collections.unmodifiableSet(new HashSet<>(replicaAcknowledgmentRequiredQueues));
+
+        LOGGER.info("Replica acknowledgment window for " + _prettyGroupNodeName + " set to " + window);
+    }
+
+    public int getReplicaAcknowledgmentWindow()
+    {
+        return _replicaAcknowledgmentWindow.getSize();
+    }
+
+    public int getCommitsAwaitingReplicaAcknowledgment()
+    {
+        return _replicaAcknowledgmentWindow.getUnacknowledgedCommits();
+    }
+
     public void setPermittedNodes(Collection<String> permittedNodes)
     {
         if (LOGGER.isDebugEnabled())
@@ -20,6 +20,8 @@
  */
 package org.apache.qpid.server.virtualhost.berkeleydb;
 
+import java.util.List;
+
 import org.apache.qpid.server.exchange.ExchangeImpl;
 import org.apache.qpid.server.model.DerivedAttribute;
 import org.apache.qpid.server.model.ManagedAttribute;
@@ -38,6 +40,8 @@ public interface BDBHAVirtualHost<X extends BDBHAVirtualHost<X>>
     String COALESCING_SYNC = "coalescingSync";
     String DURABILITY = "durability";
     String STORE_PATH = "storePath";
+    String REPLICA_ACKNOWLEDGMENT_WINDOW = "replicaAcknowledgmentWindow";
+    String REPLICA_ACKNOWLEDGMENT_REQUIRED_QUEUES = "replicaAcknowledgmentRequiredQueues";
 
     @ManagedAttribute( defaultValue = "SYNC")
     String getLocalTransactionSynchronizationPolicy();
@@ -48,6 +52,16 @@ public interface BDBHAVirtualHost<X extends BDBHAVirtualHost<X>>
     @DerivedAttribute
     boolean isCoalescingSync();
 
+    @ManagedAttribute( defaultValue = "0",
+                       description = "Number of commits that may be confirmed once locally durable before a commit"
+                                     + " waits for replica acknowledgments. Zero makes every commit wait.")
+    int getReplicaAcknowledgmentWindow();
+
+    @ManagedAttribute( defaultValue = "[]",
+                       description = "Names of queues whose enqueues always wait for replica acknowledgments,"
+                                     + " regardless of the replica acknowledgment window.")
+    List<String> getReplicaAcknowledgmentRequiredQueues();
+
     @DerivedAttribute
     String getDurability();
 
@@ -20,6 +20,7 @@
  */
 package org.apache.qpid.server.virtualhost.berkeleydb;
 
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -48,6 +49,12 @@ public class BDBHAVirtualHostImpl extends AbstractVirtualHost<BDBHAVirtualHostIm
     @ManagedAttributeField
     private String _remoteTransactionSynchronizationPolicy;
 
+    @ManagedAttributeField
+    private int _replicaAcknowledgmentWindow;
+
+    @ManagedAttributeField
+    private List<String> _replicaAcknowledgmentRequiredQueues;
+
     @ManagedAttributeField
     private Long _storeUnderfullSize;
 
@@ -80,6 +87,18 @@ public class BDBHAVirtualHostImpl extends AbstractVirtualHost<BDBHAVirtualHostIm
         return _remoteTransactionSynchronizationPolicy;
     }
 
+    @Override
+    public int getReplicaAcknowledgmentWindow()
+    {
+        return _replicaAcknowledgmentWindow;
+    }
+
+    @Override
+    public List<String> getReplicaAcknowledgmentRequiredQueues()
+    {
+        return _replicaAcknowledgmentRequiredQueues;
+    }
+
     @Override
     public String getDurability()
     {
@@ -107,6 +126,8 @@ public class BDBHAVirtualHostImpl extends AbstractVirtualHost<BDBHAVirtualHostIm
                     SyncPolicy.valueOf(getLocalTransactionSynchronizationPolicy()),
                     SyncPolicy.valueOf(getRemoteTransactionSynchronizationPolicy()),
                     ReplicatedEnvironmentFacade.REPLICA_REPLICA_ACKNOWLEDGMENT_POLICY);
+            facade.setReplicaAcknowledgmentWindow(getReplicaAcknowledgmentWindow(),
+                                                  getReplicaAcknowledgmentRequiredQueues());
         }
         super.onOpen();
     }
@@ -128,6 +149,21 @@ public class BDBHAVirtualHostImpl extends AbstractVirtualHost<BDBHAVirtualHostIm
             validateTransactionSynchronizationPolicy(policy);
         }
 
+        if(changedAttributes.contains(REPLICA_ACKNOWLEDGMENT_WINDOW))
+        {
+            int window = ((BDBHAVirtualHost<?>)proxyForValidation).getReplicaAcknowledgmentWindow();
+            validateReplicaAcknowledgmentWindow(window);
+        }
+
+    }
+
+    private void validateReplicaAcknowledgmentWindow(int window)
+    {
+        if (window < 0)
+        {
+            throw new IllegalArgumentException("Invalid replica acknowledgment window '" + window
+                                               + "'. The window cannot be negative.");
+        }
     }
 
     private void validateTransactionSynchronizationPolicy(String policy)
@@ -166,6 +202,7 @@ public class BDBHAVirtualHostImpl extends AbstractVirtualHost<BDBHAVirtualHostIm
 
         validateTransactionSynchronizationPolicy(this.getLocalTransactionSynchronizationPolicy());
         validateTransactionSynchronizationPolicy(this.getRemoteTransactionSynchronizationPolicy());
+        validateReplicaAcknowledgmentWindow(this.getReplicaAcknowledgmentWindow());
     }
 
 }
@@ -23,7 +23,10 @@ package org.apache.qpid.server.virtualhostnode.berkeleydb;
 import org.apache.qpid.server.model.DerivedAttribute;
 import org.apache.qpid.server.model.ManagedAttribute;
 import org.apache.qpid.server.model.ManagedObject;
+import org.apache.qpid.server.model.ManagedStatistic;
 import org.apache.qpid.server.model.RemoteReplicationNode;
+import org.apache.qpid.server.model.StatisticType;
+import org.apache.qpid.server.model.StatisticUnit;
 
 @ManagedObject(category=false, creatable=false)
 public interface BDBHARemoteReplicationNode<X extends BDBHARemoteReplicationNode<X>> extends RemoteReplicationNode<X>
@@ -52,4 +55,8 @@ public interface BDBHARemoteReplicationNode<X extends BDBHARemoteReplicationNode
 
     @DerivedAttribute
     boolean isMonitor();
+
+    @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME, units = StatisticUnit.COUNT, label = "Replication lag",
+                      description = "Number of replication transaction ids by which this node trails the local node")
+    long getReplicationLag();
 }
@@ -112,6 +112,25 @@ public class BDBHARemoteReplicationNodeImpl extends AbstractConfiguredObject<BDB
         return _lastTransactionId;
     }
 
+    @Override
+    public long getReplicationLag()
+    {
+        final long remoteTransactionId = _lastTransactionId;
+        if (remoteTransactionId <= 0)
+        {
+            return 0L;
+        }
+        try
+        {
+            return Math.max(0L, _replicatedEnvironmentFacade.getLastKnownReplicationTransactionId() - remoteTransactionId);
+        }
+        catch (RuntimeException e)
+        {
+            LOGGER.debug("Cannot determine replication lag of node {}", getName(), e);
+            return 0L;
+        }
+    }
+
     @Override
     public boolean isMonitor()
     {
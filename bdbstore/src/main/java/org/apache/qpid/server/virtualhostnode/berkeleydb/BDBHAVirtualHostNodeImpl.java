@@ -244,6 +244,17 @@ public class BDBHAVirtualHostNodeImpl extends AbstractVirtualHostNode<BDBHAVirtu
         return -1L;
     }
 
+    @Override
+    public int getCommitsAwaitingReplicaAcknowledgment()
+    {
+        ReplicatedEnvironmentFacade environmentFacade = getReplicatedEnvironmentFacade();
+        if (environmentFacade != null)
+        {
+            return environmentFacade.getCommitsAwaitingReplicaAcknowledgment();
+        }
+        return 0;
+    }
+
     @Override
     public Long getJoinTime()
     {
@@ -0,0 +1,219 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.store.berkeleydb.replication;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.qpid.test.utils.QpidTestCase;
+
+public class ReplicaAcknowledgmentWindowTest extends QpidTestCase
+{
+    private final ReplicaAcknowledgmentWindow _window = new ReplicaAcknowledgmentWindow();
+
+    /** models the replication stream: positions of windowed commits not yet covered by an acknowledged commit */
+    private final Deque<Long> _unacknowledgedPositions = new ArrayDeque<>();
+    private long _streamLength;
+    private long _acknowledgedLength;
+    private int _windowedCommitsInProgress;
+    private int _maximumUnacknowledged;
+
+    public void testEveryWindowthCommitWaitsForAcknowledgment()
+    {
+        _window.setSize(3);
+
+        assertTrue("First commit should be inside the window", _window.reserve());
+        _window.windowedCommitCompleted(true);
+        assertTrue("Second commit should be inside the window", _window.reserve());
+        _window.windowedCommitCompleted(true);
+        assertEquals("Unexpected number of unacknowledged commits", 2, _window.getUnacknowledgedCommits());
+
+        assertFalse("Third commit should wait for acknowledgment", _window.reserve());
+        int covered = _window.acknowledgedCommitStarting();
+        assertEquals("Acknowledgment should cover both windowed commits", 2, covered);
+        _window.acknowledgedCommitCompleted(covered, true);
+        assertEquals("Unexpected number of unacknowledged commits", 0, _window.getUnacknowledgedCommits());
+    }
+
+    public void testWindowOfZeroOrOneMakesEveryCommitWait()
+    {
+        assertFalse("Commit should wait for acknowledgment without a window", _window.reserve());
+        _window.setSize(1);
+        assertFalse("Commit should wait for acknowledgment with a window of one", _window.reserve());
+        assertEquals("Unexpected number of unacknowledged commits", 0, _window.getUnacknowledgedCommits());
+    }
+
+    public void testAcknowledgmentDoesNotCoverWindowedCommitStillInProgress()
+    {
+        _window.setSize(3);
+
+        assertTrue("Commit should be inside the window", _window.reserve());
+        assertTrue("Commit should be inside the window", _window.reserve());
+        _window.windowedCommitCompleted(true);
+
+        assertFalse("Commit should wait for acknowledgment", _window.reserve());
+        int covered = _window.acknowledgedCommitStarting();
+        _window.windowedCommitCompleted(true);
+        _window.acknowledgedCommitCompleted(covered, true);
+
+        assertEquals("Commit completed after the acknowledged commit began should remain unacknowledged",
+                     1, _window.getUnacknowledgedCommits());
+        assertTrue("A slot should be free again", _window.reserve());
+        assertFalse("Window should be full", _window.reserve());
+    }
+
+    public void testFailedAcknowledgedCommitLeavesWindowedCommitsForTheNext()
+    {
+        _window.setSize(2);
+
+        assertTrue("Commit should be inside the window", _window.reserve());
+        _window.windowedCommitCompleted(true);
+
+        assertFalse("Commit should wait for acknowledgment", _window.reserve());
+        int covered = _window.acknowledgedCommitStarting();
+        assertEquals("Concurrent acknowledged commit should not cover the same commits",
+                     0, _window.acknowledgedCommitStarting());
+        _window.acknowledgedCommitCompleted(covered, false);
+        assertEquals("Unexpected number of unacknowledged commits", 1, _window.getUnacknowledgedCommits());
+
+        covered = _window.acknowledgedCommitStarting();
+        assertEquals("Next acknowledged commit should cover the windowed commit", 1, covered);
+        _window.acknowledgedCommitCompleted(covered, true);
+        assertEquals("Unexpected number of unacknowledged commits", 0, _window.getUnacknowledgedCommits());
+    }
+
+    public void testFailedWindowedCommitReleasesItsSlot()
+    {
+        _window.setSize(2);
+
+        assertTrue("Commit should be inside the window", _window.reserve());
+        _window.windowedCommitCompleted(false);
+        assertEquals("Unexpected number of unacknowledged commits", 0, _window.getUnacknowledgedCommits());
+        assertTrue("Slot should have been released", _window.reserve());
+    }
+
+    public void testNegativeWindowRejected()
+    {
+        try
+        {
+            _window.setSize(-1);
+            fail("Negative window should not be accepted");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // pass
+        }
+    }
+
+    public void testConcurrentCommitsNeverLeaveMoreThanWindowMinusOneUnacknowledged() throws Exception
+    {
+        final int window = 4;
+        final int numberOfThreads = 8;
+        final int commitsPerThread = 20000;
+        _window.setSize(window);
+
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread[] threads = new Thread[numberOfThreads];
+        for (int i = 0; i < numberOfThreads; i++)
+        {
+            threads[i] = new Thread(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        start.await();
+                        for (int j = 0; j < commitsPerThread; j++)
+                        {
+                            commit();
+                        }
+                    }
+                    catch (Throwable t)
+                    {
+                        failure.compareAndSet(null, t);
+                    }
+                }
+            }, getTestName() + "-" + i);
+            threads[i].start();
+        }
+        start.countDown();
+        for (Thread thread : threads)
+        {
+            thread.join(TimeUnit.MINUTES.toMillis(1));
+            assertFalse("Committer did not finish", thread.isAlive());
+        }
+        assertNull("Unexpected failure", failure.get());
+
+        synchronized (_unacknowledgedPositions)
+        {
+            assertTrue("More than window - 1 commits were unacknowledged: " + _maximumUnacknowledged,
+                       _maximumUnacknowledged <= window - 1);
+            assertTrue("Window was never used", _maximumUnacknowledged > 0);
+        }
+
+        _window.acknowledgedCommitCompleted(_window.acknowledgedCommitStarting(), true);
+        assertEquals("All commits should be acknowledged", 0, _window.getUnacknowledgedCommits());
+    }
+
+    private void commit()
+    {
+        if (_window.reserve())
+        {
+            synchronized (_unacknowledgedPositions)
+            {
+                _windowedCommitsInProgress++;
+                _maximumUnacknowledged = Math.max(_maximumUnacknowledged,
+                                                  _windowedCommitsInProgress + _unacknowledgedPositions.size());
+            }
+            Thread.yield();
+            synchronized (_unacknowledgedPositions)
+            {
+                _windowedCommitsInProgress--;
+                _unacknowledgedPositions.addLast(++_streamLength);
+            }
+            _window.windowedCommitCompleted(true);
+        }
+        else
+        {
+            int covered = _window.acknowledgedCommitStarting();
+            long position;
+            synchronized (_unacknowledgedPositions)
+            {
+                position = ++_streamLength;
+            }
+            Thread.yield();
+            synchronized (_unacknowledgedPositions)
+            {
+                _acknowledgedLength = Math.max(_acknowledgedLength, position);
+                while (!_unacknowledgedPositions.isEmpty() && _unacknowledgedPositions.peekFirst() <= _acknowledgedLength)
+                {
+                    _unacknowledgedPositions.removeFirst();
+                }
+            }
+            _window.acknowledgedCommitCompleted(covered, true);
+        }
+    }
+}
@@ -63,6 +63,7 @@ import com.sleepycat.je.rep.StateChangeListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.apache.qpid.server.store.TransactionLogResource;
 import org.apache.qpid.server.store.berkeleydb.EnvironmentFacade;
 import org.apache.qpid.server.util.ConnectionScopedRuntimeException;
 import org.apache.qpid.test.utils.PortHelper;
@@ -240,6 +241,68 @@ public class ReplicatedEnvironmentFacadeTest extends QpidTestCase
         assertFalse("Coalescing sync committer is still running", master.isCoalescingSync());
     }
 
+    public void testReplicaAcknowledgmentWindow() throws Exception
+    {
+        ReplicatedEnvironmentFacade master = createMaster();
+        TransactionLogResource criticalQueue = mock(TransactionLogResource.class);
+        when(criticalQueue.getName()).thenReturn("critical");
+        TransactionLogResource bulkQueue = mock(TransactionLogResource.class);
+        when(bulkQueue.getName()).thenReturn("bulk");
+
+        assertEquals("Unexpected default window", 0, master.getReplicaAcknowledgmentWindow());
+        assertFalse("Acknowledgment should not be required without a window",
+                    master.isReplicaAcknowledgmentRequired(criticalQueue));
+
+        master.setReplicaAcknowledgmentWindow(3, Arrays.asList("critical"));
+        assertTrue("Acknowledgment should be required for critical queue",
+                   master.isReplicaAcknowledgmentRequired(criticalQueue));
+        assertFalse("Acknowledgment should not be required for bulk queue",
+                    master.isReplicaAcknowledgmentRequired(bulkQueue));
+
+        DatabaseConfig createConfig = new DatabaseConfig();
+        createConfig.setAllowCreate(true);
+        createConfig.setTransactional(true);
+        Database db = master.openDatabase("mydb", createConfig);
+        for (int i = 0; i < 2; i++)
+        {
+            commitWindowed(master, db, i, false);
+            assertEquals("Unexpected number of commits awaiting acknowledgment",
+                         i + 1, master.getCommitsAwaitingReplicaAcknowledgment());
+        }
+        commitWindowed(master, db, 2, false);
+        assertEquals("Window should be closed by acknowledged commit",
+                     0, master.getCommitsAwaitingReplicaAcknowledgment());
+
+        commitWindowed(master, db, 3, false);
+        commitWindowed(master, db, 4, true);
+        assertEquals("Window should be closed by commit requiring acknowledgment",
+                     0, master.getCommitsAwaitingReplicaAcknowledgment());
+
+        try
+        {
+            master.setReplicaAcknowledgmentWindow(-1, null);
+            fail("Negative window should not be accepted");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // pass
+        }
+    }
+
+    private void commitWindowed(final ReplicatedEnvironmentFacade master,
+                                final Database db,
+                                final int keyValue,
+                                final boolean replicaAcknowledgmentRequired)
+    {
+        DatabaseEntry key = new DatabaseEntry();
+        DatabaseEntry data = new DatabaseEntry();
+        IntegerBinding.intToEntry(keyValue, key);
+        StringBinding.stringToEntry("value" + keyValue, data);
+        Transaction txn = master.beginTransaction(null);
+        db.put(txn, key, data);
+        master.commit(txn, false, replicaAcknowledgmentRequired);
+    }
+
     public void testGetNodeState() throws Exception
     {
         assertEquals("Unexpected state", State.MASTER.name(), createMaster().getNodeState());
@@ -0,0 +1,249 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.model;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+import org.apache.qpid.server.License;
+
+/**
+ * Generates, for every interface declaring managed attributes or statistics, a registration of accessors which call
+ * the getters directly rather than through reflection.
+ */
+public class ConfiguredObjectAccessorGenerator extends AbstractProcessor
+{
+    public static final String MANAGED_ATTRIBUTE_CANONICAL_NAME = "org.apache.qpid.server.model.ManagedAttribute";
+    public static final String DERIVED_ATTRIBUTE_CANONICAL_NAME = "org.apache.qpid.server.model.DerivedAttribute";
+    public static final String MANAGED_STATISTIC_CANONICAL_NAME = "org.apache.qpid.server.model.ManagedStatistic";
+    public static final String CONFIGURED_OBJECT_CANONICAL_NAME = "org.apache.qpid.server.model.ConfiguredObject";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion()
+    {
+        return SourceVersion.latest();
+    }
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes()
+    {
+        Set<String> types = new HashSet<>();
+        types.add(MANAGED_ATTRIBUTE_CANONICAL_NAME);
+        types.add(DERIVED_ATTRIBUTE_CANONICAL_NAME);
+        types.add(MANAGED_STATISTIC_CANONICAL_NAME);
+        return types;
+    }
+
+    @Override
+    public boolean process(final Set<? extends TypeElement> annotations, final RoundEnvironment roundEnv)
+    {
+        if(roundEnv.processingOver())
+        {
+            return false;
+        }
+
+        Map<TypeElement, List<ExecutableElement>> gettersByType = new LinkedHashMap<>();
+        try
+        {
+            Types typeUtils = processingEnv.getTypeUtils();
+            TypeElement configuredObjectElement =
+                    processingEnv.getElementUtils().getTypeElement(CONFIGURED_OBJECT_CANONICAL_NAME);
+            TypeMirror configuredObjectType = typeUtils.erasure(configuredObjectElement.asType());
+
+            for (TypeElement annotation : annotations)
+            {
+                for (Element e : roundEnv.getElementsAnnotatedWith(annotation))
+                {
+                    if (e.getKind() == ElementKind.METHOD
+                        && e.getEnclosingElement().getKind() == ElementKind.INTERFACE
+                        && !e.getModifiers().contains(Modifier.STATIC)
+                        && ((ExecutableElement) e).getParameters().isEmpty()
+                        && typeUtils.isSubtype(typeUtils.erasure(e.getEnclosingElement().asType()),
+                                               configuredObjectType))
+                    {
+                        TypeElement typeElement = (TypeElement) e.getEnclosingElement();
+                        List<ExecutableElement> getters = gettersByType.get(typeElement);
+                        if (getters == null)
+                        {
+                            getters = new ArrayList<>();
+                            gettersByType.put(typeElement, getters);
+                        }
+                        getters.add((ExecutableElement) e);
+                    }
+                }
+            }
+
+            for (Map.Entry<TypeElement, List<ExecutableElement>> entry : gettersByType.entrySet())
+            {
+                generateAccessors(entry.getKey(), entry.getValue());
+            }
+        }
+        catch (Exception e)
+        {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Error: " + e.getLocalizedMessage());
+        }
+
+        return false;
+    }
+
+    private void generateAccessors(final TypeElement typeElement, final List<ExecutableElement> getters)
+    {
+        Elements elementUtils = processingEnv.getElementUtils();
+        PackageElement packageElement = elementUtils.getPackageOf(typeElement);
+        String packageName = packageElement.getQualifiedName().toString();
+        String typeName = typeElement.getQualifiedName().toString();
+        String className = getFlattenedName(typeElement) + "Accessors";
+        String qualifiedClassName = packageName.isEmpty() ? className : packageName + "." + className;
+
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, "Generating accessors for " + typeName);
+
+        try
+        {
+            JavaFileObject accessorsFile = processingEnv.getFiler().createSourceFile(qualifiedClassName, typeElement);
+            PrintWriter pw = new PrintWriter(new OutputStreamWriter(accessorsFile.openOutputStream(), "UTF-8"));
+            pw.println("/*");
+            for (String headerLine : License.LICENSE)
+            {
+                pw.println(" *" + headerLine);
+            }
+            pw.println(" */");
+            pw.println();
+            if (!packageName.isEmpty())
+            {
+                pw.println("package " + packageName + ";");
+                pw.println();
+            }
+            pw.println("@org.apache.qpid.server.plugin.PluggableService");
+            pw.println("@SuppressWarnings(\"rawtypes\")");
+            pw.println("public final class " + className
+                       + " implements org.apache.qpid.server.plugin.ConfiguredObjectAccessorRegistration");
+            pw.println("{");
+            pw.println("    private static final String[] GETTERS =");
+            pw.println("    {");
+            for (ExecutableElement getter : getters)
+            {
+                pw.println("        \"" + getter.getSimpleName() + "\",");
+            }
+            pw.println("    };");
+            pw.println();
+            pw.println("    private final java.util.Map<String, org.apache.qpid.server.model.ConfiguredObjectAccessor> _accessors;");
+            pw.println();
+            pw.println("    public " + className + "()");
+            pw.println("    {");
+            pw.println("        java.util.Map<String, org.apache.qpid.server.model.ConfiguredObjectAccessor> accessors =");
+            pw.println("                new java.util.HashMap<>(GETTERS.length * 2);");
+            pw.println("        for (int i = 0; i < GETTERS.length; i++)");
+            pw.println("        {");
+            pw.println("            accessors.put(GETTERS[i], new Accessor(i));");
+            pw.println("        }");
+            pw.println("        _accessors = java.util.Collections.unmodifiableMap(accessors);");
+            pw.println("    }");
+            pw.println();
+            pw.println("    @Override");
+            pw.println("    public String getType()");
+            pw.println("    {");
+            pw.println("        return \"" + typeName + "\";");
+            pw.println("    }");
+            pw.println();
+            pw.println("    @Override");
+            pw.println("    public Class<? extends org.apache.qpid.server.model.ConfiguredObject> getConfiguredObjectClass()");
+            pw.println("    {");
+            pw.println("        return " + typeName + ".class;");
+            pw.println("    }");
+            pw.println();
+            pw.println("    @Override");
+            pw.println("    public java.util.Map<String, org.apache.qpid.server.model.ConfiguredObjectAccessor> getAccessors()");
+            pw.println("    {");
+            pw.println("        return _accessors;");
+            pw.println("    }");
+            pw.println();
+            pw.println("    private static final class Accessor implements org.apache.qpid.server.model.ConfiguredObjectAccessor");
+            pw.println("    {");
+            pw.println("        private final int _index;");
+            pw.println();
+            pw.println("        private Accessor(final int index)");
+            pw.println("        {");
+            pw.println("            _index = index;");
+            pw.println("        }");
+            pw.println();
+            pw.println("        @Override");
+            pw.println("        public Object getValue(final org.apache.qpid.server.model.ConfiguredObject<?> object)");
+            pw.println("        {");
+            pw.println("            final " + typeName + " target = (" + typeName + ") object;");
+            pw.println("            switch (_index)");
+            pw.println("            {");
+            int index = 0;
+            for (ExecutableElement getter : getters)
+            {
+                pw.println("                case " + index++ + ":");
+                pw.println("                    return target." + getter.getSimpleName() + "();");
+            }
+            pw.println("                default:");
+            pw.println("                    throw new IllegalStateException(\"Unknown accessor \" + _index);");
+            pw.println("            }");
+            pw.println("        }");
+            pw.println("    }");
+            pw.println("}");
+
+            pw.close();
+        }
+        catch (IOException e)
+        {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                                                     "Failed to write accessors file: "
+                                                     + qualifiedClassName
+                                                     + " - "
+                                                     + e.getLocalizedMessage());
+        }
+    }
+
+    private String getFlattenedName(final TypeElement typeElement)
+    {
+        Element enclosing = typeElement.getEnclosingElement();
+        if (enclosing.getKind().isClass() || enclosing.getKind().isInterface())
+        {
+            return getFlattenedName((TypeElement) enclosing) + typeElement.getSimpleName();
+        }
+        return typeElement.getSimpleName().toString();
+    }
+}
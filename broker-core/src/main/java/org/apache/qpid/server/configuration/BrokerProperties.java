@@ -45,6 +45,7 @@ public class BrokerProperties
     public static final String PROPERTY_QPID_HOME = "QPID_HOME";
     public static final String PROPERTY_QPID_WORK = "QPID_WORK";
     public static final String POSIX_FILE_PERMISSIONS = "qpid.default_posix_file_permissions";
+    public static final String JSON_STORE_CHECKPOINT_THRESHOLD = "qpid.json_store_checkpoint_threshold";
     public static final String PROPERTY_STARTUP_FAILOVER_CONSOLE_LOG_LEVEL = "qpid.startup_failover_console_log_level";
 
     private BrokerProperties()
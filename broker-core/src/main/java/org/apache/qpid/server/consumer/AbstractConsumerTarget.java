@@ -189,6 +189,20 @@ public abstract class AbstractConsumerTarget implements ConsumerTarget
         return entry.getMessage().getSize();
     }
 
+    @Override
+    public final long send(final ConsumerImpl consumer, final List<? extends MessageInstance> entries)
+    {
+        long size = 0l;
+        for (MessageInstance entry : entries)
+        {
+            _queue.add(new ConsumerMessageInstancePair(consumer, entry, true));
+            size += entry.getMessage().getSize();
+        }
+        // one wake up of the connection for the whole batch, whose messages are written without intervening flushes
+        getSessionModel().getAMQPConnection().notifyWork();
+        return size;
+    }
+
     protected abstract void doSend(final ConsumerImpl consumer, MessageInstance entry, boolean batch);
 
     @Override
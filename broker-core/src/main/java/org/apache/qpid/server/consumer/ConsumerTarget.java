@@ -20,6 +20,8 @@
  */
 package org.apache.qpid.server.consumer;
 
+import java.util.List;
+
 import org.apache.qpid.server.message.MessageInstance;
 import org.apache.qpid.server.message.ServerMessage;
 import org.apache.qpid.server.protocol.AMQSessionModel;
@@ -60,6 +62,13 @@ public interface ConsumerTarget
 
     long send(final ConsumerImpl consumer, MessageInstance entry, boolean batch);
 
+    /**
+     * Sends the given entries, in order, as one batch.
+     *
+     * @return the total size of the messages sent
+     */
+    long send(final ConsumerImpl consumer, List<? extends MessageInstance> entries);
+
     boolean hasMessagesToSend();
 
     void sendNextMessage();
@@ -2650,7 +2650,7 @@ public abstract class AbstractConfiguredObject<X extends ConfiguredObject<X>> im
     public Map<String,Number> getStatistics()
     {
         Collection<ConfiguredObjectStatistic> stats = _model.getTypeRegistry().getStatistics(getClass());
-        Map<String,Number> map = new HashMap<String,Number>();
+        Map<String,Number> map = new HashMap<String,Number>(stats.size() * 2);
         for(ConfiguredObjectStatistic stat : stats)
         {
             map.put(stat.getName(), (Number) stat.getValue(this));
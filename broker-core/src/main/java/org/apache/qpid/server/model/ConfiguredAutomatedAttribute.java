@@ -43,9 +43,10 @@ public class ConfiguredAutomatedAttribute<C extends ConfiguredObject, T>  extend
 
     ConfiguredAutomatedAttribute(final Class<C> clazz,
                                  final Method getter,
-                                 final ManagedAttribute annotation)
+                                 final ManagedAttribute annotation,
+                                 final ConfiguredObjectAccessor accessor)
     {
-        super(clazz, getter);
+        super(clazz, getter, accessor);
         _annotation = annotation;
         Method validValuesMethod = null;
 
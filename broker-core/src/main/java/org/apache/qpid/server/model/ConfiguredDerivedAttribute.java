@@ -30,9 +30,10 @@ public class ConfiguredDerivedAttribute<C extends ConfiguredObject, T>  extends
 
     ConfiguredDerivedAttribute(final Class<C> clazz,
                                final Method getter,
-                               final DerivedAttribute annotation)
+                               final DerivedAttribute annotation,
+                               final ConfiguredObjectAccessor accessor)
     {
-        super(clazz, getter);
+        super(clazz, getter, accessor);
         _annotation = annotation;
 
         String secureValueFilter = _annotation.secureValueFilter();
@@ -27,9 +27,10 @@ import java.util.regex.Pattern;
 public abstract class ConfiguredObjectAttribute<C extends ConfiguredObject, T> extends ConfiguredObjectAttributeOrStatistic<C,T>
 {
     ConfiguredObjectAttribute(Class<C> clazz,
-                              final Method getter)
+                              final Method getter,
+                              final ConfiguredObjectAccessor accessor)
     {
-        super(getter);
+        super(getter, accessor);
         if(getter.getParameterTypes().length != 0)
         {
             throw new IllegalArgumentException("ManagedAttribute annotation should only be added to no-arg getters");
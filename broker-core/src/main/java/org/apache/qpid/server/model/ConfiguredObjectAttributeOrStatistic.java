@@ -32,11 +32,17 @@ abstract class ConfiguredObjectAttributeOrStatistic<C extends ConfiguredObject,
     private final Class<T> _type;
     private final AttributeValueConverter<T> _converter;
     private final Method _getter;
+    private final ConfiguredObjectAccessor _accessor;
 
-    ConfiguredObjectAttributeOrStatistic(final Method getter)
+    /**
+     * @param accessor generated accessor calling the getter directly, or null if the getter is to be invoked
+     * reflectively
+     */
+    ConfiguredObjectAttributeOrStatistic(final Method getter, final ConfiguredObjectAccessor accessor)
     {
 
         _getter = getter;
+        _accessor = accessor;
         _type = (Class<T>) AttributeValueConverter.getTypeFromMethod(getter);
         _name = AttributeValueConverter.getNameFromMethod(getter, getType());
         _converter = AttributeValueConverter.getConverter(getType(), getter.getGenericReturnType());
@@ -55,6 +61,10 @@ abstract class ConfiguredObjectAttributeOrStatistic<C extends ConfiguredObject,
 
     public T getValue(C configuredObject)
     {
+        if(_accessor != null)
+        {
+            return (T) _accessor.getValue(configuredObject);
+        }
         try
         {
             return (T) getGetter().invoke(configuredObject);
@@ -27,9 +27,12 @@ public final class ConfiguredObjectStatistic<C extends ConfiguredObject, T exten
 {
     private final ManagedStatistic _annotation;
 
-    ConfiguredObjectStatistic(Class<C> clazz, final Method getter, final ManagedStatistic annotation)
+    ConfiguredObjectStatistic(Class<C> clazz,
+                              final Method getter,
+                              final ManagedStatistic annotation,
+                              final ConfiguredObjectAccessor accessor)
     {
-        super(getter);
+        super(getter, accessor);
         _annotation = annotation;
         if(getter.getParameterTypes().length != 0)
         {
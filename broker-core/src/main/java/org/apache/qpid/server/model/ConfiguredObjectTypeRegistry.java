@@ -46,7 +46,9 @@ import com.google.common.util.concurrent.ListenableFuture;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.apache.qpid.server.plugin.ConfiguredObjectAccessorRegistration;
 import org.apache.qpid.server.plugin.ConfiguredObjectRegistration;
+import org.apache.qpid.server.plugin.QpidServiceLoader;
 import org.apache.qpid.server.util.Action;
 import org.apache.qpid.server.util.ServerScopedRuntimeException;
 import org.apache.qpid.util.Strings;
@@ -190,8 +192,16 @@ public class ConfiguredObjectTypeRegistry
     private final Map<Class<? extends ConfiguredObject>, Map<String, Collection<String>>> _validChildTypes =
             Collections.synchronizedMap(new HashMap<Class<? extends ConfiguredObject>, Map<String, Collection<String>>>());
 
+    private final Map<Class<? extends ConfiguredObject>, Map<String, ConfiguredObjectAccessor>> _accessors =
+            new HashMap<>();
+
     public ConfiguredObjectTypeRegistry(Iterable<ConfiguredObjectRegistration> configuredObjectRegistrations, Collection<Class<? extends ConfiguredObject>> categoriesRestriction)
     {
+        for (ConfiguredObjectAccessorRegistration registration :
+                new QpidServiceLoader().instancesOf(ConfiguredObjectAccessorRegistration.class))
+        {
+            _accessors.put(registration.getConfiguredObjectClass(), registration.getAccessors());
+        }
 
         Set<Class<? extends ConfiguredObject>> categories = new HashSet<>();
         Set<Class<? extends ConfiguredObject>> types = new HashSet<>();
@@ -666,7 +676,7 @@ public class ConfiguredObjectTypeRegistry
         {
             throw new ServerScopedRuntimeException("Can only define ManagedStatistics on interfaces which extend " + ConfiguredObject.class.getSimpleName() + ". " + clazz.getSimpleName() + " does not meet these criteria.");
         }
-        ConfiguredObjectStatistic statistic = new ConfiguredObjectStatistic(clazz, m, statAnnotation);
+        ConfiguredObjectStatistic statistic = new ConfiguredObjectStatistic(clazz, m, statAnnotation, getAccessor(clazz, m));
         if(statisticSet.contains(statistic))
         {
             statisticSet.remove(statistic);
@@ -685,7 +695,7 @@ public class ConfiguredObjectTypeRegistry
             throw new ServerScopedRuntimeException("Can only define DerivedAttributes on interfaces which extend " + ConfiguredObject.class.getSimpleName() + ". " + clazz.getSimpleName() + " does not meet these criteria.");
         }
 
-        ConfiguredObjectAttribute<?,?> attribute = new ConfiguredDerivedAttribute<>(clazz, m, annotation);
+        ConfiguredObjectAttribute<?,?> attribute = new ConfiguredDerivedAttribute<>(clazz, m, annotation, getAccessor(clazz, m));
         if(attributeSet.contains(attribute))
         {
             attributeSet.remove(attribute);
@@ -704,7 +714,7 @@ public class ConfiguredObjectTypeRegistry
             throw new ServerScopedRuntimeException("Can only define ManagedAttributes on interfaces which extend " + ConfiguredObject.class.getSimpleName() + ". " + clazz.getSimpleName() + " does not meet these criteria.");
         }
 
-        ConfiguredObjectAttribute<?,?> attribute = new ConfiguredAutomatedAttribute<>(clazz, m, annotation);
+        ConfiguredObjectAttribute<?,?> attribute = new ConfiguredAutomatedAttribute<>(clazz, m, annotation, getAccessor(clazz, m));
         if(attributeSet.contains(attribute))
         {
             attributeSet.remove(attribute);
@@ -712,6 +722,12 @@ public class ConfiguredObjectTypeRegistry
         attributeSet.add(attribute);
     }
 
+    private ConfiguredObjectAccessor getAccessor(final Class<? extends ConfiguredObject> clazz, final Method m)
+    {
+        Map<String, ConfiguredObjectAccessor> accessors = _accessors.get(clazz);
+        return accessors == null ? null : accessors.get(m.getName());
+    }
+
     private <X extends ConfiguredObject> void processManagedOperation(final Class<X> clazz,
                                                                       final Set<ConfiguredObjectOperation<?>> operationSet,
                                                                       final Method m)
@@ -60,6 +60,10 @@ public interface Queue<X extends Queue<X>> extends ConfiguredObject<X>
     String MINIMUM_MESSAGE_TTL = "minimumMessageTtl";
     String DEFAULT_FILTERS = "defaultFilters";
     String ENSURE_NONDESTRUCTIVE_CONSUMERS = "ensureNondestructiveConsumers";
+    String DUPLICATE_DETECTION_ENABLED = "duplicateDetectionEnabled";
+    String DUPLICATE_DETECTION_KEY = "duplicateDetectionKey";
+    String DUPLICATE_DETECTION_WINDOW = "duplicateDetectionWindow";
+    String DUPLICATE_DETECTION_CACHE_SIZE = "duplicateDetectionCacheSize";
 
     String QUEUE_MINIMUM_ESTIMATED_MEMORY_FOOTPRINT = "queue.minimumEstimatedMemoryFootprint";
     @ManagedContextDefault( name = QUEUE_MINIMUM_ESTIMATED_MEMORY_FOOTPRINT)
@@ -73,6 +77,10 @@ public interface Queue<X extends Queue<X>> extends ConfiguredObject<X>
     @ManagedContextDefault(name = MAX_ASYNCHRONOUS_DELIVERIES )
     int DEFAULT_MAX_ASYNCHRONOUS_DELIVERIES = 80;
 
+    String DELIVERY_BATCH_SIZE = "queue.deliveryBatchSize";
+    @ManagedContextDefault(name = DELIVERY_BATCH_SIZE)
+    int DEFAULT_DELIVERY_BATCH_SIZE = 16;
+
     @ManagedAttribute
     Exchange getAlternateExchange();
 
@@ -173,6 +181,24 @@ public interface Queue<X extends Queue<X>> extends ConfiguredObject<X>
     @ManagedAttribute
     Map<String, Map<String,List<String>>> getDefaultFilters();
 
+    @ManagedAttribute( defaultValue = "false" )
+    boolean isDuplicateDetectionEnabled();
+
+    @ManagedAttribute
+    String getDuplicateDetectionKey();
+
+    @ManagedContextDefault( name = "queue.duplicateDetectionWindow")
+    long DEFAULT_DUPLICATE_DETECTION_WINDOW = 300000l;
+
+    @ManagedAttribute( defaultValue = "${queue.duplicateDetectionWindow}")
+    long getDuplicateDetectionWindow();
+
+    @ManagedContextDefault( name = "queue.duplicateDetectionCacheSize")
+    int DEFAULT_DUPLICATE_DETECTION_CACHE_SIZE = 65536;
+
+    @ManagedAttribute( defaultValue = "${queue.duplicateDetectionCacheSize}")
+    int getDuplicateDetectionCacheSize();
+
     //children
     Collection<? extends Binding> getBindings();
 
@@ -232,6 +258,15 @@ public interface Queue<X extends Queue<X>> extends ConfiguredObject<X>
     @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME, units = StatisticUnit.MESSAGES, label = "Prefetched")
     long getUnacknowledgedMessages();
 
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.MESSAGES, label = "Duplicates Dropped")
+    long getDroppedDuplicateMessages();
+
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.COUNT, label = "Delivery Batches")
+    long getDeliveryBatchCount();
+
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.MESSAGES, label = "Delivery Batch Messages")
+    long getDeliveryBatchMessages();
+
     @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME, units = StatisticUnit.ABSOLUTE_TIME, label = "Oldest Message")
     long getOldestMessageAge();
 
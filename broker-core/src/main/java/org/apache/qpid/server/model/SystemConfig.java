@@ -40,6 +40,9 @@ public interface SystemConfig<X extends SystemConfig<X>> extends ConfiguredObjec
     @ManagedContextDefault(name = BrokerProperties.POSIX_FILE_PERMISSIONS)
     String DEFAULT_POSIX_FILE_PERMISSIONS = "rw-r-----";
 
+    @ManagedContextDefault(name = BrokerProperties.JSON_STORE_CHECKPOINT_THRESHOLD)
+    int DEFAULT_JSON_STORE_CHECKPOINT_THRESHOLD = 1000;
+
     @ManagedAttribute(defaultValue = "false")
     boolean isManagementMode();
 
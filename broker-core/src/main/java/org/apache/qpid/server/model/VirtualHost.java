@@ -62,6 +62,7 @@ public interface VirtualHost<X extends VirtualHost<X, Q, E>, Q extends Queue<?>,
     String CONNECTION_THREAD_POOL_MINIMUM       = "connectionThreadPoolMinimum";
     String CONNECTION_THREAD_POOL_MAXIMUM       = "connectionThreadPoolMaximum";
     String CONNECTION_THREAD_POOL_KEEP_ALIVE_TIMEOUT = "connectionThreadPoolKeepAliveTimeout";
+    String CONNECTION_THREAD_POOL_WORK_STEALING = "connectionThreadPoolWorkStealing";
 
     @ManagedContextDefault( name = VIRTUALHOST_WORK_DIR_VAR)
     public static final String VIRTUALHOST_WORK_DIR = VIRTUALHOST_WORK_DIR_VAR_EXPRESSION;
@@ -79,6 +80,10 @@ public interface VirtualHost<X extends VirtualHost<X, Q, E>, Q extends Queue<?>,
     @ManagedContextDefault(name = CONNECTION_THREAD_POOL_KEEP_ALIVE_TIMEOUT)
     long DEFAULT_CONNECTION_THREAD_POOL_KEEP_ALIVE_TIMEOUT = 60; // Minutes
 
+    @SuppressWarnings("unused")
+    @ManagedContextDefault(name = CONNECTION_THREAD_POOL_WORK_STEALING)
+    boolean DEFAULT_CONNECTION_THREAD_POOL_WORK_STEALING = true;
+
     @ManagedAttribute( defaultValue = "${virtualhost.housekeepingCheckPeriod}")
     long getHousekeepingCheckPeriod();
 
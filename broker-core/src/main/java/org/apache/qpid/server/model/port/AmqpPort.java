@@ -55,6 +55,7 @@ public interface AmqpPort<X extends AmqpPort<X>> extends ClientAuthCapablePort<X
     String PORT_AMQP_THREAD_POOL_MAXIMUM = "port.amqp.threadPool.maximum";
     String PORT_AMQP_THREAD_POOL_MINIMUM = "port.amqp.threadPool.minimum";
     String PORT_AMQP_THREAD_POOL_KEEP_ALIVE_TIMEOUT = "port.amqp.threadPool.keep_alive_timeout";
+    String PORT_AMQP_THREAD_POOL_WORK_STEALING = "port.amqp.threadPool.workStealing";
 
     @ManagedContextDefault(name = DEFAULT_AMQP_PROTOCOLS)
     String INSTALLED_PROTOCOLS = AmqpPortImpl.getInstalledProtocolsAsString();
@@ -76,6 +77,10 @@ public interface AmqpPort<X extends AmqpPort<X>> extends ClientAuthCapablePort<X
     @ManagedContextDefault(name = PORT_AMQP_THREAD_POOL_KEEP_ALIVE_TIMEOUT)
     long DEFAULT_PORT_AMQP_THREAD_POOL_KEEP_ALIVE_TIMEOUT = 60; // Minutes
 
+    @SuppressWarnings("unused")
+    @ManagedContextDefault(name = PORT_AMQP_THREAD_POOL_WORK_STEALING)
+    boolean DEFAULT_PORT_AMQP_THREAD_POOL_WORK_STEALING = true;
+
     String PORT_MAX_MESSAGE_SIZE = "qpid.port.max_message_size";
 
     @ManagedContextDefault(name = PORT_MAX_MESSAGE_SIZE)
@@ -86,6 +91,31 @@ public interface AmqpPort<X extends AmqpPort<X>> extends ClientAuthCapablePort<X
     @ManagedContextDefault(name = OPEN_CONNECTIONS_WARN_PERCENT)
     int DEFAULT_OPEN_CONNECTIONS_WARN_PERCENT = 80;
 
+    String PORT_OUTPUT_BATCH_SIZE = "qpid.port.output_batch_size";
+
+    @ManagedContextDefault(name = PORT_OUTPUT_BATCH_SIZE)
+    int DEFAULT_OUTPUT_BATCH_SIZE = 16 * 1024;
+
+    String PORT_OUTPUT_BATCH_DELAY = "qpid.port.output_batch_delay";
+
+    @ManagedContextDefault(name = PORT_OUTPUT_BATCH_DELAY)
+    long DEFAULT_OUTPUT_BATCH_DELAY = 0L; // Milliseconds
+
+    String PORT_ACCEPT_RATE_LIMIT = "qpid.port.accept_rate_limit";
+
+    @ManagedContextDefault(name = PORT_ACCEPT_RATE_LIMIT)
+    int DEFAULT_ACCEPT_RATE_LIMIT = -1; // Connections per second
+
+    String PORT_ACCEPT_BURST = "qpid.port.accept_burst";
+
+    @ManagedContextDefault(name = PORT_ACCEPT_BURST)
+    int DEFAULT_ACCEPT_BURST = -1;
+
+    String PORT_MAX_HANDSHAKES_IN_PROGRESS = "qpid.port.max_handshakes_in_progress";
+
+    @ManagedContextDefault(name = PORT_MAX_HANDSHAKES_IN_PROGRESS)
+    int DEFAULT_MAX_HANDSHAKES_IN_PROGRESS = -1;
+
 
     SSLContext getSSLContext();
 
@@ -129,6 +159,28 @@ public interface AmqpPort<X extends AmqpPort<X>> extends ClientAuthCapablePort<X
     @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME, units = StatisticUnit.COUNT, label = "Connections")
     int getConnectionCount();
 
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.COUNT, label = "Network writes",
+                      description = "Total number of writes to the network performed by connections on this port.")
+    long getNetworkWrites();
+
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.BYTES, label = "Network bytes written",
+                      description = "Total number of bytes written to the network by connections on this port.")
+    long getNetworkBytesWritten();
+
+    @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME, units = StatisticUnit.BYTES, label = "Bytes per network write",
+                      description = "Average number of bytes written to the network by each write.")
+    long getNetworkBytesPerWrite();
+
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.COUNT, label = "Accept deferrals",
+                      description = "Number of times the port paused accepting connections because of the accept rate"
+                                    + " limit or the bound on handshakes in progress.  Each pause is counted once,"
+                                    + " however many connections were waiting to be accepted.")
+    long getAcceptDeferrals();
+
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.COUNT, label = "Rejected connections",
+                      description = "Number of accepted connections closed because the port could not take another connection.")
+    long getRejectedConnections();
+
     VirtualHostImpl getVirtualHost(String name);
 
     boolean canAcceptNewConnection(final SocketAddress remoteSocketAddress);
@@ -140,4 +192,20 @@ public interface AmqpPort<X extends AmqpPort<X>> extends ClientAuthCapablePort<X
     VirtualHostAlias createVirtualHostAlias(Map<String, Object> attributes);
 
     int getNetworkBufferSize();
+
+    int getOutputBatchSize();
+
+    long getOutputBatchDelay();
+
+    void registerNetworkWrite(long bytesWritten);
+
+    int getAcceptRateLimit();
+
+    int getAcceptBurst();
+
+    int getMaxHandshakesInProgress();
+
+    void registerAcceptDeferral();
+
+    void registerRejectedConnection();
 }
@@ -33,6 +33,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.TreeSet;
 
 import javax.net.ssl.KeyManager;
@@ -122,6 +123,10 @@ public class AmqpPortImpl extends AbstractClientAuthCapablePortWithAuthProvider<
 
     private final AtomicInteger _connectionCount = new AtomicInteger();
     private final AtomicBoolean _connectionCountWarningGiven = new AtomicBoolean();
+    private final AtomicLong _networkWrites = new AtomicLong();
+    private final AtomicLong _networkBytesWritten = new AtomicLong();
+    private final AtomicLong _acceptDeferrals = new AtomicLong();
+    private final AtomicLong _rejectedConnections = new AtomicLong();
 
     private final Broker<?> _broker;
     private AcceptingTransport _transport;
@@ -309,6 +314,18 @@ public class AmqpPortImpl extends AbstractClientAuthCapablePortWithAuthProvider<
         return _broker.getNetworkBufferSize();
     }
 
+    @Override
+    public int getOutputBatchSize()
+    {
+        return getContextValue(Integer.class, PORT_OUTPUT_BATCH_SIZE);
+    }
+
+    @Override
+    public long getOutputBatchDelay()
+    {
+        return getContextValue(Long.class, PORT_OUTPUT_BATCH_DELAY);
+    }
+
     private VirtualHostAlias addVirtualHostAlias(Map<String,Object> attributes)
     {
         return getObjectFactory().create(VirtualHostAlias.class, attributes, this);
@@ -594,4 +611,72 @@ public class AmqpPortImpl extends AbstractClientAuthCapablePortWithAuthProvider<
     {
         return _connectionCount.get();
     }
+
+    @Override
+    public int getAcceptRateLimit()
+    {
+        return getContextValue(Integer.class, PORT_ACCEPT_RATE_LIMIT);
+    }
+
+    @Override
+    public int getAcceptBurst()
+    {
+        return getContextValue(Integer.class, PORT_ACCEPT_BURST);
+    }
+
+    @Override
+    public int getMaxHandshakesInProgress()
+    {
+        return getContextValue(Integer.class, PORT_MAX_HANDSHAKES_IN_PROGRESS);
+    }
+
+    @Override
+    public void registerAcceptDeferral()
+    {
+        _acceptDeferrals.incrementAndGet();
+    }
+
+    @Override
+    public void registerRejectedConnection()
+    {
+        _rejectedConnections.incrementAndGet();
+    }
+
+    @Override
+    public long getAcceptDeferrals()
+    {
+        return _acceptDeferrals.get();
+    }
+
+    @Override
+    public long getRejectedConnections()
+    {
+        return _rejectedConnections.get();
+    }
+
+    @Override
+    public void registerNetworkWrite(final long bytesWritten)
+    {
+        _networkWrites.incrementAndGet();
+        _networkBytesWritten.addAndGet(bytesWritten);
+    }
+
+    @Override
+    public long getNetworkWrites()
+    {
+        return _networkWrites.get();
+    }
+
+    @Override
+    public long getNetworkBytesWritten()
+    {
+        return _networkBytesWritten.get();
+    }
+
+    @Override
+    public long getNetworkBytesPerWrite()
+    {
+        final long writes = _networkWrites.get();
+        return writes == 0L ? 0L : _networkBytesWritten.get() / writes;
+    }
 }
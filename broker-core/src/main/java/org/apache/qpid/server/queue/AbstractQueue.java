@@ -161,7 +161,8 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
 
     private final AtomicLong _targetQueueSize = new AtomicLong(INITIAL_TARGET_QUEUE_SIZE);
 
-    private final AtomicInteger _activeSubscriberCount = new AtomicInteger();
+    /** the consumers currently with credit, to which straight through delivery offers new entries */
+    private final QueueConsumerList _consumersWithCredit = new QueueConsumerList();
 
     private final AtomicLong _totalMessagesReceived = new AtomicLong();
 
@@ -175,6 +176,9 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
     private final AtomicLong _persistentMessageDequeueCount = new AtomicLong();
     private final AtomicLong _unackedMsgCount = new AtomicLong(0);
     private final AtomicLong _unackedMsgBytes = new AtomicLong();
+    private final AtomicLong _droppedDuplicateMessages = new AtomicLong();
+    private final AtomicLong _deliveryBatchCount = new AtomicLong();
+    private final AtomicLong _deliveryBatchMessages = new AtomicLong();
 
     private final AtomicInteger _bindingCountHigh = new AtomicInteger();
 
@@ -220,6 +224,7 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
 
 
     private int _maxAsyncDeliveries;
+    private int _deliveryBatchSize = Queue.DEFAULT_DELIVERY_BATCH_SIZE;
 
     private final AtomicLong _stateChangeCount = new AtomicLong(Long.MIN_VALUE);
 
@@ -267,6 +272,16 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
     private long _maximumMessageTtl;
     @ManagedAttributeField
     private boolean _ensureNondestructiveConsumers;
+    @ManagedAttributeField
+    private boolean _duplicateDetectionEnabled;
+    @ManagedAttributeField
+    private String _duplicateDetectionKey;
+    @ManagedAttributeField
+    private long _duplicateDetectionWindow;
+    @ManagedAttributeField
+    private int _duplicateDetectionCacheSize;
+
+    private volatile DuplicateMessageDetector _duplicateDetector;
 
     private static final int RECOVERING = 1;
     private static final int COMPLETING_RECOVERY = 2;
@@ -338,6 +353,7 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
         {
             throw new IllegalConfigurationException("Flow resume size can't be greater than flow control size");
         }
+        validateDuplicateDetection(this);
     }
 
     @Override
@@ -467,7 +483,10 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
             _messageGroupManager = null;
         }
 
+        updateDuplicateDetector();
+
         _maxAsyncDeliveries = getContextValue(Integer.class, Queue.MAX_ASYNCHRONOUS_DELIVERIES);
+        _deliveryBatchSize = Math.max(getContextValue(Integer.class, Queue.DELIVERY_BATCH_SIZE), 1);
 
         if(_defaultFilters != null)
         {
@@ -875,11 +894,6 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
             _exclusiveSubscriber = consumer;
         }
 
-        if(consumer.isActive())
-        {
-            _activeSubscriberCount.incrementAndGet();
-        }
-
         consumer.setStateListener(this);
         QueueContext queueContext;
         if(filters == null || !filters.startAtTail())
@@ -895,6 +909,7 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
         if (!isDeleted())
         {
             _consumerList.add(consumer);
+            updateConsumerWithCredit(consumer, queueContext);
 
             if (isDeleted())
             {
@@ -938,7 +953,12 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
             // No longer can the queue have an exclusive consumer
             setExclusiveSubscriber(null);
 
+            final QueueContext queueContext = consumer.getQueueContext();
             consumer.setQueueContext(null);
+            if (queueContext != null)
+            {
+                updateConsumerWithCredit(consumer, queueContext);
+            }
 
             if(_exclusive == ExclusivityPolicy.LINK)
             {
@@ -1062,6 +1082,23 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
 
     public final void enqueue(ServerMessage message, Action<? super MessageInstance> action, MessageEnqueueRecord enqueueRecord)
     {
+        final DuplicateMessageDetector duplicateDetector = _duplicateDetector;
+        if(duplicateDetector != null && duplicateDetector.isDuplicate(message))
+        {
+            // the action is not performed: it acts on the queue entry, and no entry is created for a duplicate.  The
+            // checks it makes (queue capacity, immediate delivery) concern the entry of the original message, which
+            // is unaffected by dropping the duplicate.
+            dropDuplicate(message, enqueueRecord);
+            return;
+        }
+
+        final EnqueueBatch batch = EnqueueBatch.current();
+        if(batch != null && _recovering.get() == RECOVERED)
+        {
+            batch.add(this, new EnqueueRequest(message, action, enqueueRecord));
+            return;
+        }
+
         incrementQueueCount();
         incrementQueueSize(message);
 
@@ -1105,6 +1142,63 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
 
     }
 
+    /**
+     * Enqueues the messages collected for this queue by an {@link EnqueueBatch}, updating the queue's counters once
+     * for the whole batch.
+     */
+    final void enqueue(final List<EnqueueRequest> requests)
+    {
+        try
+        {
+            final int count = requests.size();
+            long size = 0l;
+            long persistentSize = 0l;
+            int persistentCount = 0;
+            for (EnqueueRequest request : requests)
+            {
+                final ServerMessage message = request.getMessage().getMessage();
+                size += message.getSize();
+                if (message.isPersistent() && isDurable())
+                {
+                    persistentSize += message.getSize();
+                    persistentCount++;
+                }
+            }
+
+            getAtomicQueueCount().addAndGet(count);
+            getAtomicQueueSize().addAndGet(size);
+            _enqueueCount.addAndGet(count);
+            _enqueueSize.addAndGet(size);
+            if (persistentCount != 0)
+            {
+                _persistentMessageEnqueueSize.addAndGet(persistentSize);
+                _persistentMessageEnqueueCount.addAndGet(persistentCount);
+            }
+            _totalMessagesReceived.addAndGet(count);
+
+            if((_atomicQueueSize.get() + _atomicQueueCount.get()*1024l) > _targetQueueSize.get())
+            {
+                for (EnqueueRequest request : requests)
+                {
+                    final StoredMessage<?> storedMessage = request.getMessage().getMessage().getStoredMessage();
+                    if (storedMessage.isInMemory())
+                    {
+                        storedMessage.flowToDisk();
+                    }
+                }
+            }
+
+            doEnqueue(requests);
+        }
+        finally
+        {
+            for (EnqueueRequest request : requests)
+            {
+                request.getMessage().release();
+            }
+        }
+    }
+
     public final void recover(ServerMessage message, final MessageEnqueueRecord enqueueRecord)
     {
         incrementQueueCount();
@@ -1112,9 +1206,48 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
 
         _totalMessagesReceived.incrementAndGet();
 
+        final DuplicateMessageDetector duplicateDetector = _duplicateDetector;
+        if(duplicateDetector != null)
+        {
+            duplicateDetector.record(message);
+        }
+
         doEnqueue(message, null, enqueueRecord);
     }
 
+    private void updateDuplicateDetector()
+    {
+        if(isDuplicateDetectionEnabled())
+        {
+            _duplicateDetector = new DuplicateMessageDetector(getDuplicateDetectionKey(),
+                                                              getDuplicateDetectionWindow(),
+                                                              getDuplicateDetectionCacheSize());
+        }
+        else
+        {
+            _duplicateDetector = null;
+        }
+    }
+
+    private void dropDuplicate(final ServerMessage message, final MessageEnqueueRecord enqueueRecord)
+    {
+        _droppedDuplicateMessages.incrementAndGet();
+        _logger.debug("Dropping message {} already enqueued to queue '{}'", message.getMessageNumber(), getName());
+
+        ServerTransaction txn = new AutoCommitTransaction(getVirtualHost().getMessageStore());
+        txn.dequeue(enqueueRecord,
+                    new ServerTransaction.Action()
+                    {
+                        public void postCommit()
+                        {
+                        }
+
+                        public void onRollback()
+                        {
+                        }
+                    });
+    }
+
 
     @Override
     public final void completeRecovery()
@@ -1189,6 +1322,75 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
 
     }
 
+    /**
+     * Appends a batch of messages to the queue's entries together, notifying the consumers once for the batch.
+     */
+    protected void doEnqueue(final List<EnqueueRequest> requests)
+    {
+        final QueueConsumer<?> exclusiveSub = _exclusiveSubscriber;
+        final List<ServerMessage> messages = new ArrayList<>(requests.size());
+        final List<MessageEnqueueRecord> enqueueRecords = new ArrayList<>(requests.size());
+        for (EnqueueRequest request : requests)
+        {
+            messages.add(request.getMessage().getMessage());
+            enqueueRecords.add(request.getEnqueueRecord());
+        }
+
+        final List<QueueEntry> entries = getEntries().add(messages, enqueueRecords);
+        for (QueueEntry entry : entries)
+        {
+            updateExpiration(entry);
+        }
+
+        try
+        {
+            final boolean deliverAll = exclusiveSub == null && _queueRunner.isIdle();
+            AccessController.doPrivileged(
+                    new PrivilegedAction<Void>()
+                    {
+                        @Override
+                        public Void run()
+                        {
+                            for (int i = 0; i < entries.size(); i++)
+                            {
+                                if (deliverAll || requests.get(i).getAction() != null)
+                                {
+                                    tryDeliverStraightThrough(entries.get(i));
+                                }
+                            }
+                            return null;
+                        }
+                    }, _immediateDeliveryContext);
+
+            boolean available = false;
+            for (QueueEntry entry : entries)
+            {
+                if (entry.isAvailable())
+                {
+                    checkConsumersNotAheadOfDelivery(entry);
+                    available = true;
+                }
+                checkForNotification(entry.getMessage());
+            }
+
+            if (available)
+            {
+                deliverAsync();
+            }
+        }
+        finally
+        {
+            for (int i = 0; i < entries.size(); i++)
+            {
+                final Action<? super MessageInstance> action = requests.get(i).getAction();
+                if (action != null)
+                {
+                    action.performAction(entries.get(i));
+                }
+            }
+        }
+    }
+
     private void updateExpiration(final QueueEntry entry)
     {
         long expiration = entry.getMessage().getExpiration();
@@ -1224,32 +1426,32 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
     }
 
     /**
-     * iterate over consumers and if any is at the end of the queue and can deliver this message,
-     * then deliver the message
+     * iterate over the consumers with credit and if any is at the end of the queue and can deliver this message,
+     * then deliver the message.  Consumers without credit are not in the list, so are not visited.
      */
     private void tryDeliverStraightThrough(final QueueEntry entry)
     {
         try
         {
-            QueueConsumerList.ConsumerNode node = _consumerList.getMarkedNode();
+            QueueConsumerList.ConsumerNode node = _consumersWithCredit.getMarkedNode();
             QueueConsumerList.ConsumerNode nextNode = node.findNext();
             if (nextNode == null)
             {
-                nextNode = _consumerList.getHead().findNext();
+                nextNode = _consumersWithCredit.getHead().findNext();
             }
             while (nextNode != null)
             {
-                if (_consumerList.updateMarkedNode(node, nextNode))
+                if (_consumersWithCredit.updateMarkedNode(node, nextNode))
                 {
                     break;
                 }
                 else
                 {
-                    node = _consumerList.getMarkedNode();
+                    node = _consumersWithCredit.getMarkedNode();
                     nextNode = node.findNext();
                     if (nextNode == null)
                     {
-                        nextNode = _consumerList.getHead().findNext();
+                        nextNode = _consumersWithCredit.getHead().findNext();
                     }
                 }
             }
@@ -1262,7 +1464,7 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
                 if (nextNode == null)
                 {
                     loops--;
-                    nextNode = _consumerList.getHead();
+                    nextNode = _consumersWithCredit.getHead();
                 }
                 else
                 {
@@ -1396,6 +1598,24 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
         return _enqueueCount.get();
     }
 
+    @Override
+    public long getDroppedDuplicateMessages()
+    {
+        return _droppedDuplicateMessages.get();
+    }
+
+    @Override
+    public long getDeliveryBatchCount()
+    {
+        return _deliveryBatchCount.get();
+    }
+
+    @Override
+    public long getDeliveryBatchMessages()
+    {
+        return _deliveryBatchMessages.get();
+    }
+
     private void incrementQueueCount()
     {
         getAtomicQueueCount().incrementAndGet();
@@ -1529,7 +1749,7 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
 
     public int getConsumerCountWithCredit()
     {
-        return _activeSubscriberCount.get();
+        return _consumersWithCredit.size();
     }
 
     public boolean isUnused()
@@ -1643,19 +1863,40 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
 
     public void stateChanged(QueueConsumer<?> sub, State oldState, State newState)
     {
-        if (oldState == State.ACTIVE && newState != State.ACTIVE)
+        final QueueContext queueContext = sub.getQueueContext();
+        if (queueContext != null)
         {
-            _activeSubscriberCount.decrementAndGet();
+            updateConsumerWithCredit(sub, queueContext);
+        }
 
+        if (newState == State.ACTIVE)
+        {
+            deliverAsync();
         }
-        else if (newState == State.ACTIVE)
+    }
+
+    /**
+     * Brings the consumer's membership of the list of consumers with credit into line with its current state.  The
+     * consumer's queue context serialises the updates for each consumer, so a consumer is never listed twice and is
+     * never left listed once it has been unregistered, however its state changes race with each other.
+     */
+    private void updateConsumerWithCredit(final QueueConsumer<?> sub, final QueueContext queueContext)
+    {
+        synchronized (queueContext)
         {
-            if (oldState != State.ACTIVE)
+            final boolean withCredit = sub.isActive() && sub.getQueueContext() == queueContext;
+            if (withCredit != queueContext.isWithCredit())
             {
-                _activeSubscriberCount.incrementAndGet();
-
+                if (withCredit)
+                {
+                    _consumersWithCredit.add(sub);
+                }
+                else
+                {
+                    _consumersWithCredit.remove(sub);
+                }
+                queueContext.setWithCredit(withCredit);
             }
-            deliverAsync();
         }
     }
 
@@ -2084,6 +2325,7 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
         final boolean keepSendLockHeld = iterations <=  getMaxAsyncDeliveries();
         boolean queueEmpty = false;
         boolean deliveryAttempted = false;
+        final List<QueueEntry> deliveries = new ArrayList<>(_deliveryBatchSize);
 
         try
         {
@@ -2100,19 +2342,26 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
                         sub.getSendLock();
                     }
 
-                    atTail = attemptDelivery(sub, true);
-                    deliveryAttempted = true;
-                    if (atTail && getNextAvailableEntry(sub) == null)
+                    // make up to a batch of delivery attempts for each acquisition of the send lock
+                    int attempts = 0;
+                    do
                     {
-                        queueEmpty = true;
-                    }
-                    else if (!atTail)
-                    {
-                        iterations--;
+                        atTail = attemptDelivery(sub, deliveries);
+                        deliveryAttempted = true;
+                        if (atTail && getNextAvailableEntry(sub) == null)
+                        {
+                            queueEmpty = true;
+                        }
+                        else if (!atTail)
+                        {
+                            iterations--;
+                        }
                     }
+                    while (!atTail && iterations != 0 && ++attempts < _deliveryBatchSize && !sub.isSuspended());
                 }
                 finally
                 {
+                    sendDeliveries(sub, deliveries);
                     if(!keepSendLockHeld)
                     {
                         sub.releaseSendLock();
@@ -2156,14 +2405,16 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
     /**
      * Attempt delivery for the given consumer.
      *
-     * Looks up the next node for the consumer and attempts to deliver it.
+     * Looks up the next node for the consumer and attempts to deliver it.  A delivered node is acquired and added to
+     * the given deliveries, which must be passed to {@link #sendDeliveries(QueueConsumer, List)} before the send lock
+     * is released.
      *
      *
      * @param sub the consumer
-     * @param batch true if processing can be batched
+     * @param deliveries the nodes delivered to the consumer but not yet sent
      * @return true if we have completed all possible deliveries for this sub.
      */
-    private boolean attemptDelivery(QueueConsumer<?> sub, boolean batch)
+    private boolean attemptDelivery(QueueConsumer<?> sub, List<QueueEntry> deliveries)
     {
         boolean atTail = false;
 
@@ -2199,7 +2450,9 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
                             }
                             else
                             {
-                                deliverMessage(sub, node, batch);
+                                setLastSeenEntry(sub, node);
+                                _deliveredMessages.incrementAndGet();
+                                deliveries.add(node);
                             }
                         }
                         finally
@@ -2225,6 +2478,26 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
         return atTail || !subActive;
     }
 
+    /**
+     * Sends the nodes delivered to the consumer to it as one batch.  The send lock must be held.
+     */
+    private void sendDeliveries(QueueConsumer<?> sub, List<QueueEntry> deliveries)
+    {
+        if (!deliveries.isEmpty())
+        {
+            try
+            {
+                sub.send(deliveries);
+            }
+            finally
+            {
+                _deliveryBatchCount.incrementAndGet();
+                _deliveryBatchMessages.addAndGet(deliveries.size());
+                deliveries.clear();
+            }
+        }
+    }
+
     protected void advanceAllConsumers()
     {
         QueueConsumerList.ConsumerNodeIterator consumerNodeIterator = _consumerList.iterator();
@@ -2334,6 +2607,7 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
         final int numSubs = _consumerList.size();
 
         final int perSub = Math.max(iterations / Math.max(numSubs,1), 1);
+        final List<QueueEntry> deliveries = new ArrayList<>(Math.min(perSub, _deliveryBatchSize));
 
         // For every message enqueue/requeue the we fire deliveryAsync() which
         // increases _stateChangeCount. If _sCC changes whilst we are in our loop
@@ -2370,9 +2644,10 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
                         for(int i = 0 ; i < perSub; i++)
                         {
                             //attempt delivery. returns true if no further delivery currently possible to this sub
-                            consumerDone = attemptDelivery(sub, true);
+                            consumerDone = attemptDelivery(sub, deliveries);
                             if (consumerDone)
                             {
+                                sendDeliveries(sub, deliveries);
                                 sub.flushBatched();
                                 boolean noMore = getNextAvailableEntry(sub) == null;
                                 if (lastLoop && noMore)
@@ -2389,17 +2664,24 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
                                 lastLoop = false;
                                 if(--iterations == 0)
                                 {
+                                    sendDeliveries(sub, deliveries);
                                     sub.flushBatched();
                                     break;
                                 }
+                                if(deliveries.size() >= _deliveryBatchSize)
+                                {
+                                    sendDeliveries(sub, deliveries);
+                                }
                             }
 
                         }
 
+                        sendDeliveries(sub, deliveries);
                         sub.flushBatched();
                     }
                     finally
                     {
+                        sendDeliveries(sub, deliveries);
                         sub.releaseSendLock();
                     }
             }
@@ -3103,6 +3385,30 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
         return _messageGroupKey;
     }
 
+    @Override
+    public boolean isDuplicateDetectionEnabled()
+    {
+        return _duplicateDetectionEnabled;
+    }
+
+    @Override
+    public String getDuplicateDetectionKey()
+    {
+        return _duplicateDetectionKey;
+    }
+
+    @Override
+    public long getDuplicateDetectionWindow()
+    {
+        return _duplicateDetectionWindow;
+    }
+
+    @Override
+    public int getDuplicateDetectionCacheSize()
+    {
+        return _duplicateDetectionCacheSize;
+    }
+
     @Override
     public boolean isMessageGroupSharedGroups()
     {
@@ -3227,6 +3533,8 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
             throw new IllegalConfigurationException("Message durability cannot be modified after queue creation");
         }
 
+        validateDuplicateDetection(queue);
+
         for (String attrName : NON_NEGATIVE_NUMBERS)
         {
             if (changedAttributes.contains(attrName))
@@ -3242,6 +3550,40 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
         }
     }
 
+    private static void validateDuplicateDetection(final Queue<?> queue)
+    {
+        if (queue.getDuplicateDetectionWindow() <= 0)
+        {
+            throw new IllegalConfigurationException("Duplicate detection window must be greater than zero");
+        }
+        int cacheSize = queue.getDuplicateDetectionCacheSize();
+        if (cacheSize <= 0 || cacheSize > DuplicateMessageDetector.MAX_CAPACITY)
+        {
+            throw new IllegalConfigurationException("Duplicate detection cache size must be between 1 and "
+                                                    + DuplicateMessageDetector.MAX_CAPACITY);
+        }
+    }
+
+    @Override
+    protected void changeAttributes(final Map<String, Object> attributes)
+    {
+        final boolean enabled = isDuplicateDetectionEnabled();
+        final String key = getDuplicateDetectionKey();
+        final long window = getDuplicateDetectionWindow();
+        final int cacheSize = getDuplicateDetectionCacheSize();
+
+        super.changeAttributes(attributes);
+
+        // a new detector forgets the ids remembered so far, so only replace it if its settings have changed
+        if (enabled != isDuplicateDetectionEnabled()
+            || (key == null ? getDuplicateDetectionKey() != null : !key.equals(getDuplicateDetectionKey()))
+            || window != getDuplicateDetectionWindow()
+            || cacheSize != getDuplicateDetectionCacheSize())
+        {
+            updateDuplicateDetector();
+        }
+    }
+
     private class DeletedChildListener implements ConfigurationChangeListener
     {
         @Override
@@ -3287,7 +3629,7 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
         }
     }
 
-    private static class EnqueueRequest
+    static class EnqueueRequest
     {
         private final MessageReference<?> _message;
         private final Action<? super MessageInstance> _action;
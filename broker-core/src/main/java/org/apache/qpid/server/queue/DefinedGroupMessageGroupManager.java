@@ -29,18 +29,27 @@ import org.slf4j.LoggerFactory;
 import org.apache.qpid.server.message.AMQMessageHeader;
 import org.apache.qpid.server.message.ServerMessage;
 
-import java.util.HashMap;
-import java.util.Map;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
+/**
+ * Assigns each message group to a single consumer at a time.
+ *
+ * The state of a group is guarded by one of a fixed set of locks chosen by the group key, so that consumers working on
+ * different groups do not contend.
+ */
 public class DefinedGroupMessageGroupManager implements MessageGroupManager
 {
     private static final Logger _logger = LoggerFactory.getLogger(DefinedGroupMessageGroupManager.class);
 
+    private static final int LOCK_STRIPES = 64;
+
     private final String _groupId;
     private final String _defaultGroup;
-    private final Map<Object, Group> _groupMap = new HashMap<Object, Group>();
+    private final ConcurrentMap<Object, Group> _groupMap = new ConcurrentHashMap<Object, Group>();
+    private final Object[] _locks = new Object[LOCK_STRIPES];
     private final ConsumerResetHelper _resetHelper;
 
     private final class Group
@@ -83,7 +92,7 @@ public class DefinedGroupMessageGroupManager implements MessageGroupManager
                     _skippedEntries.clear();
                 }
                 _consumer = null;
-                _groupMap.remove(_group);
+                _groupMap.remove(_group, this);
             }
         }
 
@@ -115,6 +124,11 @@ public class DefinedGroupMessageGroupManager implements MessageGroupManager
             return !(_consumer == null || (_activeCount == 0 && _consumer.isClosed()));
         }
 
+        public Object getKey()
+        {
+            return _group;
+        }
+
         public QueueConsumer<?> getConsumer()
         {
             return _consumer;
@@ -141,29 +155,40 @@ public class DefinedGroupMessageGroupManager implements MessageGroupManager
         _groupId = groupId;
         _defaultGroup = defaultGroup;
         _resetHelper = resetHelper;
+        for(int i = 0; i < LOCK_STRIPES; i++)
+        {
+            _locks[i] = new Object();
+        }
     }
     
-    public synchronized boolean mightAssign(final QueueEntry entry, final QueueConsumer sub)
+    public boolean mightAssign(final QueueEntry entry, final QueueConsumer sub)
     {
         Object groupId = getKey(entry);
 
-        Group group = _groupMap.get(groupId);
-        final boolean possibleAssignment = group == null || !group.isValid() || group.getConsumer() == sub;
-        if(!possibleAssignment)
+        synchronized (getLock(groupId))
         {
-            group.addSkippedEntry(entry);
+            Group group = _groupMap.get(groupId);
+            final boolean possibleAssignment = group == null || !group.isValid() || group.getConsumer() == sub;
+            if(!possibleAssignment)
+            {
+                group.addSkippedEntry(entry);
+            }
+            return possibleAssignment;
         }
-        return possibleAssignment;
     }
 
-    public synchronized boolean acceptMessage(final QueueConsumer<?> sub, final QueueEntry entry)
+    public boolean acceptMessage(final QueueConsumer<?> sub, final QueueEntry entry)
     {
-        return assignMessage(sub, entry) && entry.acquire(sub);
+        Object groupId = getKey(entry);
+
+        synchronized (getLock(groupId))
+        {
+            return assignMessage(sub, entry, groupId) && entry.acquire(sub);
+        }
     }
 
-    private boolean assignMessage(final QueueConsumer<?> sub, final QueueEntry entry)
+    private boolean assignMessage(final QueueConsumer<?> sub, final QueueEntry entry, final Object groupId)
     {
-        Object groupId = getKey(entry);
         Group group = _groupMap.get(groupId);
 
         if(group == null || !group.isValid())
@@ -195,7 +220,7 @@ public class DefinedGroupMessageGroupManager implements MessageGroupManager
         }
     }
 
-    public synchronized QueueEntry findEarliestAssignedAvailableEntry(final QueueConsumer<?> sub)
+    public QueueEntry findEarliestAssignedAvailableEntry(final QueueConsumer<?> sub)
     {
         EntryFinder visitor = new EntryFinder(sub);
         sub.getQueue().visit(visitor);
@@ -221,15 +246,18 @@ public class DefinedGroupMessageGroupManager implements MessageGroupManager
 
             Object groupId = getKey(entry);
 
-            Group group = _groupMap.get(groupId);
-            if(group != null && group.getConsumer() == _sub)
-            {
-                _entry = entry;
-                return true;
-            }
-            else
+            synchronized (getLock(groupId))
             {
-                return false;
+                Group group = _groupMap.get(groupId);
+                if(group != null && group.getConsumer() == _sub)
+                {
+                    _entry = entry;
+                    return true;
+                }
+                else
+                {
+                    return false;
+                }
             }
         }
 
@@ -243,6 +271,13 @@ public class DefinedGroupMessageGroupManager implements MessageGroupManager
     public void clearAssignments(final QueueConsumer<?> sub)
     {
     }
+
+    private Object getLock(final Object groupId)
+    {
+        int hash = groupId.hashCode();
+        hash ^= (hash >>> 16);
+        return _locks[hash & (LOCK_STRIPES - 1)];
+    }
     
     private Object getKey(QueueEntry entry)
     {
@@ -269,7 +304,7 @@ public class DefinedGroupMessageGroupManager implements MessageGroupManager
                                  final MessageInstance.State oldState,
                                  final MessageInstance.State newState)
         {
-            synchronized (DefinedGroupMessageGroupManager.this)
+            synchronized (getLock(_group.getKey()))
             {
                 if(_group.isValid())
                 {
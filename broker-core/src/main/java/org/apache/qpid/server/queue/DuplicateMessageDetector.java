@@ -0,0 +1,221 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.queue;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.apache.qpid.server.message.AMQMessageHeader;
+import org.apache.qpid.server.message.ServerMessage;
+
+/**
+ * Remembers the ids of the messages recently enqueued to a queue, so that a message published again, for instance by
+ * a producer retrying after fail-over, can be recognised and dropped.
+ *
+ * Ids are remembered for a time window in a fixed size open addressing table of id hashes and timestamps held in
+ * primitive arrays, so remembering an id creates no garbage and the table never grows.  A slot whose id is older
+ * than the window is reused, and when every slot an id may occupy is in use the oldest of them is reused, forgetting
+ * its id early.  Looking an id up takes no lock; recording one takes one of a set of locks chosen by its hash, so that
+ * two publications of the same id cannot both be taken as new.  A slot is claimed with a marker before its timestamp
+ * is written and the hash published, and readers check the hash again after reading the timestamp, so an id is never
+ * paired with the timestamp of another.
+ *
+ * Ids are compared by their 64 bit hash, so two different ids with the same hash would be taken as the same message.
+ */
+class DuplicateMessageDetector
+{
+    static final int MAX_CAPACITY = 1 << 20;
+
+    private static final int MAX_PROBES = 16;
+    private static final int LOCK_STRIPES = 64;
+    private static final long EMPTY = 0L;
+    private static final long CLAIMED = -1L;
+
+    private final String _key;
+    private final long _window;
+    private final int _mask;
+    private final AtomicLongArray _hashes;
+    private final AtomicLongArray _timestamps;
+    private final Object[] _locks = new Object[LOCK_STRIPES];
+
+    /**
+     * @param key the header identifying a message, or null to identify messages by their message id
+     * @param window the time in milliseconds for which an id is remembered
+     * @param capacity the number of ids that may be remembered at once
+     */
+    DuplicateMessageDetector(final String key, final long window, final int capacity)
+    {
+        _key = key;
+        _window = window;
+        int slots = Integer.highestOneBit(Math.min(Math.max(capacity, MAX_PROBES), MAX_CAPACITY) * 2 - 1) << 1;
+        _mask = slots - 1;
+        _hashes = new AtomicLongArray(slots);
+        _timestamps = new AtomicLongArray(slots);
+        for (int i = 0; i < LOCK_STRIPES; i++)
+        {
+            _locks[i] = new Object();
+        }
+    }
+
+    /**
+     * Records the id of the given message unless it was recorded within the window.
+     *
+     * @return true if the message has the id of a message already seen within the window
+     */
+    boolean isDuplicate(final ServerMessage<?> message)
+    {
+        final Object id = getId(message);
+        if (id == null)
+        {
+            return false;
+        }
+        final long hash = hash(id);
+        final long now = System.currentTimeMillis();
+        if (find(hash, now) >= 0)
+        {
+            return true;
+        }
+        synchronized (_locks[(int) hash & (LOCK_STRIPES - 1)])
+        {
+            if (find(hash, now) >= 0)
+            {
+                return true;
+            }
+            record(hash, now);
+            return false;
+        }
+    }
+
+    /**
+     * Records the id of the given message, such as one recovered from the store, without checking it.
+     */
+    void record(final ServerMessage<?> message)
+    {
+        final Object id = getId(message);
+        if (id != null)
+        {
+            final long hash = hash(id);
+            synchronized (_locks[(int) hash & (LOCK_STRIPES - 1)])
+            {
+                record(hash, System.currentTimeMillis());
+            }
+        }
+    }
+
+    private Object getId(final ServerMessage<?> message)
+    {
+        final AMQMessageHeader header = message.getMessageHeader();
+        if (header == null)
+        {
+            return null;
+        }
+        return _key == null ? header.getMessageId() : header.getHeader(_key);
+    }
+
+    private int find(final long hash, final long now)
+    {
+        final int start = index(hash);
+        for (int i = 0; i < MAX_PROBES; i++)
+        {
+            final int slot = (start + i) & _mask;
+            final long slotHash = _hashes.get(slot);
+            if (slotHash == EMPTY)
+            {
+                // slots are never emptied, so the id cannot be further on
+                return -1;
+            }
+            else if (slotHash == hash)
+            {
+                final long timestamp = _timestamps.get(slot);
+                // the slot may have been claimed for another id while its timestamp was read
+                if (now - timestamp < _window && _hashes.get(slot) == hash)
+                {
+                    return slot;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private void record(final long hash, final long now)
+    {
+        final int start = index(hash);
+        for (int attempt = 0; attempt < MAX_PROBES; attempt++)
+        {
+            int chosen = -1;
+            long chosenHash = EMPTY;
+            long chosenTimestamp = Long.MAX_VALUE;
+            for (int i = 0; i < MAX_PROBES; i++)
+            {
+                final int slot = (start + i) & _mask;
+                final long slotHash = _hashes.get(slot);
+                if (slotHash == CLAIMED)
+                {
+                    continue;
+                }
+                final long timestamp = _timestamps.get(slot);
+                if (slotHash == EMPTY || now - timestamp >= _window)
+                {
+                    chosen = slot;
+                    chosenHash = slotHash;
+                    break;
+                }
+                else if (timestamp < chosenTimestamp)
+                {
+                    chosen = slot;
+                    chosenHash = slotHash;
+                    chosenTimestamp = timestamp;
+                }
+            }
+
+            // another id hashing to a different lock may be claiming the same slot
+            if (chosen >= 0 && _hashes.compareAndSet(chosen, chosenHash, CLAIMED))
+            {
+                _timestamps.set(chosen, now);
+                _hashes.set(chosen, hash);
+                return;
+            }
+        }
+    }
+
+    private int index(final long hash)
+    {
+        return (int) (hash ^ (hash >>> 32)) & _mask;
+    }
+
+    private static long hash(final Object id)
+    {
+        final String value = String.valueOf(id);
+
+        // 64 bit FNV-1a over the characters of the id, followed by a final avalanche
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++)
+        {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash == EMPTY || hash == CLAIMED ? 1L : hash;
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.queue;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects the messages enqueued by a thread between {@link #start()} and {@link #complete()}, such as those of a
+ * committed transaction or of the publishes completed at the end of a batch of frames, so that the messages for each
+ * queue are appended to it together when the batch completes.  A queue then links the whole batch to its tail at
+ * once, updates its counters once and wakes its consumers once rather than for every message.
+ *
+ * Batches started while another is in progress on the same thread are completed independently of it.
+ */
+public final class EnqueueBatch
+{
+    private static final ThreadLocal<EnqueueBatch> CURRENT = new ThreadLocal<>();
+
+    private final EnqueueBatch _enclosingBatch;
+    private final Map<AbstractQueue<?>, List<AbstractQueue.EnqueueRequest>> _requests = new LinkedHashMap<>();
+
+    private EnqueueBatch(final EnqueueBatch enclosingBatch)
+    {
+        _enclosingBatch = enclosingBatch;
+    }
+
+    /**
+     * Starts collecting the messages enqueued by the current thread.  The caller must call {@link #complete()} on the
+     * returned batch, in a finally block, on the same thread.
+     */
+    public static EnqueueBatch start()
+    {
+        final EnqueueBatch batch = new EnqueueBatch(CURRENT.get());
+        CURRENT.set(batch);
+        return batch;
+    }
+
+    static EnqueueBatch current()
+    {
+        return CURRENT.get();
+    }
+
+    void add(final AbstractQueue<?> queue, final AbstractQueue.EnqueueRequest request)
+    {
+        List<AbstractQueue.EnqueueRequest> requests = _requests.get(queue);
+        if (requests == null)
+        {
+            requests = new ArrayList<>();
+            _requests.put(queue, requests);
+        }
+        requests.add(request);
+    }
+
+    /**
+     * Stops collecting messages and enqueues those collected.
+     */
+    public void complete()
+    {
+        if (CURRENT.get() != this)
+        {
+            throw new IllegalStateException("Enqueue batch is not the current batch of this thread");
+        }
+        CURRENT.set(_enclosingBatch);
+
+        RuntimeException exception = null;
+        for (Map.Entry<AbstractQueue<?>, List<AbstractQueue.EnqueueRequest>> entry : _requests.entrySet())
+        {
+            try
+            {
+                entry.getKey().enqueue(entry.getValue());
+            }
+            catch (RuntimeException e)
+            {
+                // the messages for the other queues have been committed too, so must still be enqueued
+                if (exception == null)
+                {
+                    exception = e;
+                }
+            }
+        }
+        _requests.clear();
+
+        if (exception != null)
+        {
+            throw exception;
+        }
+    }
+}
@@ -21,7 +21,9 @@
 
 package org.apache.qpid.server.queue;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
@@ -145,6 +147,20 @@ public class LastValueQueueList extends OrderedQueueEntryList
         return addedEntry;
     }
 
+    /**
+     * Adds the messages one at a time, as each may replace an entry added before it.
+     */
+    @Override
+    public List<QueueEntry> add(final List<ServerMessage> messages, final List<MessageEnqueueRecord> enqueueRecords)
+    {
+        final List<QueueEntry> entries = new ArrayList<>(messages.size());
+        for (int i = 0; i < messages.size(); i++)
+        {
+            entries.add(add(messages.get(i), enqueueRecords.get(i)));
+        }
+        return entries;
+    }
+
     /**
      * Returns:
      *
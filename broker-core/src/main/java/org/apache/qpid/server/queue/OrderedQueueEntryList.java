@@ -20,6 +20,8 @@
 */
 package org.apache.qpid.server.queue;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
@@ -105,6 +107,63 @@ public abstract class OrderedQueueEntryList implements QueueEntryList
         }
     }
 
+    /**
+     * Links the entries for the given messages to each other before appending them to the list together, so that the
+     * whole batch takes a single update of the tail.
+     */
+    public List<QueueEntry> add(final List<ServerMessage> messages, final List<MessageEnqueueRecord> enqueueRecords)
+    {
+        final List<QueueEntry> entries = new ArrayList<>(messages.size());
+        OrderedQueueEntry first = null;
+        OrderedQueueEntry last = null;
+        for (int i = 0; i < messages.size(); i++)
+        {
+            OrderedQueueEntry node = createQueueEntry(messages.get(i), enqueueRecords.get(i));
+            if (last == null)
+            {
+                first = node;
+            }
+            else
+            {
+                _nextUpdater.set(last, node);
+            }
+            last = node;
+            entries.add(node);
+        }
+
+        if (first == null)
+        {
+            return entries;
+        }
+
+        for (;;)
+        {
+            OrderedQueueEntry tail = _tail;
+            OrderedQueueEntry next = tail.getNextNode();
+            if (tail == _tail)
+            {
+                if (next == null)
+                {
+                    long entryId = tail.getEntryId();
+                    for (QueueEntry entry : entries)
+                    {
+                        ((OrderedQueueEntry) entry).setEntryId(++entryId);
+                    }
+                    if (_nextUpdater.compareAndSet(tail, null, first))
+                    {
+                        _tailUpdater.compareAndSet(this, tail, last);
+
+                        return entries;
+                    }
+                }
+                else
+                {
+                    _tailUpdater.compareAndSet(this,tail, next);
+                }
+            }
+        }
+    }
+
     abstract protected OrderedQueueEntry createQueueEntry(ServerMessage<?> message,
                                                           final MessageEnqueueRecord enqueueRecord);
 
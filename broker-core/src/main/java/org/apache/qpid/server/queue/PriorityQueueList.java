@@ -20,6 +20,9 @@
 */
 package org.apache.qpid.server.queue;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.apache.qpid.server.message.ServerMessage;
 import org.apache.qpid.server.store.MessageEnqueueRecord;
 
@@ -94,6 +97,17 @@ abstract public class PriorityQueueList extends OrderedQueueEntryList
 
         }
 
+        @Override
+        public List<QueueEntry> add(final List<ServerMessage> messages, final List<MessageEnqueueRecord> enqueueRecords)
+        {
+            final List<QueueEntry> entries = new ArrayList<>(messages.size());
+            for (int i = 0; i < messages.size(); i++)
+            {
+                entries.add(add(messages.get(i), enqueueRecords.get(i)));
+            }
+            return entries;
+        }
+
         @Override
         protected PriorityQueueEntry createQueueEntry(final ServerMessage<?> message,
                                                       final MessageEnqueueRecord enqueueRecord)
@@ -65,6 +65,11 @@ public class QueueArgumentsConverter
     public static final String QPID_DEFAULT_FILTERS = "qpid.default_filters";
 
     public static final String QPID_ENSURE_NONDESTRUCTIVE_CONSUMERS = "qpid.ensure_nondestructive_consumers";
+
+    public static final String QPID_DUPLICATE_DETECTION = "qpid.duplicate_detection";
+    public static final String QPID_DUPLICATE_DETECTION_KEY = "qpid.duplicate_detection_key";
+    public static final String QPID_DUPLICATE_DETECTION_WINDOW = "qpid.duplicate_detection_window";
+    public static final String QPID_DUPLICATE_DETECTION_CACHE_SIZE = "qpid.duplicate_detection_cache_size";
     /**
      * No-local queue argument is used to support the no-local feature of Durable Subscribers.
      */
@@ -106,6 +111,10 @@ public class QueueArgumentsConverter
         ATTRIBUTE_MAPPINGS.put(QPID_MESSAGE_DURABILITY, Queue.MESSAGE_DURABILITY);
         ATTRIBUTE_MAPPINGS.put(QPID_DEFAULT_FILTERS, Queue.DEFAULT_FILTERS);
         ATTRIBUTE_MAPPINGS.put(QPID_ENSURE_NONDESTRUCTIVE_CONSUMERS, Queue.ENSURE_NONDESTRUCTIVE_CONSUMERS);
+        ATTRIBUTE_MAPPINGS.put(QPID_DUPLICATE_DETECTION, Queue.DUPLICATE_DETECTION_ENABLED);
+        ATTRIBUTE_MAPPINGS.put(QPID_DUPLICATE_DETECTION_KEY, Queue.DUPLICATE_DETECTION_KEY);
+        ATTRIBUTE_MAPPINGS.put(QPID_DUPLICATE_DETECTION_WINDOW, Queue.DUPLICATE_DETECTION_WINDOW);
+        ATTRIBUTE_MAPPINGS.put(QPID_DUPLICATE_DETECTION_CACHE_SIZE, Queue.DUPLICATE_DETECTION_CACHE_SIZE);
 
     }
 
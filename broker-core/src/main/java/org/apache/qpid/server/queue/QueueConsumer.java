@@ -20,6 +20,8 @@
  */
 package org.apache.qpid.server.queue;
 
+import java.util.List;
+
 import org.apache.qpid.server.consumer.ConsumerImpl;
 import org.apache.qpid.server.message.MessageInstance;
 import org.apache.qpid.server.model.Consumer;
@@ -39,6 +41,8 @@ public interface QueueConsumer<X extends QueueConsumer<X>> extends ConsumerImpl,
 
     void send(QueueEntry entry, boolean batch);
 
+    void send(List<QueueEntry> entries);
+
     void acquisitionRemoved(QueueEntry node);
 
     void queueDeleted();
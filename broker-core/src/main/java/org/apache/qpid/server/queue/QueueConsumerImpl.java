@@ -27,6 +27,7 @@ import java.util.EnumMap;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -533,6 +534,13 @@ class QueueConsumerImpl
         _deliveredBytes.addAndGet(size);
     }
 
+    public final void send(final List<QueueEntry> entries)
+    {
+        _deliveredCount.addAndGet(entries.size());
+        long size = _target.send(this, entries);
+        _deliveredBytes.addAndGet(size);
+    }
+
     @Override
     public void acquisitionRemoved(final QueueEntry node)
     {
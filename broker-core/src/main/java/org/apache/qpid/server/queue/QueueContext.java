@@ -27,6 +27,8 @@ final class QueueContext
 {
     private volatile QueueEntry _lastSeenEntry;
     private volatile QueueEntry _releasedEntry;
+    /** whether the consumer is in its queue's list of consumers with credit, guarded by this context */
+    private boolean _withCredit;
 
     static final AtomicReferenceFieldUpdater<QueueContext, QueueEntry>
             _lastSeenUpdater =
@@ -53,6 +55,16 @@ final class QueueContext
         return _releasedEntry;
     }
 
+    boolean isWithCredit()
+    {
+        return _withCredit;
+    }
+
+    void setWithCredit(final boolean withCredit)
+    {
+        _withCredit = withCredit;
+    }
+
     @Override
     public String toString()
     {
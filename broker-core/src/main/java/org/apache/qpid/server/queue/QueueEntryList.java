@@ -20,6 +20,8 @@
 */
 package org.apache.qpid.server.queue;
 
+import java.util.List;
+
 import org.apache.qpid.server.message.ServerMessage;
 import org.apache.qpid.server.store.MessageEnqueueRecord;
 
@@ -29,6 +31,13 @@ public interface QueueEntryList
 
     QueueEntry add(ServerMessage message, final MessageEnqueueRecord enqueueRecord);
 
+    /**
+     * Adds the given messages in order, each with the enqueue record at the same position in the given records.
+     *
+     * @return the entries added, in order
+     */
+    List<QueueEntry> add(List<ServerMessage> messages, List<MessageEnqueueRecord> enqueueRecords);
+
     QueueEntry next(QueueEntry node);
 
     QueueEntryIterator iterator();
@@ -20,6 +20,9 @@
  */
 package org.apache.qpid.server.queue;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.apache.qpid.server.message.ServerMessage;
 import org.apache.qpid.server.queue.SortedQueueEntry.Colour;
 import org.apache.qpid.server.store.MessageEnqueueRecord;
@@ -72,6 +75,22 @@ public class SortedQueueEntryList implements QueueEntryList
         }
     }
 
+    /**
+     * Inserts the entries for the given messages while holding the lock once for the whole batch.
+     */
+    public List<QueueEntry> add(final List<ServerMessage> messages, final List<MessageEnqueueRecord> enqueueRecords)
+    {
+        final List<QueueEntry> entries = new ArrayList<>(messages.size());
+        synchronized(_lock)
+        {
+            for (int i = 0; i < messages.size(); i++)
+            {
+                entries.add(add(messages.get(i), enqueueRecords.get(i)));
+            }
+        }
+        return entries;
+    }
+
     /**
      * Red Black Tree insert implementation.
      * @param entry the entry to insert.
@@ -19,6 +19,7 @@
  */
 package org.apache.qpid.server.queue;
 
+import java.util.List;
 import java.util.Map;
 
 import org.apache.qpid.server.message.MessageInstance;
@@ -64,6 +65,15 @@ public class SortedQueueImpl extends OutOfOrderQueue<SortedQueueImpl> implements
         }
     }
 
+    @Override
+    protected void doEnqueue(final List<EnqueueRequest> requests)
+    {
+        synchronized (_sortedQueueLock)
+        {
+            super.doEnqueue(requests);
+        }
+    }
+
     @Override
     SortedQueueEntryList getEntries()
     {
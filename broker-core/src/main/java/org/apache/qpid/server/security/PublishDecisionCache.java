@@ -0,0 +1,85 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.apache.qpid.server.security;
+
+/**
+ * A small, per-session memo of recent publish authorisation decisions.
+ * <p>
+ * Decisions are stored in a direct-mapped table together with the access control generation of the
+ * {@link SecurityManager} at the time they were made, so any change to the access control providers or
+ * their rules invalidates them.  The memo is intended to be owned by a single session and is not
+ * synchronised; concurrent use can only lose entries, never return a decision for a different key.
+ */
+public final class PublishDecisionCache
+{
+    public static final String SIZE_PROPERTY_NAME = "qpid.security.publish_decision_cache_size";
+    public static final int DEFAULT_SIZE = 16;
+
+    private static final int SIZE = getTableSize();
+
+    private final Decision[] _decisions = new Decision[SIZE];
+
+    Boolean get(final SecurityManager.PublishAccessCheckCacheEntry key, final long generation)
+    {
+        if (SIZE == 0)
+        {
+            return null;
+        }
+        Decision decision = _decisions[key.hashCode() & (SIZE - 1)];
+        if (decision != null && decision._generation == generation && decision._key.equals(key))
+        {
+            return decision._allowed;
+        }
+        return null;
+    }
+
+    void put(final SecurityManager.PublishAccessCheckCacheEntry key, final long generation, final boolean allowed)
+    {
+        if (SIZE != 0)
+        {
+            _decisions[key.hashCode() & (SIZE - 1)] = new Decision(key, generation, allowed);
+        }
+    }
+
+    private static int getTableSize()
+    {
+        int size = Integer.getInteger(SIZE_PROPERTY_NAME, DEFAULT_SIZE);
+        if (size <= 0)
+        {
+            return 0;
+        }
+        return Integer.highestOneBit(Math.min(size, 1 << 10) * 2 - 1);
+    }
+
+    private static final class Decision
+    {
+        private final SecurityManager.PublishAccessCheckCacheEntry _key;
+        private final long _generation;
+        private final boolean _allowed;
+
+        private Decision(final SecurityManager.PublishAccessCheckCacheEntry key,
+                         final long generation,
+                         final boolean allowed)
+        {
+            _key = key;
+            _generation = generation;
+            _allowed = allowed;
+        }
+    }
+}
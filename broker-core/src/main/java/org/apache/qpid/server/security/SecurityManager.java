@@ -34,9 +34,11 @@ import java.security.Principal;
 import java.security.PrivilegedAction;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.security.auth.Subject;
 import javax.security.auth.SubjectDomainCombiner;
@@ -45,6 +47,7 @@ import org.apache.qpid.server.model.AccessControlProvider;
 import org.apache.qpid.server.model.Binding;
 import org.apache.qpid.server.model.Broker;
 import org.apache.qpid.server.model.BrokerLogInclusionRule;
+import org.apache.qpid.server.model.ConfigurationChangeListener;
 import org.apache.qpid.server.model.ConfiguredObject;
 import org.apache.qpid.server.model.Connection;
 import org.apache.qpid.server.model.Consumer;
@@ -54,6 +57,7 @@ import org.apache.qpid.server.model.Group;
 import org.apache.qpid.server.model.GroupMember;
 import org.apache.qpid.server.model.LifetimePolicy;
 import org.apache.qpid.server.model.Model;
+import org.apache.qpid.server.model.NoopConfigurationChangeListener;
 import org.apache.qpid.server.model.PreferencesProvider;
 import org.apache.qpid.server.model.Queue;
 import org.apache.qpid.server.model.RemoteReplicationNode;
@@ -86,12 +90,25 @@ public class SecurityManager
     private final boolean _managementMode;
     private final ConfiguredObject<?> _aclProvidersParent;
 
-    private final ConcurrentMap<PublishAccessCheckCacheEntry, PublishAccessCheck> _publishAccessCheckCache = new ConcurrentHashMap<>();
+    private static final int PUBLISH_ACCESS_CHECK_CACHE_MAX_SIZE = 10000;
+
+    private final Map<PublishAccessCheckCacheEntry, PublishAccessCheck> _publishAccessCheckCache =
+            Collections.synchronizedMap(new PublishAccessCheckCache());
+
+    /**
+     * Incremented whenever the access control providers, their state or their rules may have changed, invalidating
+     * any decisions held in a {@link PublishDecisionCache}.
+     */
+    private final AtomicLong _accessControlGeneration = new AtomicLong();
+    private final Set<AccessControlProvider<?>> _observedAccessControlProviders =
+            Collections.newSetFromMap(new ConcurrentHashMap<AccessControlProvider<?>, Boolean>());
+    private final ConfigurationChangeListener _accessControlChangeListener = new AccessControlChangeListener();
 
     public SecurityManager(ConfiguredObject<?> aclProvidersParent, boolean managementMode)
     {
         _managementMode = managementMode;
         _aclProvidersParent = aclProvidersParent;
+        _aclProvidersParent.addChangeListener(_accessControlChangeListener);
     }
 
     public static Subject getSubjectWithAddedSystemRights()
@@ -215,6 +232,83 @@ public class SecurityManager
         }
     }
 
+    long getAccessControlGeneration()
+    {
+        return _accessControlGeneration.get();
+    }
+
+    /**
+     * Returns the access control provider in use, if any, after making sure changes to it are being observed.
+     * The generation is incremented when a provider is first observed, so it must be read after this call by
+     * anything that caches the outcome of a check made against the returned provider.
+     */
+    private AccessControlProvider<?> observeAccessControlProvider()
+    {
+        Collection<AccessControlProvider> accessControlProviders = _aclProvidersParent.getChildren(AccessControlProvider.class);
+        if(accessControlProviders == null || accessControlProviders.isEmpty())
+        {
+            return null;
+        }
+        AccessControlProvider<?> accessControlProvider = accessControlProviders.iterator().next();
+        if (accessControlProvider != null && _observedAccessControlProviders.add(accessControlProvider))
+        {
+            accessControlProvider.addChangeListener(_accessControlChangeListener);
+            // decisions made before the listener was in place may have missed a change
+            _accessControlGeneration.incrementAndGet();
+        }
+        return accessControlProvider;
+    }
+
+    private class AccessControlChangeListener extends NoopConfigurationChangeListener
+    {
+        @Override
+        public void stateChanged(final ConfiguredObject<?> object, final State oldState, final State newState)
+        {
+            _accessControlGeneration.incrementAndGet();
+        }
+
+        @Override
+        public void childAdded(final ConfiguredObject<?> object, final ConfiguredObject<?> child)
+        {
+            if (child instanceof AccessControlProvider)
+            {
+                _accessControlGeneration.incrementAndGet();
+            }
+        }
+
+        @Override
+        public void childRemoved(final ConfiguredObject<?> object, final ConfiguredObject<?> child)
+        {
+            if (child instanceof AccessControlProvider)
+            {
+                _observedAccessControlProviders.remove(child);
+                child.removeChangeListener(this);
+                _accessControlGeneration.incrementAndGet();
+            }
+        }
+
+        @Override
+        public void attributeSet(final ConfiguredObject<?> object,
+                                 final String attributeName,
+                                 final Object oldAttributeValue,
+                                 final Object newAttributeValue)
+        {
+            if (object instanceof AccessControlProvider)
+            {
+                _accessControlGeneration.incrementAndGet();
+            }
+        }
+
+        @Override
+        public void bulkChangeEnd(final ConfiguredObject<?> object)
+        {
+            if (object instanceof AccessControlProvider)
+            {
+                _accessControlGeneration.incrementAndGet();
+            }
+        }
+    }
+
     private abstract class AccessCheck
     {
         abstract Result allowed(AccessControl plugin);
@@ -228,13 +322,14 @@ public class SecurityManager
             return true;
         }
 
+        return checkPlugin(observeAccessControlProvider(), checker);
+    }
 
-        Collection<AccessControlProvider> accessControlProviders = _aclProvidersParent.getChildren(AccessControlProvider.class);
-        if(accessControlProviders != null && !accessControlProviders.isEmpty())
+    private boolean checkPlugin(final AccessControlProvider<?> accessControlProvider, final AccessCheck checker)
+    {
+        if(accessControlProvider != null)
         {
-            AccessControlProvider<?> accessControlProvider = accessControlProviders.iterator().next();
-            if (accessControlProvider != null
-                && accessControlProvider.getState() == State.ACTIVE
+            if (accessControlProvider.getState() == State.ACTIVE
                 && accessControlProvider.getAccessControl() != null)
             {
                 Result remaining = checker.allowed(accessControlProvider.getAccessControl());
@@ -633,15 +728,39 @@ public class SecurityManager
     }
 
     public void authorisePublish(final boolean immediate, String routingKey, String exchangeName, String virtualHostName)
+    {
+        authorisePublish(immediate, routingKey, exchangeName, virtualHostName, null);
+    }
+
+    /**
+     * Authorises a publish, consulting and updating the given per-session memo of recent decisions first.
+     * The memo must only be used by sessions sharing the same subject.
+     */
+    public void authorisePublish(final boolean immediate,
+                                 String routingKey,
+                                 String exchangeName,
+                                 String virtualHostName,
+                                 PublishDecisionCache decisionCache)
     {
         PublishAccessCheckCacheEntry key = new PublishAccessCheckCacheEntry(immediate, routingKey, exchangeName, virtualHostName);
-        PublishAccessCheck check = _publishAccessCheckCache.get(key);
-        if (check == null)
+        Boolean allowed = decisionCache == null ? null : decisionCache.get(key, _accessControlGeneration.get());
+        if (allowed == null)
         {
-            check = new PublishAccessCheck(new ObjectProperties(virtualHostName, exchangeName, routingKey, immediate));
-            _publishAccessCheckCache.putIfAbsent(key, check);
+            PublishAccessCheck check = _publishAccessCheckCache.get(key);
+            if (check == null)
+            {
+                check = new PublishAccessCheck(new ObjectProperties(virtualHostName, exchangeName, routingKey, immediate));
+                _publishAccessCheckCache.put(key, check);
+            }
+            AccessControlProvider<?> accessControlProvider = observeAccessControlProvider();
+            final long generation = _accessControlGeneration.get();
+            allowed = isSystemProcess() || _managementMode || checkPlugin(accessControlProvider, check);
+            if (decisionCache != null)
+            {
+                decisionCache.put(key, generation, allowed);
+            }
         }
-        if(!checkAllPlugins(check))
+        if(!allowed)
         {
             throw new AccessControlException("Permission denied, publish to: exchange-name '" + exchangeName + "'");
         }
@@ -663,6 +782,20 @@ public class SecurityManager
         }
     }
 
+    private static class PublishAccessCheckCache extends LinkedHashMap<PublishAccessCheckCacheEntry, PublishAccessCheck>
+    {
+        private PublishAccessCheckCache()
+        {
+            super(16, 0.75f, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<PublishAccessCheckCacheEntry, PublishAccessCheck> eldest)
+        {
+            return size() > PUBLISH_ACCESS_CHECK_CACHE_MAX_SIZE;
+        }
+    }
+
     private class PublishAccessCheck extends AccessCheck
     {
         private final ObjectProperties _props;
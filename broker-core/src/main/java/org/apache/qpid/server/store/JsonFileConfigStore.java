@@ -20,6 +20,7 @@
  */
 package org.apache.qpid.server.store;
 
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.FileReader;
@@ -27,6 +28,7 @@ import java.io.IOException;
 import java.nio.channels.FileChannel;
 import java.nio.channels.FileLock;
 import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
@@ -37,11 +39,14 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -50,15 +55,31 @@ import org.apache.qpid.server.configuration.BrokerProperties;
 import org.apache.qpid.server.model.ConfiguredObject;
 import org.apache.qpid.server.model.ConfiguredObjectJacksonModule;
 import org.apache.qpid.server.model.Model;
+import org.apache.qpid.server.model.SystemConfig;
 import org.apache.qpid.server.store.handler.ConfiguredObjectRecordHandler;
 import org.apache.qpid.server.util.BaseAction;
 import org.apache.qpid.server.util.FileHelper;
 import org.apache.qpid.util.FileUtils;
 
+/**
+ * Keeps the configuration as a JSON document.
+ *
+ * Changes are appended, one line each, to a change log alongside the document rather than rewriting the whole
+ * document every time.  The document is brought up to date from the log, and the log emptied, once the log holds at
+ * least as many entries as there are records (and no fewer than the checkpoint threshold), when the store is opened
+ * and when it is closed.  Replaying a change already reflected in the document is harmless.
+ */
 public class JsonFileConfigStore implements DurableConfigurationStore
 {
     private static final Logger _logger = LoggerFactory.getLogger(JsonFileConfigStore.class);
 
+    private static final String LOG_UPDATE = "update";
+    private static final String LOG_REMOVE = "remove";
+    private static final String LOG_ID = "id";
+    private static final String LOG_TYPE = "type";
+    private static final String LOG_ATTRIBUTES = "attributes";
+    private static final String LOG_PARENTS = "parents";
+
     private static final Comparator<Class<? extends ConfiguredObject>> CATEGORY_CLASS_COMPARATOR =
             new Comparator<Class<? extends ConfiguredObject>>()
             {
@@ -82,8 +103,9 @@ public class JsonFileConfigStore implements DurableConfigurationStore
             };
 
     private final Map<UUID, ConfiguredObjectRecord> _objectsById = new HashMap<UUID, ConfiguredObjectRecord>();
-    private final Map<String, List<UUID>> _idsByType = new HashMap<String, List<UUID>>();
+    private final Map<String, Set<UUID>> _idsByType = new HashMap<String, Set<UUID>>();
     private final ObjectMapper _objectMapper;
+    private final ObjectWriter _logWriter;
     private final Class<? extends ConfiguredObject> _rootClass;
     private final FileHelper _fileHelper;
 
@@ -95,6 +117,10 @@ public class JsonFileConfigStore implements DurableConfigurationStore
     private String _backupFileName;
     private String _tempFileName;
     private String _lockFileName;
+    private String _logFileName;
+    private FileOutputStream _logOutputStream;
+    private int _logEntries;
+    private int _checkpointThreshold;
 
     private ConfiguredObject<?> _parent;
 
@@ -103,6 +129,7 @@ public class JsonFileConfigStore implements DurableConfigurationStore
 
         _objectMapper = ConfiguredObjectJacksonModule.newObjectMapper();
         _objectMapper.enable(SerializationFeature.INDENT_OUTPUT);
+        _logWriter = _objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
         _rootClass = rootClass;
         _fileHelper = new FileHelper();
     }
@@ -121,6 +148,11 @@ public class JsonFileConfigStore implements DurableConfigurationStore
         _parent = parent;
         _name = parent.getName();
         _classNameMapping = generateClassNameMap(_parent.getModel(), _rootClass);
+        Integer checkpointThreshold =
+                _parent.getContextValue(Integer.class, BrokerProperties.JSON_STORE_CHECKPOINT_THRESHOLD);
+        _checkpointThreshold = checkpointThreshold == null
+                ? SystemConfig.DEFAULT_JSON_STORE_CHECKPOINT_THRESHOLD
+                : checkpointThreshold;
         FileBasedSettings fileBasedSettings = (FileBasedSettings)_parent;
         setup(fileBasedSettings);
         load(overwrite, initialRecords);
@@ -178,6 +210,7 @@ public class JsonFileConfigStore implements DurableConfigurationStore
             _tempFileName = fileFromSettings.getName() + ".tmp";
 
             _lockFileName = fileFromSettings.getName() + ".lck";
+            _logFileName = fileFromSettings.getName() + ".log";
         }
         else
         {
@@ -187,6 +220,7 @@ public class JsonFileConfigStore implements DurableConfigurationStore
             _tempFileName = _name + ".tmp";
 
             _lockFileName = _name + ".lck";
+            _logFileName = _name + ".log";
         }
 
 
@@ -291,36 +325,37 @@ public class JsonFileConfigStore implements DurableConfigurationStore
         final File configFile = new File(_directoryName, _configFileName);
         try
         {
-            boolean updated = false;
-            Collection<ConfiguredObjectRecord> records = Collections.emptyList();
+            boolean updated = overwrite;
             if(!overwrite)
             {
                 ConfiguredObjectRecordConverter configuredObjectRecordConverter =
                         new ConfiguredObjectRecordConverter(_parent.getModel());
 
-                records = configuredObjectRecordConverter.readFromJson(_rootClass, _parent, new FileReader(configFile));
+                Collection<ConfiguredObjectRecord> records =
+                        configuredObjectRecordConverter.readFromJson(_rootClass, _parent, new FileReader(configFile));
+                for(ConfiguredObjectRecord record : records)
+                {
+                    addRecord(record);
+                }
+                updated = replayLog();
             }
 
-            if(records.isEmpty())
+            if(_objectsById.isEmpty())
             {
-                records = Arrays.asList(initialRecords);
+                for(ConfiguredObjectRecord record : initialRecords)
+                {
+                    addRecord(record);
+                }
                 updated = true;
             }
 
-            for(ConfiguredObjectRecord record : records)
+            if(updated)
             {
-                _objectsById.put(record.getId(), record);
-                List<UUID> idsForType = _idsByType.get(record.getType());
-                if (idsForType == null)
-                {
-                    idsForType = new ArrayList<>();
-                    _idsByType.put(record.getType(), idsForType);
-                }
-                idsForType.add(record.getId());
+                checkpoint();
             }
-            if(updated)
+            else
             {
-                save();
+                openLog(true);
             }
         }
         catch (IOException e)
@@ -329,6 +364,106 @@ public class JsonFileConfigStore implements DurableConfigurationStore
         }
     }
 
+    /**
+     * @return true if the log held any changes
+     */
+    private boolean replayLog() throws IOException
+    {
+        final Path logFile = new File(_directoryName, _logFileName).toPath();
+        if(!Files.exists(logFile))
+        {
+            return false;
+        }
+
+        int entries = 0;
+        try(BufferedReader reader = Files.newBufferedReader(logFile, StandardCharsets.UTF_8))
+        {
+            String line = reader.readLine();
+            while(line != null)
+            {
+                String nextLine = reader.readLine();
+                entries++;
+                try
+                {
+                    replayLogEntry(_objectMapper.readValue(line, Map.class));
+                }
+                catch(IOException | RuntimeException e)
+                {
+                    if(nextLine != null)
+                    {
+                        throw new StoreException("Configuration change log " + logFile + " is corrupt at entry "
+                                                 + entries, e);
+                    }
+                    _logger.warn("Ignoring incomplete last entry of configuration change log " + logFile);
+                }
+                line = nextLine;
+            }
+        }
+        if(entries > 0)
+        {
+            _logger.debug("Replayed {} entries from configuration change log {}", entries, logFile);
+        }
+        return entries > 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void replayLogEntry(final Map<String, Object> entry)
+    {
+        List<Map<String, Object>> updates = (List<Map<String, Object>>) entry.get(LOG_UPDATE);
+        if(updates != null)
+        {
+            for(Map<String, Object> update : updates)
+            {
+                Map<String, UUID> parents = new HashMap<>();
+                Map<String, String> parentIds = (Map<String, String>) update.get(LOG_PARENTS);
+                if(parentIds != null)
+                {
+                    for(Map.Entry<String, String> parent : parentIds.entrySet())
+                    {
+                        parents.put(parent.getKey(), UUID.fromString(parent.getValue()));
+                    }
+                }
+                addRecord(new ConfiguredObjectRecordImpl(UUID.fromString((String) update.get(LOG_ID)),
+                                                         (String) update.get(LOG_TYPE),
+                                                         (Map<String, Object>) update.get(LOG_ATTRIBUTES),
+                                                         parents));
+            }
+        }
+
+        List<String> removes = (List<String>) entry.get(LOG_REMOVE);
+        if(removes != null)
+        {
+            for(String id : removes)
+            {
+                removeRecord(UUID.fromString(id));
+            }
+        }
+    }
+
+    private void addRecord(final ConfiguredObjectRecord record)
+    {
+        if(_objectsById.put(record.getId(), record) == null)
+        {
+            Set<UUID> idsForType = _idsByType.get(record.getType());
+            if(idsForType == null)
+            {
+                idsForType = new LinkedHashSet<UUID>();
+                _idsByType.put(record.getType(), idsForType);
+            }
+            idsForType.add(record.getId());
+        }
+    }
+
+    private ConfiguredObjectRecord removeRecord(final UUID id)
+    {
+        ConfiguredObjectRecord record = _objectsById.remove(id);
+        if(record != null)
+        {
+            _idsByType.get(record.getType()).remove(id);
+        }
+        return record;
+    }
+
     @Override
     public synchronized void create(ConfiguredObjectRecord record) throws StoreException
     {
@@ -352,10 +487,10 @@ public class JsonFileConfigStore implements DurableConfigurationStore
         {
             record = new ConfiguredObjectRecordImpl(record);
             _objectsById.put(record.getId(), record);
-            List<UUID> idsForType = _idsByType.get(record.getType());
+            Set<UUID> idsForType = _idsByType.get(record.getType());
             if(idsForType == null)
             {
-                idsForType = new ArrayList<UUID>();
+                idsForType = new LinkedHashSet<UUID>();
                 _idsByType.put(record.getType(), idsForType);
             }
 
@@ -366,13 +501,13 @@ public class JsonFileConfigStore implements DurableConfigurationStore
 
             idsForType.add(record.getId());
 
-            save();
+            log(LOG_UPDATE, Collections.singletonList(toLogEntry(record)));
         }
     }
 
     private UUID getRootId()
     {
-        List<UUID> ids = _idsByType.get(_rootClass.getSimpleName());
+        Set<UUID> ids = _idsByType.get(_rootClass.getSimpleName());
         if (ids == null)
         {
             return null;
@@ -381,7 +516,82 @@ public class JsonFileConfigStore implements DurableConfigurationStore
         {
             return null;
         }
-        return ids.get(0);
+        return ids.iterator().next();
+    }
+
+    private Map<String, Object> toLogEntry(final ConfiguredObjectRecord record)
+    {
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put(LOG_ID, record.getId());
+        entry.put(LOG_TYPE, record.getType());
+        entry.put(LOG_ATTRIBUTES, record.getAttributes());
+        entry.put(LOG_PARENTS, record.getParents());
+        return entry;
+    }
+
+    private void log(final String operation, final List<?> values)
+    {
+        try
+        {
+            byte[] entry = _logWriter.writeValueAsBytes(Collections.singletonMap(operation, values));
+            byte[] line = Arrays.copyOf(entry, entry.length + 1);
+            line[entry.length] = '\n';
+            _logOutputStream.write(line);
+        }
+        catch (IOException e)
+        {
+            throw new StoreException("Cannot append to configuration change log", e);
+        }
+
+        if(++_logEntries >= Math.max(_checkpointThreshold, _objectsById.size()))
+        {
+            checkpoint();
+        }
+    }
+
+    private void checkpoint()
+    {
+        save();
+        openLog(false);
+    }
+
+    private void openLog(final boolean append)
+    {
+        closeLog();
+        Path logFile = new File(_directoryName, _logFileName).toPath();
+        try
+        {
+            if(!Files.exists(logFile))
+            {
+                String posixFileAttributes = _parent.getContextValue(String.class, BrokerProperties.POSIX_FILE_PERMISSIONS);
+                _fileHelper.createNewFile(logFile, posixFileAttributes);
+            }
+            _logOutputStream = new FileOutputStream(logFile.toFile(), append);
+            _logEntries = 0;
+        }
+        catch (IOException e)
+        {
+            throw new StoreException("Cannot open configuration change log " + logFile, e);
+        }
+    }
+
+    private void closeLog()
+    {
+        if(_logOutputStream != null)
+        {
+            try
+            {
+                _logOutputStream.close();
+            }
+            catch (IOException e)
+            {
+                throw new StoreException("Cannot close configuration change log", e);
+            }
+            finally
+            {
+                _logOutputStream = null;
+            }
+        }
     }
 
     private void save()
@@ -454,7 +664,7 @@ public class JsonFileConfigStore implements DurableConfigurationStore
             {
                 String singularName = childClass.getSimpleName().toLowerCase();
                 String attrName = singularName + (singularName.endsWith("s") ? "es" : "s");
-                List<UUID> childIds = _idsByType.get(childClass.getSimpleName());
+                Set<UUID> childIds = _idsByType.get(childClass.getSimpleName());
                 if(childIds != null)
                 {
                     List<Map<String,Object>> entities = new ArrayList<Map<String, Object>>();
@@ -500,14 +710,16 @@ public class JsonFileConfigStore implements DurableConfigurationStore
         List<UUID> removedIds = new ArrayList<UUID>();
         for(ConfiguredObjectRecord requestedRecord : objects)
         {
-            ConfiguredObjectRecord record = _objectsById.remove(requestedRecord.getId());
+            ConfiguredObjectRecord record = removeRecord(requestedRecord.getId());
             if(record != null)
             {
                 removedIds.add(record.getId());
-                _idsByType.get(record.getType()).remove(record.getId());
             }
         }
-        save();
+        if(!removedIds.isEmpty())
+        {
+            log(LOG_REMOVE, removedIds);
+        }
         return removedIds.toArray(new UUID[removedIds.size()]);
     }
 
@@ -552,37 +764,47 @@ public class JsonFileConfigStore implements DurableConfigurationStore
                 throw new StoreException("Cannot update record of unknown type " + type);
             }
         }
+        List<Map<String, Object>> entries = new ArrayList<>(records.length);
         for(ConfiguredObjectRecord record : records)
         {
             record = new ConfiguredObjectRecordImpl(record);
-            final UUID id = record.getId();
-            final String type = record.getType();
-            if(_objectsById.put(id, record) == null)
-            {
-                List<UUID> idsForType = _idsByType.get(type);
-                if(idsForType == null)
-                {
-                    idsForType = new ArrayList<UUID>();
-                    _idsByType.put(type, idsForType);
-                }
-                idsForType.add(id);
-            }
+            addRecord(record);
+            entries.add(toLogEntry(record));
         }
 
-        save();
+        log(LOG_UPDATE, entries);
     }
 
     @Override
-    public void closeConfigurationStore()
+    public synchronized void closeConfigurationStore()
     {
         try
         {
-            releaseFileLock();
+            if(_logOutputStream != null)
+            {
+                closeLog();
+                if(_logEntries > 0)
+                {
+                    save();
+                }
+                Files.deleteIfExists(new File(_directoryName, _logFileName).toPath());
+            }
+        }
+        catch (IOException e)
+        {
+            throw new StoreException("Cannot delete configuration change log", e);
         }
         finally
         {
-            _idsByType.clear();
-            _objectsById.clear();
+            try
+            {
+                releaseFileLock();
+            }
+            finally
+            {
+                _idsByType.clear();
+                _objectsById.clear();
+            }
         }
     }
 
@@ -600,6 +822,11 @@ public class JsonFileConfigStore implements DurableConfigurationStore
             }
 
             File configFile = new File(storePath);
+            File logFile = new File(storePath + ".log");
+            if (configFile.isFile() && logFile.exists() && !logFile.delete())
+            {
+                _logger.info("Failed to delete the configuration change log " + logFile);
+            }
             if (!FileUtils.delete(configFile, true))
             {
                 _logger.info("Failed to delete the store at location " + storePath);
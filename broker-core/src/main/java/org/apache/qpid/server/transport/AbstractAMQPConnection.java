@@ -346,7 +346,7 @@ public abstract class AbstractAMQPConnection<C extends AbstractAMQPConnection<C>
         ((VirtualHostImpl<?,?,?>)getVirtualHost()).registerMessageReceived(messageSize, timestamp);
     }
 
-    public final void resetStatistics()
+    public void resetStatistics()
     {
         _messagesDelivered.reset();
         _dataDelivered.reset();
@@ -0,0 +1,120 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.transport;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Decides when a port may accept another connection.
+ *
+ * Accepts are paced by a token bucket refilled at the accept rate limit and holding at most the accept burst, and
+ * the number of accepted connections still negotiating protocol, TLS and authentication is bounded.  While either
+ * limit is reached, pending connections are left in the listen backlog rather than being accepted, so that a storm
+ * of reconnecting clients cannot take the I/O threads away from established connections.  A limit less than or
+ * equal to zero disables the corresponding check.
+ *
+ * The token bucket is used by the selector thread only; handshakes are completed by the I/O threads.
+ */
+class AdmissionController
+{
+    private final double _acceptsPerMillisecond;
+    private final double _acceptBurst;
+    private final int _maxHandshakesInProgress;
+    private final Runnable _admissionAvailableAction;
+    private final AtomicInteger _handshakesInProgress = new AtomicInteger();
+
+    private double _tokens;
+    private long _lastRefillTime;
+
+    /**
+     * @param acceptRateLimit connections accepted per second
+     * @param acceptBurst connections that may be accepted at once after a quiet period, defaulting to the rate limit
+     * @param maxHandshakesInProgress accepted connections that may be establishing themselves at once
+     * @param admissionAvailableAction run when the completion of a handshake lifts the bound on handshakes
+     */
+    AdmissionController(final int acceptRateLimit,
+                        final int acceptBurst,
+                        final int maxHandshakesInProgress,
+                        final Runnable admissionAvailableAction)
+    {
+        _acceptsPerMillisecond = acceptRateLimit / 1000d;
+        _acceptBurst = acceptBurst > 0 ? acceptBurst : Math.max(acceptRateLimit, 1);
+        _maxHandshakesInProgress = maxHandshakesInProgress;
+        _admissionAvailableAction = admissionAvailableAction;
+        _tokens = _acceptBurst;
+    }
+
+    /**
+     * @return zero if a connection may be accepted now, otherwise the number of milliseconds after which it is worth
+     * asking again, or {@link Integer#MAX_VALUE} if that depends on a handshake completing
+     */
+    int getAcceptDelay(final long currentTime)
+    {
+        if (_maxHandshakesInProgress > 0 && _handshakesInProgress.get() >= _maxHandshakesInProgress)
+        {
+            return Integer.MAX_VALUE;
+        }
+
+        if (_acceptsPerMillisecond > 0d)
+        {
+            refill(currentTime);
+            if (_tokens < 1d)
+            {
+                return (int) Math.max(1L, (long) Math.ceil((1d - _tokens) / _acceptsPerMillisecond));
+            }
+        }
+        return 0;
+    }
+
+    void connectionAccepted(final long currentTime)
+    {
+        if (_acceptsPerMillisecond > 0d)
+        {
+            refill(currentTime);
+            _tokens--;
+        }
+        _handshakesInProgress.incrementAndGet();
+    }
+
+    void handshakeCompleted()
+    {
+        if (_handshakesInProgress.getAndDecrement() == _maxHandshakesInProgress && _maxHandshakesInProgress > 0)
+        {
+            _admissionAvailableAction.run();
+        }
+    }
+
+    int getHandshakesInProgress()
+    {
+        return _handshakesInProgress.get();
+    }
+
+    private void refill(final long currentTime)
+    {
+        if (currentTime > _lastRefillTime)
+        {
+            _tokens = _lastRefillTime == 0L
+                    ? _acceptBurst
+                    : Math.min(_acceptBurst, _tokens + (currentTime - _lastRefillTime) * _acceptsPerMillisecond);
+            _lastRefillTime = currentTime;
+        }
+    }
+}
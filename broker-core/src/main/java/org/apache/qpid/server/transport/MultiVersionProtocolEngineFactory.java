@@ -94,6 +94,7 @@ public class MultiVersionProtocolEngineFactory implements ProtocolEngineFactory
         }
         else
         {
+            _port.registerRejectedConnection();
             _broker.getEventLogger().message(new PortLogSubject(_port),
                                              PortMessages.CONNECTION_REJECTED(remoteSocketAddress.toString()));
 
@@ -22,34 +22,62 @@ package org.apache.qpid.server.transport;
 
 import java.io.IOException;
 import java.nio.channels.ServerSocketChannel;
+import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.apache.qpid.transport.TransportException;
 
+/**
+ * Runs the I/O for the connections made ready by its selector thread on a pool of worker threads.
+ *
+ * Each worker has its own queue.  A connection is queued to the worker that last processed it, so that it tends to
+ * be processed on the same thread each time, and a worker with nothing queued steals from the tail of the queues of
+ * the others.  Workers beyond the pool minimum are started when a connection is scheduled while its worker is busy
+ * and no other worker is idle, and stop once they have been idle for the keep alive timeout.
+ *
+ * Without work stealing, connections are instead run on a {@link ThreadPoolExecutor} sharing a single queue, which
+ * renames its thread after each connection it processes.  This is kept so that the two can be compared.
+ */
 public class NetworkConnectionScheduler
 {
     private static final Logger LOGGER = LoggerFactory.getLogger(NetworkConnectionScheduler.class);
     private final ThreadFactory _factory;
     private volatile SelectorThread _selectorThread;
+    private volatile Worker[] _workers;
     private volatile ThreadPoolExecutor _executor;
+    private final AtomicInteger _startedWorkers = new AtomicInteger();
+    private final AtomicInteger _nextWorker = new AtomicInteger();
     private final AtomicInteger _running = new AtomicInteger();
     private final int _poolSizeMinimum;
     private final int _poolSizeMaximum;
-    private final long _threadKeepAliveTimeout;
+    private final long _threadKeepAliveNanos;
     private final String _name;
+    private final boolean _workStealing;
+    private volatile boolean _closed;
 
     public NetworkConnectionScheduler(final String name,
                                       int threadPoolSizeMinimum,
                                       int threadPoolSizeMaximum,
                                       long threadKeepAliveTimeout)
+    {
+        this(name, threadPoolSizeMinimum, threadPoolSizeMaximum, threadKeepAliveTimeout, true);
+    }
+
+    public NetworkConnectionScheduler(final String name,
+                                      int threadPoolSizeMinimum,
+                                      int threadPoolSizeMaximum,
+                                      long threadKeepAliveTimeout,
+                                      boolean workStealing)
     {
         this(name, threadPoolSizeMinimum, threadPoolSizeMaximum, threadKeepAliveTimeout, new ThreadFactory()
                                     {
@@ -62,7 +90,7 @@ public class NetworkConnectionScheduler
                                             t.setName("IO-pool-" + name + "-" + _count.incrementAndGet());
                                             return t;
                                         }
-                                    });
+                                    }, workStealing);
     }
 
     public NetworkConnectionScheduler(String name,
@@ -70,12 +98,40 @@ public class NetworkConnectionScheduler
                                       int threadPoolSizeMaximum,
                                       long threadKeepAliveTimeout,
                                       ThreadFactory factory)
+    {
+        this(name, threadPoolSizeMinimum, threadPoolSizeMaximum, threadKeepAliveTimeout, factory, true);
+    }
+
+    public NetworkConnectionScheduler(String name,
+                                      int threadPoolSizeMinimum,
+                                      int threadPoolSizeMaximum,
+                                      long threadKeepAliveTimeout,
+                                      ThreadFactory factory,
+                                      boolean workStealing)
+    {
+        this(name,
+             threadPoolSizeMinimum,
+             threadPoolSizeMaximum,
+             threadKeepAliveTimeout,
+             TimeUnit.MINUTES,
+             factory,
+             workStealing);
+    }
+
+    NetworkConnectionScheduler(String name,
+                               int threadPoolSizeMinimum,
+                               int threadPoolSizeMaximum,
+                               long threadKeepAliveTimeout,
+                               TimeUnit threadKeepAliveTimeoutUnit,
+                               ThreadFactory factory,
+                               boolean workStealing)
     {
         _name = name;
         _poolSizeMaximum = threadPoolSizeMaximum;
         _poolSizeMinimum = threadPoolSizeMinimum;
-        _threadKeepAliveTimeout = threadKeepAliveTimeout;
+        _threadKeepAliveNanos = threadKeepAliveTimeoutUnit.toNanos(threadKeepAliveTimeout);
         _factory = factory;
+        _workStealing = workStealing;
     }
 
 
@@ -85,11 +141,25 @@ public class NetworkConnectionScheduler
         {
             _selectorThread = new SelectorThread(this);
             _selectorThread.start();
-            _executor = new ThreadPoolExecutor(_poolSizeMinimum, _poolSizeMaximum,
-                                               _threadKeepAliveTimeout, TimeUnit.MINUTES,
-                                               new LinkedBlockingQueue<Runnable>(), _factory);
-            _executor.prestartAllCoreThreads();
-            _executor.allowCoreThreadTimeOut(true);
+            if (!_workStealing)
+            {
+                _executor = new ThreadPoolExecutor(_poolSizeMinimum, _poolSizeMaximum,
+                                                   _threadKeepAliveNanos, TimeUnit.NANOSECONDS,
+                                                   new LinkedBlockingQueue<Runnable>(), _factory);
+                _executor.prestartAllCoreThreads();
+                _executor.allowCoreThreadTimeOut(true);
+                return;
+            }
+            final Worker[] workers = new Worker[_poolSizeMaximum];
+            for (int i = 0; i < workers.length; i++)
+            {
+                workers[i] = new Worker(i);
+            }
+            _workers = workers;
+            for (int i = 0; i < _poolSizeMinimum && i < workers.length; i++)
+            {
+                workers[i].start();
+            }
         }
         catch (IOException e)
         {
@@ -98,6 +168,23 @@ public class NetworkConnectionScheduler
     }
 
     public void schedule(final NonBlockingConnection connection)
+    {
+        if (!_workStealing)
+        {
+            execute(connection);
+            return;
+        }
+
+        final Worker worker = getPreferredWorker(connection);
+        worker.add(connection);
+
+        if (!worker.isIdle() && !wakeIdleWorker())
+        {
+            startWorker();
+        }
+    }
+
+    private void execute(final NonBlockingConnection connection)
     {
         _executor.execute(new Runnable()
                         {
@@ -109,7 +196,7 @@ public class NetworkConnectionScheduler
                                 {
                                     Thread.currentThread().setName(
                                             SelectorThread.IO_THREAD_NAME_PREFIX + connection.getRemoteAddress().toString());
-                                    processConnection(connection);
+                                    processConnection(connection, null);
                                 }
                                 finally
                                 {
@@ -131,7 +218,81 @@ public class NetworkConnectionScheduler
         }
     }
 
-    private void processConnection(final NonBlockingConnection connection)
+    private Worker getPreferredWorker(final NonBlockingConnection connection)
+    {
+        final Worker[] workers = _workers;
+        final int preferredWorker = connection.getPreferredWorker();
+        if (preferredWorker >= 0 && preferredWorker < workers.length && workers[preferredWorker].isStarted())
+        {
+            return workers[preferredWorker];
+        }
+
+        final int first = (_nextWorker.getAndIncrement() & Integer.MAX_VALUE) % workers.length;
+        Worker worker = null;
+        for (int i = 0; i < workers.length && worker == null; i++)
+        {
+            final Worker candidate = workers[(first + i) % workers.length];
+            if (candidate.isStarted())
+            {
+                worker = candidate;
+            }
+        }
+        if (worker == null)
+        {
+            worker = workers[first];
+            worker.start();
+        }
+        connection.setPreferredWorker(worker.getIndex());
+        return worker;
+    }
+
+    private boolean wakeIdleWorker()
+    {
+        for (Worker worker : _workers)
+        {
+            if (worker.isStarted() && worker.isIdle())
+            {
+                worker.wake();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void startWorker()
+    {
+        if (_startedWorkers.get() < _poolSizeMaximum)
+        {
+            for (Worker worker : _workers)
+            {
+                if (!worker.isStarted())
+                {
+                    worker.start();
+                    return;
+                }
+            }
+        }
+    }
+
+    private NonBlockingConnection steal(final Worker thief)
+    {
+        final Worker[] workers = _workers;
+        for (int i = 1; i < workers.length; i++)
+        {
+            final NonBlockingConnection connection = workers[(thief.getIndex() + i) % workers.length].stealConnection();
+            if (connection != null)
+            {
+                connection.setPreferredWorker(thief.getIndex());
+                return connection;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param worker the worker processing the connection, or null if the executor is
+     */
+    private void processConnection(final NonBlockingConnection connection, final Worker worker)
     {
         try
         {
@@ -147,7 +308,8 @@ public class NetworkConnectionScheduler
 
                     if (connection.isStateChanged() || connection.isPartialRead())
                     {
-                        if (_running.get() == _poolSizeMaximum)
+                        if (_running.get() == _poolSizeMaximum
+                            || (worker != null && !connection.isHandshakeComplete() && worker.hasQueuedConnections()))
                         {
                             schedule(connection);
                         }
@@ -181,10 +343,19 @@ public class NetworkConnectionScheduler
         {
             _selectorThread.close();
         }
-        if(_executor != null)
+        _closed = true;
+        if (_executor != null)
         {
             _executor.shutdown();
         }
+        final Worker[] workers = _workers;
+        if(workers != null)
+        {
+            for (Worker worker : workers)
+            {
+                worker.wake();
+            }
+        }
     }
 
 
@@ -218,4 +389,153 @@ public class NetworkConnectionScheduler
     {
         _selectorThread.removeConnection(connection);
     }
+
+    private class Worker implements Runnable
+    {
+        private final int _index;
+        private final ConcurrentLinkedDeque<NonBlockingConnection> _queue = new ConcurrentLinkedDeque<>();
+        private final AtomicBoolean _started = new AtomicBoolean();
+        private volatile Thread _thread;
+        private volatile boolean _idle;
+
+        /** The connection being processed, for diagnostics */
+        private volatile NonBlockingConnection _currentConnection;
+
+        private Worker(final int index)
+        {
+            _index = index;
+        }
+
+        int getIndex()
+        {
+            return _index;
+        }
+
+        boolean isStarted()
+        {
+            return _started.get();
+        }
+
+        boolean isIdle()
+        {
+            return _idle;
+        }
+
+        boolean hasQueuedConnections()
+        {
+            return !_queue.isEmpty();
+        }
+
+        void start()
+        {
+            if (_started.compareAndSet(false, true))
+            {
+                _startedWorkers.incrementAndGet();
+                _factory.newThread(this).start();
+            }
+        }
+
+        void add(final NonBlockingConnection connection)
+        {
+            _queue.add(connection);
+            if (!_started.get())
+            {
+                // the worker stopped after the connection was assigned to it
+                if (_queue.remove(connection))
+                {
+                    schedule(connection);
+                }
+            }
+            else
+            {
+                wake();
+            }
+        }
+
+        void wake()
+        {
+            if (_idle)
+            {
+                LockSupport.unpark(_thread);
+            }
+        }
+
+        NonBlockingConnection stealConnection()
+        {
+            return _queue.pollLast();
+        }
+
+        @Override
+        public void run()
+        {
+            _thread = Thread.currentThread();
+            while (!_closed)
+            {
+                NonBlockingConnection connection = nextConnection();
+                if (connection == null)
+                {
+                    _idle = true;
+                    connection = nextConnection();
+                    if (connection == null)
+                    {
+                        final long idleStart = System.nanoTime();
+                        LockSupport.parkNanos(this, _threadKeepAliveNanos);
+                        _idle = false;
+                        if (System.nanoTime() - idleStart >= _threadKeepAliveNanos && stopIfSurplus())
+                        {
+                            return;
+                        }
+                        continue;
+                    }
+                    _idle = false;
+                }
+
+                _currentConnection = connection;
+                try
+                {
+                    processConnection(connection, this);
+                }
+                catch (RuntimeException e)
+                {
+                    LOGGER.error("Unexpected exception processing connection " + connection, e);
+                }
+                finally
+                {
+                    _currentConnection = null;
+                }
+            }
+        }
+
+        private NonBlockingConnection nextConnection()
+        {
+            final NonBlockingConnection connection = _queue.poll();
+            return connection == null ? steal(this) : connection;
+        }
+
+        private boolean stopIfSurplus()
+        {
+            if (!_queue.isEmpty())
+            {
+                return false;
+            }
+            if (_startedWorkers.decrementAndGet() < _poolSizeMinimum)
+            {
+                _startedWorkers.incrementAndGet();
+                return false;
+            }
+            _started.set(false);
+            NonBlockingConnection connection;
+            while ((connection = _queue.poll()) != null)
+            {
+                schedule(connection);
+            }
+            return true;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "Worker[" + _name + "-" + _index + ", processing " + _currentConnection + "]";
+        }
+    }
 }
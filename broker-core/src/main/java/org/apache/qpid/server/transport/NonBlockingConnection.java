@@ -28,9 +28,13 @@ import java.security.cert.Certificate;
 import java.util.*;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.security.auth.Subject;
 
 import org.apache.qpid.bytebuffer.QpidByteBuffer;
 import org.apache.qpid.server.model.port.AmqpPort;
+import org.apache.qpid.server.security.auth.AuthenticatedPrincipal;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -55,21 +59,33 @@ public class NonBlockingConnection implements NetworkConnection, ByteBufferSende
     private final AtomicBoolean _closed = new AtomicBoolean(false);
     private final ProtocolEngine _protocolEngine;
     private final Runnable _onTransportEncryptionAction;
+    private final Runnable _onHandshakeCompleteAction;
 
     private volatile int _maxReadIdle;
     private volatile int _maxWriteIdle;
 
     private volatile boolean _fullyWritten = true;
+    private volatile boolean _handshakeComplete;
+    private volatile int _preferredWorker = -1;
 
     private boolean _partialRead = false;
 
     private final AmqpPort _port;
     private boolean _unexpectedByteBufferSizeUsed;
 
+    private final int _outputBatchSize;
+    private final long _outputBatchDelay;
+    private volatile long _outputDeferredSince;
+    // bytes queued in _buffers but not yet written, maintained as buffers are added and written
+    private final AtomicLong _pendingOutputSize = new AtomicLong();
+    // bytes already written from the buffer at the head of _buffers, accessed by the I/O thread only
+    private long _headBufferWritten;
+
     public NonBlockingConnection(SocketChannel socketChannel,
                                  ProtocolEngine protocolEngine,
                                  final Set<TransportEncryption> encryptionSet,
                                  final Runnable onTransportEncryptionAction,
+                                 final Runnable onHandshakeCompleteAction,
                                  final NetworkConnectionScheduler scheduler,
                                  final AmqpPort port)
     {
@@ -78,9 +94,17 @@ public class NonBlockingConnection implements NetworkConnection, ByteBufferSende
 
         _protocolEngine = protocolEngine;
         _onTransportEncryptionAction = onTransportEncryptionAction;
+        _onHandshakeCompleteAction = onHandshakeCompleteAction;
 
         _remoteSocketAddress = _socketChannel.socket().getRemoteSocketAddress().toString();
         _port = port;
+        _outputBatchSize = port.getOutputBatchSize();
+        _outputBatchDelay = port.getOutputBatchDelay();
+
+        if (_outputBatchDelay > 0L)
+        {
+            protocolEngine.getAggregateTicker().addTicker(new OutputBatchTicker());
+        }
 
         protocolEngine.setWorkListener(new Action<ProtocolEngine>()
         {
@@ -202,6 +226,28 @@ public class NonBlockingConnection implements NetworkConnection, ByteBufferSende
         return _protocolEngine.hasWork();
     }
 
+    /**
+     * A connection has completed its handshake once its protocol, any TLS session and its identity have been
+     * established, or once it has been closed.
+     */
+    public boolean isHandshakeComplete()
+    {
+        return _handshakeComplete;
+    }
+
+    private void checkHandshakeComplete(final boolean closed)
+    {
+        if (!_handshakeComplete)
+        {
+            final Subject subject = _protocolEngine.getSubject();
+            if (closed || (subject != null && !subject.getPrincipals(AuthenticatedPrincipal.class).isEmpty()))
+            {
+                _handshakeComplete = true;
+                _onHandshakeCompleteAction.run();
+            }
+        }
+    }
+
     public boolean doWork()
     {
         _protocolEngine.clearWork();
@@ -220,9 +266,12 @@ public class NonBlockingConnection implements NetworkConnection, ByteBufferSende
 
                 _protocolEngine.processPending();
 
-                _protocolEngine.setTransportBlockedForWriting(!doWrite());
+                if (isOutputBatchFull())
+                {
+                    _protocolEngine.setTransportBlockedForWriting(!doWrite());
+                }
                 boolean dataRead = doRead();
-                _fullyWritten = doWrite();
+                _fullyWritten = isOutputDeferred(currentTime) || doWrite();
                 _protocolEngine.setTransportBlockedForWriting(!_fullyWritten);
 
                 if (dataRead || (_delegate.needsWork() && _delegate.getNetInputBuffer().position() != 0))
@@ -232,6 +281,8 @@ public class NonBlockingConnection implements NetworkConnection, ByteBufferSende
 
                 // tell all consumer targets that it is okay to accept more
                 _protocolEngine.setMessageAssignmentSuspended(false);
+
+                checkHandshakeComplete(false);
             }
             catch (IOException | ConnectionScopedRuntimeException e)
             {
@@ -247,6 +298,7 @@ public class NonBlockingConnection implements NetworkConnection, ByteBufferSende
         final boolean closed = _closed.get();
         if (closed)
         {
+            checkHandshakeComplete(true);
             shutdown();
         }
 
@@ -363,6 +415,10 @@ public class NonBlockingConnection implements NetworkConnection, ByteBufferSende
     long writeToTransport(Collection<QpidByteBuffer> buffers) throws IOException
     {
         long written  = QpidByteBuffer.write(_socketChannel, buffers);
+        if (written > 0L)
+        {
+            _port.registerNetworkWrite(written);
+        }
         if (LOGGER.isDebugEnabled())
         {
             LOGGER.debug("Written " + written + " bytes");
@@ -370,19 +426,69 @@ public class NonBlockingConnection implements NetworkConnection, ByteBufferSende
         return written;
     }
 
+    /**
+     * Output is written ahead of reading only once a batch worth of it has accumulated, so that frames produced
+     * while processing pending work and frames produced in response to the read go out in a single write.
+     */
+    private boolean isOutputBatchFull()
+    {
+        return _outputBatchSize <= 0 || getPendingOutputSize() >= _outputBatchSize;
+    }
+
+    /**
+     * With an output batch delay configured, output smaller than a batch is held back for at most that delay in the
+     * hope that subsequent passes will add to it.  The {@link OutputBatchTicker} has the connection scheduled again
+     * when the delay expires.
+     */
+    private boolean isOutputDeferred(final long currentTime)
+    {
+        if (_outputBatchDelay > 0L)
+        {
+            final long pendingOutputSize = getPendingOutputSize();
+            if (pendingOutputSize > 0L && pendingOutputSize < _outputBatchSize)
+            {
+                if (_outputDeferredSince == 0L)
+                {
+                    _outputDeferredSince = currentTime;
+                }
+                if (currentTime - _outputDeferredSince < _outputBatchDelay)
+                {
+                    return true;
+                }
+            }
+            _outputDeferredSince = 0L;
+        }
+        return false;
+    }
+
+    long getPendingOutputSize()
+    {
+        return _pendingOutputSize.get();
+    }
+
     private boolean doWrite() throws IOException
     {
         final boolean result = _delegate.doWrite(_buffers);
+
+        // buffers are queued as slices, so the position of each is the number of its bytes written so far
+        long written = -_headBufferWritten;
+        _headBufferWritten = 0L;
         while(!_buffers.isEmpty())
         {
             QpidByteBuffer buf = _buffers.peek();
+            written += buf.position();
             if(buf.hasRemaining())
             {
+                _headBufferWritten = buf.position();
                 break;
             }
             _buffers.poll();
             buf.dispose();
         }
+        if (written != 0L)
+        {
+            _pendingOutputSize.addAndGet(-written);
+        }
         return result;
 
     }
@@ -416,7 +522,8 @@ public class NonBlockingConnection implements NetworkConnection, ByteBufferSende
         }
         else if (msg.remaining() > 0)
         {
-            _buffers.add(msg.duplicate());
+            _pendingOutputSize.addAndGet(msg.remaining());
+            _buffers.add(msg.slice());
         }
         msg.position(msg.limit());
     }
@@ -442,6 +549,19 @@ public class NonBlockingConnection implements NetworkConnection, ByteBufferSende
         return _scheduler;
     }
 
+    /**
+     * @return the index of the scheduler worker that last processed this connection, or -1 if none has
+     */
+    int getPreferredWorker()
+    {
+        return _preferredWorker;
+    }
+
+    void setPreferredWorker(final int preferredWorker)
+    {
+        _preferredWorker = preferredWorker;
+    }
+
     public void processAmqpData(QpidByteBuffer applicationData)
     {
         _protocolEngine.received(applicationData);
@@ -481,4 +601,24 @@ public class NonBlockingConnection implements NetworkConnection, ByteBufferSende
             _unexpectedByteBufferSizeUsed = true;
         }
     }
+
+    private class OutputBatchTicker implements Ticker
+    {
+        @Override
+        public int getTimeToNextTick(final long currentTime)
+        {
+            final long deferredSince = _outputDeferredSince;
+            if (deferredSince == 0L)
+            {
+                return Integer.MAX_VALUE;
+            }
+            return (int) Math.max(0L, deferredSince + _outputBatchDelay - currentTime);
+        }
+
+        @Override
+        public int tick(final long currentTime)
+        {
+            return getTimeToNextTick(currentTime);
+        }
+    }
 }
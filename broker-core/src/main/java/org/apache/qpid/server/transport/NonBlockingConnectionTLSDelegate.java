@@ -33,11 +33,9 @@ import javax.net.ssl.SSLPeerUnverifiedException;
 import java.io.IOException;
 import java.security.Principal;
 import java.security.cert.Certificate;
-import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
-import java.util.List;
-import java.util.ListIterator;
 
 public class NonBlockingConnectionTLSDelegate implements NonBlockingConnectionDelegate
 {
@@ -47,7 +45,6 @@ public class NonBlockingConnectionTLSDelegate implements NonBlockingConnectionDe
     private final NonBlockingConnection _parent;
     private final int _networkBufferSize;
     private SSLEngineResult _status;
-    private final List<QpidByteBuffer> _encryptedOutput = new ArrayList<>();
     private Principal _principal;
     private Certificate _peerCertificate;
     private boolean _principalChecked;
@@ -92,14 +89,7 @@ public class NonBlockingConnectionTLSDelegate implements NonBlockingConnectionDe
             int oldAppBufPos = _applicationBuffer.position();
             oldNetBufferPos = _netInputBuffer.position();
 
-            _status = _netInputBuffer.decryptSSL(_sslEngine, _applicationBuffer);
-            if (_status.getStatus() == SSLEngineResult.Status.CLOSED)
-            {
-                // KW If SSLEngine changes state to CLOSED, what will ever set _closed to true?
-                LOGGER.debug("SSLEngine closed");
-            }
-
-            tasksRun = runSSLEngineTasks(_status);
+            tasksRun = decryptRecords();
             _applicationBuffer.flip();
             if(_applicationBuffer.position() > oldAppBufPos)
             {
@@ -124,42 +114,95 @@ public class NonBlockingConnectionTLSDelegate implements NonBlockingConnectionDe
         return readData;
     }
 
+    /**
+     * Unwraps records from the network input for as long as the application buffer has room for another, so that
+     * all the records received by a read are handed to the protocol engine at once, straight from the buffer they
+     * were decrypted into.
+     *
+     * @return true if the SSL engine ran delegated tasks
+     */
+    private boolean decryptRecords() throws SSLException
+    {
+        final int applicationBufferSize = _sslEngine.getSession().getApplicationBufferSize();
+        int oldNetBufferPos;
+        do
+        {
+            oldNetBufferPos = _netInputBuffer.position();
+
+            _status = _netInputBuffer.decryptSSL(_sslEngine, _applicationBuffer);
+            if (_status.getStatus() == SSLEngineResult.Status.CLOSED)
+            {
+                // KW If SSLEngine changes state to CLOSED, what will ever set _closed to true?
+                LOGGER.debug("SSLEngine closed");
+            }
+
+            if (runSSLEngineTasks(_status))
+            {
+                return true;
+            }
+        }
+        while(_status.getStatus() == SSLEngineResult.Status.OK
+              && _netInputBuffer.hasRemaining()
+              && _netInputBuffer.position() > oldNetBufferPos
+              && _applicationBuffer.remaining() >= applicationBufferSize);
+
+        return false;
+    }
+
+    /**
+     * Encrypts the pending application data into the connection's network output buffer and writes it out.
+     *
+     * The SSL engine gathers the data from all the pending buffers, so each record it produces is as large as the
+     * data allows, however small the individual protocol writes were.  Records are accumulated in the one network
+     * output buffer, which is reused for the life of the connection, until it has no room for another; it is then
+     * written with a single write and, as long as the transport takes all of it, filled again.
+     */
     @Override
     public boolean doWrite(Collection<QpidByteBuffer> bufferArray) throws IOException
     {
         final int bufCount = bufferArray.size();
 
-        wrapBufferArray(bufferArray);
+        boolean encrypted;
+        boolean netOutputWritten;
+        do
+        {
+            encrypted = wrapBufferArray(bufferArray);
+            netOutputWritten = writeNetOutput();
+        }
+        while(encrypted && netOutputWritten && hasRemaining(bufferArray, bufCount));
+
+        return netOutputWritten && !hasRemaining(bufferArray, bufCount);
+    }
 
-        boolean bufsSent = true;
+    private boolean hasRemaining(final Collection<QpidByteBuffer> bufferArray, final int bufCount)
+    {
         final Iterator<QpidByteBuffer> itr = bufferArray.iterator();
         int bufIndex = 0;
-        while(itr.hasNext() && bufsSent && bufIndex++ < bufCount)
+        while(itr.hasNext() && bufIndex++ < bufCount)
         {
-            QpidByteBuffer buf = itr.next();
-            bufsSent = !buf.hasRemaining();
+            if(itr.next().hasRemaining())
+            {
+                return true;
+            }
         }
+        return false;
+    }
 
-        if(!_encryptedOutput.isEmpty())
+    private boolean writeNetOutput() throws IOException
+    {
+        if(_netOutputBuffer.position() != 0)
         {
-            _parent.writeToTransport(_encryptedOutput);
-
-            ListIterator<QpidByteBuffer> iter = _encryptedOutput.listIterator();
-            while (iter.hasNext())
+            _netOutputBuffer.flip();
+            try
             {
-                QpidByteBuffer buf = iter.next();
-                if (buf.remaining() == 0)
-                {
-                    buf.dispose();
-                    iter.remove();
-                }
-                else
-                {
-                    break;
-                }
+                _parent.writeToTransport(Collections.singletonList(_netOutputBuffer));
+            }
+            finally
+            {
+                _netOutputBuffer.compact();
             }
         }
-        return bufsSent && _encryptedOutput.isEmpty();
+        return _netOutputBuffer.position() == 0;
     }
 
     protected void restoreApplicationBufferForWrite()
@@ -196,57 +239,22 @@ public class NonBlockingConnectionTLSDelegate implements NonBlockingConnectionDe
 
     }
 
-    private void wrapBufferArray(Collection<QpidByteBuffer> bufferArray) throws SSLException
+    private boolean wrapBufferArray(Collection<QpidByteBuffer> bufferArray) throws SSLException
     {
-        boolean encrypted;
-        do
+        final int packetBufferSize = _sslEngine.getSession().getPacketBufferSize();
+        boolean encrypted = false;
+        while(_sslEngine.getHandshakeStatus() != SSLEngineResult.HandshakeStatus.NEED_UNWRAP
+              && _netOutputBuffer.remaining() >= packetBufferSize)
         {
-            if(_sslEngine.getHandshakeStatus() != SSLEngineResult.HandshakeStatus.NEED_UNWRAP)
-            {
-                if(_netOutputBuffer.remaining() < _sslEngine.getSession().getPacketBufferSize())
-                {
-                    if(_netOutputBuffer.position() != 0)
-                    {
-                        _netOutputBuffer.flip();
-                        _encryptedOutput.add(_netOutputBuffer);
-                    }
-                    else
-                    {
-                        _netOutputBuffer.dispose();
-                    }
-                    _netOutputBuffer = QpidByteBuffer.allocateDirect(_networkBufferSize);
-                }
-
-                _status = QpidByteBuffer.encryptSSL(_sslEngine, bufferArray, _netOutputBuffer);
-                encrypted = _status.bytesProduced() > 0;
-                runSSLEngineTasks(_status);
-                if(encrypted && _netOutputBuffer.remaining() < _sslEngine.getSession().getPacketBufferSize())
-                {
-                    _netOutputBuffer.flip();
-                    _encryptedOutput.add(_netOutputBuffer);
-                    _netOutputBuffer = QpidByteBuffer.allocateDirect(_networkBufferSize);
-                }
-
-            }
-            else
+            _status = QpidByteBuffer.encryptSSL(_sslEngine, bufferArray, _netOutputBuffer);
+            runSSLEngineTasks(_status);
+            if(_status.bytesProduced() == 0)
             {
-                encrypted = false;
+                break;
             }
-
+            encrypted = true;
         }
-        while(encrypted && _sslEngine.getHandshakeStatus() != SSLEngineResult.HandshakeStatus.NEED_UNWRAP);
-
-        if(_netOutputBuffer.position() != 0)
-        {
-            final QpidByteBuffer outputBuffer = _netOutputBuffer;
-
-            _netOutputBuffer = _netOutputBuffer.slice();
-
-            outputBuffer.flip();
-            _encryptedOutput.add(outputBuffer);
-
-        }
-
+        return encrypted;
     }
 
     private boolean runSSLEngineTasks(final SSLEngineResult status)
@@ -56,6 +56,7 @@ public class NonBlockingNetworkTransport
     private final NetworkConnectionScheduler _scheduler;
     private final AmqpPort _port;
     private final InetSocketAddress _address;
+    private final AdmissionController _admissionController;
 
     public NonBlockingNetworkTransport(final MultiVersionProtocolEngineFactory factory,
                                        final EnumSet<TransportEncryption> encryptionSet,
@@ -92,6 +93,17 @@ public class NonBlockingNetworkTransport
             _encryptionSet = encryptionSet;
             _scheduler = scheduler;
             _port = port;
+            _admissionController = new AdmissionController(port.getAcceptRateLimit(),
+                                                           port.getAcceptBurst(),
+                                                           port.getMaxHandshakesInProgress(),
+                                                           new Runnable()
+                                                           {
+                                                               @Override
+                                                               public void run()
+                                                               {
+                                                                   _scheduler.wakeup();
+                                                               }
+                                                           });
 
         }
         catch (IOException e)
@@ -125,13 +137,38 @@ public class NonBlockingNetworkTransport
         return _serverSocket.socket().getLocalPort();
     }
 
-    void acceptSocketChannel(final ServerSocketChannel serverSocketChannel)
+    /**
+     * @return the number of milliseconds for which accepting connections is to be deferred, see
+     * {@link AdmissionController#getAcceptDelay(long)}
+     */
+    int getAcceptDelay(final long currentTime)
     {
+        return _admissionController.getAcceptDelay(currentTime);
+    }
+
+    /**
+     * @return false if the connection was not accepted because admission control deferred it
+     */
+    boolean acceptSocketChannel(final ServerSocketChannel serverSocketChannel)
+    {
+        final long currentTime = System.currentTimeMillis();
+        if (_admissionController.getAcceptDelay(currentTime) > 0)
+        {
+            _port.registerAcceptDeferral();
+            return false;
+        }
+
         SocketChannel socketChannel = null;
         boolean success = false;
         try
         {
             socketChannel = serverSocketChannel.accept();
+            if (socketChannel == null)
+            {
+                // no connection is pending, for instance because the client reset it before it was accepted
+                return true;
+            }
+            _admissionController.connectionAccepted(currentTime);
 
             final MultiVersionProtocolEngine engine =
                     _factory.newProtocolEngine(socketChannel.socket().getRemoteSocketAddress());
@@ -166,6 +203,15 @@ public class NonBlockingNetworkTransport
                                                           engine.encryptedTransport();
                                                       }
                                                   },
+                                                  new Runnable()
+                                                  {
+
+                                                      @Override
+                                                      public void run()
+                                                      {
+                                                          _admissionController.handshakeCompleted();
+                                                      }
+                                                  },
                                                   _scheduler,
                                                   _port);
 
@@ -193,6 +239,7 @@ public class NonBlockingNetworkTransport
         {
             if (!success && socketChannel != null)
             {
+                _admissionController.handshakeCompleted();
                 try
                 {
                     socketChannel.close();
@@ -203,5 +250,6 @@ public class NonBlockingNetworkTransport
                 }
             }
         }
+        return true;
     }
 }
@@ -58,6 +58,9 @@ class SelectorThread extends Thread
     private final NetworkConnectionScheduler _scheduler;
     private long _nextTimeout;
 
+    /** Keys of accepting sockets whose accepts admission control has deferred */
+    private final List<SelectionKey> _deferredAcceptKeys = new ArrayList<>();
+
     SelectorThread(final NetworkConnectionScheduler scheduler) throws IOException
     {
         super("Selector-" + scheduler.getName());
@@ -136,9 +139,22 @@ class SelectorThread extends Thread
 
                 toBeScheduled.addAll(processUnscheduledConnections());
 
+                processDeferredAccepts();
+
+                // I/O for established connections goes ahead of that for connections still negotiating
                 for (NonBlockingConnection connection : toBeScheduled)
                 {
-                    _scheduler.schedule(connection);
+                    if (connection.isHandshakeComplete())
+                    {
+                        _scheduler.schedule(connection);
+                    }
+                }
+                for (NonBlockingConnection connection : toBeScheduled)
+                {
+                    if (!connection.isHandshakeComplete())
+                    {
+                        _scheduler.schedule(connection);
+                    }
                 }
             }
         }
@@ -192,6 +208,34 @@ class SelectorThread extends Thread
         return toBeScheduled;
     }
 
+    private void processDeferredAccepts()
+    {
+        long currentTime = System.currentTimeMillis();
+        Iterator<SelectionKey> iterator = _deferredAcceptKeys.iterator();
+        while (iterator.hasNext())
+        {
+            SelectionKey key = iterator.next();
+            if (!key.isValid())
+            {
+                iterator.remove();
+            }
+            else
+            {
+                NonBlockingNetworkTransport transport = (NonBlockingNetworkTransport) key.attachment();
+                int delay = transport.getAcceptDelay(currentTime);
+                if (delay <= 0)
+                {
+                    key.interestOps(SelectionKey.OP_ACCEPT);
+                    iterator.remove();
+                }
+                else
+                {
+                    _nextTimeout = Math.min(delay, _nextTimeout);
+                }
+            }
+        }
+    }
+
     private void unregisterConnection(final NonBlockingConnection connection) throws ClosedChannelException
     {
         SelectionKey register = connection.getSocketChannel().register(_selector, 0);
@@ -234,7 +278,11 @@ class SelectorThread extends Thread
             {
                 NonBlockingNetworkTransport transport = (NonBlockingNetworkTransport) key.attachment();
                 // todo - should we schedule this rather than running in this thread?
-                transport.acceptSocketChannel((ServerSocketChannel)key.channel());
+                if (!transport.acceptSocketChannel((ServerSocketChannel)key.channel()))
+                {
+                    key.interestOps(0);
+                    _deferredAcceptKeys.add(key);
+                }
             }
             else
             {
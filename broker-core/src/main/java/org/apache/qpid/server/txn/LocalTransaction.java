@@ -41,6 +41,7 @@ import org.slf4j.LoggerFactory;
 import org.apache.qpid.server.message.EnqueueableMessage;
 import org.apache.qpid.server.message.MessageInstance;
 import org.apache.qpid.server.queue.BaseQueue;
+import org.apache.qpid.server.queue.EnqueueBatch;
 import org.apache.qpid.server.store.MessageEnqueueRecord;
 import org.apache.qpid.server.store.MessageStore;
 import org.apache.qpid.server.store.Transaction;
@@ -448,9 +449,18 @@ public class LocalTransaction implements ServerTransaction
     {
         _logger.debug("Beginning {} post transaction actions",  _postTransactionActions.size());
 
-        for(int i = 0; i < _postTransactionActions.size(); i++)
+        // the messages enqueued by the transaction are appended to each queue together
+        final EnqueueBatch enqueueBatch = EnqueueBatch.start();
+        try
+        {
+            for(int i = 0; i < _postTransactionActions.size(); i++)
+            {
+                _postTransactionActions.get(i).postCommit();
+            }
+        }
+        finally
         {
-            _postTransactionActions.get(i).postCommit();
+            enqueueBatch.complete();
         }
 
         _logger.debug("Completed post transaction actions");
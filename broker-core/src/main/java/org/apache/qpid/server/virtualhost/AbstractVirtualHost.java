@@ -1899,6 +1899,7 @@ public abstract class AbstractVirtualHost<X extends AbstractVirtualHost<X>> exte
         };
 
         long threadPoolKeepAliveTimeout = getContextValue(Long.class, CONNECTION_THREAD_POOL_KEEP_ALIVE_TIMEOUT);
+        boolean threadPoolWorkStealing = getContextValue(Boolean.class, CONNECTION_THREAD_POOL_WORK_STEALING);
 
         final SuppressingInheritedAccessControlContextThreadFactory connectionThreadFactory =
                 new SuppressingInheritedAccessControlContextThreadFactory("virtualhost-" + getName() + "-iopool",
@@ -1908,7 +1909,8 @@ public abstract class AbstractVirtualHost<X extends AbstractVirtualHost<X>> exte
                                                                      getConnectionThreadPoolMinimum(),
                                                                      getConnectionThreadPoolMaximum(),
                                                                      threadPoolKeepAliveTimeout,
-                                                                     connectionThreadFactory);
+                                                                     connectionThreadFactory,
+                                                                     threadPoolWorkStealing);
         _networkConnectionScheduler.start();
         MessageStore messageStore = getMessageStore();
         messageStore.openMessageStore(this);
@@ -168,6 +168,16 @@ public class MockConsumer implements ConsumerTarget
         return size;
     }
 
+    public long send(final ConsumerImpl consumer, final List<? extends MessageInstance> entries)
+    {
+        long size = 0;
+        for (MessageInstance entry : entries)
+        {
+            size += send(consumer, entry, true);
+        }
+        return size;
+    }
+
     @Override
     public boolean hasMessagesToSend()
     {
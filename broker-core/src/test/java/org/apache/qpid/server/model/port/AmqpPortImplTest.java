@@ -170,4 +170,24 @@ public class AmqpPortImplTest extends QpidTestCase
 
 
     }
+
+    public void testNetworkWriteStatistics()
+    {
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put(AmqpPort.PORT, 0);
+        attributes.put(AmqpPort.NAME, getTestName());
+        attributes.put(AmqpPort.AUTHENTICATION_PROVIDER, AUTHENTICATION_PROVIDER_NAME);
+        _port = new AmqpPortImpl(attributes, _broker);
+        _port.create();
+
+        assertEquals(0, _port.getNetworkWrites());
+        assertEquals(0, _port.getNetworkBytesPerWrite());
+
+        _port.registerNetworkWrite(1000);
+        _port.registerNetworkWrite(3000);
+
+        assertEquals(2, _port.getNetworkWrites());
+        assertEquals(4000, _port.getNetworkBytesWritten());
+        assertEquals(2000, _port.getNetworkBytesPerWrite());
+    }
 }
@@ -34,6 +34,8 @@ import org.apache.qpid.server.model.ConfiguredObject;
 import org.apache.qpid.server.model.ConfiguredObjectOperation;
 import org.apache.qpid.server.model.ConfiguredObjectTypeRegistry;
 import org.apache.qpid.server.model.ManagedInterface;
+import org.apache.qpid.server.plugin.ConfiguredObjectAccessorRegistration;
+import org.apache.qpid.server.plugin.QpidServiceLoader;
 import org.apache.qpid.test.utils.QpidTestCase;
 
 public class ConfiguredObjectTypeRegistryTest extends QpidTestCase
@@ -121,4 +123,27 @@ public class ConfiguredObjectTypeRegistryTest extends QpidTestCase
             // pass
         }
     }
+
+    public void testAccessorsGeneratedForAttributes()
+    {
+        ConfiguredObjectAccessorRegistration registration = null;
+        for (ConfiguredObjectAccessorRegistration candidate :
+                new QpidServiceLoader().instancesOf(ConfiguredObjectAccessorRegistration.class))
+        {
+            if (candidate.getConfiguredObjectClass() == ConfiguredObject.class)
+            {
+                registration = candidate;
+            }
+        }
+        assertNotNull("No accessors generated for " + ConfiguredObject.class.getSimpleName(), registration);
+
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put(ConfiguredObject.NAME, "testKitCar");
+        attributes.put(ConfiguredObject.TYPE, TestKitCarImpl.TEST_KITCAR_TYPE);
+        TestCar object = TestModel.getInstance().getObjectFactory().create(TestCar.class, attributes);
+
+        assertEquals("testKitCar", registration.getAccessors().get("getName").getValue(object));
+        assertEquals(object.getId(), registration.getAccessors().get("getId").getValue(object));
+        assertEquals("testKitCar", object.getAttribute(ConfiguredObject.NAME));
+    }
 }
@@ -50,7 +50,9 @@ import org.slf4j.LoggerFactory;
 
 import org.apache.qpid.exchange.ExchangeDefaults;
 import org.apache.qpid.server.binding.BindingImpl;
+import org.apache.qpid.server.configuration.IllegalConfigurationException;
 import org.apache.qpid.server.consumer.ConsumerImpl;
+import org.apache.qpid.server.consumer.ConsumerTarget;
 import org.apache.qpid.server.consumer.MockConsumer;
 import org.apache.qpid.server.exchange.DirectExchange;
 import org.apache.qpid.server.message.AMQMessageHeader;
@@ -62,7 +64,11 @@ import org.apache.qpid.server.message.ServerMessage;
 import org.apache.qpid.server.model.Queue;
 import org.apache.qpid.server.model.QueueNotificationListener;
 import org.apache.qpid.server.queue.AbstractQueue.QueueEntryFilter;
+import org.apache.qpid.server.store.MessageEnqueueRecord;
+import org.apache.qpid.server.store.MessageStore;
+import org.apache.qpid.server.store.Transaction;
 import org.apache.qpid.server.store.TransactionLogResource;
+import org.apache.qpid.server.store.handler.MessageInstanceHandler;
 import org.apache.qpid.server.util.Action;
 import org.apache.qpid.server.util.BrokerTestHelper;
 import org.apache.qpid.server.virtualhost.VirtualHostImpl;
@@ -235,6 +241,81 @@ abstract class AbstractQueueTestBase extends QpidTestCase
                    _consumer.getQueueContext().getReleasedEntry());
     }
 
+    public void testStraightThroughDeliveryOnlyToConsumersWithCredit() throws Exception
+    {
+        MockConsumer suspendedTarget = new MockConsumer();
+        QueueConsumer<?> suspendedConsumer =
+                (QueueConsumer<?>) _queue.addConsumer(suspendedTarget, null, ServerMessage.class, "suspended",
+                                                       EnumSet.of(ConsumerImpl.Option.ACQUIRES,
+                                                                  ConsumerImpl.Option.SEES_REQUEUES));
+        _consumer = (QueueConsumer<?>) _queue.addConsumer(_consumerTarget, null, ServerMessage.class, "test",
+                                                          EnumSet.of(ConsumerImpl.Option.ACQUIRES,
+                                                                     ConsumerImpl.Option.SEES_REQUEUES));
+        assertEquals("Unexpected number of consumers with credit", 2, _queue.getConsumerCountWithCredit());
+
+        suspendedTarget.setState(ConsumerTarget.State.SUSPENDED);
+        assertEquals("Suspended consumer should have been removed from consumers with credit",
+                     1, _queue.getConsumerCountWithCredit());
+
+        _queue.enqueue(createMessage(new Long(24)), null, null);
+        Thread.sleep(150);
+
+        assertEquals("Message should have been delivered to consumer with credit",
+                     1, _consumerTarget.getMessages().size());
+        assertTrue("Message should not have been delivered to suspended consumer",
+                   suspendedTarget.getMessages().isEmpty());
+
+        suspendedTarget.setState(ConsumerTarget.State.ACTIVE);
+        assertEquals("Active consumer should have been added to consumers with credit",
+                     2, _queue.getConsumerCountWithCredit());
+
+        suspendedConsumer.close();
+        assertEquals("Closed consumer should have been removed from consumers with credit",
+                     1, _queue.getConsumerCountWithCredit());
+    }
+
+    public void testMessagesEnqueuedInBatchAddedOnCompletion() throws Exception
+    {
+        EnqueueBatch batch = EnqueueBatch.start();
+        try
+        {
+            for (int i = 0; i < 3; i++)
+            {
+                _queue.enqueue(createMessage((long) i), null, null);
+            }
+            assertEquals("Messages should not be enqueued before the batch completes",
+                         0, _queue.getQueueDepthMessages());
+        }
+        finally
+        {
+            batch.complete();
+        }
+
+        assertEquals("Messages should be enqueued when the batch completes", 3, _queue.getQueueDepthMessages());
+        assertEquals("Unexpected enqueued message count", 3l, _queue.getTotalEnqueuedMessages());
+        List<? extends QueueEntry> entries = _queue.getMessagesOnTheQueue();
+        for (int i = 0; i < 3; i++)
+        {
+            assertEquals((long) i, entries.get(i).getMessage().getMessageNumber());
+        }
+    }
+
+    public void testMessagesDeliveredInBatches() throws Exception
+    {
+        final int messageCount = 40;
+        enqueueGivenNumberOfMessages(_queue, messageCount);
+        _consumer = (QueueConsumer<?>) _queue.addConsumer(_consumerTarget, null, ServerMessage.class, "test",
+                                                          EnumSet.of(ConsumerImpl.Option.ACQUIRES,
+                                                                     ConsumerImpl.Option.SEES_REQUEUES));
+        Thread.sleep(150);
+
+        assertEquals("Unexpected number of messages delivered", messageCount, _consumerTarget.getMessages().size());
+        assertEquals("Unexpected number of messages delivered in batches",
+                     (long) messageCount, _queue.getDeliveryBatchMessages());
+        assertTrue("Messages should have been delivered more than one at a time",
+                   _queue.getDeliveryBatchCount() < messageCount);
+    }
+
     /**
      * Tests that a released queue entry is resent to the subscriber.  Verifies also that the
      * QueueContext._releasedEntry is reset to null after the entry has been reset.
@@ -828,6 +909,91 @@ abstract class AbstractQueueTestBase extends QpidTestCase
     }
 
 
+    public void testDuplicateMessageDropped() throws Exception
+    {
+        _queue.setAttributes(Collections.<String, Object>singletonMap(Queue.DUPLICATE_DETECTION_ENABLED, true));
+
+        ServerMessage message = createMessage(24l);
+        ServerMessage duplicate = createMessage(25l);
+        when(duplicate.getMessageHeader().getMessageId()).thenReturn(String.valueOf(24l));
+
+        MessageStore store = _virtualHost.getMessageStore();
+        Transaction txn = store.newTransaction();
+        MessageEnqueueRecord record = txn.enqueueMessage(_queue, message);
+        MessageEnqueueRecord duplicateRecord = txn.enqueueMessage(_queue, duplicate);
+        txn.commitTran();
+
+        _queue.enqueue(message, null, record);
+        _queue.enqueue(duplicate, null, duplicateRecord);
+
+        assertEquals("Unexpected queue depth", 1, _queue.getQueueDepthMessages());
+        assertEquals("Unexpected number of dropped duplicates", 1l, _queue.getDroppedDuplicateMessages());
+
+        final List<Long> storedMessageNumbers = new ArrayList<>();
+        store.newMessageStoreReader().visitMessageInstances(_queue, new MessageInstanceHandler()
+        {
+            @Override
+            public boolean handle(final MessageEnqueueRecord enqueueRecord)
+            {
+                storedMessageNumbers.add(enqueueRecord.getMessageNumber());
+                return true;
+            }
+        });
+        assertEquals("Duplicate was not removed from the store",
+                     Collections.singletonList(24l), storedMessageNumbers);
+    }
+
+    public void testDuplicateDetectionDisabledAtRuntime() throws Exception
+    {
+        _queue.setAttributes(Collections.<String, Object>singletonMap(Queue.DUPLICATE_DETECTION_ENABLED, true));
+        _queue.setAttributes(Collections.<String, Object>singletonMap(Queue.DUPLICATE_DETECTION_ENABLED, false));
+
+        ServerMessage message = createMessage(24l);
+        ServerMessage duplicate = createMessage(25l);
+        when(duplicate.getMessageHeader().getMessageId()).thenReturn(String.valueOf(24l));
+
+        _queue.enqueue(message, null, null);
+        _queue.enqueue(duplicate, null, null);
+
+        assertEquals("Unexpected queue depth", 2, _queue.getQueueDepthMessages());
+        assertEquals("Unexpected number of dropped duplicates", 0l, _queue.getDroppedDuplicateMessages());
+    }
+
+    public void testInvalidDuplicateDetectionSettingsRejected() throws Exception
+    {
+        assertChangeRejected(Queue.DUPLICATE_DETECTION_WINDOW, 0l);
+        assertChangeRejected(Queue.DUPLICATE_DETECTION_WINDOW, -1l);
+        assertChangeRejected(Queue.DUPLICATE_DETECTION_CACHE_SIZE, 0);
+        assertChangeRejected(Queue.DUPLICATE_DETECTION_CACHE_SIZE, -1);
+        assertChangeRejected(Queue.DUPLICATE_DETECTION_CACHE_SIZE, DuplicateMessageDetector.MAX_CAPACITY + 1);
+
+        Map<String,Object> attributes = new HashMap<>(_arguments);
+        attributes.put(Queue.NAME, getTestName());
+        attributes.put(Queue.DUPLICATE_DETECTION_CACHE_SIZE, -1);
+        try
+        {
+            _virtualHost.createQueue(attributes);
+            fail("Queue with a negative duplicate detection cache size was created");
+        }
+        catch (IllegalConfigurationException e)
+        {
+            // PASS
+        }
+    }
+
+    private void assertChangeRejected(final String attributeName, final Object value)
+    {
+        try
+        {
+            _queue.setAttributes(Collections.singletonMap(attributeName, value));
+            fail("Value " + value + " was accepted for " + attributeName);
+        }
+        catch (IllegalConfigurationException e)
+        {
+            // PASS
+        }
+    }
+
     public void testMaximumMessageTtl() throws Exception
     {
 
@@ -0,0 +1,174 @@
+/*
+*
+* Licensed to the Apache Software Foundation (ASF) under one
+* or more contributor license agreements.  See the NOTICE file
+* distributed with this work for additional information
+* regarding copyright ownership.  The ASF licenses this file
+* to you under the Apache License, Version 2.0 (the
+* "License"); you may not use this file except in compliance
+* with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*
+*/
+package org.apache.qpid.server.queue;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.security.Principal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import org.apache.qpid.server.configuration.updater.CurrentThreadTaskExecutor;
+import org.apache.qpid.server.configuration.updater.TaskExecutor;
+import org.apache.qpid.server.logging.EventLogger;
+import org.apache.qpid.server.message.AMQMessageHeader;
+import org.apache.qpid.server.message.MessageInstance;
+import org.apache.qpid.server.message.MessageReference;
+import org.apache.qpid.server.message.ServerMessage;
+import org.apache.qpid.server.model.BrokerModel;
+import org.apache.qpid.server.model.ConfiguredObjectFactoryImpl;
+import org.apache.qpid.server.model.Queue;
+import org.apache.qpid.server.security.SecurityManager;
+import org.apache.qpid.server.store.TransactionLogResource;
+import org.apache.qpid.server.virtualhost.VirtualHostImpl;
+import org.apache.qpid.test.utils.QpidTestCase;
+
+public class DefinedGroupMessageGroupManagerTest extends QpidTestCase
+{
+    private static final String GROUP_KEY = "group";
+    private static final String DEFAULT_GROUP = "default";
+
+    private StandardQueueImpl _queue;
+    private MessageGroupManager.ConsumerResetHelper _resetHelper;
+    private DefinedGroupMessageGroupManager _groupManager;
+    private QueueConsumer<?> _consumer1;
+    private QueueConsumer<?> _consumer2;
+
+    @Override
+    public void setUp() throws Exception
+    {
+        super.setUp();
+        Map<String,Object> queueAttributes = new HashMap<String, Object>();
+        queueAttributes.put(Queue.ID, UUID.randomUUID());
+        queueAttributes.put(Queue.NAME, getName());
+        final VirtualHostImpl virtualHost = mock(VirtualHostImpl.class);
+        when(virtualHost.getSecurityManager()).thenReturn(mock(SecurityManager.class));
+        when(virtualHost.getEventLogger()).thenReturn(new EventLogger());
+        ConfiguredObjectFactoryImpl factory = new ConfiguredObjectFactoryImpl(BrokerModel.getInstance());
+        when(virtualHost.getObjectFactory()).thenReturn(factory);
+        when(virtualHost.getModel()).thenReturn(factory.getModel());
+        TaskExecutor taskExecutor = CurrentThreadTaskExecutor.newStartedInstance();
+        when(virtualHost.getTaskExecutor()).thenReturn(taskExecutor);
+        when(virtualHost.getChildExecutor()).thenReturn(taskExecutor);
+        when(virtualHost.getPrincipal()).thenReturn(mock(Principal.class));
+        _queue = new StandardQueueImpl(queueAttributes, virtualHost);
+        _queue.open();
+
+        _resetHelper = mock(MessageGroupManager.ConsumerResetHelper.class);
+        _groupManager = new DefinedGroupMessageGroupManager(GROUP_KEY, DEFAULT_GROUP, _resetHelper);
+        _consumer1 = createConsumer();
+        _consumer2 = createConsumer();
+    }
+
+    public void testEntriesOfAssignedGroupAreSkippedByOtherConsumers()
+    {
+        QueueEntry entry1 = addEntry(1, "A");
+        QueueEntry entry2 = addEntry(2, "B");
+        QueueEntry entry3 = addEntry(3, "A");
+
+        assertTrue("Unassigned group should be assignable", _groupManager.mightAssign(entry1, _consumer1));
+        assertTrue("Entry should be accepted", _groupManager.acceptMessage(_consumer1, entry1));
+
+        assertFalse("Group A is assigned to another consumer", _groupManager.mightAssign(entry3, _consumer2));
+        assertFalse("Group A is assigned to another consumer", _groupManager.acceptMessage(_consumer2, entry3));
+        assertTrue("Group A is assigned to this consumer", _groupManager.mightAssign(entry3, _consumer1));
+        assertTrue("Group B is unassigned", _groupManager.acceptMessage(_consumer2, entry2));
+    }
+
+    public void testEarliestAssignedAvailableEntryIsFirstAvailableEntryOfAssignedGroups()
+    {
+        QueueEntry entry1 = addEntry(1, "A");
+        QueueEntry entry2 = addEntry(2, "B");
+        QueueEntry entry3 = addEntry(3, "A");
+        QueueEntry entry4 = addEntry(4, "B");
+        QueueEntry entry5 = addEntry(5, "A");
+        addEntry(6, "C");
+
+        assertTrue(_groupManager.acceptMessage(_consumer1, entry1));
+        assertTrue(_groupManager.acceptMessage(_consumer2, entry2));
+
+        assertSame("Unexpected earliest entry", entry3, _groupManager.findEarliestAssignedAvailableEntry(_consumer1));
+        assertSame("Unexpected earliest entry", entry4, _groupManager.findEarliestAssignedAvailableEntry(_consumer2));
+
+        assertTrue(_groupManager.acceptMessage(_consumer1, entry3));
+        assertSame("Acquired entry should no longer be offered",
+                   entry5, _groupManager.findEarliestAssignedAvailableEntry(_consumer1));
+
+        assertTrue(_groupManager.acceptMessage(_consumer1, entry5));
+        assertNull("No available entry of group A remains",
+                   _groupManager.findEarliestAssignedAvailableEntry(_consumer1));
+    }
+
+    public void testReleasingLastAcquiredEntryOfGroupRewindsConsumers()
+    {
+        QueueEntry entry1 = addEntry(1, "A");
+        QueueEntry entry2 = addEntry(2, "A");
+
+        assertTrue(_groupManager.acceptMessage(_consumer1, entry1));
+        assertFalse(_groupManager.mightAssign(entry2, _consumer2));
+        verify(_resetHelper, never()).resetSubPointersForGroups(any(QueueEntry.class));
+
+        entry1.release();
+
+        verify(_resetHelper).resetSubPointersForGroups(entry2);
+        assertNull("Group should no longer be assigned",
+                   _groupManager.findEarliestAssignedAvailableEntry(_consumer1));
+        assertTrue("Released group should be assignable to any consumer",
+                   _groupManager.mightAssign(entry2, _consumer2));
+    }
+
+    public void testMessagesWithoutGroupBelongToDefaultGroup()
+    {
+        QueueEntry entry1 = addEntry(1, null);
+        QueueEntry entry2 = addEntry(2, DEFAULT_GROUP);
+
+        assertTrue(_groupManager.acceptMessage(_consumer1, entry1));
+        assertFalse("Entry should be in the default group", _groupManager.mightAssign(entry2, _consumer2));
+    }
+
+    private QueueConsumer<?> createConsumer()
+    {
+        QueueConsumer consumer = mock(QueueConsumer.class);
+        when(consumer.getOwningState()).thenReturn(new MessageInstance.ConsumerAcquiredState(consumer));
+        when(consumer.getQueue()).thenReturn(_queue);
+        return consumer;
+    }
+
+    private QueueEntry addEntry(final long messageNumber, final String group)
+    {
+        final ServerMessage message = mock(ServerMessage.class);
+        when(message.getMessageNumber()).thenReturn(messageNumber);
+        AMQMessageHeader header = mock(AMQMessageHeader.class);
+        when(header.getHeader(GROUP_KEY)).thenReturn(group);
+        when(message.getMessageHeader()).thenReturn(header);
+        MessageReference ref = mock(MessageReference.class);
+        when(ref.getMessage()).thenReturn(message);
+        when(message.newReference()).thenReturn(ref);
+        when(message.newReference(any(TransactionLogResource.class))).thenReturn(ref);
+
+        return _queue.getEntries().add(message, null);
+    }
+}
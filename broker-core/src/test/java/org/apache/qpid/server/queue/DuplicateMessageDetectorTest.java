@@ -0,0 +1,105 @@
+/*
+*
+* Licensed to the Apache Software Foundation (ASF) under one
+* or more contributor license agreements.  See the NOTICE file
+* distributed with this work for additional information
+* regarding copyright ownership.  The ASF licenses this file
+* to you under the Apache License, Version 2.0 (the
+* "License"); you may not use this file except in compliance
+* with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*
+*/
+package org.apache.qpid.server.queue;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.apache.qpid.server.message.AMQMessageHeader;
+import org.apache.qpid.server.message.ServerMessage;
+import org.apache.qpid.test.utils.QpidTestCase;
+
+public class DuplicateMessageDetectorTest extends QpidTestCase
+{
+    private static final long WINDOW = 60000l;
+    private static final int CAPACITY = 1024;
+
+    public void testMessageWithSameIdIsDuplicate()
+    {
+        DuplicateMessageDetector detector = new DuplicateMessageDetector(null, WINDOW, CAPACITY);
+
+        assertFalse("First message should not be a duplicate", detector.isDuplicate(createMessage("id1", null)));
+        assertTrue("Message with same id should be a duplicate", detector.isDuplicate(createMessage("id1", null)));
+        assertFalse("Message with different id should not be a duplicate",
+                    detector.isDuplicate(createMessage("id2", null)));
+    }
+
+    public void testMessagesIdentifiedByHeader()
+    {
+        DuplicateMessageDetector detector = new DuplicateMessageDetector("dedup", WINDOW, CAPACITY);
+
+        assertFalse(detector.isDuplicate(createMessage("id1", "key1")));
+        assertFalse("Message id should be ignored when a key is set", detector.isDuplicate(createMessage("id1", "key2")));
+        assertTrue("Message with same key should be a duplicate", detector.isDuplicate(createMessage("id2", "key1")));
+    }
+
+    public void testMessageWithoutIdIsNeverDuplicate()
+    {
+        DuplicateMessageDetector detector = new DuplicateMessageDetector(null, WINDOW, CAPACITY);
+
+        assertFalse(detector.isDuplicate(createMessage(null, null)));
+        assertFalse(detector.isDuplicate(createMessage(null, null)));
+    }
+
+    public void testIdIsForgottenAfterWindow() throws Exception
+    {
+        DuplicateMessageDetector detector = new DuplicateMessageDetector(null, 50l, CAPACITY);
+
+        assertFalse(detector.isDuplicate(createMessage("id1", null)));
+        assertTrue(detector.isDuplicate(createMessage("id1", null)));
+
+        Thread.sleep(100l);
+
+        assertFalse("Id should have been forgotten", detector.isDuplicate(createMessage("id1", null)));
+        assertTrue("Id should have been recorded again", detector.isDuplicate(createMessage("id1", null)));
+    }
+
+    public void testRecordedIdIsDuplicate()
+    {
+        DuplicateMessageDetector detector = new DuplicateMessageDetector(null, WINDOW, CAPACITY);
+
+        detector.record(createMessage("id1", null));
+
+        assertTrue("Recorded id should be a duplicate", detector.isDuplicate(createMessage("id1", null)));
+    }
+
+    public void testCapacityIsBounded()
+    {
+        DuplicateMessageDetector detector = new DuplicateMessageDetector(null, WINDOW, 16);
+
+        for (int i = 0; i < 10000; i++)
+        {
+            assertFalse("Unexpected duplicate " + i, detector.isDuplicate(createMessage("id" + i, null)));
+        }
+
+        assertTrue("Most recent id should be remembered", detector.isDuplicate(createMessage("id9999", null)));
+    }
+
+    private ServerMessage<?> createMessage(final String messageId, final String key)
+    {
+        ServerMessage<?> message = mock(ServerMessage.class);
+        AMQMessageHeader header = mock(AMQMessageHeader.class);
+        when(header.getMessageId()).thenReturn(messageId);
+        when(header.getHeader("dedup")).thenReturn(key);
+        when(message.getMessageHeader()).thenReturn(header);
+        return message;
+    }
+}
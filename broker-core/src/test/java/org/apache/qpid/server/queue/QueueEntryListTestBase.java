@@ -23,9 +23,13 @@ import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.apache.qpid.server.message.AMQMessageHeader;
 import org.apache.qpid.server.message.MessageReference;
 import org.apache.qpid.server.message.ServerMessage;
+import org.apache.qpid.server.store.MessageEnqueueRecord;
 import org.apache.qpid.server.store.TransactionLogResource;
 import org.apache.qpid.test.utils.QpidTestCase;
 
@@ -89,6 +93,37 @@ public abstract class QueueEntryListTestBase extends QpidTestCase
 
     }
 
+    public void testAddBatchOfMessages()
+    {
+        final QueueEntryList list = getTestList(true);
+        list.add(createServerMessage(0l), null);
+
+        final List<ServerMessage> messages = new ArrayList<>();
+        final List<MessageEnqueueRecord> enqueueRecords = new ArrayList<>();
+        for (long i = 1l; i <= 3l; i++)
+        {
+            messages.add(createServerMessage(i));
+            enqueueRecords.add(null);
+        }
+        final List<QueueEntry> entries = list.add(messages, enqueueRecords);
+
+        assertEquals("Unexpected number of entries added", messages.size(), entries.size());
+        for (int i = 0; i < messages.size(); i++)
+        {
+            assertSame("Entry added for unexpected message", messages.get(i), entries.get(i).getMessage());
+        }
+
+        list.add(createServerMessage(4l), null);
+
+        int count = 0;
+        final QueueEntryIterator iter = list.iterator();
+        while (iter.advance())
+        {
+            count++;
+        }
+        assertEquals("Batch should have been added to the list", 5, count);
+    }
+
     private ServerMessage createServerMessage(long number)
     {
         final ServerMessage message = mock(ServerMessage.class);
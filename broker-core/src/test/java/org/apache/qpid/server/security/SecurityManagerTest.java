@@ -34,6 +34,8 @@ import static org.mockito.Mockito.when;
 import java.security.AccessControlException;
 import java.util.Collections;
 
+import org.mockito.ArgumentCaptor;
+
 import org.apache.qpid.server.model.AccessControlProvider;
 import org.apache.qpid.server.model.AuthenticationProvider;
 import org.apache.qpid.server.model.Binding;
@@ -41,6 +43,7 @@ import org.apache.qpid.server.model.Broker;
 import org.apache.qpid.server.model.BrokerLogInclusionRule;
 import org.apache.qpid.server.model.BrokerLogger;
 import org.apache.qpid.server.model.BrokerModel;
+import org.apache.qpid.server.model.ConfigurationChangeListener;
 import org.apache.qpid.server.model.ConfiguredObject;
 import org.apache.qpid.server.model.Consumer;
 import org.apache.qpid.server.model.Exchange;
@@ -391,6 +394,36 @@ public class SecurityManagerTest extends QpidTestCase
         verify(_accessControl, times(2)).authorise(eq(Operation.PUBLISH), eq(ObjectType.EXCHANGE), eq(properties));
     }
 
+    public void testAuthorisePublishUsesDecisionCacheUntilAccessControlChanges()
+    {
+        String routingKey = "routingKey";
+        String exchangeName = "exchangeName";
+        ObjectProperties properties = new ObjectProperties(TEST_VIRTUAL_HOST, exchangeName, routingKey, false);
+        PublishDecisionCache decisionCache = new PublishDecisionCache();
+
+        configureAccessPlugin(Result.ALLOWED);
+        _securityManager.authorisePublish(false, routingKey, exchangeName, TEST_VIRTUAL_HOST, decisionCache);
+        _securityManager.authorisePublish(false, routingKey, exchangeName, TEST_VIRTUAL_HOST, decisionCache);
+        verify(_accessControl).authorise(eq(Operation.PUBLISH), eq(ObjectType.EXCHANGE), eq(properties));
+
+        AccessControlProvider<?> aclProvider = (AccessControlProvider<?>) _broker.getChildren(AccessControlProvider.class).iterator().next();
+        ArgumentCaptor<ConfigurationChangeListener> listenerCaptor = ArgumentCaptor.forClass(ConfigurationChangeListener.class);
+        verify(aclProvider).addChangeListener(listenerCaptor.capture());
+        listenerCaptor.getValue().attributeSet(aclProvider, "path", "old", "new");
+
+        configureAccessPlugin(Result.DENIED);
+        try
+        {
+            _securityManager.authorisePublish(false, routingKey, exchangeName, TEST_VIRTUAL_HOST, decisionCache);
+            fail("AccessControlException is expected");
+        }
+        catch(AccessControlException e)
+        {
+            // pass
+        }
+        verify(_accessControl, times(2)).authorise(eq(Operation.PUBLISH), eq(ObjectType.EXCHANGE), eq(properties));
+    }
+
     public void testAuthorisePurge()
     {
         Queue queue = mock(Queue.class);
@@ -29,6 +29,9 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
@@ -37,6 +40,7 @@ import java.util.UUID;
 import org.mockito.ArgumentMatcher;
 import org.mockito.InOrder;
 
+import org.apache.qpid.server.configuration.BrokerProperties;
 import org.apache.qpid.server.model.BrokerModel;
 import org.apache.qpid.server.model.ConfiguredObject;
 import org.apache.qpid.server.model.ConfiguredObjectFactory;
@@ -372,6 +376,84 @@ public class JsonFileConfigStoreTest extends QpidTestCase
         assertFalse("JSON lock should not exist after delete", expectedJsonFileLck.exists());
     }
 
+    public void testChangesAreLoggedUntilClose() throws Exception
+    {
+        File expectedJsonFile = new File(_storeLocation, _parent.getName() + ".json");
+        File expectedLogFile = new File(_storeLocation, _parent.getName() + ".log");
+
+        _store.openConfigurationStore(_parent, false);
+        createRootRecord();
+        String document = readFile(expectedJsonFile);
+
+        final UUID queueId = new UUID(0, 1);
+        final Map<String,Object> queueAttr = Collections.singletonMap("name", (Object) "q1");
+        _store.create(new ConfiguredObjectRecordImpl(queueId, "Queue", queueAttr, getRootAsParentMap()));
+
+        assertEquals("JSON store should not be rewritten for each change", document, readFile(expectedJsonFile));
+        assertTrue("Change log should hold the change", readFile(expectedLogFile).contains(queueId.toString()));
+
+        _store.closeConfigurationStore();
+        assertFalse("Change log should not exist after close", expectedLogFile.exists());
+        assertTrue("JSON store should hold the change after close",
+                   readFile(expectedJsonFile).contains(queueId.toString()));
+    }
+
+    public void testLogIsCheckpointedOnceThresholdReached() throws Exception
+    {
+        when(_parent.getContextValue(Integer.class, BrokerProperties.JSON_STORE_CHECKPOINT_THRESHOLD)).thenReturn(3);
+        File expectedJsonFile = new File(_storeLocation, _parent.getName() + ".json");
+        File expectedLogFile = new File(_storeLocation, _parent.getName() + ".log");
+
+        _store.openConfigurationStore(_parent, false);
+        createRootRecord();
+
+        final UUID queueId = new UUID(0, 1);
+        _store.create(new ConfiguredObjectRecordImpl(queueId, "Queue",
+                                                     Collections.<String, Object>singletonMap("name", "q1"),
+                                                     getRootAsParentMap()));
+        assertFalse("JSON store should not yet hold the change",
+                    readFile(expectedJsonFile).contains(queueId.toString()));
+
+        _store.create(new ConfiguredObjectRecordImpl(new UUID(0, 2), "Queue",
+                                                     Collections.<String, Object>singletonMap("name", "q2"),
+                                                     getRootAsParentMap()));
+        assertTrue("JSON store should hold the change after checkpoint",
+                   readFile(expectedJsonFile).contains(queueId.toString()));
+        assertEquals("Change log should be empty after checkpoint", 0, expectedLogFile.length());
+        _store.closeConfigurationStore();
+    }
+
+    public void testLogIsReplayedOnOpen() throws Exception
+    {
+        File expectedLogFile = new File(_storeLocation, _parent.getName() + ".log");
+
+        _store.openConfigurationStore(_parent, false);
+        createRootRecord();
+        _store.closeConfigurationStore();
+
+        final UUID queueId = new UUID(0, 1);
+        final UUID removedQueueId = new UUID(0, 2);
+        String rootId = _rootRecord.getId().toString();
+        String log = "{\"update\":[{\"id\":\"" + queueId + "\",\"type\":\"Queue\",\"attributes\":{\"name\":\"q1\"},"
+                     + "\"parents\":{\"VirtualHost\":\"" + rootId + "\"}}]}\n"
+                     + "{\"update\":[{\"id\":\"" + removedQueueId + "\",\"type\":\"Queue\",\"attributes\":{\"name\":\"q2\"},"
+                     + "\"parents\":{\"VirtualHost\":\"" + rootId + "\"}}]}\n"
+                     + "{\"remove\":[\"" + removedQueueId + "\"]}\n"
+                     + "{\"update\":[{\"id\":\"";
+        TestFileUtils.saveTextContentInFile(log, expectedLogFile);
+
+        _store.openConfigurationStore(_parent, false);
+        _store.visitConfiguredObjectRecords(_handler);
+        verify(_handler).handle(matchesRecord(queueId, "Queue", Collections.<String, Object>singletonMap("name", "q1")));
+        verify(_handler, times(2)).handle(any(ConfiguredObjectRecord.class));
+        _store.closeConfigurationStore();
+
+        _store.openConfigurationStore(_parent, false);
+        _store.visitConfiguredObjectRecords(_handler);
+        verify(_handler, times(2)).handle(matchesRecord(queueId, "Queue", Collections.<String, Object>singletonMap("name", "q1")));
+        _store.closeConfigurationStore();
+    }
+
     public void testCreatedNestedObjects() throws Exception
     {
         _store.openConfigurationStore(_parent, false);
@@ -436,6 +518,11 @@ public class JsonFileConfigStoreTest extends QpidTestCase
     }
 
 
+    private static String readFile(final File file) throws IOException
+    {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+
     private void createRootRecord()
     {
         UUID rootRecordId = UUID.randomUUID();
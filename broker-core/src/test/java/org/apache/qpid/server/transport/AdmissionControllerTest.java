@@ -0,0 +1,90 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.transport;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.qpid.test.utils.QpidTestCase;
+
+public class AdmissionControllerTest extends QpidTestCase
+{
+    private final AtomicInteger _admissionAvailableCount = new AtomicInteger();
+    private final Runnable _admissionAvailableAction = new Runnable()
+    {
+        @Override
+        public void run()
+        {
+            _admissionAvailableCount.incrementAndGet();
+        }
+    };
+
+    public void testUnlimited()
+    {
+        AdmissionController controller = new AdmissionController(-1, -1, -1, _admissionAvailableAction);
+        for (int i = 0; i < 1000; i++)
+        {
+            assertEquals(0, controller.getAcceptDelay(1000L));
+            controller.connectionAccepted(1000L);
+        }
+        assertEquals(1000, controller.getHandshakesInProgress());
+        controller.handshakeCompleted();
+        assertEquals(0, _admissionAvailableCount.get());
+    }
+
+    public void testAcceptRateLimit()
+    {
+        AdmissionController controller = new AdmissionController(10, 2, -1, _admissionAvailableAction);
+        long time = 1000L;
+
+        assertEquals(0, controller.getAcceptDelay(time));
+        controller.connectionAccepted(time);
+        assertEquals(0, controller.getAcceptDelay(time));
+        controller.connectionAccepted(time);
+
+        assertEquals("Burst exhausted, a token is due every 100ms", 100, controller.getAcceptDelay(time));
+        assertEquals(40, controller.getAcceptDelay(time + 60L));
+        assertEquals(0, controller.getAcceptDelay(time + 100L));
+        controller.connectionAccepted(time + 100L);
+        assertEquals(100, controller.getAcceptDelay(time + 100L));
+
+        assertEquals(0, controller.getAcceptDelay(time + 10000L));
+        controller.connectionAccepted(time + 10000L);
+        controller.connectionAccepted(time + 10000L);
+        assertTrue("Bucket should hold no more than the burst", controller.getAcceptDelay(time + 10000L) > 0);
+    }
+
+    public void testHandshakesInProgressBound()
+    {
+        AdmissionController controller = new AdmissionController(-1, -1, 2, _admissionAvailableAction);
+
+        controller.connectionAccepted(1000L);
+        controller.connectionAccepted(1000L);
+        assertEquals(Integer.MAX_VALUE, controller.getAcceptDelay(1000L));
+
+        controller.handshakeCompleted();
+        assertEquals(1, _admissionAvailableCount.get());
+        assertEquals(0, controller.getAcceptDelay(1000L));
+
+        controller.handshakeCompleted();
+        assertEquals(1, _admissionAvailableCount.get());
+        assertEquals(0, controller.getHandshakesInProgress());
+    }
+}
@@ -32,12 +32,41 @@ import java.net.Socket;
 import java.net.SocketAddress;
 import java.util.Collections;
 import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 import static org.mockito.Mockito.*;
 
 public class NetworkConnectionSchedulerTest extends QpidTestCase
 {
+    private static final long TIMEOUT = 10000l;
+    private static final SocketAddress REMOTE_ADDRESS = InetSocketAddress.createUnresolved("remote", 5672);
+
     private volatile boolean _keepRunningThreads = true;
+    private final List<Thread> _workerThreads = new CopyOnWriteArrayList<>();
+    private NetworkConnectionScheduler _scheduler;
+
+    @Override
+    public void tearDown() throws Exception
+    {
+        try
+        {
+            if (_scheduler != null)
+            {
+                _scheduler.close();
+            }
+        }
+        finally
+        {
+            super.tearDown();
+        }
+    }
 
     public void testFairRead() throws IOException, InterruptedException
     {
@@ -116,5 +145,212 @@ public class NetworkConnectionSchedulerTest extends QpidTestCase
         scheduler.close();
     }
 
+    public void testWorkerStealsFromBusyWorker() throws Exception
+    {
+        _scheduler = createScheduler(2, 2, 1, TimeUnit.MINUTES);
+
+        final CountDownLatch blockingStarted = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<Thread> processingThreads = new CopyOnWriteArrayList<>();
+        NonBlockingConnection blocking = createConnection(blockingStarted, release, processingThreads);
+        CountDownLatch processed = new CountDownLatch(1);
+        NonBlockingConnection queued = createConnection(processed, null, processingThreads);
+
+        // both connections prefer the first worker, so one of them is only processed if the second worker steals it
+        _scheduler.schedule(blocking);
+        assertTrue("Connection was not processed", blockingStarted.await(TIMEOUT, TimeUnit.MILLISECONDS));
+        _scheduler.schedule(queued);
+
+        try
+        {
+            assertTrue("Queued connection was not stolen by the idle worker",
+                       processed.await(TIMEOUT, TimeUnit.MILLISECONDS));
+            assertNotSame("Connections were processed by the same worker",
+                          processingThreads.get(0), processingThreads.get(1));
+        }
+        finally
+        {
+            release.countDown();
+        }
+    }
+
+    public void testSurplusWorkersStopWhenIdle() throws Exception
+    {
+        _scheduler = createScheduler(1, 3, 100, TimeUnit.MILLISECONDS);
+
+        final CountDownLatch release = new CountDownLatch(1);
+        try
+        {
+            // each connection is scheduled while the workers already started are blocked
+            for (int i = 0; i < 3; i++)
+            {
+                CountDownLatch started = new CountDownLatch(1);
+                _scheduler.schedule(createConnection(started, release, null));
+                assertTrue("Worker was not started for blocked connection " + i,
+                           started.await(TIMEOUT, TimeUnit.MILLISECONDS));
+            }
+        }
+        finally
+        {
+            release.countDown();
+        }
+        assertEquals("Unexpected number of workers", 3, _workerThreads.size());
+
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+        while (getAliveWorkerCount() > 1 && System.currentTimeMillis() < deadline)
+        {
+            Thread.sleep(50l);
+        }
+        assertEquals("Surplus workers did not stop", 1, getAliveWorkerCount());
+
+        Thread.sleep(500l);
+        assertEquals("Worker within the pool minimum stopped", 1, getAliveWorkerCount());
+    }
+
+    public void testConnectionsScheduledWhileWorkersStopAreProcessed() throws Exception
+    {
+        // workers stop almost as soon as they are idle, so connections are often assigned to a stopping worker
+        _scheduler = createScheduler(1, 4, 1, TimeUnit.MILLISECONDS);
+
+        final int connectionsPerThread = 500;
+        final CountDownLatch processed = new CountDownLatch(4 * connectionsPerThread);
+        Thread[] schedulingThreads = new Thread[4];
+        for (int i = 0; i < schedulingThreads.length; i++)
+        {
+            schedulingThreads[i] = new Thread(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    for (int j = 0; j < connectionsPerThread; j++)
+                    {
+                        _scheduler.schedule(createConnection(processed, null, null));
+                        if (j % 50 == 0)
+                        {
+                            try
+                            {
+                                Thread.sleep(5l);
+                            }
+                            catch (InterruptedException e)
+                            {
+                                Thread.currentThread().interrupt();
+                                return;
+                            }
+                        }
+                    }
+                }
+            });
+            schedulingThreads[i].start();
+        }
+        for (Thread thread : schedulingThreads)
+        {
+            thread.join(TIMEOUT);
+        }
+
+        assertTrue("Only " + (4 * connectionsPerThread - processed.getCount()) + " connections were processed",
+                   processed.await(TIMEOUT, TimeUnit.MILLISECONDS));
+    }
+
+    public void testWorkerThreadKeepsFactoryName() throws Exception
+    {
+        _scheduler = createScheduler(1, 1, 1, TimeUnit.MINUTES);
+
+        final CountDownLatch processed = new CountDownLatch(1);
+        final List<Thread> processingThreads = new CopyOnWriteArrayList<>();
+        _scheduler.schedule(createConnection(processed, null, processingThreads));
+        assertTrue("Connection was not processed", processed.await(TIMEOUT, TimeUnit.MILLISECONDS));
+
+        assertSame("Connection was not processed by the pool", _workerThreads.get(0), processingThreads.get(0));
+        assertEquals("Unexpected thread name", "IO-pool-" + getName() + "-0", processingThreads.get(0).getName());
+    }
+
+    public void testConnectionsProcessedWithoutWorkStealing() throws Exception
+    {
+        _scheduler = createScheduler(1, 2, 1, TimeUnit.MINUTES, false);
+
+        final CountDownLatch processed = new CountDownLatch(100);
+        final List<Thread> processingThreads = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < 100; i++)
+        {
+            _scheduler.schedule(createConnection(processed, null, processingThreads));
+        }
+
+        assertTrue("Only " + (100 - processed.getCount()) + " connections were processed",
+                   processed.await(TIMEOUT, TimeUnit.MILLISECONDS));
+        assertTrue("Connections were not processed by the pool", _workerThreads.containsAll(processingThreads));
+    }
+
+    private NetworkConnectionScheduler createScheduler(final int minimum,
+                                                       final int maximum,
+                                                       final long keepAlive,
+                                                       final TimeUnit keepAliveUnit)
+    {
+        return createScheduler(minimum, maximum, keepAlive, keepAliveUnit, true);
+    }
 
+    private NetworkConnectionScheduler createScheduler(final int minimum,
+                                                       final int maximum,
+                                                       final long keepAlive,
+                                                       final TimeUnit keepAliveUnit,
+                                                       final boolean workStealing)
+    {
+        NetworkConnectionScheduler scheduler =
+                new NetworkConnectionScheduler(getName(), minimum, maximum, keepAlive, keepAliveUnit, new ThreadFactory()
+                {
+                    @Override
+                    public Thread newThread(final Runnable r)
+                    {
+                        Thread thread = new Thread(r, "IO-pool-" + getName() + "-" + _workerThreads.size());
+                        _workerThreads.add(thread);
+                        return thread;
+                    }
+                }, workStealing);
+        scheduler.start();
+        return scheduler;
+    }
+
+    /**
+     * @param processed counted down when the connection is processed
+     * @param release if not null, awaited by the processing of the connection
+     * @param processingThreads if not null, receives the thread processing the connection
+     */
+    private NonBlockingConnection createConnection(final CountDownLatch processed,
+                                                   final CountDownLatch release,
+                                                   final List<Thread> processingThreads)
+    {
+        NonBlockingConnection connection = mock(NonBlockingConnection.class);
+        when(connection.getScheduler()).thenReturn(_scheduler);
+        when(connection.getRemoteAddress()).thenReturn(REMOTE_ADDRESS);
+        when(connection.doWork()).thenAnswer(new Answer<Boolean>()
+        {
+            @Override
+            public Boolean answer(final InvocationOnMock invocation) throws Throwable
+            {
+                if (processingThreads != null)
+                {
+                    processingThreads.add(Thread.currentThread());
+                }
+                processed.countDown();
+                if (release != null)
+                {
+                    release.await(TIMEOUT, TimeUnit.MILLISECONDS);
+                }
+                return true;
+            }
+        });
+        return connection;
+    }
+
+    private int getAliveWorkerCount()
+    {
+        int alive = 0;
+        for (Thread thread : _workerThreads)
+        {
+            if (thread.isAlive())
+            {
+                alive++;
+            }
+        }
+        return alive;
+    }
 }
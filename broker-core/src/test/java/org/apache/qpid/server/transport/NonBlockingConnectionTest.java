@@ -0,0 +1,203 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.transport;
+
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Collections;
+
+import org.mockito.ArgumentCaptor;
+
+import org.apache.qpid.bytebuffer.QpidByteBuffer;
+import org.apache.qpid.server.model.port.AmqpPort;
+import org.apache.qpid.test.utils.QpidTestCase;
+import org.apache.qpid.transport.network.AggregateTicker;
+import org.apache.qpid.transport.network.TransportEncryption;
+
+public class NonBlockingConnectionTest extends QpidTestCase
+{
+    private static final int OUTPUT_BATCH_SIZE = 1024;
+    private static final long OUTPUT_BATCH_DELAY = 200L;
+    private static final long TIMEOUT = 5000L;
+
+    private AmqpPort<?> _port;
+    private SocketChannel _peer;
+    private SocketChannel _socketChannel;
+    private NonBlockingConnection _connection;
+
+    @Override
+    public void setUp() throws Exception
+    {
+        super.setUp();
+
+        ServerSocketChannel serverSocketChannel = ServerSocketChannel.open();
+        try
+        {
+            serverSocketChannel.socket().bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            _peer = SocketChannel.open(serverSocketChannel.socket().getLocalSocketAddress());
+            _socketChannel = serverSocketChannel.accept();
+        }
+        finally
+        {
+            serverSocketChannel.close();
+        }
+        _peer.configureBlocking(false);
+        _socketChannel.configureBlocking(false);
+
+        _port = mock(AmqpPort.class);
+        when(_port.getNetworkBufferSize()).thenReturn(64 * 1024);
+        when(_port.getOutputBatchSize()).thenReturn(OUTPUT_BATCH_SIZE);
+        when(_port.getOutputBatchDelay()).thenReturn(OUTPUT_BATCH_DELAY);
+
+        ProtocolEngine protocolEngine = mock(ProtocolEngine.class);
+        when(protocolEngine.getAggregateTicker()).thenReturn(new AggregateTicker());
+
+        _connection = new NonBlockingConnection(_socketChannel,
+                                                protocolEngine,
+                                                Collections.singleton(TransportEncryption.NONE),
+                                                mock(Runnable.class),
+                                                mock(Runnable.class),
+                                                mock(NetworkConnectionScheduler.class),
+                                                _port);
+    }
+
+    @Override
+    public void tearDown() throws Exception
+    {
+        try
+        {
+            _peer.close();
+            _socketChannel.close();
+        }
+        finally
+        {
+            super.tearDown();
+        }
+    }
+
+    public void testOutputBelowBatchSizeHeldUntilBatchDelayExpires() throws Exception
+    {
+        _connection.send(QpidByteBuffer.wrap(new byte[100]));
+        _connection.doWork();
+
+        assertEquals("Output below the batch size should be held", 100, _connection.getPendingOutputSize());
+        assertEquals("Held output should not have been written", 0, _peer.read(ByteBuffer.allocate(100)));
+        verify(_port, never()).registerNetworkWrite(anyLong());
+
+        int timeToNextTick = _connection.getTicker().getTimeToNextTick(System.currentTimeMillis());
+        assertTrue("Unexpected time to the next tick " + timeToNextTick,
+                   timeToNextTick > 0 && timeToNextTick <= OUTPUT_BATCH_DELAY);
+
+        while (_connection.getTicker().getTimeToNextTick(System.currentTimeMillis()) > 0)
+        {
+            Thread.sleep(10L);
+        }
+        _connection.doWork();
+
+        assertEquals("Held output should have been written", 0, _connection.getPendingOutputSize());
+        assertEquals("Unexpected number of bytes received", 100, readFromPeer(100));
+        verify(_port).registerNetworkWrite(100L);
+        assertEquals("Nothing should remain for the ticker to flush",
+                     Integer.MAX_VALUE,
+                     _connection.getTicker().getTimeToNextTick(System.currentTimeMillis()));
+    }
+
+    public void testOutputOfBatchSizeWrittenImmediately() throws Exception
+    {
+        _connection.send(QpidByteBuffer.wrap(new byte[OUTPUT_BATCH_SIZE]));
+        _connection.doWork();
+
+        assertEquals("Output of the batch size should not be held", 0, _connection.getPendingOutputSize());
+        assertEquals("Unexpected number of bytes received", OUTPUT_BATCH_SIZE, readFromPeer(OUTPUT_BATCH_SIZE));
+        verify(_port).registerNetworkWrite(OUTPUT_BATCH_SIZE);
+    }
+
+    public void testPendingOutputTrackedAcrossPartialWrites() throws Exception
+    {
+        final int bufferSize = 256 * 1024;
+        final int bufferCount = 64;
+        for (int i = 0; i < bufferCount; i++)
+        {
+            _connection.send(QpidByteBuffer.wrap(new byte[bufferSize]));
+        }
+        final long sent = (long) bufferSize * bufferCount;
+        assertEquals(sent, _connection.getPendingOutputSize());
+
+        // the peer reads only part of the output, so writes stop whenever the socket buffers are full
+        long pendingOutputSize = writeUntilBlocked();
+        assertTrue("Output should have been blocked", pendingOutputSize > 0);
+        assertEquals("Unexpected pending output size", sent - getBytesWritten(), pendingOutputSize);
+
+        readFromPeer(bufferSize + bufferSize / 2);
+        pendingOutputSize = writeUntilBlocked();
+        assertEquals("Unexpected pending output size", sent - getBytesWritten(), pendingOutputSize);
+    }
+
+    private long writeUntilBlocked()
+    {
+        long pendingOutputSize;
+        do
+        {
+            pendingOutputSize = _connection.getPendingOutputSize();
+            _connection.doWork();
+        }
+        while (_connection.getPendingOutputSize() < pendingOutputSize);
+        return pendingOutputSize;
+    }
+
+    private long getBytesWritten()
+    {
+        ArgumentCaptor<Long> writes = ArgumentCaptor.forClass(Long.class);
+        verify(_port, atLeastOnce()).registerNetworkWrite(writes.capture());
+        long written = 0L;
+        for (Long bytesWritten : writes.getAllValues())
+        {
+            assertTrue("A write that sent nothing should not be counted", bytesWritten > 0L);
+            written += bytesWritten;
+        }
+        return written;
+    }
+
+    private int readFromPeer(final int expected) throws IOException, InterruptedException
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(expected);
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+        while (buffer.hasRemaining() && System.currentTimeMillis() < deadline)
+        {
+            if (_peer.read(buffer) == 0)
+            {
+                Thread.sleep(10L);
+            }
+        }
+        return buffer.position();
+    }
+}
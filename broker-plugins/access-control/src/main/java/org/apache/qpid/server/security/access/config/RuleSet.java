@@ -20,6 +20,7 @@ package org.apache.qpid.server.security.access.config;
 
 import java.net.InetAddress;
 import java.security.Principal;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.EnumMap;
@@ -64,9 +65,13 @@ public class RuleSet implements EventLoggerProvider
 
     private static final Integer _increment = 10;
 
+    private static final int MAX_CACHED_OBJECT_NAMES = 1000;
+
     private final SortedMap<Integer, Rule> _rules = new TreeMap<Integer, Rule>();
     private final Map<Subject, Map<Operation, Map<ObjectType, List<Rule>>>> _cache =
                         new WeakHashMap<Subject, Map<Operation, Map<ObjectType, List<Rule>>>>();
+    private final Map<Subject, Map<Operation, Map<ObjectType, Map<String, List<Rule>>>>> _objectNameCache =
+                        new WeakHashMap<Subject, Map<Operation, Map<ObjectType, Map<String, List<Rule>>>>>();
     private final Map<String, Boolean> _config = new HashMap<String, Boolean>();
     private final EventLoggerProvider _eventLogger;
 
@@ -83,7 +88,7 @@ public class RuleSet implements EventLoggerProvider
     public void clear()
     {
         _rules.clear();
-        _cache.clear();
+        clearCaches();
         _config.clear();
     }
 
@@ -99,6 +104,59 @@ public class RuleSet implements EventLoggerProvider
      * and operation is either all or the same operation.
      */
     public List<Rule> getRules(final Subject subject, final Operation operation, final ObjectType objectType)
+    {
+        synchronized (_cache)
+        {
+            return getRulesFromCache(subject, operation, objectType);
+        }
+    }
+
+    /**
+     * Filtered rules list based on a subject, operation and object name.
+     *
+     * Narrows the rules returned by {@link #getRules(Subject, Operation, ObjectType)} to those whose name property
+     * is absent or could match the given object name, preserving their order.  The result is cached so that
+     * repeated checks against the same object only consider the rules which could apply to it.
+     */
+    public List<Rule> getRules(final Subject subject,
+                               final Operation operation,
+                               final ObjectType objectType,
+                               final String objectName)
+    {
+        synchronized (_cache)
+        {
+            final List<Rule> rules = getRulesFromCache(subject, operation, objectType);
+            if (rules == null || objectName == null)
+            {
+                return rules;
+            }
+
+            final Map<String, List<Rule>> names = getObjectNameToRuleCache(subject, operation, objectType);
+            List<Rule> named = names.get(objectName);
+            if (named == null)
+            {
+                final ObjectProperties objectProperties = new ObjectProperties(objectName);
+                named = new ArrayList<Rule>(rules.size());
+                for (Rule rule : rules)
+                {
+                    final ObjectProperties ruleProperties = rule.getAction().getProperties();
+                    final String ruleName = ruleProperties == null ? null : ruleProperties.getName();
+                    if (ruleName == null
+                        || objectProperties.matches(new ObjectProperties(ObjectProperties.Property.NAME, ruleName)))
+                    {
+                        named.add(rule);
+                    }
+                }
+                if (names.size() < MAX_CACHED_OBJECT_NAMES)
+                {
+                    names.put(objectName, named);
+                }
+            }
+            return named;
+        }
+    }
+
+    private List<Rule> getRulesFromCache(final Subject subject, final Operation operation, final ObjectType objectType)
     {
         final Map<ObjectType, List<Rule>> objects = getObjectToRuleCache(subject, operation);
 
@@ -206,18 +264,20 @@ public class RuleSet implements EventLoggerProvider
         }
 
         // save rule
-        _cache.clear();
+        clearCaches();
         _rules.put(rule.getNumber(), rule);
     }
 
     public void enableRule(int ruleNumber)
     {
         _rules.get(Integer.valueOf(ruleNumber)).enable();
+        clearCaches();
     }
 
     public void disableRule(int ruleNumber)
     {
         _rules.get(Integer.valueOf(ruleNumber)).disable();
+        clearCaches();
     }
 
     /** Return true if the name is well-formed (contains legal characters). */
@@ -288,8 +348,8 @@ public class RuleSet implements EventLoggerProvider
 
         _logger.debug("Checking action: {}", action);
 
-        // get the list of rules relevant for this request
-        List<Rule> rules = getRules(subject, operation, objectType);
+        // get the list of rules relevant for this request, narrowed to those which could match the object name
+        List<Rule> rules = getRules(subject, operation, objectType, properties == null ? null : properties.getName());
         if (rules == null)
         {
 
@@ -428,6 +488,42 @@ public class RuleSet implements EventLoggerProvider
         return objects;
     }
 
+    private Map<String, List<Rule>> getObjectNameToRuleCache(final Subject subject,
+                                                             final Operation operation,
+                                                             final ObjectType objectType)
+    {
+        Map<Operation, Map<ObjectType, Map<String, List<Rule>>>> operations = _objectNameCache.get(subject);
+        if (operations == null)
+        {
+            operations = new EnumMap<Operation, Map<ObjectType, Map<String, List<Rule>>>>(Operation.class);
+            _objectNameCache.put(subject, operations);
+        }
+
+        Map<ObjectType, Map<String, List<Rule>>> objects = operations.get(operation);
+        if (objects == null)
+        {
+            objects = new EnumMap<ObjectType, Map<String, List<Rule>>>(ObjectType.class);
+            operations.put(operation, objects);
+        }
+
+        Map<String, List<Rule>> names = objects.get(objectType);
+        if (names == null)
+        {
+            names = new HashMap<String, List<Rule>>();
+            objects.put(objectType, names);
+        }
+        return names;
+    }
+
+    private void clearCaches()
+    {
+        synchronized (_cache)
+        {
+            _cache.clear();
+            _objectNameCache.clear();
+        }
+    }
+
     public EventLogger getEventLogger()
     {
         return _eventLogger.getEventLogger();
@@ -218,6 +218,28 @@ public class RuleSetTest extends QpidTestCase
         assertDenyGrantAllow(_testSubject, Operation.PUBLISH, ObjectType.EXCHANGE);
     }
 
+    public void testPublishRulesNarrowedByExchangeName()
+    {
+        _ruleSet.grant(1, TEST_USER, Permission.DENY, Operation.PUBLISH, ObjectType.EXCHANGE, new ObjectProperties("secret"));
+        _ruleSet.grant(2, TEST_USER, Permission.ALLOW, Operation.PUBLISH, ObjectType.EXCHANGE, new ObjectProperties("amq.*"));
+        _ruleSet.grant(3, TEST_USER, Permission.DENY, Operation.PUBLISH, ObjectType.EXCHANGE, ObjectProperties.EMPTY);
+
+        assertEquals(2, _ruleSet.getRules(_testSubject, Operation.PUBLISH, ObjectType.EXCHANGE, _exchangeName).size());
+        assertEquals(3, _ruleSet.getRules(_testSubject, Operation.PUBLISH, ObjectType.EXCHANGE, null).size());
+
+        assertEquals(Result.ALLOWED, _ruleSet.check(_testSubject, Operation.PUBLISH, ObjectType.EXCHANGE,
+                                                    new ObjectProperties(ALLOWED_VH, _exchangeName, "rk", false)));
+        assertEquals(Result.DENIED, _ruleSet.check(_testSubject, Operation.PUBLISH, ObjectType.EXCHANGE,
+                                                   new ObjectProperties(ALLOWED_VH, "secret", "rk", false)));
+        assertEquals(Result.DENIED, _ruleSet.check(_testSubject, Operation.PUBLISH, ObjectType.EXCHANGE,
+                                                   new ObjectProperties(ALLOWED_VH, "other", "rk", false)));
+
+        // adding a rule must invalidate the cached name index
+        _ruleSet.grant(0, TEST_USER, Permission.ALLOW, Operation.PUBLISH, ObjectType.EXCHANGE, new ObjectProperties("other"));
+        assertEquals(Result.ALLOWED, _ruleSet.check(_testSubject, Operation.PUBLISH, ObjectType.EXCHANGE,
+                                                    new ObjectProperties(ALLOWED_VH, "other", "rk", false)));
+    }
+
     /**
     * If the consume permission for temporary queues is for an unnamed queue then it should
     * be global for any temporary queue but not for any non-temporary queue
@@ -51,6 +51,7 @@ import org.apache.qpid.server.model.Broker;
 import org.apache.qpid.server.model.Transport;
 import org.apache.qpid.server.model.port.AmqpPort;
 import org.apache.qpid.server.protocol.AMQSessionModel;
+import org.apache.qpid.server.queue.EnqueueBatch;
 import org.apache.qpid.server.security.AuthorizationHolder;
 import org.apache.qpid.server.security.auth.AuthenticatedPrincipal;
 import org.apache.qpid.server.util.Action;
@@ -496,9 +497,18 @@ public class ServerConnection extends Connection implements AuthorizationHolder
 
     public void receivedComplete()
     {
-        for (Session ssn : getChannels())
+        // messages whose transfers complete at the end of the frame batch are appended to each queue together
+        final EnqueueBatch enqueueBatch = EnqueueBatch.start();
+        try
+        {
+            for (Session ssn : getChannels())
+            {
+                ((ServerSession)ssn).receivedComplete();
+            }
+        }
+        finally
         {
-            ((ServerSession)ssn).receivedComplete();
+            enqueueBatch.complete();
         }
     }
 
@@ -130,6 +130,7 @@ public class ServerSession extends Session
     private final UUID _id = UUID.randomUUID();
     private final Subject _subject = new Subject();
     private final AccessControlContext _accessControllerContext;
+    private final PublishDecisionCache _publishDecisionCache = new PublishDecisionCache();
     private long _createTime = System.currentTimeMillis();
 
     private final Set<Object> _blockingEntities = Collections.synchronizedSet(new HashSet<Object>());
@@ -213,6 +214,11 @@ public class ServerSession extends Session
         return _accessControllerContext;
     }
 
+    public PublishDecisionCache getPublishDecisionCache()
+    {
+        return _publishDecisionCache;
+    }
+
     protected void setState(final State state)
     {
         if(runningAsSubject())
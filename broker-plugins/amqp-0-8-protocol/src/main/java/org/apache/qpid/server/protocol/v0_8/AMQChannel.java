@@ -99,6 +99,7 @@ import org.apache.qpid.server.protocol.CapacityChecker;
 import org.apache.qpid.server.protocol.ConsumerListener;
 import org.apache.qpid.server.queue.AMQQueue;
 import org.apache.qpid.server.queue.QueueArgumentsConverter;
+import org.apache.qpid.server.security.PublishDecisionCache;
 import org.apache.qpid.server.security.SecurityManager;
 import org.apache.qpid.server.store.MessageHandle;
 import org.apache.qpid.server.store.MessageStore;
@@ -139,6 +140,7 @@ public class AMQChannel
     private final Pre0_10CreditManager _creditManager;
     private final FlowCreditManager _noAckCreditManager;
     private final AccessControlContext _accessControllerContext;
+    private final PublishDecisionCache _publishDecisionCache = new PublishDecisionCache();
 
     /**
      * The delivery tag is unique per channel. This is pre-incremented before putting into the deliver frame so that
@@ -411,7 +413,8 @@ public class AMQChannel
         VirtualHostImpl virtualHost = getVirtualHost();
         SecurityManager securityManager = virtualHost.getSecurityManager();
 
-        securityManager.authorisePublish(info.isImmediate(), routingKey, e.getName(), virtualHost.getName());
+        securityManager.authorisePublish(info.isImmediate(), routingKey, e.getName(), virtualHost.getName(),
+                                         _publishDecisionCache);
 
         _currentMessage = new IncomingMessage(info);
         _currentMessage.setMessageDestination(e);
@@ -68,6 +68,7 @@ import org.apache.qpid.server.transport.AbstractAMQPConnection;
 import org.apache.qpid.server.transport.ProtocolEngine;
 import org.apache.qpid.server.configuration.BrokerProperties;
 import org.apache.qpid.server.consumer.ConsumerImpl;
+import org.apache.qpid.server.consumer.ConsumerTarget;
 import org.apache.qpid.server.logging.EventLogger;
 import org.apache.qpid.server.logging.messages.ConnectionMessages;
 import org.apache.qpid.server.message.InstanceProperties;
@@ -78,6 +79,7 @@ import org.apache.qpid.server.model.State;
 import org.apache.qpid.server.model.Transport;
 import org.apache.qpid.server.model.port.AmqpPort;
 import org.apache.qpid.server.protocol.AMQSessionModel;
+import org.apache.qpid.server.queue.EnqueueBatch;
 import org.apache.qpid.server.security.auth.AuthenticatedPrincipal;
 import org.apache.qpid.server.security.auth.SubjectAuthenticationResult;
 import org.apache.qpid.server.store.StoreException;
@@ -341,22 +343,31 @@ public class AMQPConnection_0_8
     {
         RuntimeException exception = null;
 
-        for (AMQChannel channel : _channelsForCurrentMessage)
+        // messages whose publishes complete at the end of the frame batch are appended to each queue together
+        final EnqueueBatch enqueueBatch = EnqueueBatch.start();
+        try
         {
-            try
+            for (AMQChannel channel : _channelsForCurrentMessage)
             {
-                channel.receivedComplete();
-            }
-            catch(RuntimeException exceptionForThisChannel)
-            {
-                if(exception == null)
+                try
                 {
-                    exception = exceptionForThisChannel;
+                    channel.receivedComplete();
+                }
+                catch(RuntimeException exceptionForThisChannel)
+                {
+                    if(exception == null)
+                    {
+                        exception = exceptionForThisChannel;
+                    }
+                    _logger.error("Error informing channel that receiving is complete. Channel: " + channel,
+                                  exceptionForThisChannel);
                 }
-                _logger.error("Error informing channel that receiving is complete. Channel: " + channel,
-                              exceptionForThisChannel);
             }
         }
+        finally
+        {
+            enqueueBatch.complete();
+        }
 
         _channelsForCurrentMessage.clear();
 
@@ -1470,11 +1481,21 @@ public class AMQPConnection_0_8
                                                   props,
                                                   _channelId,
                                                   deliveryTag,
-                                                  new AMQShortString(sub.getName()));
+                                                  getDeliverPrefix(sub));
             registerMessageDelivered(size);
             return size;
         }
 
+        private DeliverPrefix getDeliverPrefix(final ConsumerImpl sub)
+        {
+            final ConsumerTarget target = sub.getTarget();
+            if (target instanceof ConsumerTarget_0_8)
+            {
+                return ((ConsumerTarget_0_8) target).getDeliverPrefix();
+            }
+            return new DeliverPrefix(AMQShortString.createAMQShortString(sub.getName()));
+        }
+
     }
 
     public Object getReference()
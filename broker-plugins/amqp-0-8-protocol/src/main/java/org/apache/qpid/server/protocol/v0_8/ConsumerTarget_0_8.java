@@ -307,6 +307,8 @@ public abstract class ConsumerTarget_0_8 extends AbstractConsumerTarget implemen
 
     private final AMQShortString _consumerTag;
 
+    private final DeliverPrefix _deliverPrefix;
+
     private final FlowCreditManager _creditManager;
 
     private final Boolean _autoClose;
@@ -327,6 +329,7 @@ public abstract class ConsumerTarget_0_8 extends AbstractConsumerTarget implemen
 
         _channel = channel;
         _consumerTag = consumerTag;
+        _deliverPrefix = new DeliverPrefix(consumerTag);
 
         _creditManager = creditManager;
         creditManager.addStateListener(this);
@@ -449,6 +452,11 @@ public abstract class ConsumerTarget_0_8 extends AbstractConsumerTarget implemen
         return _consumerTag;
     }
 
+    public DeliverPrefix getDeliverPrefix()
+    {
+        return _deliverPrefix;
+    }
+
     private AMQPConnection_0_8 getConnection()
     {
         return _channel.getConnection();
@@ -0,0 +1,81 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.protocol.v0_8;
+
+import java.io.DataOutput;
+import java.io.IOException;
+
+import org.apache.qpid.bytebuffer.QpidByteBuffer;
+import org.apache.qpid.framing.AMQShortString;
+import org.apache.qpid.framing.BasicDeliverBody;
+
+/**
+ * The leading fields of a basic.deliver method that are the same for every delivery to a consumer: the class id,
+ * method id and consumer tag.  These are encoded once per consumer, so a delivery only appends the delivery tag,
+ * redelivered flag, exchange name and routing key.
+ */
+public final class DeliverPrefix
+{
+    private final AMQShortString _consumerTag;
+    private final byte[] _encoded;
+
+    public DeliverPrefix(final AMQShortString consumerTag)
+    {
+        _consumerTag = consumerTag;
+        final int consumerTagLength = consumerTag == null ? 0 : consumerTag.length();
+        _encoded = new byte[2 + 2 + 1 + consumerTagLength];
+        _encoded[0] = (byte) (BasicDeliverBody.CLASS_ID >> 8);
+        _encoded[1] = (byte) BasicDeliverBody.CLASS_ID;
+        _encoded[2] = (byte) (BasicDeliverBody.METHOD_ID >> 8);
+        _encoded[3] = (byte) BasicDeliverBody.METHOD_ID;
+        _encoded[4] = (byte) consumerTagLength;
+        if (consumerTag != null)
+        {
+            System.arraycopy(consumerTag.getBytes(), 0, _encoded, 5, consumerTagLength);
+        }
+    }
+
+    public AMQShortString getConsumerTag()
+    {
+        return _consumerTag;
+    }
+
+    public int getSize()
+    {
+        return _encoded.length;
+    }
+
+    public void writeTo(final DataOutput buffer) throws IOException
+    {
+        buffer.write(_encoded);
+    }
+
+    public void writeTo(final QpidByteBuffer buffer)
+    {
+        buffer.put(_encoded);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "DeliverPrefix[consumerTag: " + _consumerTag + "]";
+    }
+}
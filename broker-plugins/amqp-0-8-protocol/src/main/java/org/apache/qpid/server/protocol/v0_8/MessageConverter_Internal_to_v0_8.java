@@ -135,7 +135,7 @@ public class MessageConverter_Internal_to_v0_8 implements MessageConverter<Inter
         MessagePublishInfo publishInfo = new MessagePublishInfo(AMQShortString.EMPTY_STRING,
                                                                 false,
                                                                 false,
-                                                                AMQShortString.valueOf(serverMsg.getInitialRoutingAddress()));
+                                                                AMQShortString.createAMQShortString(serverMsg.getInitialRoutingAddress()));
 
 
         final BasicContentHeaderProperties props = new BasicContentHeaderProperties();
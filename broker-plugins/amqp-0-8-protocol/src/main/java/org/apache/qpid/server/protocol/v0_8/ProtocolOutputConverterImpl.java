@@ -42,6 +42,7 @@ import org.apache.qpid.framing.BasicContentHeaderProperties;
 import org.apache.qpid.framing.BasicGetOkBody;
 import org.apache.qpid.framing.BasicReturnBody;
 import org.apache.qpid.framing.ContentHeaderBody;
+import org.apache.qpid.framing.EncodingUtils;
 import org.apache.qpid.framing.MessagePublishInfo;
 import org.apache.qpid.protocol.AMQVersionAwareProtocolSession;
 import org.apache.qpid.server.message.InstanceProperties;
@@ -70,11 +71,11 @@ public class ProtocolOutputConverterImpl implements ProtocolOutputConverter
     public long writeDeliver(final ServerMessage m,
                              final InstanceProperties props, int channelId,
                              long deliveryTag,
-                             AMQShortString consumerTag)
+                             DeliverPrefix deliverPrefix)
     {
         final AMQMessage msg = convertToAMQMessage(m);
         final boolean isRedelivered = Boolean.TRUE.equals(props.getProperty(InstanceProperties.Property.REDELIVERED));
-        AMQBody deliverBody = createEncodedDeliverBody(msg, isRedelivered, deliveryTag, consumerTag);
+        AMQBody deliverBody = createEncodedDeliverBody(msg, isRedelivered, deliveryTag, deliverPrefix);
         return writeMessageDelivery(msg, channelId, deliverBody);
     }
 
@@ -328,7 +329,7 @@ public class ProtocolOutputConverterImpl implements ProtocolOutputConverter
     private AMQBody createEncodedDeliverBody(AMQMessage message,
                                              boolean isRedelivered,
                                              final long deliveryTag,
-                                             final AMQShortString consumerTag)
+                                             final DeliverPrefix deliverPrefix)
     {
 
         final AMQShortString exchangeName;
@@ -338,37 +339,35 @@ public class ProtocolOutputConverterImpl implements ProtocolOutputConverter
         exchangeName = pb.getExchange();
         routingKey = pb.getRoutingKey();
 
-        final AMQBody returnBlock = new EncodedDeliveryBody(deliveryTag, routingKey, exchangeName, consumerTag, isRedelivered);
+        final AMQBody returnBlock = new EncodedDeliveryBody(deliveryTag, routingKey, exchangeName, deliverPrefix, isRedelivered);
         return returnBlock;
     }
 
-    private class EncodedDeliveryBody implements AMQBody
+    /**
+     * Encodes a basic.deliver method directly from its fields without building an intermediate
+     * {@link org.apache.qpid.framing.BasicDeliverBody}.  The class id, method id and consumer tag are copied from the
+     * consumer's pre-encoded {@link DeliverPrefix}, and the exchange name and routing key are the canonical instances
+     * held by the message, so only the delivery tag and redelivered flag are encoded afresh for each delivery.
+     */
+    private static final class EncodedDeliveryBody implements AMQBody
     {
+        private static final int FIXED_SIZE = 8 + 1;
+
         private final long _deliveryTag;
         private final AMQShortString _routingKey;
         private final AMQShortString _exchangeName;
-        private final AMQShortString _consumerTag;
+        private final DeliverPrefix _deliverPrefix;
         private final boolean _isRedelivered;
-        private AMQBody _underlyingBody;
 
-        private EncodedDeliveryBody(long deliveryTag, AMQShortString routingKey, AMQShortString exchangeName, AMQShortString consumerTag, boolean isRedelivered)
+        private EncodedDeliveryBody(long deliveryTag, AMQShortString routingKey, AMQShortString exchangeName, DeliverPrefix deliverPrefix, boolean isRedelivered)
         {
             _deliveryTag = deliveryTag;
             _routingKey = routingKey;
             _exchangeName = exchangeName;
-            _consumerTag = consumerTag;
+            _deliverPrefix = deliverPrefix;
             _isRedelivered = isRedelivered;
         }
 
-        public AMQBody createAMQBody()
-        {
-            return _connection.getMethodRegistry().createBasicDeliverBody(_consumerTag,
-                                                                               _deliveryTag,
-                                                                               _isRedelivered,
-                                                                               _exchangeName,
-                                                                               _routingKey);
-        }
-
         public byte getFrameType()
         {
             return AMQMethodBody.TYPE;
@@ -376,29 +375,34 @@ public class ProtocolOutputConverterImpl implements ProtocolOutputConverter
 
         public int getSize()
         {
-            if(_underlyingBody == null)
-            {
-                _underlyingBody = createAMQBody();
-            }
-            return _underlyingBody.getSize();
+            return FIXED_SIZE
+                   + _deliverPrefix.getSize()
+                   + EncodingUtils.encodedShortStringLength(_exchangeName)
+                   + EncodingUtils.encodedShortStringLength(_routingKey);
         }
 
         public void writePayload(DataOutput buffer) throws IOException
         {
-            if(_underlyingBody == null)
-            {
-                _underlyingBody = createAMQBody();
-            }
-            _underlyingBody.writePayload(buffer);
+            _deliverPrefix.writeTo(buffer);
+            buffer.writeLong(_deliveryTag);
+            buffer.writeByte(_isRedelivered ? 1 : 0);
+            EncodingUtils.writeShortStringBytes(buffer, _exchangeName);
+            EncodingUtils.writeShortStringBytes(buffer, _routingKey);
         }
 
         public long writePayload(ByteBufferSender sender) throws IOException
         {
-            if(_underlyingBody == null)
-            {
-                _underlyingBody = createAMQBody();
-            }
-            return _underlyingBody.writePayload(sender);
+            final int size = getSize();
+            QpidByteBuffer buf = QpidByteBuffer.allocateDirect(size);
+            _deliverPrefix.writeTo(buf);
+            buf.putLong(_deliveryTag);
+            buf.put(_isRedelivered ? (byte) 1 : (byte) 0);
+            EncodingUtils.writeShortStringBytes(buf, _exchangeName);
+            EncodingUtils.writeShortStringBytes(buf, _routingKey);
+            buf.flip();
+            sender.send(buf);
+            buf.dispose();
+            return size;
         }
 
         public void handle(final int channelId, final AMQVersionAwareProtocolSession amqProtocolSession)
@@ -410,7 +414,11 @@ public class ProtocolOutputConverterImpl implements ProtocolOutputConverter
         @Override
         public String toString()
         {
-            return "[" + getClass().getSimpleName() + " underlyingBody: " + String.valueOf(_underlyingBody) + "]";
+            return "[" + getClass().getSimpleName() + " consumerTag: " + _deliverPrefix.getConsumerTag()
+                   + ", deliveryTag: " + _deliveryTag
+                   + ", redelivered: " + _isRedelivered
+                   + ", exchange: " + _exchangeName
+                   + ", routingKey: " + _routingKey + "]";
         }
     }
 
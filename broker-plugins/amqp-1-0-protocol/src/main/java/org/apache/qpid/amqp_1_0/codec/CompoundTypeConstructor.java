@@ -154,6 +154,11 @@ public class CompoundTypeConstructor extends VariableWidthTypeConstructor
         _assemblerFactory = assemblerFactory;
     }
 
+    public boolean isList()
+    {
+        return _assemblerFactory == LIST_ASSEMBLER_FACTORY;
+    }
+
     @Override
     public Object construct(final QpidByteBuffer in, boolean isCopy, ValueHandler delegate) throws AmqpErrorException
     {
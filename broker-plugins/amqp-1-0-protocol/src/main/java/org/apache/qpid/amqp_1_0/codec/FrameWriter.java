@@ -25,6 +25,8 @@ import org.apache.qpid.amqp_1_0.framing.AMQFrame;
 import org.apache.qpid.bytebuffer.QpidByteBuffer;
 
 import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
 
 public class FrameWriter implements ValueWriter<AMQFrame>
 {
@@ -35,6 +37,7 @@ public class FrameWriter implements ValueWriter<AMQFrame>
     private int _size = -1;
     private static final byte[] EMPTY_BYTE_ARRAY = new byte[] {};
     private QpidByteBuffer _payload;
+    private final Map<Class, ValueWriter> _writerCache = new HashMap<>();
 
     enum State
     {
@@ -250,7 +253,7 @@ public class FrameWriter implements ValueWriter<AMQFrame>
         final Object frameBody = frame.getFrameBody();
         if(frameBody!=null)
         {
-            _typeWriter = _registry.getValueWriter(frameBody);
+            _typeWriter = _registry.getValueWriter(frameBody, _writerCache);
         }
         else
         {
@@ -258,4 +261,15 @@ public class FrameWriter implements ValueWriter<AMQFrame>
         }
         _payload = frame.getPayload() == null ? null : frame.getPayload().duplicate();
     }
+
+    /**
+     * Drops the frame being written, and its payload, so that a writer kept for reuse does not hold on to them.
+     */
+    public void clear()
+    {
+        _frame = null;
+        _typeWriter = null;
+        _payload = null;
+        _state = State.DONE;
+    }
 }
@@ -138,6 +138,79 @@ public class ValueHandler implements DescribedTypeConstructorRegistry.Source
         }
     }
 
+    /**
+     * Advances past the next encoded value without constructing it.  Every format code's subcategory determines
+     * either a fixed width or the width of a size field counting the remaining bytes, so described, compound and
+     * array values are passed over whole.
+     */
+    public static void skipValue(final QpidByteBuffer in) throws AmqpErrorException
+    {
+        if(!in.hasRemaining())
+        {
+            throw new AmqpErrorException(AmqpError.DECODE_ERROR, "Insufficient data - expected type, no data remaining");
+        }
+        byte formatCode = in.get();
+
+        if(formatCode == DESCRIBED_TYPE)
+        {
+            skipValue(in);
+            skipValue(in);
+        }
+        else
+        {
+            int width;
+            switch((formatCode >> 4) & 0x0F)
+            {
+                case 0x4:
+                    width = 0;
+                    break;
+                case 0x5:
+                    width = 1;
+                    break;
+                case 0x6:
+                    width = 2;
+                    break;
+                case 0x7:
+                    width = 4;
+                    break;
+                case 0x8:
+                    width = 8;
+                    break;
+                case 0x9:
+                    width = 16;
+                    break;
+                case 0xa:
+                case 0xc:
+                case 0xe:
+                    width = readSize(in, 1);
+                    break;
+                case 0xb:
+                case 0xd:
+                case 0xf:
+                    width = readSize(in, 4);
+                    break;
+                default:
+                    throw new AmqpErrorException(ConnectionError.FRAMING_ERROR,"Unknown type format-code 0x%02x", formatCode);
+            }
+
+            if(width < 0 || width > in.remaining())
+            {
+                throw new AmqpErrorException(AmqpError.DECODE_ERROR,
+                                             "Insufficient data - expected %d bytes, %d remaining", width, in.remaining());
+            }
+            in.position(in.position() + width);
+        }
+    }
+
+    private static int readSize(final QpidByteBuffer in, final int sizeWidth) throws AmqpErrorException
+    {
+        if(in.remaining() < sizeWidth)
+        {
+            throw new AmqpErrorException(AmqpError.DECODE_ERROR, "Insufficient data - expected size, no data remaining");
+        }
+        return sizeWidth == 1 ? in.get() & 0xFF : in.getInt();
+    }
+
 
 
 
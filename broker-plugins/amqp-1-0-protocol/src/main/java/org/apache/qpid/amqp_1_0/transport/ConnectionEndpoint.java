@@ -35,9 +35,12 @@ import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -96,20 +99,21 @@ public class ConnectionEndpoint implements DescribedTypeConstructorRegistry.Sour
     private static final long DEFAULT_SYNC_TIMEOUT = Long.getLong("amqp.connection_sync_timeout", 5000l);
 
 
-    private ConnectionState _state = ConnectionState.UNOPENED;
+    private volatile ConnectionState _state = ConnectionState.UNOPENED;
     private int _channelMax = DEFAULT_CHANNEL_MAX;
-    private int _maxFrameSize = 4096;
+    private volatile int _maxFrameSize = 4096;
     private String _remoteContainerId;
 
     private SocketAddress _remoteAddress;
 
-    // positioned by the *outgoing* channel
-    private SessionEndpoint[] _sendingSessions;
+    // positioned by the *outgoing* channel; the slot of a session is cleared by the session itself when it ends,
+    // without the connection lock, so the arrays are atomic and are only replaced under that lock
+    private volatile AtomicReferenceArray<SessionEndpoint> _sendingSessions;
 
-    // positioned by the *incoming* channel
-    private SessionEndpoint[] _receivingSessions;
+    // positioned by the *incoming* channel; read without the connection lock when dispatching session frames
+    private volatile AtomicReferenceArray<SessionEndpoint> _receivingSessions;
     private boolean _closedForInput;
-    private boolean _closedForOutput;
+    private volatile boolean _closedForOutput;
 
     private long _idleTimeout;
 
@@ -150,7 +154,9 @@ public class ConnectionEndpoint implements DescribedTypeConstructorRegistry.Sour
     private String _localHostname;
     private boolean _secure;
     private Principal _externalPrincipal;
-    private List<Runnable> _postLockActions = new ArrayList<>();
+    private final Queue<Runnable> _postLockActions = new ConcurrentLinkedQueue<>();
+    private volatile Thread _coalescingThread;
+    private final Queue<SessionEndpoint> _sessionsWithCoalescedFrames = new ConcurrentLinkedQueue<>();
     private Map _remoteProperties;
 
     public ConnectionEndpoint(Container container, SaslServerProvider cbs)
@@ -233,7 +239,7 @@ public class ConnectionEndpoint implements DescribedTypeConstructorRegistry.Sour
         if (channel != -1)
         {
             SessionEndpoint endpoint = new SessionEndpoint(this);
-            _sendingSessions[channel] = endpoint;
+            _sendingSessions.set(channel, endpoint);
             endpoint.setSendingChannel(channel);
             Begin begin = new Begin();
             begin.setNextOutgoingId(endpoint.getNextOutgoingId());
@@ -284,8 +290,8 @@ public class ConnectionEndpoint implements DescribedTypeConstructorRegistry.Sour
 
         if (_receivingSessions == null)
         {
-            _receivingSessions = new SessionEndpoint[channelMax + 1];
-            _sendingSessions = new SessionEndpoint[channelMax + 1];
+            _receivingSessions = new AtomicReferenceArray<SessionEndpoint>(channelMax + 1);
+            _sendingSessions = new AtomicReferenceArray<SessionEndpoint>(channelMax + 1);
         }
         if (channelMax < _channelMax)
         {
@@ -326,7 +332,7 @@ public class ConnectionEndpoint implements DescribedTypeConstructorRegistry.Sour
     {
         for (int i = 0; i <= _channelMax; i++)
         {
-            if (_sendingSessions[i] == null)
+            if (_sendingSessions.get(i) == null)
             {
                 return (short) i;
             }
@@ -336,7 +342,7 @@ public class ConnectionEndpoint implements DescribedTypeConstructorRegistry.Sour
 
     private SessionEndpoint getSession(final short channel)
     {
-        SessionEndpoint session = _receivingSessions[channel];
+        SessionEndpoint session = _receivingSessions.get(channel);
         if (session == null)
         {
             Error error = new Error();
@@ -359,8 +365,8 @@ public class ConnectionEndpoint implements DescribedTypeConstructorRegistry.Sour
 
         if (_receivingSessions == null)
         {
-            _receivingSessions = new SessionEndpoint[_channelMax + 1];
-            _sendingSessions = new SessionEndpoint[_channelMax + 1];
+            _receivingSessions = new AtomicReferenceArray<SessionEndpoint>(_channelMax + 1);
+            _sendingSessions = new AtomicReferenceArray<SessionEndpoint>(_channelMax + 1);
         }
         UnsignedInteger remoteDesiredMaxFrameSize =
                 open.getMaxFrameSize() == null ? UnsignedInteger.valueOf(DEFAULT_MAX_FRAME) : open.getMaxFrameSize();
@@ -477,12 +483,13 @@ public class ConnectionEndpoint implements DescribedTypeConstructorRegistry.Sour
             }
             if (_receivingSessions != null)
             {
-                for (int i = 0; i < _receivingSessions.length; i++)
+                for (int i = 0; i < _receivingSessions.length(); i++)
                 {
-                    if (_receivingSessions[i] != null)
+                    SessionEndpoint session = _receivingSessions.get(i);
+                    if (session != null)
                     {
-                        _receivingSessions[i].end();
-                        _receivingSessions[i] = null;
+                        session.end();
+                        _receivingSessions.set(i, null);
 
                     }
                 }
@@ -519,7 +526,7 @@ public class ConnectionEndpoint implements DescribedTypeConstructorRegistry.Sour
             SessionEndpoint endpoint;
             try
             {
-                endpoint = _sendingSessions[myChannelId];
+                endpoint = _sendingSessions.get(myChannelId);
             }
             catch (IndexOutOfBoundsException e)
             {
@@ -533,16 +540,16 @@ public class ConnectionEndpoint implements DescribedTypeConstructorRegistry.Sour
             }
             if (endpoint != null)
             {
-                if (_receivingSessions[channel] == null)
+                if (_receivingSessions.get(channel) == null)
                 {
-                    _receivingSessions[channel] = endpoint;
+                    _receivingSessions.set(channel, endpoint);
                     endpoint.setReceivingChannel(channel);
                     endpoint.setNextIncomingId(begin.getNextOutgoingId());
                     endpoint.setOutgoingSessionCredit(begin.getIncomingWindow());
 
                     if (endpoint.getState() == SessionState.END_SENT)
                     {
-                        _sendingSessions[myChannelId] = null;
+                        _sendingSessions.set(myChannelId, null);
                     }
                 }
                 else
@@ -575,12 +582,12 @@ public class ConnectionEndpoint implements DescribedTypeConstructorRegistry.Sour
 
             }
 
-            if (_receivingSessions[channel] == null)
+            if (_receivingSessions.get(channel) == null)
             {
                 SessionEndpoint endpoint = new SessionEndpoint(this, begin);
 
-                _receivingSessions[channel] = endpoint;
-                _sendingSessions[myChannelId] = endpoint;
+                _receivingSessions.set(channel, endpoint);
+                _sendingSessions.set(myChannelId, endpoint);
 
                 Begin beginToSend = new Begin();
 
@@ -610,10 +617,10 @@ public class ConnectionEndpoint implements DescribedTypeConstructorRegistry.Sour
 
     public synchronized void receiveEnd(short channel, End end)
     {
-        SessionEndpoint endpoint = _receivingSessions[channel];
+        SessionEndpoint endpoint = _receivingSessions.get(channel);
         if (endpoint != null)
         {
-            _receivingSessions[channel] = null;
+            _receivingSessions.set(channel, null);
 
             endpoint.receiveEnd(end);
         }
@@ -625,12 +632,16 @@ public class ConnectionEndpoint implements DescribedTypeConstructorRegistry.Sour
     }
 
 
-    public synchronized void sendEnd(short channel, End end, boolean remove)
+    /**
+     * Called by a session holding its own lock, so this must not take the connection lock, which is held while
+     * frames are passed to the sessions.
+     */
+    public void sendEnd(short channel, End end, boolean remove)
     {
         send(channel, end);
         if (remove)
         {
-            _sendingSessions[channel] = null;
+            _sendingSessions.set(channel, null);
         }
     }
 
@@ -653,7 +664,7 @@ public class ConnectionEndpoint implements DescribedTypeConstructorRegistry.Sour
         }
     }
 
-    public synchronized void receiveTransfer(short channel, Transfer transfer)
+    public void receiveTransfer(short channel, Transfer transfer)
     {
         SessionEndpoint endPoint = getSession(channel);
         if (endPoint != null)
@@ -662,7 +673,7 @@ public class ConnectionEndpoint implements DescribedTypeConstructorRegistry.Sour
         }
     }
 
-    public synchronized void receiveDisposition(short channel, Disposition disposition)
+    public void receiveDisposition(short channel, Disposition disposition)
     {
         SessionEndpoint endPoint = getSession(channel);
         if (endPoint != null)
@@ -671,7 +682,7 @@ public class ConnectionEndpoint implements DescribedTypeConstructorRegistry.Sour
         }
     }
 
-    public synchronized void receiveFlow(short channel, Flow flow)
+    public void receiveFlow(short channel, Flow flow)
     {
         SessionEndpoint endPoint = getSession(channel);
         if (endPoint != null)
@@ -681,13 +692,43 @@ public class ConnectionEndpoint implements DescribedTypeConstructorRegistry.Sour
     }
 
 
-    public synchronized void send(short channel, FrameBody body)
+    /**
+     * Until {@link #flushCoalescedFrames()} is called, dispositions and flows the calling thread sends are held by
+     * their session, where contiguous dispositions are merged into one range and a flow replaces the previous flow
+     * for the same link.
+     */
+    public void startCoalescingFrames()
+    {
+        _coalescingThread = Thread.currentThread();
+    }
+
+    public void flushCoalescedFrames()
+    {
+        _coalescingThread = null;
+        SessionEndpoint session;
+        while ((session = _sessionsWithCoalescedFrames.poll()) != null)
+        {
+            session.flushCoalescedFrames();
+        }
+    }
+
+    void coalescedFramesHeld(final SessionEndpoint session)
+    {
+        _sessionsWithCoalescedFrames.add(session);
+    }
+
+    boolean isCoalescingFrames()
+    {
+        return _coalescingThread == Thread.currentThread();
+    }
+
+    public void send(short channel, FrameBody body)
     {
         send(channel, body, null);
     }
 
 
-    public synchronized int send(short channel, FrameBody body, QpidByteBuffer payload)
+    public int send(short channel, FrameBody body, QpidByteBuffer payload)
     {
         if (!_closedForOutput)
         {
@@ -802,31 +843,43 @@ public class ConnectionEndpoint implements DescribedTypeConstructorRegistry.Sour
 
     public void receive(final short channel, final Object frame)
     {
-        List<Runnable> postLockActions;
-        synchronized(this)
+        if (_logger.isEnabled())
         {
-            if (_logger.isEnabled())
-            {
-                _logger.received(_remoteAddress, channel, frame);
-            }
-            if (frame instanceof FrameBody)
-            {
-                ((FrameBody) frame).invoke(channel, this);
-            }
-            else if (frame instanceof SaslFrameBody)
+            _logger.received(_remoteAddress, channel, frame);
+        }
+        if (isSessionFrame(frame))
+        {
+            // transfers, dispositions and flows only touch the state of a single session, which
+            // is guarded by the session's own lock, so they need not serialise against the others
+            ((FrameBody) frame).invoke(channel, this);
+        }
+        else
+        {
+            synchronized (this)
             {
-                ((SaslFrameBody) frame).invoke(this);
+                if (frame instanceof FrameBody)
+                {
+                    ((FrameBody) frame).invoke(channel, this);
+                }
+                else if (frame instanceof SaslFrameBody)
+                {
+                    ((SaslFrameBody) frame).invoke(this);
+                }
             }
-            postLockActions = _postLockActions;
-            _postLockActions = new ArrayList<>();
         }
-        for(Runnable action : postLockActions)
+        Runnable action;
+        while ((action = _postLockActions.poll()) != null)
         {
             action.run();
         }
     }
 
-    synchronized void addPostLockAction(Runnable action)
+    private boolean isSessionFrame(final Object frame)
+    {
+        return frame instanceof Transfer || frame instanceof Disposition || frame instanceof Flow;
+    }
+
+    void addPostLockAction(Runnable action)
     {
         _postLockActions.add(action);
     }
@@ -36,6 +36,8 @@ import org.apache.qpid.amqp_1_0.type.DistributionMode;
 import org.apache.qpid.amqp_1_0.type.FrameBody;
 import org.apache.qpid.amqp_1_0.type.Outcome;
 import org.apache.qpid.amqp_1_0.type.UnsignedInteger;
+import org.apache.qpid.amqp_1_0.type.messaging.Accepted;
+import org.apache.qpid.amqp_1_0.type.messaging.Released;
 import org.apache.qpid.amqp_1_0.type.messaging.Source;
 import org.apache.qpid.amqp_1_0.type.messaging.Target;
 import org.apache.qpid.amqp_1_0.type.messaging.TerminusDurability;
@@ -57,6 +59,7 @@ import org.apache.qpid.bytebuffer.QpidByteBuffer;
 
 public class SessionEndpoint
 {
+    private final Object _lock = new Object();
     private SessionState _state = SessionState.INACTIVE;
 
     private final Map<String, LinkEndpoint> _linkMap = new HashMap<String, LinkEndpoint>();
@@ -72,8 +75,8 @@ public class SessionEndpoint
     private short _receivingChannel;
     private short _sendingChannel;
 
-    private LinkedHashMap<UnsignedInteger,Delivery> _outgoingUnsettled;
-    private LinkedHashMap<UnsignedInteger,Delivery> _incomingUnsettled;
+    private final UnsettledDeliveries _outgoingUnsettled;
+    private final UnsettledDeliveries _incomingUnsettled;
 
     // has to be a power of two
     private static final int DEFAULT_SESSION_BUFFER_SIZE = 1 << 11;
@@ -99,6 +102,11 @@ public class SessionEndpoint
     private int _availableOutgoingCredit;
     private UnsignedInteger _lastSentIncomingLimit;
 
+    // dispositions and flows held back while the connection coalesces frames, guarded by the session lock
+    private Disposition _coalescedDisposition;
+    private final Map<UnsignedInteger, Flow> _coalescedFlows = new LinkedHashMap<UnsignedInteger, Flow>();
+    private boolean _coalescedFramesHeld;
+
     private final Error _sessionEndedLinkError =
             new Error(LinkError.DETACH_FORCED,
                      "Force detach the link because the session is remotely ended.");
@@ -125,8 +133,8 @@ public class SessionEndpoint
         _initialOutgoingId = nextOutgoingId;
         _nextOutgoingTransferId = new SequenceNumber(nextOutgoingId.intValue());
 
-        _outgoingUnsettled = new LinkedHashMap<UnsignedInteger,Delivery>(DEFAULT_SESSION_BUFFER_SIZE);
-        _incomingUnsettled = new LinkedHashMap<UnsignedInteger, Delivery>(DEFAULT_SESSION_BUFFER_SIZE);
+        _outgoingUnsettled = new UnsettledDeliveries(DEFAULT_SESSION_BUFFER_SIZE);
+        _incomingUnsettled = new UnsettledDeliveries(DEFAULT_SESSION_BUFFER_SIZE);
         _availableIncomingCredit = DEFAULT_SESSION_BUFFER_SIZE;
         _availableOutgoingCredit = DEFAULT_SESSION_BUFFER_SIZE;
     }
@@ -184,6 +192,7 @@ public class SessionEndpoint
     {
         synchronized(getLock())
         {
+            flushCoalescedFrames();
             switch(_state)
             {
                 case BEGIN_SENT:
@@ -216,6 +225,7 @@ public class SessionEndpoint
     {
         synchronized(getLock())
         {
+            flushCoalescedFrames();
             switch(_state)
             {
                 case END_SENT:
@@ -270,49 +280,52 @@ public class SessionEndpoint
 
     public void receiveAttach(final Attach attach)
     {
-        if(_state == SessionState.ACTIVE)
+        synchronized (getLock())
         {
-            UnsignedInteger handle = attach.getHandle();
-            if(_remoteLinkEndpoints.containsKey(handle))
-            {
-                // TODO - Error - handle busy?
-            }
-            else
+            if(_state == SessionState.ACTIVE)
             {
-                LinkEndpoint endpoint = getLinkMap().get(attach.getName());
-                if(endpoint == null)
+                UnsignedInteger handle = attach.getHandle();
+                if(_remoteLinkEndpoints.containsKey(handle))
                 {
-                    endpoint = attach.getRole() == Role.RECEIVER
-                               ? new SendingLinkEndpoint(this, attach)
-                               : new ReceivingLinkEndpoint(this, attach);
+                    // TODO - Error - handle busy?
+                }
+                else
+                {
+                    LinkEndpoint endpoint = getLinkMap().get(attach.getName());
+                    if(endpoint == null)
+                    {
+                        endpoint = attach.getRole() == Role.RECEIVER
+                                   ? new SendingLinkEndpoint(this, attach)
+                                   : new ReceivingLinkEndpoint(this, attach);
 
-                    // TODO : fix below - distinguish between local and remote owned
-                    endpoint.setSource(attach.getSource());
-                    endpoint.setTarget(attach.getTarget());
+                        // TODO : fix below - distinguish between local and remote owned
+                        endpoint.setSource(attach.getSource());
+                        endpoint.setTarget(attach.getTarget());
 
 
-                }
+                    }
 
-                if(attach.getRole() == Role.SENDER)
-                {
-                    endpoint.setDeliveryCount(attach.getInitialDeliveryCount());
-                }
+                    if(attach.getRole() == Role.SENDER)
+                    {
+                        endpoint.setDeliveryCount(attach.getInitialDeliveryCount());
+                    }
 
-                _remoteLinkEndpoints.put(handle, endpoint);
+                    _remoteLinkEndpoints.put(handle, endpoint);
 
-                if(!_localLinkEndpoints.containsKey(endpoint))
-                {
-                    UnsignedInteger localHandle = findNextAvailableHandle();
-                    endpoint.setLocalHandle(localHandle);
-                    _localLinkEndpoints.put(endpoint, localHandle);
+                    if(!_localLinkEndpoints.containsKey(endpoint))
+                    {
+                        UnsignedInteger localHandle = findNextAvailableHandle();
+                        endpoint.setLocalHandle(localHandle);
+                        _localLinkEndpoints.put(endpoint, localHandle);
 
-                    _sessionEventListener.remoteLinkCreation(endpoint);
+                        _sessionEventListener.remoteLinkCreation(endpoint);
 
 
-                }
-                else
-                {
-                    endpoint.receiveAttach(attach);
+                    }
+                    else
+                    {
+                        endpoint.receiveAttach(attach);
+                    }
                 }
             }
         }
@@ -320,15 +333,96 @@ public class SessionEndpoint
 
     private void send(final FrameBody frameBody)
     {
+        flushCoalescedFrames();
         _connection.send(this.getSendingChannel(), frameBody);
     }
 
 
     private int send(final FrameBody frameBody, QpidByteBuffer payload)
     {
+        flushCoalescedFrames();
         return _connection.send(this.getSendingChannel(), frameBody, payload);
     }
 
+    private void sendDisposition(final Disposition disposition)
+    {
+        if(_connection.isCoalescingFrames())
+        {
+            synchronized (getLock())
+            {
+                final Disposition coalesced = _coalescedDisposition;
+                if(coalesced != null && isContinuedBy(coalesced, disposition))
+                {
+                    coalesced.setLast(getLast(disposition));
+                }
+                else
+                {
+                    if(coalesced != null)
+                    {
+                        _connection.send(getSendingChannel(), coalesced);
+                    }
+                    _coalescedDisposition = disposition;
+                    coalescedFramesHeld();
+                }
+            }
+        }
+        else
+        {
+            send(disposition);
+        }
+    }
+
+    private static boolean isContinuedBy(final Disposition disposition, final Disposition next)
+    {
+        return disposition.getRole() == next.getRole()
+               && Boolean.TRUE.equals(disposition.getSettled()) == Boolean.TRUE.equals(next.getSettled())
+               && isSameOutcome(disposition.getState(), next.getState())
+               && getLast(disposition).intValue() + 1 == next.getFirst().intValue();
+    }
+
+    private static UnsignedInteger getLast(final Disposition disposition)
+    {
+        return disposition.getLast() == null ? disposition.getFirst() : disposition.getLast();
+    }
+
+    private static boolean isSameOutcome(final DeliveryState state, final DeliveryState other)
+    {
+        return state == other
+               || (state != null && other != null && state.getClass() == other.getClass()
+                   && (state instanceof Accepted || state instanceof Released));
+    }
+
+    private void coalescedFramesHeld()
+    {
+        // the connection flushes only the sessions which have told it they hold frames
+        if(!_coalescedFramesHeld)
+        {
+            _coalescedFramesHeld = true;
+            _connection.coalescedFramesHeld(this);
+        }
+    }
+
+    public void flushCoalescedFrames()
+    {
+        synchronized (getLock())
+        {
+            _coalescedFramesHeld = false;
+            if(_coalescedDisposition != null)
+            {
+                _connection.send(getSendingChannel(), _coalescedDisposition);
+                _coalescedDisposition = null;
+            }
+            if(!_coalescedFlows.isEmpty())
+            {
+                for(Flow flow : _coalescedFlows.values())
+                {
+                    _connection.send(getSendingChannel(), flow);
+                }
+                _coalescedFlows.clear();
+            }
+        }
+    }
+
     private UnsignedInteger findNextAvailableHandle()
     {
         int i = 0;
@@ -346,8 +440,11 @@ public class SessionEndpoint
 
     public void receiveDetach(final Detach detach)
     {
-        UnsignedInteger handle = detach.getHandle();
-        detach(handle, detach);
+        synchronized (getLock())
+        {
+            UnsignedInteger handle = detach.getHandle();
+            detach(handle, detach);
+        }
     }
 
     private void detach(UnsignedInteger handle, Detach detach)
@@ -396,11 +493,11 @@ public class SessionEndpoint
                 deliveryId = ((ReceivingLinkEndpoint)endpoint).getLastDeliveryId();
             }
 
-            Delivery delivery = _incomingUnsettled.get(deliveryId);
+            Delivery delivery = _incomingUnsettled.get(deliveryId.intValue());
             if(delivery == null)
             {
                 delivery = new Delivery(transfer, endpoint);
-                _incomingUnsettled.put(deliveryId,delivery);
+                _incomingUnsettled.put(deliveryId.intValue(), delivery);
                 if(delivery.isSettled() || Boolean.TRUE.equals(transfer.getAborted()))
                 {
 /*
@@ -450,7 +547,7 @@ public class SessionEndpoint
 
             if((delivery.isComplete() && delivery.isSettled() || Boolean.TRUE.equals(transfer.getAborted())))
             {
-                _incomingUnsettled.remove(deliveryId);
+                _incomingUnsettled.remove(deliveryId.intValue());
             }
         }
     }
@@ -473,7 +570,7 @@ public class SessionEndpoint
             }
             else
             {
-                final Collection<LinkEndpoint> allLinkEndpoints = _remoteLinkEndpoints.values();
+                final Collection<LinkEndpoint> allLinkEndpoints = new ArrayList<>(_remoteLinkEndpoints.values());
                 getConnection().addPostLockAction(new Runnable()
                 {
                     @Override
@@ -497,31 +594,31 @@ public class SessionEndpoint
 
     public void receiveDisposition(final Disposition disposition)
     {
-        Role dispositionRole = disposition.getRole();
-
-        LinkedHashMap<UnsignedInteger, Delivery> unsettledTransfers;
-
-        if(dispositionRole == Role.RECEIVER)
-        {
-            unsettledTransfers = _outgoingUnsettled;
-        }
-        else
+        synchronized (getLock())
         {
-            unsettledTransfers = _incomingUnsettled;
+            Role dispositionRole = disposition.getRole();
 
-        }
+            UnsettledDeliveries unsettledTransfers;
 
-        UnsignedInteger deliveryId = disposition.getFirst();
-        UnsignedInteger last = disposition.getLast();
-        if(last == null)
-        {
-            last = deliveryId;
-        }
+            if(dispositionRole == Role.RECEIVER)
+            {
+                unsettledTransfers = _outgoingUnsettled;
+            }
+            else
+            {
+                unsettledTransfers = _incomingUnsettled;
 
+            }
 
-                while(deliveryId.compareTo(last)<=0)
-                {
+            int first = disposition.getFirst().intValue();
+            int last = disposition.getLast() == null ? first : disposition.getLast().intValue();
 
+            if(!unsettledTransfers.isEmpty())
+            {
+                // only the part of the range overlapping the unsettled window can hold deliveries
+                int end = unsettledTransfers.rangeEnd(last);
+                for(int deliveryId = unsettledTransfers.rangeStart(first); end - deliveryId >= 0; deliveryId++)
+                {
                     Delivery delivery = unsettledTransfers.get(deliveryId);
                     if(delivery != null)
                     {
@@ -529,13 +626,19 @@ public class SessionEndpoint
                                                                    disposition.getState(),
                                                                    disposition.getSettled());
                     }
-                    deliveryId = deliveryId.add(UnsignedInteger.ONE);
                 }
-                if(disposition.getSettled())
+                for(Delivery delivery : unsettledTransfers.getOutliers(first, last))
                 {
-                    checkSendFlow();
+                    delivery.getLinkEndpoint().receiveDeliveryState(delivery,
+                                                               disposition.getState(),
+                                                               disposition.getSettled());
                 }
-
+            }
+            if(disposition.getSettled())
+            {
+                checkSendFlow();
+            }
+        }
     }
 
     private void checkSendFlow()
@@ -621,10 +724,10 @@ public class SessionEndpoint
         if(!Boolean.TRUE.equals(xfr.getSettled()))
         {
             Delivery delivery;
-            if((delivery = _outgoingUnsettled.get(deliveryId))== null)
+            if((delivery = _outgoingUnsettled.get(deliveryId.intValue()))== null)
             {
                 delivery = new Delivery(xfr, endpoint);
-                _outgoingUnsettled.put(deliveryId, delivery);
+                _outgoingUnsettled.put(deliveryId.intValue(), delivery);
 
             }
             else
@@ -668,7 +771,7 @@ public class SessionEndpoint
 
     public Object getLock()
     {
-        return _connection.getLock();
+        return _lock;
     }
 
 
@@ -679,12 +782,29 @@ public class SessionEndpoint
 
     public void waitUntil(Predicate predicate) throws TimeoutException, InterruptedException
     {
-        _connection.waitUntil(predicate);
+        waitUntil(predicate, getSyncTimeout());
     }
 
     public void waitUntil(Predicate predicate, long timeout) throws TimeoutException, InterruptedException
     {
-        _connection.waitUntil(predicate, timeout);
+        long endTime = System.currentTimeMillis() + timeout;
+
+        synchronized (getLock())
+        {
+            while (!predicate.isSatisfied())
+            {
+                getLock().wait(timeout);
+
+                if (!predicate.isSatisfied())
+                {
+                    timeout = endTime - System.currentTimeMillis();
+                    if (timeout <= 0l)
+                    {
+                        throw new TimeoutException();
+                    }
+                }
+            }
+        }
     }
 
 
@@ -742,47 +862,41 @@ public class SessionEndpoint
         {
             if(role == Role.RECEIVER)
             {
-                SequenceNumber pos = new SequenceNumber(first.intValue());
-                SequenceNumber end = new SequenceNumber(last.intValue());
-                while(pos.compareTo(end)<=0)
+                synchronized (getLock())
                 {
-                    Delivery d = _incomingUnsettled.remove(new UnsignedInteger(pos.intValue()));
-
-/*
-                    _availableIncomingCredit += d.getTransfers().size();
-*/
-
-                    pos.incr();
+                    _incomingUnsettled.removeRange(first.intValue(), last.intValue());
                 }
             }
         }
 
-        send(disposition);
+        sendDisposition(disposition);
         checkSendFlow();
     }
 
     public void settle(Role role, final UnsignedInteger deliveryId)
     {
-        if(role == Role.RECEIVER)
+        synchronized (getLock())
         {
-            Delivery d = _incomingUnsettled.remove(deliveryId);
-            if(d != null)
+            if(role == Role.RECEIVER)
             {
+                Delivery d = _incomingUnsettled.remove(deliveryId.intValue());
+                if(d != null)
+                {
 /*
-                _availableIncomingCredit += d.getTransfers().size();
+                    _availableIncomingCredit += d.getTransfers().size();
 */
+                }
             }
-        }
-        else
-        {
-            Delivery d = _outgoingUnsettled.remove(deliveryId);
-/*            if(d != null)
+            else
             {
-                _availableOutgoingCredit += d.getTransfers().size();
+                Delivery d = _outgoingUnsettled.remove(deliveryId.intValue());
+/*                if(d != null)
+                {
+                    _availableOutgoingCredit += d.getTransfers().size();
 
-            }*/
+                }*/
+            }
         }
-
     }
 
     public void sendFlow()
@@ -801,7 +915,26 @@ public class SessionEndpoint
 
         flow.setNextOutgoingId(UnsignedInteger.valueOf(_nextOutgoingTransferId.intValue()));
         flow.setOutgoingWindow(UnsignedInteger.valueOf(_availableOutgoingCredit));
-        send(flow);
+
+        if(_connection.isCoalescingFrames() && !Boolean.TRUE.equals(flow.getEcho()))
+        {
+            synchronized (getLock())
+            {
+                // each flow carries the latest session state, so it supersedes the session-only flow and is moved
+                // behind the flows of other links
+                if(flow.getHandle() != null)
+                {
+                    _coalescedFlows.remove(null);
+                }
+                _coalescedFlows.remove(flow.getHandle());
+                _coalescedFlows.put(flow.getHandle(), flow);
+                coalescedFramesHeld();
+            }
+        }
+        else
+        {
+            send(flow);
+        }
     }
 
     public void sendFlowConditional()
@@ -894,7 +1027,10 @@ public class SessionEndpoint
 
     public Collection<LinkEndpoint> getLocalLinkEndpoints()
     {
-        return new ArrayList<>(_localLinkEndpoints.keySet());
+        synchronized (getLock())
+        {
+            return new ArrayList<>(_localLinkEndpoints.keySet());
+        }
     }
 
     public boolean isEnded()
@@ -0,0 +1,265 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.qpid.amqp_1_0.transport;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The unsettled deliveries of one direction of a session, held in a ring indexed by delivery id.
+ *
+ * Delivery ids are compared with serial number arithmetic (as {@link SequenceNumber} does) so the window may
+ * wrap around 2^32.  The ring covers the ids from the oldest unsettled delivery to the newest, doubling in size
+ * when that span outgrows it, so lookups, insertions and removals neither box the id nor allocate.
+ *
+ * The span of the ring is bounded.  A delivery whose id lies too far before the ring, and the deliveries a new
+ * delivery pushes out of the front of the ring (such as one left unsettled for a long time), are kept in a map
+ * of outliers instead, so neither a slow settlement nor ids chosen far apart by the peer can make the ring grow
+ * without limit.
+ */
+class UnsettledDeliveries
+{
+    private static final int MAX_CAPACITY = 1 << 16;
+
+    private final Map<Integer, Delivery> _outliers = new HashMap<>();
+    private Delivery[] _deliveries;
+    private int _mask;
+    private int _head;
+    private int _tail;
+    private int _size;
+
+    UnsettledDeliveries(final int initialCapacity)
+    {
+        int capacity = Integer.highestOneBit(Math.max(Math.min(initialCapacity, MAX_CAPACITY), 1) - 1) << 1;
+        _deliveries = new Delivery[Math.max(capacity, 1)];
+        _mask = _deliveries.length - 1;
+    }
+
+    Delivery get(final int deliveryId)
+    {
+        final Delivery delivery = contains(deliveryId) ? _deliveries[deliveryId & _mask] : null;
+        return delivery != null || _outliers.isEmpty() ? delivery : _outliers.get(deliveryId);
+    }
+
+    void put(final int deliveryId, final Delivery delivery)
+    {
+        if (!_outliers.isEmpty())
+        {
+            _outliers.remove(deliveryId);
+        }
+
+        if (_size == 0)
+        {
+            _head = deliveryId;
+            _tail = deliveryId + 1;
+        }
+        else if (deliveryId - _head < 0)
+        {
+            final int span = _tail - deliveryId;
+            if (span < 0 || span > MAX_CAPACITY)
+            {
+                _outliers.put(deliveryId, delivery);
+                return;
+            }
+            ensureCapacity(span);
+            _head = deliveryId;
+        }
+        else if (deliveryId - _tail >= 0)
+        {
+            final int span = deliveryId + 1 - _head;
+            if (span < 0 || span > MAX_CAPACITY)
+            {
+                moveToOutliers(deliveryId + 1 - MAX_CAPACITY);
+                if (_size == 0)
+                {
+                    _head = deliveryId;
+                }
+            }
+            ensureCapacity(deliveryId + 1 - _head);
+            _tail = deliveryId + 1;
+        }
+
+        final int index = deliveryId & _mask;
+        if (_deliveries[index] == null)
+        {
+            _size++;
+        }
+        _deliveries[index] = delivery;
+    }
+
+    Delivery remove(final int deliveryId)
+    {
+        final int index = deliveryId & _mask;
+        final Delivery delivery = contains(deliveryId) ? _deliveries[index] : null;
+        if (delivery == null)
+        {
+            return _outliers.isEmpty() ? null : _outliers.remove(deliveryId);
+        }
+
+        _deliveries[index] = null;
+        if (--_size == 0)
+        {
+            _head = _tail;
+        }
+        else if (deliveryId == _head)
+        {
+            while (_deliveries[_head & _mask] == null)
+            {
+                _head++;
+            }
+        }
+        return delivery;
+    }
+
+    /**
+     * Removes every delivery with an id from {@code first} to {@code last} inclusive, visiting only the part of
+     * the range that overlaps the unsettled window.
+     */
+    void removeRange(final int first, final int last)
+    {
+        if (_size != 0)
+        {
+            final int end = rangeEnd(last);
+            for (int deliveryId = rangeStart(first); end - deliveryId >= 0 && _size != 0; deliveryId++)
+            {
+                remove(deliveryId);
+            }
+        }
+
+        if (!_outliers.isEmpty())
+        {
+            Iterator<Integer> iterator = _outliers.keySet().iterator();
+            while (iterator.hasNext())
+            {
+                if (inRange(iterator.next(), first, last))
+                {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * The first id of the range starting at {@code first} that can hold an unsettled delivery in the ring.
+     */
+    int rangeStart(final int first)
+    {
+        return first - _head < 0 ? _head : first;
+    }
+
+    /**
+     * The last id of the range ending at {@code last} that can hold an unsettled delivery in the ring.
+     */
+    int rangeEnd(final int last)
+    {
+        return last - _tail >= 0 ? _tail - 1 : last;
+    }
+
+    /**
+     * The unsettled deliveries with an id from {@code first} to {@code last} inclusive which lie outside the window
+     * of the ring, and so are not found by visiting the ids from {@link #rangeStart(int)} to {@link #rangeEnd(int)}.
+     */
+    List<Delivery> getOutliers(final int first, final int last)
+    {
+        if (_outliers.isEmpty())
+        {
+            return Collections.emptyList();
+        }
+        List<Delivery> outliers = new ArrayList<>();
+        for (Map.Entry<Integer, Delivery> entry : _outliers.entrySet())
+        {
+            if (inRange(entry.getKey(), first, last) && !contains(entry.getKey()))
+            {
+                outliers.add(entry.getValue());
+            }
+        }
+        return outliers;
+    }
+
+    int size()
+    {
+        return _size + _outliers.size();
+    }
+
+    boolean isEmpty()
+    {
+        return _size == 0 && _outliers.isEmpty();
+    }
+
+    private boolean contains(final int deliveryId)
+    {
+        return _size != 0 && deliveryId - _head >= 0 && deliveryId - _tail < 0;
+    }
+
+    private static boolean inRange(final int deliveryId, final int first, final int last)
+    {
+        return deliveryId - first >= 0 && last - deliveryId >= 0;
+    }
+
+    /**
+     * Moves the deliveries with ids before {@code newHead} out of the ring and into the outliers.
+     */
+    private void moveToOutliers(final int newHead)
+    {
+        while (_size != 0 && _head - newHead < 0)
+        {
+            final int index = _head & _mask;
+            final Delivery delivery = _deliveries[index];
+            if (delivery != null)
+            {
+                _deliveries[index] = null;
+                _size--;
+                _outliers.put(_head, delivery);
+            }
+            _head++;
+        }
+        if (_size != 0)
+        {
+            while (_deliveries[_head & _mask] == null)
+            {
+                _head++;
+            }
+        }
+    }
+
+    private void ensureCapacity(final int span)
+    {
+        if (span > _deliveries.length)
+        {
+            int capacity = _deliveries.length;
+            while (span > capacity)
+            {
+                capacity <<= 1;
+            }
+            final Delivery[] deliveries = new Delivery[capacity];
+            final int mask = capacity - 1;
+            for (int deliveryId = _head; deliveryId != _tail; deliveryId++)
+            {
+                deliveries[deliveryId & mask] = _deliveries[deliveryId & _mask];
+            }
+            _deliveries = deliveries;
+            _mask = mask;
+        }
+    }
+}
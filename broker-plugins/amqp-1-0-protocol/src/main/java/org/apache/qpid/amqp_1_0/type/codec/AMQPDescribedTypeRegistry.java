@@ -26,6 +26,7 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.qpid.amqp_1_0.codec.*;
 import org.apache.qpid.amqp_1_0.type.RestrictedType;
@@ -156,9 +157,9 @@ public class AMQPDescribedTypeRegistry implements DescribedTypeConstructorRegist
         OpenWriter.register(registry);
         BeginWriter.register(registry);
         AttachWriter.register(registry);
-        FlowWriter.register(registry);
-        TransferWriter.register(registry);
-        DispositionWriter.register(registry);
+        FlowDirectWriter.register(registry);
+        TransferDirectWriter.register(registry);
+        DispositionDirectWriter.register(registry);
         DetachWriter.register(registry);
         EndWriter.register(registry);
         CloseWriter.register(registry);
@@ -295,12 +296,25 @@ public class AMQPDescribedTypeRegistry implements DescribedTypeConstructorRegist
     }
 
 
-    private final Map<Class, ValueWriter.Factory> _writerMap = new HashMap<Class, ValueWriter.Factory>();
+    private final Map<Class, ValueWriter.Factory> _writerMap = new ConcurrentHashMap<Class, ValueWriter.Factory>();
 
     public <V extends Object> ValueWriter<V> getValueWriter(V value, Map<Class, ValueWriter> localCache)
     {
-        return getValueWriter(value);
-
+        Class<? extends Object> clazz = value == null ? Void.TYPE : value.getClass();
+        ValueWriter writer = localCache.get(clazz);
+        if(writer != null)
+        {
+            writer.setValue(value);
+        }
+        else
+        {
+            writer = getValueWriter(value);
+            if(writer != null && writer.isCacheable())
+            {
+                localCache.put(clazz, writer);
+            }
+        }
+        return writer;
     }
 
 
@@ -0,0 +1,189 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.amqp_1_0.type.transport.codec;
+
+import org.apache.qpid.amqp_1_0.codec.CompoundTypeConstructor;
+import org.apache.qpid.amqp_1_0.codec.DescribedTypeConstructor;
+import org.apache.qpid.amqp_1_0.codec.TypeConstructor;
+import org.apache.qpid.amqp_1_0.codec.ValueHandler;
+import org.apache.qpid.amqp_1_0.type.AmqpErrorException;
+import org.apache.qpid.amqp_1_0.type.Binary;
+import org.apache.qpid.amqp_1_0.type.UnsignedInteger;
+import org.apache.qpid.amqp_1_0.type.transport.AmqpError;
+import org.apache.qpid.bytebuffer.QpidByteBuffer;
+
+/**
+ * Constructs a performative sent on every delivery straight from the fields of its encoded list.
+ *
+ * The generic path assembles the list into a {@link java.util.List} of boxed values and then copies them into the
+ * performative.  Here a reusable type constructor per list width reads each field into the performative as it is
+ * decoded, and unsigned integers, booleans and binaries are read without going through the {@link ValueHandler}.
+ * Any other encoding of a field is handed to the value handler and, as on the generic path, a value of the wrong
+ * type leaves the field unset.
+ */
+abstract class AbstractPerformativeConstructor<T> extends DescribedTypeConstructor<T>
+{
+    private static final byte NULL_FORMAT_CODE = (byte) 0x40;
+    private static final byte TRUE_FORMAT_CODE = (byte) 0x41;
+    private static final byte FALSE_FORMAT_CODE = (byte) 0x42;
+    private static final byte ZERO_UINT_FORMAT_CODE = (byte) 0x43;
+    private static final byte SMALL_UINT_FORMAT_CODE = (byte) 0x52;
+    private static final byte BOOLEAN_FORMAT_CODE = (byte) 0x56;
+    private static final byte UINT_FORMAT_CODE = (byte) 0x70;
+    private static final byte VBIN8_FORMAT_CODE = (byte) 0xa0;
+    private static final byte VBIN32_FORMAT_CODE = (byte) 0xb0;
+
+    private final TypeConstructor<T> _singleOctetListConstructor = new FieldsConstructor(1);
+    private final TypeConstructor<T> _fourOctetListConstructor = new FieldsConstructor(4);
+
+    @Override
+    public TypeConstructor<T> construct(final TypeConstructor describedConstructor) throws AmqpErrorException
+    {
+        if(describedConstructor instanceof CompoundTypeConstructor
+           && ((CompoundTypeConstructor) describedConstructor).isList())
+        {
+            return ((CompoundTypeConstructor) describedConstructor).getSize() == 1
+                    ? _singleOctetListConstructor
+                    : _fourOctetListConstructor;
+        }
+        return super.construct(describedConstructor);
+    }
+
+    /**
+     * Reads the first {@code count} fields of the performative's list from {@code in}.
+     */
+    protected abstract T construct(QpidByteBuffer in, int count, ValueHandler handler) throws AmqpErrorException;
+
+    protected static UnsignedInteger readUnsignedInteger(final QpidByteBuffer in, final ValueHandler handler)
+            throws AmqpErrorException
+    {
+        ensureRemaining(in, 1);
+        switch(in.get())
+        {
+            case NULL_FORMAT_CODE:
+                return null;
+            case ZERO_UINT_FORMAT_CODE:
+                return UnsignedInteger.ZERO;
+            case SMALL_UINT_FORMAT_CODE:
+                ensureRemaining(in, 1);
+                return UnsignedInteger.valueOf(in.get() & 0xFF);
+            case UINT_FORMAT_CODE:
+                ensureRemaining(in, 4);
+                return UnsignedInteger.valueOf(in.getInt());
+            default:
+                final Object value = parseCurrent(in, handler);
+                return value instanceof UnsignedInteger ? (UnsignedInteger) value : null;
+        }
+    }
+
+    protected static Boolean readBoolean(final QpidByteBuffer in, final ValueHandler handler)
+            throws AmqpErrorException
+    {
+        ensureRemaining(in, 1);
+        switch(in.get())
+        {
+            case NULL_FORMAT_CODE:
+                return null;
+            case TRUE_FORMAT_CODE:
+                return Boolean.TRUE;
+            case FALSE_FORMAT_CODE:
+                return Boolean.FALSE;
+            case BOOLEAN_FORMAT_CODE:
+                ensureRemaining(in, 1);
+                return in.get() != 0;
+            default:
+                final Object value = parseCurrent(in, handler);
+                return value instanceof Boolean ? (Boolean) value : null;
+        }
+    }
+
+    protected static Binary readBinary(final QpidByteBuffer in, final ValueHandler handler)
+            throws AmqpErrorException
+    {
+        ensureRemaining(in, 1);
+        final int length;
+        switch(in.get())
+        {
+            case NULL_FORMAT_CODE:
+                return null;
+            case VBIN8_FORMAT_CODE:
+                ensureRemaining(in, 1);
+                length = in.get() & 0xFF;
+                break;
+            case VBIN32_FORMAT_CODE:
+                ensureRemaining(in, 4);
+                length = in.getInt();
+                break;
+            default:
+                final Object value = parseCurrent(in, handler);
+                return value instanceof Binary ? (Binary) value : null;
+        }
+        ensureRemaining(in, length);
+        final byte[] data = new byte[length];
+        in.get(data);
+        return new Binary(data);
+    }
+
+    private static Object parseCurrent(final QpidByteBuffer in, final ValueHandler handler)
+            throws AmqpErrorException
+    {
+        in.position(in.position() - 1);
+        return handler.parse(in);
+    }
+
+    private static void ensureRemaining(final QpidByteBuffer in, final int length) throws AmqpErrorException
+    {
+        if(length < 0 || in.remaining() < length)
+        {
+            throw new AmqpErrorException(AmqpError.DECODE_ERROR,
+                                         "Insufficient data - expected %d bytes, %d remaining",
+                                         length,
+                                         in.remaining());
+        }
+    }
+
+    private class FieldsConstructor implements TypeConstructor<T>
+    {
+        private final int _sizeWidth;
+
+        private FieldsConstructor(final int sizeWidth)
+        {
+            _sizeWidth = sizeWidth;
+        }
+
+        public T construct(final QpidByteBuffer in, final ValueHandler handler) throws AmqpErrorException
+        {
+            ensureRemaining(in, 2 * _sizeWidth);
+            final int count;
+            if(_sizeWidth == 1)
+            {
+                in.get();
+                count = in.get() & 0xFF;
+            }
+            else
+            {
+                in.getInt();
+                count = in.getInt();
+            }
+            return AbstractPerformativeConstructor.this.construct(in, count, handler);
+        }
+    }
+}
@@ -0,0 +1,293 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.amqp_1_0.type.transport.codec;
+
+import org.apache.qpid.amqp_1_0.codec.ValueWriter;
+import org.apache.qpid.amqp_1_0.type.Binary;
+import org.apache.qpid.amqp_1_0.type.RestrictedType;
+import org.apache.qpid.amqp_1_0.type.UnsignedByte;
+import org.apache.qpid.amqp_1_0.type.UnsignedInteger;
+import org.apache.qpid.amqp_1_0.type.messaging.Accepted;
+import org.apache.qpid.amqp_1_0.type.messaging.Released;
+import org.apache.qpid.bytebuffer.QpidByteBuffer;
+
+/**
+ * Writes a performative sent on every delivery directly into the output buffer.
+ *
+ * The generated writers obtain a writer from the registry for the descriptor, the list and every field.  When all
+ * of the performative's fields are null, unsigned integers, booleans, binaries, restricted types over those, or the
+ * field-less accepted and released outcomes, this writer sizes the encoding arithmetically and writes it field by
+ * field without creating any other writer.  Otherwise it delegates to the generated writer.
+ *
+ * The writer is reusable through {@link #setValue(Object)}, so it reports itself cacheable.  An encoding is written
+ * in place when the buffer has room for all of it; only when it has to be split over several buffers is it first
+ * encoded into an array which is then copied out.
+ */
+abstract class AbstractPerformativeWriter<V> implements ValueWriter<V>
+{
+    private static final byte DESCRIBED_TYPE = (byte) 0;
+    private static final byte SMALL_ULONG_FORMAT_CODE = (byte) 0x53;
+    private static final byte NULL_FORMAT_CODE = (byte) 0x40;
+    private static final byte TRUE_FORMAT_CODE = (byte) 0x41;
+    private static final byte FALSE_FORMAT_CODE = (byte) 0x42;
+    private static final byte ZERO_UINT_FORMAT_CODE = (byte) 0x43;
+    private static final byte UBYTE_FORMAT_CODE = (byte) 0x50;
+    private static final byte SMALL_UINT_FORMAT_CODE = (byte) 0x52;
+    private static final byte UINT_FORMAT_CODE = (byte) 0x70;
+    private static final byte VBIN8_FORMAT_CODE = (byte) 0xa0;
+    private static final byte VBIN32_FORMAT_CODE = (byte) 0xb0;
+    private static final byte LIST8_FORMAT_CODE = (byte) 0xc0;
+    private static final byte LIST32_FORMAT_CODE = (byte) 0xd0;
+
+    private static final byte[] ACCEPTED_ENCODING = { DESCRIBED_TYPE, SMALL_ULONG_FORMAT_CODE, (byte) 0x24, (byte) 0x45 };
+    private static final byte[] RELEASED_ENCODING = { DESCRIBED_TYPE, SMALL_ULONG_FORMAT_CODE, (byte) 0x26, (byte) 0x45 };
+
+    private final Registry _registry;
+    private ValueWriter<V> _fallbackWriter;
+    private boolean _direct;
+
+    private V _value;
+    private int _count;
+    private int _fieldsSize;
+    private int _size;
+
+    private boolean _complete;
+    private byte[] _encoding;
+    private int _written;
+
+    AbstractPerformativeWriter(final Registry registry)
+    {
+        _registry = registry;
+    }
+
+    public void setValue(final V value)
+    {
+        _value = value;
+        _complete = false;
+        _written = 0;
+
+        int count = getFieldCount();
+        while(count > 0 && getField(value, count - 1) == null)
+        {
+            count--;
+        }
+
+        int fieldsSize = 0;
+        for(int i = 0; i < count && fieldsSize >= 0; i++)
+        {
+            final int fieldSize = getEncodedSize(getField(value, i));
+            fieldsSize = fieldSize < 0 ? -1 : fieldsSize + fieldSize;
+        }
+
+        _direct = fieldsSize >= 0;
+        if(_direct)
+        {
+            _count = count;
+            _fieldsSize = fieldsSize;
+            _size = 3 + (isSingleOctetList() ? 3 : 9) + fieldsSize;
+        }
+        else
+        {
+            if(_fallbackWriter == null)
+            {
+                _fallbackWriter = createFallbackWriter(_registry);
+            }
+            _fallbackWriter.setValue(value);
+        }
+    }
+
+    public int writeToBuffer(final QpidByteBuffer buffer)
+    {
+        if(!_direct)
+        {
+            return _fallbackWriter.writeToBuffer(buffer);
+        }
+
+        if(!_complete && buffer.hasRemaining())
+        {
+            if(_written == 0 && buffer.remaining() >= _size)
+            {
+                writeEncoding(buffer);
+                _complete = true;
+            }
+            else
+            {
+                if(_written == 0)
+                {
+                    if(_encoding == null || _encoding.length < _size)
+                    {
+                        _encoding = new byte[_size];
+                    }
+                    writeEncoding(QpidByteBuffer.wrap(_encoding, 0, _size));
+                }
+                final int length = Math.min(buffer.remaining(), _size - _written);
+                buffer.put(_encoding, _written, length);
+                _written += length;
+                _complete = _written == _size;
+            }
+        }
+        return _size;
+    }
+
+    public boolean isComplete()
+    {
+        return _direct ? _complete : _fallbackWriter.isComplete();
+    }
+
+    public boolean isCacheable()
+    {
+        return true;
+    }
+
+    protected abstract byte getDescriptorCode();
+
+    protected abstract int getFieldCount();
+
+    protected abstract Object getField(V value, int index);
+
+    protected abstract ValueWriter<V> createFallbackWriter(Registry registry);
+
+    private boolean isSingleOctetList()
+    {
+        return _fieldsSize < 255 && _count <= 255;
+    }
+
+    private void writeEncoding(final QpidByteBuffer buffer)
+    {
+        buffer.put(DESCRIBED_TYPE);
+        buffer.put(SMALL_ULONG_FORMAT_CODE);
+        buffer.put(getDescriptorCode());
+        if(isSingleOctetList())
+        {
+            buffer.put(LIST8_FORMAT_CODE);
+            buffer.put((byte) (_fieldsSize + 1));
+            buffer.put((byte) _count);
+        }
+        else
+        {
+            buffer.put(LIST32_FORMAT_CODE);
+            buffer.putInt(_fieldsSize + 4);
+            buffer.putInt(_count);
+        }
+        for(int i = 0; i < _count; i++)
+        {
+            writeField(buffer, getField(_value, i));
+        }
+    }
+
+    private static int getEncodedSize(final Object field)
+    {
+        if(field == null || field instanceof Boolean)
+        {
+            return 1;
+        }
+        else if(field instanceof UnsignedInteger)
+        {
+            final int value = ((UnsignedInteger) field).intValue();
+            return value == 0 ? 1 : (value & 0xFFFFFF00) == 0 ? 2 : 5;
+        }
+        else if(field instanceof Binary)
+        {
+            final int length = ((Binary) field).getLength();
+            return length <= 255 ? 2 + length : 5 + length;
+        }
+        else if(field instanceof UnsignedByte)
+        {
+            return 2;
+        }
+        else if(field instanceof RestrictedType)
+        {
+            return getEncodedSize(((RestrictedType) field).getValue());
+        }
+        else if(field instanceof Accepted)
+        {
+            return ACCEPTED_ENCODING.length;
+        }
+        else if(field instanceof Released)
+        {
+            return RELEASED_ENCODING.length;
+        }
+        return -1;
+    }
+
+    private static void writeField(final QpidByteBuffer buffer, final Object field)
+    {
+        if(field == null)
+        {
+            buffer.put(NULL_FORMAT_CODE);
+        }
+        else if(field instanceof Boolean)
+        {
+            buffer.put((Boolean) field ? TRUE_FORMAT_CODE : FALSE_FORMAT_CODE);
+        }
+        else if(field instanceof UnsignedInteger)
+        {
+            final int value = ((UnsignedInteger) field).intValue();
+            if(value == 0)
+            {
+                buffer.put(ZERO_UINT_FORMAT_CODE);
+            }
+            else if((value & 0xFFFFFF00) == 0)
+            {
+                buffer.put(SMALL_UINT_FORMAT_CODE);
+                buffer.put((byte) value);
+            }
+            else
+            {
+                buffer.put(UINT_FORMAT_CODE);
+                buffer.putInt(value);
+            }
+        }
+        else if(field instanceof Binary)
+        {
+            final Binary binary = (Binary) field;
+            final int length = binary.getLength();
+            if(length <= 255)
+            {
+                buffer.put(VBIN8_FORMAT_CODE);
+                buffer.put((byte) length);
+            }
+            else
+            {
+                buffer.put(VBIN32_FORMAT_CODE);
+                buffer.putInt(length);
+            }
+            buffer.put(binary.getArray(), binary.getArrayOffset(), length);
+        }
+        else if(field instanceof UnsignedByte)
+        {
+            buffer.put(UBYTE_FORMAT_CODE);
+            buffer.put(((UnsignedByte) field).byteValue());
+        }
+        else if(field instanceof RestrictedType)
+        {
+            writeField(buffer, ((RestrictedType) field).getValue());
+        }
+        else if(field instanceof Accepted)
+        {
+            buffer.put(ACCEPTED_ENCODING);
+        }
+        else
+        {
+            buffer.put(RELEASED_ENCODING);
+        }
+    }
+}
@@ -23,15 +23,16 @@
 
 package org.apache.qpid.amqp_1_0.type.transport.codec;
 
-import org.apache.qpid.amqp_1_0.codec.DescribedTypeConstructor;
 import org.apache.qpid.amqp_1_0.codec.DescribedTypeConstructorRegistry;
+import org.apache.qpid.amqp_1_0.codec.ValueHandler;
 import org.apache.qpid.amqp_1_0.type.*;
 import org.apache.qpid.amqp_1_0.type.transport.*;
+import org.apache.qpid.bytebuffer.QpidByteBuffer;
 
 
 import java.util.List;
 
-public class DispositionConstructor extends DescribedTypeConstructor<Disposition>
+public class DispositionConstructor extends AbstractPerformativeConstructor<Disposition>
 {
     private static final Object[] DESCRIPTORS =
     {
@@ -229,5 +230,46 @@ public class DispositionConstructor extends DescribedTypeConstructor<Disposition
         }
     }
 
+    @Override
+    protected Disposition construct(final QpidByteBuffer in, final int count, final ValueHandler handler)
+            throws AmqpErrorException
+    {
+        Disposition obj = new Disposition();
+        for(int position = 0; position < count; position++)
+        {
+            switch(position)
+            {
+                case 0:
+                    Boolean role = readBoolean( in, handler );
+                    if(role != null)
+                    {
+                        obj.setRole( Role.valueOf( role ) );
+                    }
+                    break;
+                case 1:
+                    obj.setFirst( readUnsignedInteger( in, handler ) );
+                    break;
+                case 2:
+                    obj.setLast( readUnsignedInteger( in, handler ) );
+                    break;
+                case 3:
+                    obj.setSettled( readBoolean( in, handler ) );
+                    break;
+                case 4:
+                    Object state = handler.parse( in );
+                    if(state instanceof DeliveryState)
+                    {
+                        obj.setState( (DeliveryState) state );
+                    }
+                    break;
+                case 5:
+                    obj.setBatchable( readBoolean( in, handler ) );
+                    break;
+                default:
+                    ValueHandler.skipValue( in );
+            }
+        }
+        return obj;
+    }
 
 }
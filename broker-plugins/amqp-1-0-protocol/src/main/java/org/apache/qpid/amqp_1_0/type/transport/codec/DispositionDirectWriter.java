@@ -0,0 +1,86 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.amqp_1_0.type.transport.codec;
+
+import org.apache.qpid.amqp_1_0.codec.ValueWriter;
+import org.apache.qpid.amqp_1_0.type.transport.Disposition;
+
+public class DispositionDirectWriter extends AbstractPerformativeWriter<Disposition>
+{
+    public DispositionDirectWriter(final Registry registry)
+    {
+        super(registry);
+    }
+
+    @Override
+    protected byte getDescriptorCode()
+    {
+        return (byte) 0x15;
+    }
+
+    @Override
+    protected int getFieldCount()
+    {
+        return 6;
+    }
+
+    @Override
+    protected Object getField(final Disposition value, final int index)
+    {
+        switch(index)
+        {
+                case 0:
+                    return value.getRole();
+                case 1:
+                    return value.getFirst();
+                case 2:
+                    return value.getLast();
+                case 3:
+                    return value.getSettled();
+                case 4:
+                    return value.getState();
+                case 5:
+                    return value.getBatchable();
+                default:
+                    return null;
+        }
+    }
+
+    @Override
+    protected ValueWriter<Disposition> createFallbackWriter(final Registry registry)
+    {
+        return new DispositionWriter(registry);
+    }
+
+    private static Factory<Disposition> FACTORY = new Factory<Disposition>()
+    {
+
+        public ValueWriter<Disposition> newInstance(Registry registry)
+        {
+            return new DispositionDirectWriter(registry);
+        }
+    };
+
+    public static void register(ValueWriter.Registry registry)
+    {
+        registry.register(Disposition.class, FACTORY);
+    }
+}
@@ -23,16 +23,17 @@
 
 package org.apache.qpid.amqp_1_0.type.transport.codec;
 
-import org.apache.qpid.amqp_1_0.codec.DescribedTypeConstructor;
 import org.apache.qpid.amqp_1_0.codec.DescribedTypeConstructorRegistry;
+import org.apache.qpid.amqp_1_0.codec.ValueHandler;
 import org.apache.qpid.amqp_1_0.type.*;
 import org.apache.qpid.amqp_1_0.type.transport.*;
+import org.apache.qpid.bytebuffer.QpidByteBuffer;
 
 
 import java.util.List;
 import java.util.Map;
 
-public class FlowConstructor extends DescribedTypeConstructor<Flow>
+public class FlowConstructor extends AbstractPerformativeConstructor<Flow>
 {
     private static final Object[] DESCRIPTORS =
     {
@@ -365,5 +366,57 @@ public class FlowConstructor extends DescribedTypeConstructor<Flow>
         }
     }
 
+    @Override
+    protected Flow construct(final QpidByteBuffer in, final int count, final ValueHandler handler)
+            throws AmqpErrorException
+    {
+        Flow obj = new Flow();
+        for(int position = 0; position < count; position++)
+        {
+            switch(position)
+            {
+                case 0:
+                    obj.setNextIncomingId( readUnsignedInteger( in, handler ) );
+                    break;
+                case 1:
+                    obj.setIncomingWindow( readUnsignedInteger( in, handler ) );
+                    break;
+                case 2:
+                    obj.setNextOutgoingId( readUnsignedInteger( in, handler ) );
+                    break;
+                case 3:
+                    obj.setOutgoingWindow( readUnsignedInteger( in, handler ) );
+                    break;
+                case 4:
+                    obj.setHandle( readUnsignedInteger( in, handler ) );
+                    break;
+                case 5:
+                    obj.setDeliveryCount( readUnsignedInteger( in, handler ) );
+                    break;
+                case 6:
+                    obj.setLinkCredit( readUnsignedInteger( in, handler ) );
+                    break;
+                case 7:
+                    obj.setAvailable( readUnsignedInteger( in, handler ) );
+                    break;
+                case 8:
+                    obj.setDrain( readBoolean( in, handler ) );
+                    break;
+                case 9:
+                    obj.setEcho( readBoolean( in, handler ) );
+                    break;
+                case 10:
+                    Object properties = handler.parse( in );
+                    if(properties instanceof Map)
+                    {
+                        obj.setProperties( (Map) properties );
+                    }
+                    break;
+                default:
+                    ValueHandler.skipValue( in );
+            }
+        }
+        return obj;
+    }
 
 }
@@ -0,0 +1,96 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.amqp_1_0.type.transport.codec;
+
+import org.apache.qpid.amqp_1_0.codec.ValueWriter;
+import org.apache.qpid.amqp_1_0.type.transport.Flow;
+
+public class FlowDirectWriter extends AbstractPerformativeWriter<Flow>
+{
+    public FlowDirectWriter(final Registry registry)
+    {
+        super(registry);
+    }
+
+    @Override
+    protected byte getDescriptorCode()
+    {
+        return (byte) 0x13;
+    }
+
+    @Override
+    protected int getFieldCount()
+    {
+        return 11;
+    }
+
+    @Override
+    protected Object getField(final Flow value, final int index)
+    {
+        switch(index)
+        {
+                case 0:
+                    return value.getNextIncomingId();
+                case 1:
+                    return value.getIncomingWindow();
+                case 2:
+                    return value.getNextOutgoingId();
+                case 3:
+                    return value.getOutgoingWindow();
+                case 4:
+                    return value.getHandle();
+                case 5:
+                    return value.getDeliveryCount();
+                case 6:
+                    return value.getLinkCredit();
+                case 7:
+                    return value.getAvailable();
+                case 8:
+                    return value.getDrain();
+                case 9:
+                    return value.getEcho();
+                case 10:
+                    return value.getProperties();
+                default:
+                    return null;
+        }
+    }
+
+    @Override
+    protected ValueWriter<Flow> createFallbackWriter(final Registry registry)
+    {
+        return new FlowWriter(registry);
+    }
+
+    private static Factory<Flow> FACTORY = new Factory<Flow>()
+    {
+
+        public ValueWriter<Flow> newInstance(Registry registry)
+        {
+            return new FlowDirectWriter(registry);
+        }
+    };
+
+    public static void register(ValueWriter.Registry registry)
+    {
+        registry.register(Flow.class, FACTORY);
+    }
+}
@@ -23,15 +23,16 @@
 
 package org.apache.qpid.amqp_1_0.type.transport.codec;
 
-import org.apache.qpid.amqp_1_0.codec.DescribedTypeConstructor;
 import org.apache.qpid.amqp_1_0.codec.DescribedTypeConstructorRegistry;
+import org.apache.qpid.amqp_1_0.codec.ValueHandler;
 import org.apache.qpid.amqp_1_0.type.*;
 import org.apache.qpid.amqp_1_0.type.transport.*;
+import org.apache.qpid.bytebuffer.QpidByteBuffer;
 
 
 import java.util.List;
 
-public class TransferConstructor extends DescribedTypeConstructor<Transfer>
+public class TransferConstructor extends AbstractPerformativeConstructor<Transfer>
 {
     private static final Object[] DESCRIPTORS =
     {
@@ -364,5 +365,61 @@ public class TransferConstructor extends DescribedTypeConstructor<Transfer>
         }
     }
 
+    @Override
+    protected Transfer construct(final QpidByteBuffer in, final int count, final ValueHandler handler)
+            throws AmqpErrorException
+    {
+        Transfer obj = new Transfer();
+        for(int position = 0; position < count; position++)
+        {
+            switch(position)
+            {
+                case 0:
+                    obj.setHandle( readUnsignedInteger( in, handler ) );
+                    break;
+                case 1:
+                    obj.setDeliveryId( readUnsignedInteger( in, handler ) );
+                    break;
+                case 2:
+                    obj.setDeliveryTag( readBinary( in, handler ) );
+                    break;
+                case 3:
+                    obj.setMessageFormat( readUnsignedInteger( in, handler ) );
+                    break;
+                case 4:
+                    obj.setSettled( readBoolean( in, handler ) );
+                    break;
+                case 5:
+                    obj.setMore( readBoolean( in, handler ) );
+                    break;
+                case 6:
+                    Object rcvSettleMode = handler.parse( in );
+                    if(rcvSettleMode instanceof UnsignedByte)
+                    {
+                        obj.setRcvSettleMode( ReceiverSettleMode.valueOf( rcvSettleMode ) );
+                    }
+                    break;
+                case 7:
+                    Object state = handler.parse( in );
+                    if(state instanceof DeliveryState)
+                    {
+                        obj.setState( (DeliveryState) state );
+                    }
+                    break;
+                case 8:
+                    obj.setResume( readBoolean( in, handler ) );
+                    break;
+                case 9:
+                    obj.setAborted( readBoolean( in, handler ) );
+                    break;
+                case 10:
+                    obj.setBatchable( readBoolean( in, handler ) );
+                    break;
+                default:
+                    ValueHandler.skipValue( in );
+            }
+        }
+        return obj;
+    }
 
 }
@@ -0,0 +1,96 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.amqp_1_0.type.transport.codec;
+
+import org.apache.qpid.amqp_1_0.codec.ValueWriter;
+import org.apache.qpid.amqp_1_0.type.transport.Transfer;
+
+public class TransferDirectWriter extends AbstractPerformativeWriter<Transfer>
+{
+    public TransferDirectWriter(final Registry registry)
+    {
+        super(registry);
+    }
+
+    @Override
+    protected byte getDescriptorCode()
+    {
+        return (byte) 0x14;
+    }
+
+    @Override
+    protected int getFieldCount()
+    {
+        return 11;
+    }
+
+    @Override
+    protected Object getField(final Transfer value, final int index)
+    {
+        switch(index)
+        {
+                case 0:
+                    return value.getHandle();
+                case 1:
+                    return value.getDeliveryId();
+                case 2:
+                    return value.getDeliveryTag();
+                case 3:
+                    return value.getMessageFormat();
+                case 4:
+                    return value.getSettled();
+                case 5:
+                    return value.getMore();
+                case 6:
+                    return value.getRcvSettleMode();
+                case 7:
+                    return value.getState();
+                case 8:
+                    return value.getResume();
+                case 9:
+                    return value.getAborted();
+                case 10:
+                    return value.getBatchable();
+                default:
+                    return null;
+        }
+    }
+
+    @Override
+    protected ValueWriter<Transfer> createFallbackWriter(final Registry registry)
+    {
+        return new TransferWriter(registry);
+    }
+
+    private static Factory<Transfer> FACTORY = new Factory<Transfer>()
+    {
+
+        public ValueWriter<Transfer> newInstance(Registry registry)
+        {
+            return new TransferDirectWriter(registry);
+        }
+    };
+
+    public static void register(ValueWriter.Registry registry)
+    {
+        registry.register(Transfer.class, FACTORY);
+    }
+}
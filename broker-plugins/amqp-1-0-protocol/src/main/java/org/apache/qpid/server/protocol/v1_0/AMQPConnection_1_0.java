@@ -28,7 +28,10 @@ import java.security.PrivilegedAction;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
 import javax.security.auth.Subject;
@@ -81,7 +84,7 @@ import org.apache.qpid.transport.network.AggregateTicker;
 import org.apache.qpid.transport.network.NetworkConnection;
 
 public class AMQPConnection_1_0 extends AbstractAMQPConnection<AMQPConnection_1_0>
-        implements FrameOutputHandler
+        implements FrameOutputHandler, FrameCountingConnection<AMQPConnection_1_0>
 {
 
     public static Logger LOGGER = LoggerFactory.getLogger(AMQPConnection_1_0.class);
@@ -92,6 +95,9 @@ public class AMQPConnection_1_0 extends AbstractAMQPConnection<AMQPConnection_1_
     private ConnectionEndpoint _endpoint;
     private final AtomicBoolean _stateChanged = new AtomicBoolean();
     private final AtomicReference<Action<ProtocolEngine>> _workListener = new AtomicReference<>();
+    // idle frame writers, of which there are only as many as threads have sent on this connection at once
+    private final Queue<FrameWriter> _frameWriters = new ConcurrentLinkedQueue<>();
+    private final AtomicLong _framesSent = new AtomicLong();
 
 
     private static final ByteBuffer SASL_LAYER_HEADER =
@@ -121,9 +127,7 @@ public class AMQPConnection_1_0 extends AbstractAMQPConnection<AMQPConnection_1_
                 });
 
 
-    private FrameWriter _frameWriter;
     private ProtocolHandler _frameHandler;
-    private Object _sendLock = new Object();
     private byte _major;
     private byte _minor;
     private byte _revision;
@@ -166,8 +170,6 @@ public class AMQPConnection_1_0 extends AbstractAMQPConnection<AMQPConnection_1_
         final List<String> mechanisms = port.getAuthenticationProvider().getSubjectCreator(transport.isSecure()).getMechanisms();
         ByteBuffer headerResponse = useSASL ? initiateSasl() : initiateNonSasl(mechanisms);
 
-        _frameWriter =  new FrameWriter(_endpoint.getDescribedTypeRegistry());
-
         getSender().send(QpidByteBuffer.wrap(headerResponse.duplicate()));
         getSender().flush();
 
@@ -450,7 +452,15 @@ public class AMQPConnection_1_0 extends AbstractAMQPConnection<AMQPConnection_1_
                             @Override
                             public Void run()
                             {
-                                _frameHandler = _frameHandler.parse(msg);
+                                _endpoint.startCoalescingFrames();
+                                try
+                                {
+                                    _frameHandler = _frameHandler.parse(msg);
+                                }
+                                finally
+                                {
+                                    _endpoint.flushCoalescedFrames();
+                                }
                                 return null;
                             }
                         }, getAccessControllerContext());
@@ -517,46 +527,58 @@ public class AMQPConnection_1_0 extends AbstractAMQPConnection<AMQPConnection_1_
 
     public void send(final AMQFrame amqFrame, ByteBuffer buf)
     {
-
-        synchronized (_sendLock)
+        // sessions send concurrently, so each sending thread takes an idle writer of this connection to encode
+        // the frame, and hands the frame whole to the sender's queue rather than serialising all output through a
+        // single shared writer
+        updateLastWriteTime();
+        if (FRAME_LOGGER.isDebugEnabled())
         {
-            updateLastWriteTime();
-            if (FRAME_LOGGER.isDebugEnabled())
-            {
-                FRAME_LOGGER.debug("SEND["
-                                   + getNetwork().getRemoteAddress()
-                                   + "|"
-                                   + amqFrame.getChannel()
-                                   + "] : "
-                                   + amqFrame.getFrameBody());
-            }
-
-            _frameWriter.setValue(amqFrame);
-
-            QpidByteBuffer dup = QpidByteBuffer.allocateDirect(_endpoint.getMaxFrameSize());
-
-            int size = _frameWriter.writeToBuffer(dup);
-            if (size > _endpoint.getMaxFrameSize())
-            {
-                throw new OversizeFrameException(amqFrame, size);
-            }
+            FRAME_LOGGER.debug("SEND["
+                               + getNetwork().getRemoteAddress()
+                               + "|"
+                               + amqFrame.getChannel()
+                               + "] : "
+                               + amqFrame.getFrameBody());
+        }
 
-            dup.flip();
+        FrameWriter frameWriter = _frameWriters.poll();
+        if (frameWriter == null)
+        {
+            frameWriter = new FrameWriter(_endpoint.getDescribedTypeRegistry());
+        }
+        frameWriter.setValue(amqFrame);
 
-            if (RAW_LOGGER.isDebugEnabled())
-            {
-                QpidByteBuffer dup2 = dup.duplicate();
-                byte[] data = new byte[dup2.remaining()];
-                dup2.get(data);
-                Binary bin = new Binary(data);
-                RAW_LOGGER.debug("SEND[" + getNetwork().getRemoteAddress() + "] : " + bin.toString());
-            }
+        QpidByteBuffer dup = QpidByteBuffer.allocateDirect(_endpoint.getMaxFrameSize());
 
-            getSender().send(dup);
-            getSender().flush();
+        int size;
+        try
+        {
+            size = frameWriter.writeToBuffer(dup);
+        }
+        finally
+        {
+            frameWriter.clear();
+            _frameWriters.add(frameWriter);
+        }
+        if (size > _endpoint.getMaxFrameSize())
+        {
+            throw new OversizeFrameException(amqFrame, size);
+        }
 
+        dup.flip();
 
+        if (RAW_LOGGER.isDebugEnabled())
+        {
+            QpidByteBuffer dup2 = dup.duplicate();
+            byte[] data = new byte[dup2.remaining()];
+            dup2.get(data);
+            Binary bin = new Binary(data);
+            RAW_LOGGER.debug("SEND[" + getNetwork().getRemoteAddress() + "] : " + bin.toString());
         }
+
+        _framesSent.incrementAndGet();
+        getSender().send(dup);
+        getSender().flush();
     }
 
     public void send(short channel, FrameBody body)
@@ -566,6 +588,19 @@ public class AMQPConnection_1_0 extends AbstractAMQPConnection<AMQPConnection_1_
 
     }
 
+    @Override
+    public long getFramesOut()
+    {
+        return _framesSent.get();
+    }
+
+    @Override
+    public void resetStatistics()
+    {
+        super.resetStatistics();
+        _framesSent.set(0L);
+    }
+
     @Override
     protected void performDeleteTasks()
     {
@@ -595,8 +630,15 @@ public class AMQPConnection_1_0 extends AbstractAMQPConnection<AMQPConnection_1_
     @Override
     public void processPending()
     {
-        _connection.processPending();
-
+        _endpoint.startCoalescingFrames();
+        try
+        {
+            _connection.processPending();
+        }
+        finally
+        {
+            _endpoint.flushCoalescedFrames();
+        }
     }
 
     @Override
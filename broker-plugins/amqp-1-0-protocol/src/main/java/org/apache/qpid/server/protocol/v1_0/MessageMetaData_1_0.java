@@ -20,6 +20,7 @@
 */
 package org.apache.qpid.server.protocol.v1_0;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -34,20 +35,20 @@ import org.slf4j.LoggerFactory;
 
 import org.apache.qpid.amqp_1_0.codec.ValueHandler;
 import org.apache.qpid.amqp_1_0.messaging.SectionDecoder;
+import org.apache.qpid.amqp_1_0.messaging.SectionDecoderImpl;
 import org.apache.qpid.amqp_1_0.messaging.SectionEncoder;
 import org.apache.qpid.amqp_1_0.type.AmqpErrorException;
 import org.apache.qpid.amqp_1_0.type.Section;
 import org.apache.qpid.amqp_1_0.type.Symbol;
+import org.apache.qpid.amqp_1_0.type.UnsignedLong;
 import org.apache.qpid.amqp_1_0.type.codec.AMQPDescribedTypeRegistry;
-import org.apache.qpid.amqp_1_0.type.messaging.AmqpSequence;
-import org.apache.qpid.amqp_1_0.type.messaging.AmqpValue;
 import org.apache.qpid.amqp_1_0.type.messaging.ApplicationProperties;
-import org.apache.qpid.amqp_1_0.type.messaging.Data;
 import org.apache.qpid.amqp_1_0.type.messaging.DeliveryAnnotations;
 import org.apache.qpid.amqp_1_0.type.messaging.Footer;
 import org.apache.qpid.amqp_1_0.type.messaging.Header;
 import org.apache.qpid.amqp_1_0.type.messaging.MessageAnnotations;
 import org.apache.qpid.amqp_1_0.type.messaging.Properties;
+import org.apache.qpid.amqp_1_0.type.transport.AmqpError;
 import org.apache.qpid.bytebuffer.QpidByteBuffer;
 import org.apache.qpid.server.message.AMQMessageHeader;
 import org.apache.qpid.server.plugin.MessageMetaDataType;
@@ -59,16 +60,54 @@ public class MessageMetaData_1_0 implements StorableMessageMetaData
     private static final Logger _logger = LoggerFactory.getLogger(MessageMetaData_1_0.class);
     // TODO move to somewhere more useful
     public static final Symbol JMS_TYPE = Symbol.valueOf("x-opt-jms-type");
+
+    private static final AMQPDescribedTypeRegistry DESCRIBED_TYPE_REGISTRY = AMQPDescribedTypeRegistry.newInstance()
+            .registerTransportLayer()
+            .registerMessagingLayer()
+            .registerTransactionLayer()
+            .registerSecurityLayer();
+    private static final ValueHandler VALUE_HANDLER = new ValueHandler(DESCRIBED_TYPE_REGISTRY);
+
     public static final MessageMetaDataType.Factory<MessageMetaData_1_0> FACTORY = new MetaDataFactory();
     private static final MessageMetaDataType_1_0 TYPE = new MessageMetaDataType_1_0();
 
+    private static final byte DESCRIBED_TYPE = (byte) 0;
+    private static final int HEADER = 0x70;
+    private static final int DELIVERY_ANNOTATIONS = 0x71;
+    private static final int MESSAGE_ANNOTATIONS = 0x72;
+    private static final int PROPERTIES = 0x73;
+    private static final int APPLICATION_PROPERTIES = 0x74;
+    private static final int FOOTER = 0x78;
+    private static final Map<Symbol, Integer> SECTION_SYMBOLS = new HashMap<>();
+    static
+    {
+        SECTION_SYMBOLS.put(Symbol.valueOf("amqp:header:list"), HEADER);
+        SECTION_SYMBOLS.put(Symbol.valueOf("amqp:delivery-annotations:map"), DELIVERY_ANNOTATIONS);
+        SECTION_SYMBOLS.put(Symbol.valueOf("amqp:message-annotations:map"), MESSAGE_ANNOTATIONS);
+        SECTION_SYMBOLS.put(Symbol.valueOf("amqp:properties:list"), PROPERTIES);
+        SECTION_SYMBOLS.put(Symbol.valueOf("amqp:application-properties:map"), APPLICATION_PROPERTIES);
+        SECTION_SYMBOLS.put(Symbol.valueOf("amqp:footer:map"), FOOTER);
+    }
+
+    private static final Object NOT_FOUND = new Object();
+
+    // sections are kept encoded and only decoded (and then cached) when first asked for; the encoded sections are
+    // released under the lock on this object, so they are only decoded while holding it
+    private final SectionDecoder _sectionDecoder;
 
-    private Header _header;
-    private Properties _properties;
-    private Map _deliveryAnnotations;
-    private Map _messageAnnotations;
-    private Map _appProperties;
-    private Map _footer;
+    private volatile QpidByteBuffer _encodedHeader;
+    private volatile QpidByteBuffer _encodedDeliveryAnnotations;
+    private volatile QpidByteBuffer _encodedMessageAnnotations;
+    private volatile QpidByteBuffer _encodedProperties;
+    private volatile QpidByteBuffer _encodedAppProperties;
+    private volatile QpidByteBuffer _encodedFooter;
+
+    private volatile Header _header;
+    private volatile Properties _properties;
+    private volatile Map _deliveryAnnotations;
+    private volatile Map _messageAnnotations;
+    private volatile Map _appProperties;
+    private volatile Map _footer;
 
     private List<QpidByteBuffer> _encodedSections = new ArrayList<>(3);
 
@@ -83,13 +122,111 @@ public class MessageMetaData_1_0 implements StorableMessageMetaData
 
     public Properties getPropertiesSection()
     {
-        return _properties;
+        Properties properties = _properties;
+        if(properties == null && _encodedProperties != null)
+        {
+            synchronized (this)
+            {
+                properties = _properties;
+                if(properties == null && _encodedProperties != null)
+                {
+                    properties = (Properties) decodeSection(_encodedProperties);
+                    _properties = properties;
+                }
+            }
+        }
+        return properties;
     }
 
 
     public Header getHeaderSection()
     {
-        return _header;
+        Header header = _header;
+        if(header == null && _encodedHeader != null)
+        {
+            synchronized (this)
+            {
+                header = _header;
+                if(header == null && _encodedHeader != null)
+                {
+                    header = (Header) decodeSection(_encodedHeader);
+                    _header = header;
+                }
+            }
+        }
+        return header;
+    }
+
+    public Map getDeliveryAnnotations()
+    {
+        Map deliveryAnnotations = _deliveryAnnotations;
+        if(deliveryAnnotations == null && _encodedDeliveryAnnotations != null)
+        {
+            synchronized (this)
+            {
+                deliveryAnnotations = _deliveryAnnotations;
+                if(deliveryAnnotations == null && _encodedDeliveryAnnotations != null)
+                {
+                    deliveryAnnotations = ((DeliveryAnnotations) decodeSection(_encodedDeliveryAnnotations)).getValue();
+                    _deliveryAnnotations = deliveryAnnotations;
+                }
+            }
+        }
+        return deliveryAnnotations;
+    }
+
+    public Map getMessageAnnotations()
+    {
+        Map messageAnnotations = _messageAnnotations;
+        if(messageAnnotations == null && _encodedMessageAnnotations != null)
+        {
+            synchronized (this)
+            {
+                messageAnnotations = _messageAnnotations;
+                if(messageAnnotations == null && _encodedMessageAnnotations != null)
+                {
+                    messageAnnotations = ((MessageAnnotations) decodeSection(_encodedMessageAnnotations)).getValue();
+                    _messageAnnotations = messageAnnotations;
+                }
+            }
+        }
+        return messageAnnotations;
+    }
+
+    public Map getApplicationProperties()
+    {
+        Map appProperties = _appProperties;
+        if(appProperties == null && _encodedAppProperties != null)
+        {
+            synchronized (this)
+            {
+                appProperties = _appProperties;
+                if(appProperties == null && _encodedAppProperties != null)
+                {
+                    appProperties = ((ApplicationProperties) decodeSection(_encodedAppProperties)).getValue();
+                    _appProperties = appProperties;
+                }
+            }
+        }
+        return appProperties;
+    }
+
+    public Map getFooter()
+    {
+        Map footer = _footer;
+        if(footer == null && _encodedFooter != null)
+        {
+            synchronized (this)
+            {
+                footer = _footer;
+                if(footer == null && _encodedFooter != null)
+                {
+                    footer = ((Footer) decodeSection(_encodedFooter)).getValue();
+                    _footer = footer;
+                }
+            }
+        }
+        return footer;
     }
 
     private static ArrayList<QpidByteBuffer> encodeSections(final List<Section> sections, final SectionEncoder encoder)
@@ -111,11 +248,63 @@ public class MessageMetaData_1_0 implements StorableMessageMetaData
 
     public MessageMetaData_1_0(QpidByteBuffer[] fragments, SectionDecoder decoder, List<QpidByteBuffer> immutableSections)
     {
-        this(constructSections(fragments, decoder,immutableSections), immutableSections);
+        _sectionDecoder = decoder;
+        _encodedSections = immutableSections;
+
+        QpidByteBuffer src;
+        if(fragments.length == 1)
+        {
+            src = fragments[0].duplicate();
+        }
+        else
+        {
+            int size = 0;
+            for(QpidByteBuffer buf : fragments)
+            {
+                size += buf.remaining();
+            }
+            src = QpidByteBuffer.allocateDirect(size);
+            for(QpidByteBuffer buf : fragments)
+            {
+                src.put(buf.duplicate());
+            }
+            src.flip();
+
+        }
+
+        try
+        {
+            scanSections(src, null);
+        }
+        catch (AmqpErrorException e)
+        {
+            _logger.error("Decoding read section error", e);
+            throw new IllegalArgumentException(e);
+        }
+        finally
+        {
+            src.dispose();
+        }
+
+        for(QpidByteBuffer buf : fragments)
+        {
+            immutableSections.add(buf.duplicate());
+        }
+
+        _messageHeader = new MessageHeader_1_0();
+    }
+
+    private MessageMetaData_1_0(QpidByteBuffer buf, SectionDecoder decoder) throws AmqpErrorException
+    {
+        _sectionDecoder = decoder;
+        _encodedSections = new ArrayList<>(3);
+        scanSections(buf, _encodedSections);
+        _messageHeader = new MessageHeader_1_0();
     }
 
     private MessageMetaData_1_0(List<Section> sections, List<QpidByteBuffer> encodedSections)
     {
+        _sectionDecoder = null;
         _encodedSections = encodedSections;
 
         Iterator<Section> sectIter = sections.iterator();
@@ -161,147 +350,198 @@ public class MessageMetaData_1_0 implements StorableMessageMetaData
 
     }
 
-    private static List<Section> constructSections(final QpidByteBuffer[] fragments, final SectionDecoder decoder, List<QpidByteBuffer> encodedSections)
+    /**
+     * Walks the encoded sections, remembering the encoding of each non-body section without decoding it.  Body
+     * sections are passed over.  If {@code allSections} is given, every section's encoding is added to it and the
+     * non-body sections share its buffers, otherwise the non-body sections are copied so that {@code src} is not
+     * retained.
+     */
+    private void scanSections(final QpidByteBuffer src, final List<QpidByteBuffer> allSections)
+            throws AmqpErrorException
     {
-        List<Section> sections = new ArrayList<Section>(3);
-
-        QpidByteBuffer src;
-        if(fragments.length == 1)
+        while(src.hasRemaining())
         {
-            src = fragments[0].duplicate();
-        }
-        else
-        {
-            int size = 0;
-            for(QpidByteBuffer buf : fragments)
-            {
-                size += buf.remaining();
-            }
-            src = QpidByteBuffer.allocateDirect(size);
-            for(QpidByteBuffer buf : fragments)
+            final int start = src.position();
+            if(src.get() != DESCRIBED_TYPE)
             {
-                src.put(buf.duplicate());
+                throw new AmqpErrorException(AmqpError.DECODE_ERROR,
+                                             "Section at position %d is not a described type", start);
             }
-            src.flip();
+            final int sectionCode = getSectionCode(VALUE_HANDLER.parse(src));
+            ValueHandler.skipValue(src);
 
-        }
-
-        try
-        {
-            int startBarePos = -1;
-            int lastPos = src.position();
-            Section s = decoder.readSection(src);
-
-
-
-            if(s instanceof Header)
+            final int end = src.position();
+            QpidByteBuffer encoded = null;
+            if(allSections != null)
             {
-                sections.add(s);
-                lastPos = src.position();
-                s = src.hasRemaining() ? decoder.readSection(src) : null;
+                src.position(start);
+                QpidByteBuffer slice = src.slice();
+                slice.limit(end - start);
+                src.position(end);
+                allSections.add(slice);
+                if(sectionCode != -1)
+                {
+                    encoded = slice.duplicate();
+                }
             }
-
-            if(s instanceof DeliveryAnnotations)
+            else if(sectionCode != -1)
             {
-                sections.add(s);
-                lastPos = src.position();
-                s = src.hasRemaining() ? decoder.readSection(src) : null;
+                src.position(start);
+                QpidByteBuffer slice = src.slice();
+                slice.limit(end - start);
+                src.position(end);
+                encoded = QpidByteBuffer.allocate(end - start);
+                encoded.put(slice);
+                encoded.flip();
+                slice.dispose();
             }
 
-            if(s instanceof MessageAnnotations)
+            switch(sectionCode)
             {
-                sections.add(s);
-                lastPos = src.position();
-                s = src.hasRemaining() ? decoder.readSection(src) : null;
+                case HEADER:
+                    _encodedHeader = encoded;
+                    break;
+                case DELIVERY_ANNOTATIONS:
+                    _encodedDeliveryAnnotations = encoded;
+                    break;
+                case MESSAGE_ANNOTATIONS:
+                    _encodedMessageAnnotations = encoded;
+                    break;
+                case PROPERTIES:
+                    _encodedProperties = encoded;
+                    break;
+                case APPLICATION_PROPERTIES:
+                    _encodedAppProperties = encoded;
+                    break;
+                case FOOTER:
+                    _encodedFooter = encoded;
+                    break;
+                default:
+                    // body section
             }
+        }
+    }
 
-            if(s instanceof Properties)
-            {
-                sections.add(s);
-                if(startBarePos == -1)
-                {
-                    startBarePos = lastPos;
-                }
-                s = src.hasRemaining() ? decoder.readSection(src) : null;
-            }
+    private static int getSectionCode(final Object descriptor)
+    {
+        if(descriptor instanceof UnsignedLong)
+        {
+            long code = ((UnsignedLong) descriptor).longValue();
+            return code == HEADER || code == DELIVERY_ANNOTATIONS || code == MESSAGE_ANNOTATIONS
+                   || code == PROPERTIES || code == APPLICATION_PROPERTIES || code == FOOTER ? (int) code : -1;
+        }
+        Integer code = SECTION_SYMBOLS.get(descriptor);
+        return code == null ? -1 : code;
+    }
 
-            if(s instanceof ApplicationProperties)
-            {
-                sections.add(s);
-                if(startBarePos == -1)
-                {
-                    startBarePos = lastPos;
-                }
-                s = src.hasRemaining() ? decoder.readSection(src) : null;
-            }
+    private Section decodeSection(final QpidByteBuffer encoded)
+    {
+        QpidByteBuffer buf = encoded.duplicate();
+        try
+        {
+            return _sectionDecoder.readSection(buf);
+        }
+        catch (AmqpErrorException e)
+        {
+            throw new ConnectionScopedRuntimeException(e);
+        }
+        finally
+        {
+            buf.dispose();
+        }
+    }
 
-            if(s instanceof AmqpValue)
-            {
-                if(startBarePos == -1)
-                {
-                    startBarePos = lastPos;
-                }
-                s = src.hasRemaining() ? decoder.readSection(src) : null;
-            }
-            else if(s instanceof Data)
+    /**
+     * Looks up a single application property in the encoded section, skipping over the other entries rather than
+     * decoding the whole map.
+     */
+    private Object findApplicationProperty(final String name)
+    {
+        Map appProperties = _appProperties;
+        QpidByteBuffer buf = appProperties == null ? duplicateEncodedAppProperties() : null;
+        if(buf == null)
+        {
+            appProperties = _appProperties;
+            return appProperties != null && appProperties.containsKey(name) ? appProperties.get(name) : NOT_FOUND;
+        }
+
+        try
+        {
+            buf.get();
+            ValueHandler.skipValue(buf);
+
+            int count;
+            byte formatCode = buf.get();
+            if(formatCode == (byte) 0xc1)
             {
-                if(startBarePos == -1)
-                {
-                    startBarePos = lastPos;
-                }
-                do
-                {
-                    s = src.hasRemaining() ? decoder.readSection(src) : null;
-                } while(s instanceof Data);
+                buf.get();
+                count = buf.get() & 0xFF;
             }
-            else if(s instanceof AmqpSequence)
+            else if(formatCode == (byte) 0xd1)
             {
-                if(startBarePos == -1)
-                {
-                    startBarePos = lastPos;
-                }
-                do
-                {
-                    s = src.hasRemaining() ? decoder.readSection(src) : null;
-                }
-                while(s instanceof AmqpSequence);
+                buf.getInt();
+                count = buf.getInt();
             }
-
-            if(s instanceof Footer)
+            else
             {
-                sections.add(s);
+                Map decoded = getApplicationProperties();
+                return decoded != null && decoded.containsKey(name) ? decoded.get(name) : NOT_FOUND;
             }
 
-
-            int pos = 0;
-            for(QpidByteBuffer buf : fragments)
+            final byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+            for(int i = 0; i < count; i += 2)
             {
-/*
-                if(pos < startBarePos)
-                {
-                    if(pos + buf.remaining() > startBarePos)
-                    {
-                        ByteBuffer dup = buf.duplicate();
-                        dup.position(dup.position()+startBarePos-pos);
-                        dup.slice();
-                        encodedSections.add(dup);
-                    }
-                }
-                else
-*/
+                if(keyMatches(buf, nameBytes))
                 {
-                    encodedSections.add(buf.duplicate());
+                    return VALUE_HANDLER.parse(buf);
                 }
-                pos += buf.remaining();
+                ValueHandler.skipValue(buf);
             }
-
-            return sections;
+            return NOT_FOUND;
         }
         catch (AmqpErrorException e)
         {
-            _logger.error("Decoding read section error", e);
-            throw new IllegalArgumentException(e);
+            throw new ConnectionScopedRuntimeException(e);
+        }
+        finally
+        {
+            buf.dispose();
+        }
+    }
+
+    private synchronized QpidByteBuffer duplicateEncodedAppProperties()
+    {
+        return _encodedAppProperties == null ? null : _encodedAppProperties.duplicate();
+    }
+
+    private static boolean keyMatches(final QpidByteBuffer buf, final byte[] nameBytes) throws AmqpErrorException
+    {
+        final int start = buf.position();
+        final byte formatCode = buf.get();
+        final int length;
+        if(formatCode == (byte) 0xa1)
+        {
+            length = buf.get() & 0xFF;
+        }
+        else if(formatCode == (byte) 0xb1)
+        {
+            length = buf.getInt();
+        }
+        else
+        {
+            buf.position(start);
+            ValueHandler.skipValue(buf);
+            return false;
+        }
+
+        final int keyStart = buf.position();
+        boolean matches = length == nameBytes.length;
+        for(int i = 0; matches && i < length; i++)
+        {
+            matches = buf.get(keyStart + i) == nameBytes[i];
         }
+        buf.position(keyStart + length);
+        return matches;
     }
 
 
@@ -391,7 +631,8 @@ public class MessageMetaData_1_0 implements StorableMessageMetaData
 
     public boolean isPersistent()
     {
-        return _header != null && Boolean.TRUE.equals(_header.getDurable());
+        Header header = getHeaderSection();
+        return header != null && Boolean.TRUE.equals(header.getDurable());
     }
 
     public MessageHeader_1_0 getMessageHeader()
@@ -400,59 +641,79 @@ public class MessageMetaData_1_0 implements StorableMessageMetaData
     }
 
     @Override
-    public void dispose()
+    public synchronized void dispose()
     {
-        _encoded.dispose();
-        _encoded = null;
+        QpidByteBuffer encoded = _encoded;
+        if(encoded != null)
+        {
+            encoded.dispose();
+            _encoded = null;
+        }
+        _encodedHeader = release(_encodedHeader);
+        _encodedDeliveryAnnotations = release(_encodedDeliveryAnnotations);
+        _encodedMessageAnnotations = release(_encodedMessageAnnotations);
+        _encodedProperties = release(_encodedProperties);
+        _encodedAppProperties = release(_encodedAppProperties);
+        _encodedFooter = release(_encodedFooter);
     }
 
+    /**
+     * Releases the encodings of the sections which have already been decoded.  Sections which have not been asked
+     * for yet stay encoded, so that they are still only decoded when needed.
+     */
     @Override
-    public void clearEncodedForm()
+    public synchronized void clearEncodedForm()
     {
-
+        if(_header != null)
+        {
+            _encodedHeader = release(_encodedHeader);
+        }
+        if(_deliveryAnnotations != null)
+        {
+            _encodedDeliveryAnnotations = release(_encodedDeliveryAnnotations);
+        }
+        if(_messageAnnotations != null)
+        {
+            _encodedMessageAnnotations = release(_encodedMessageAnnotations);
+        }
+        if(_properties != null)
+        {
+            _encodedProperties = release(_encodedProperties);
+        }
+        if(_appProperties != null)
+        {
+            _encodedAppProperties = release(_encodedAppProperties);
+        }
+        if(_footer != null)
+        {
+            _encodedFooter = release(_encodedFooter);
+        }
     }
 
-    private static class MetaDataFactory implements MessageMetaDataType.Factory<MessageMetaData_1_0>
+    private static QpidByteBuffer release(final QpidByteBuffer encoded)
     {
-        private final AMQPDescribedTypeRegistry _typeRegistry = AMQPDescribedTypeRegistry.newInstance();
-
-        private MetaDataFactory()
+        if(encoded != null)
         {
-            _typeRegistry.registerTransportLayer();
-            _typeRegistry.registerMessagingLayer();
-            _typeRegistry.registerTransactionLayer();
-            _typeRegistry.registerSecurityLayer();
+            encoded.dispose();
         }
+        return null;
+    }
+
+    private static class MetaDataFactory implements MessageMetaDataType.Factory<MessageMetaData_1_0>
+    {
+        private final SectionDecoder _sectionDecoder = new SectionDecoderImpl(DESCRIBED_TYPE_REGISTRY);
 
         public MessageMetaData_1_0 createMetaData(QpidByteBuffer buf)
         {
-            ValueHandler valueHandler = new ValueHandler(_typeRegistry);
-
-            ArrayList<Section> sections = new ArrayList<Section>(3);
-            ArrayList<QpidByteBuffer> encodedSections = new ArrayList<>(3);
-
-            while(buf.hasRemaining())
+            try
             {
-                try
-                {
-                    int start = buf.position();
-                    QpidByteBuffer encodedBuf = buf.slice();
-                    Object parse = valueHandler.parse(buf);
-                    sections.add((Section) parse);
-                    encodedBuf.limit(buf.position()-start);
-                    encodedSections.add(encodedBuf);
-
-                }
-                catch (AmqpErrorException e)
-                {
-                    //TODO
-                    throw new ConnectionScopedRuntimeException(e);
-                }
-
+                return new MessageMetaData_1_0(buf, _sectionDecoder);
+            }
+            catch (AmqpErrorException e)
+            {
+                //TODO
+                throw new ConnectionScopedRuntimeException(e);
             }
-
-            return new MessageMetaData_1_0(sections,encodedSections);
-
         }
     }
 
@@ -461,13 +722,14 @@ public class MessageMetaData_1_0 implements StorableMessageMetaData
 
         public String getCorrelationId()
         {
-            if(_properties == null || _properties.getCorrelationId() == null)
+            Properties properties = getPropertiesSection();
+            if(properties == null || properties.getCorrelationId() == null)
             {
                 return null;
             }
             else
             {
-                return _properties.getCorrelationId().toString();
+                return properties.getCorrelationId().toString();
             }
         }
 
@@ -478,26 +740,28 @@ public class MessageMetaData_1_0 implements StorableMessageMetaData
 
         public String getMessageId()
         {
-            if(_properties == null || _properties.getMessageId() == null)
+            Properties properties = getPropertiesSection();
+            if(properties == null || properties.getMessageId() == null)
             {
                 return null;
             }
             else
             {
-                return _properties.getMessageId().toString();
+                return properties.getMessageId().toString();
             }
         }
 
         public String getMimeType()
         {
 
-            if(_properties == null || _properties.getContentType() == null)
+            Properties properties = getPropertiesSection();
+            if(properties == null || properties.getContentType() == null)
             {
                 return null;
             }
             else
             {
-                return _properties.getContentType().toString();
+                return properties.getContentType().toString();
             }
         }
 
@@ -508,25 +772,27 @@ public class MessageMetaData_1_0 implements StorableMessageMetaData
 
         public byte getPriority()
         {
-            if(_header == null || _header.getPriority() == null)
+            Header header = getHeaderSection();
+            if(header == null || header.getPriority() == null)
             {
                 return 4; //javax.jms.Message.DEFAULT_PRIORITY;
             }
             else
             {
-                return _header.getPriority().byteValue();
+                return header.getPriority().byteValue();
             }
         }
 
         public long getTimestamp()
         {
-            if(_properties == null || _properties.getCreationTime() == null)
+            Properties properties = getPropertiesSection();
+            if(properties == null || properties.getCreationTime() == null)
             {
                 return 0L;
             }
             else
             {
-                return _properties.getCreationTime().getTime();
+                return properties.getCreationTime().getTime();
             }
 
         }
@@ -540,25 +806,27 @@ public class MessageMetaData_1_0 implements StorableMessageMetaData
             }
 
             // Use legacy annotation if present and there was no subject
-            if(_messageAnnotations == null || _messageAnnotations.get(JMS_TYPE) == null)
+            Map messageAnnotations = getMessageAnnotations();
+            if(messageAnnotations == null || messageAnnotations.get(JMS_TYPE) == null)
             {
                 return null;
             }
             else
             {
-                return _messageAnnotations.get(JMS_TYPE).toString();
+                return messageAnnotations.get(JMS_TYPE).toString();
             }
         }
 
         public String getReplyTo()
         {
-            if(_properties == null || _properties.getReplyTo() == null)
+            Properties properties = getPropertiesSection();
+            if(properties == null || properties.getReplyTo() == null)
             {
                 return null;
             }
             else
             {
-                return _properties.getReplyTo();
+                return properties.getReplyTo();
             }
         }
 
@@ -576,19 +844,20 @@ public class MessageMetaData_1_0 implements StorableMessageMetaData
 
         public Object getHeader(final String name)
         {
-            return _appProperties == null ? null : _appProperties.get(name);
+            Object value = findApplicationProperty(name);
+            return value == NOT_FOUND ? null : value;
         }
 
         public boolean containsHeaders(final Set<String> names)
         {
-            if(_appProperties == null)
+            if(_appProperties == null && _encodedAppProperties == null)
             {
                 return false;
             }
 
             for(String key : names)
             {
-                if(!_appProperties.containsKey(key))
+                if(!containsHeader(key))
                 {
                     return false;
                 }
@@ -599,31 +868,35 @@ public class MessageMetaData_1_0 implements StorableMessageMetaData
         @Override
         public Collection<String> getHeaderNames()
         {
-            if(_appProperties == null)
+            Map appProperties = getApplicationProperties();
+            if(appProperties == null)
             {
                 return Collections.emptySet();
             }
-            return Collections.unmodifiableCollection(_appProperties.keySet());
+            return Collections.unmodifiableCollection(appProperties.keySet());
         }
 
         public boolean containsHeader(final String name)
         {
-            return _appProperties != null && _appProperties.containsKey(name);
+            return findApplicationProperty(name) != NOT_FOUND;
         }
 
         public String getSubject()
         {
-            return _properties == null ? null : _properties.getSubject();
+            Properties properties = getPropertiesSection();
+            return properties == null ? null : properties.getSubject();
         }
 
         public String getTo()
         {
-            return _properties == null ? null : _properties.getTo();
+            Properties properties = getPropertiesSection();
+            return properties == null ? null : properties.getTo();
         }
 
         public Map<String, Object> getHeadersAsMap()
         {
-            return _appProperties == null ? new HashMap<String,Object>() : new HashMap<String,Object>(_appProperties);
+            Map appProperties = getApplicationProperties();
+            return appProperties == null ? new HashMap<String,Object>() : new HashMap<String,Object>(appProperties);
         }
     }
 
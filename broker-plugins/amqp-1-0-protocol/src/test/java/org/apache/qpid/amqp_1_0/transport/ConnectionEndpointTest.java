@@ -0,0 +1,357 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.qpid.amqp_1_0.transport;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.apache.qpid.amqp_1_0.framing.AMQFrame;
+import org.apache.qpid.amqp_1_0.type.DeliveryState;
+import org.apache.qpid.amqp_1_0.type.FrameBody;
+import org.apache.qpid.amqp_1_0.type.UnsignedInteger;
+import org.apache.qpid.amqp_1_0.type.messaging.Accepted;
+import org.apache.qpid.amqp_1_0.type.messaging.Rejected;
+import org.apache.qpid.amqp_1_0.type.transport.Begin;
+import org.apache.qpid.amqp_1_0.type.transport.Disposition;
+import org.apache.qpid.amqp_1_0.type.transport.End;
+import org.apache.qpid.amqp_1_0.type.transport.Flow;
+import org.apache.qpid.amqp_1_0.type.transport.Open;
+import org.apache.qpid.amqp_1_0.type.transport.Role;
+import org.apache.qpid.test.utils.QpidTestCase;
+
+public class ConnectionEndpointTest extends QpidTestCase
+{
+    private static final short CHANNEL = 3;
+    private static final long TIMEOUT = 5000l;
+
+    private final List<AMQFrame<FrameBody>> _sentFrames = new CopyOnWriteArrayList<>();
+    private ConnectionEndpoint _connection;
+    private SessionEndpoint _session;
+
+    @Override
+    public void setUp() throws Exception
+    {
+        super.setUp();
+        _connection = new ConnectionEndpoint(new Container("test"), null);
+        _connection.setFrameOutputHandler(new RecordingFrameOutputHandler());
+        _connection.setConnectionEventListener(new ConnectionEventListener()
+        {
+            @Override
+            public void openReceived()
+            {
+            }
+
+            @Override
+            public void remoteSessionCreation(final SessionEndpoint endpoint)
+            {
+                _session = endpoint;
+            }
+
+            @Override
+            public void closeReceived()
+            {
+            }
+        });
+
+        _connection.receive((short) 0, new Open());
+        _connection.receive(CHANNEL, createBegin());
+        assertNotNull("Session was not created", _session);
+    }
+
+    public void testSessionFramesDispatchedWhileConnectionLockHeld() throws Exception
+    {
+        assertFalse(_session.hasCreditToSend());
+
+        final Flow flow = new Flow();
+        flow.setNextOutgoingId(UnsignedInteger.ZERO);
+        flow.setNextIncomingId(UnsignedInteger.ZERO);
+        flow.setIncomingWindow(UnsignedInteger.valueOf(10));
+        flow.setOutgoingWindow(UnsignedInteger.valueOf(10));
+
+        synchronized (_connection)
+        {
+            runWithTimeout(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    _connection.receive(CHANNEL, flow);
+                }
+            });
+        }
+
+        assertTrue("Flow was not passed to the session", _session.hasCreditToSend());
+    }
+
+    public void testSessionEndsWhileConnectionLockHeld() throws Exception
+    {
+        final short sendingChannel = _session.getSendingChannel();
+
+        synchronized (_connection)
+        {
+            runWithTimeout(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    _session.end();
+                }
+            });
+        }
+
+        AMQFrame<FrameBody> lastFrame = _sentFrames.get(_sentFrames.size() - 1);
+        assertTrue("Unexpected frame " + lastFrame, lastFrame.getFrameBody() instanceof End);
+        assertEquals(sendingChannel, lastFrame.getChannel());
+        assertEquals("Channel of the ended session should be free", sendingChannel, _connection.getFirstFreeChannel());
+    }
+
+    public void testChannelOfEndedSessionReused() throws Exception
+    {
+        final short sendingChannel = _session.getSendingChannel();
+        final SessionEndpoint endedSession = _session;
+
+        _connection.receive(CHANNEL, new End());
+        assertEquals(SessionState.ENDED, endedSession.getState());
+
+        _connection.receive(CHANNEL, createBegin());
+        assertNotSame("A new session should have been created", endedSession, _session);
+        assertEquals("Channel of the ended session should be reused", sendingChannel, _session.getSendingChannel());
+    }
+
+    public void testContiguousDispositionsCoalesced() throws Exception
+    {
+        _sentFrames.clear();
+
+        _connection.startCoalescingFrames();
+        sendDisposition(0, Role.SENDER, new Accepted(), true);
+        sendDisposition(1, Role.SENDER, new Accepted(), true);
+        sendDisposition(2, Role.SENDER, new Accepted(), true);
+        assertTrue("Dispositions should be held until the frames are flushed", _sentFrames.isEmpty());
+        _connection.flushCoalescedFrames();
+
+        List<Disposition> dispositions = getSentFrames(Disposition.class);
+        assertEquals("Unexpected number of dispositions", 1, dispositions.size());
+        assertEquals(UnsignedInteger.valueOf(0), dispositions.get(0).getFirst());
+        assertEquals(UnsignedInteger.valueOf(2), dispositions.get(0).getLast());
+    }
+
+    public void testDispositionsNotContinuingRangeSentSeparately() throws Exception
+    {
+        _sentFrames.clear();
+
+        _connection.startCoalescingFrames();
+        sendDisposition(0, Role.SENDER, new Accepted(), true);
+        sendDisposition(2, Role.SENDER, new Accepted(), true);
+        sendDisposition(3, Role.SENDER, new Rejected(), true);
+        sendDisposition(4, Role.SENDER, new Rejected(), false);
+        sendDisposition(5, Role.RECEIVER, new Rejected(), false);
+        _connection.flushCoalescedFrames();
+
+        List<Disposition> dispositions = getSentFrames(Disposition.class);
+        assertEquals("Unexpected number of dispositions", 5, dispositions.size());
+        for (int i = 0; i < dispositions.size(); i++)
+        {
+            Disposition disposition = dispositions.get(i);
+            assertEquals("Disposition " + i + " should not have been merged",
+                         disposition.getFirst(),
+                         disposition.getLast());
+        }
+    }
+
+    public void testFlowReplacesHeldFlowForSameLink() throws Exception
+    {
+        _sentFrames.clear();
+
+        _connection.startCoalescingFrames();
+        _session.sendFlow();
+        sendFlow(1, 10);
+        sendFlow(2, 20);
+        sendFlow(1, 5);
+        _connection.flushCoalescedFrames();
+
+        List<Flow> flows = getSentFrames(Flow.class);
+        assertEquals("Unexpected number of flows", 2, flows.size());
+        assertEquals(UnsignedInteger.valueOf(2), flows.get(0).getHandle());
+        assertEquals(UnsignedInteger.valueOf(20), flows.get(0).getLinkCredit());
+        assertEquals(UnsignedInteger.valueOf(1), flows.get(1).getHandle());
+        assertEquals(UnsignedInteger.valueOf(5), flows.get(1).getLinkCredit());
+    }
+
+    public void testHeldFramesSentBeforeOtherFrames() throws Exception
+    {
+        _sentFrames.clear();
+
+        _connection.startCoalescingFrames();
+        sendDisposition(0, Role.SENDER, new Accepted(), true);
+        sendFlow(1, 10);
+
+        Flow echoFlow = createEchoFlow();
+        _session.sendFlow(echoFlow);
+
+        assertEquals("Unexpected number of frames", 3, _sentFrames.size());
+        assertTrue(_sentFrames.get(0).getFrameBody() instanceof Disposition);
+        assertSame(echoFlow, _sentFrames.get(2).getFrameBody());
+
+        _connection.flushCoalescedFrames();
+        assertEquals("No frames should remain held", 3, _sentFrames.size());
+    }
+
+    public void testHeldFramesOfEachSessionSent() throws Exception
+    {
+        final SessionEndpoint firstSession = _session;
+        _connection.receive((short) (CHANNEL + 1), createBegin());
+        assertNotSame("A second session should have been created", firstSession, _session);
+        _sentFrames.clear();
+
+        _connection.startCoalescingFrames();
+        sendDisposition(0, Role.SENDER, new Accepted(), true);
+        firstSession.updateDisposition(Role.SENDER,
+                                       UnsignedInteger.valueOf(0),
+                                       UnsignedInteger.valueOf(0),
+                                       new Accepted(),
+                                       true);
+        assertTrue("Dispositions should be held until the frames are flushed", _sentFrames.isEmpty());
+        _connection.flushCoalescedFrames();
+
+        assertEquals("Unexpected number of frames", 2, _sentFrames.size());
+        assertEquals(_session.getSendingChannel(), _sentFrames.get(0).getChannel());
+        assertEquals(firstSession.getSendingChannel(), _sentFrames.get(1).getChannel());
+    }
+
+    public void testFramesHeldAfterSessionFlushedAreSent() throws Exception
+    {
+        _sentFrames.clear();
+
+        _connection.startCoalescingFrames();
+        sendDisposition(0, Role.SENDER, new Accepted(), true);
+        _session.sendFlow(createEchoFlow());
+        assertEquals("Held disposition should have been sent before the flow", 2, _sentFrames.size());
+
+        sendDisposition(1, Role.SENDER, new Rejected(), true);
+        assertEquals("Disposition should be held until the frames are flushed", 2, _sentFrames.size());
+        _connection.flushCoalescedFrames();
+        assertEquals("Unexpected number of dispositions", 2, getSentFrames(Disposition.class).size());
+
+        _connection.startCoalescingFrames();
+        sendFlow(1, 10);
+        _connection.flushCoalescedFrames();
+        assertEquals("Unexpected number of frames", 4, _sentFrames.size());
+        assertTrue(_sentFrames.get(3).getFrameBody() instanceof Flow);
+    }
+
+    public void testFramesNotHeldWhenNotCoalescing() throws Exception
+    {
+        _sentFrames.clear();
+
+        sendDisposition(0, Role.SENDER, new Accepted(), true);
+        sendDisposition(1, Role.SENDER, new Accepted(), true);
+        sendFlow(1, 10);
+        sendFlow(1, 5);
+
+        assertEquals("Unexpected number of dispositions", 2, getSentFrames(Disposition.class).size());
+        assertEquals("Unexpected number of flows", 2, getSentFrames(Flow.class).size());
+    }
+
+    private void sendDisposition(final int deliveryId,
+                                 final Role role,
+                                 final DeliveryState state,
+                                 final boolean settled)
+    {
+        _session.updateDisposition(role,
+                                   UnsignedInteger.valueOf(deliveryId),
+                                   UnsignedInteger.valueOf(deliveryId),
+                                   state,
+                                   settled);
+    }
+
+    private void sendFlow(final int handle, final int linkCredit)
+    {
+        Flow flow = new Flow();
+        flow.setHandle(UnsignedInteger.valueOf(handle));
+        flow.setLinkCredit(UnsignedInteger.valueOf(linkCredit));
+        _session.sendFlow(flow);
+    }
+
+    private Flow createEchoFlow()
+    {
+        Flow echoFlow = new Flow();
+        echoFlow.setHandle(UnsignedInteger.valueOf(2));
+        echoFlow.setEcho(true);
+        return echoFlow;
+    }
+
+    private <T extends FrameBody> List<T> getSentFrames(final Class<T> type)
+    {
+        List<T> frames = new ArrayList<>();
+        for (AMQFrame<FrameBody> frame : _sentFrames)
+        {
+            if (type.isInstance(frame.getFrameBody()))
+            {
+                frames.add(type.cast(frame.getFrameBody()));
+            }
+        }
+        return frames;
+    }
+
+    private Begin createBegin()
+    {
+        Begin begin = new Begin();
+        begin.setNextOutgoingId(UnsignedInteger.ZERO);
+        begin.setIncomingWindow(UnsignedInteger.ZERO);
+        begin.setOutgoingWindow(UnsignedInteger.valueOf(10));
+        return begin;
+    }
+
+    private void runWithTimeout(final Runnable runnable) throws InterruptedException
+    {
+        Thread thread = new Thread(runnable, getName());
+        thread.start();
+        thread.join(TIMEOUT);
+        assertFalse("Thread blocked on the connection lock", thread.isAlive());
+    }
+
+    private class RecordingFrameOutputHandler implements FrameOutputHandler<FrameBody>
+    {
+        @Override
+        public boolean canSend()
+        {
+            return true;
+        }
+
+        @Override
+        public void send(final AMQFrame<FrameBody> frame)
+        {
+            _sentFrames.add(frame);
+        }
+
+        @Override
+        public void send(final AMQFrame<FrameBody> frame, final ByteBuffer payload)
+        {
+            _sentFrames.add(frame);
+        }
+
+        @Override
+        public void close()
+        {
+        }
+    }
+}
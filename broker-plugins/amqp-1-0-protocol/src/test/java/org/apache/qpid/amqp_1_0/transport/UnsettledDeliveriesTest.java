@@ -0,0 +1,186 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.qpid.amqp_1_0.transport;
+
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import org.apache.qpid.test.utils.QpidTestCase;
+
+public class UnsettledDeliveriesTest extends QpidTestCase
+{
+    private UnsettledDeliveries _unsettled = new UnsettledDeliveries(4);
+
+    public void testPutGetRemove()
+    {
+        Delivery delivery = mock(Delivery.class);
+        _unsettled.put(7, delivery);
+
+        assertSame(delivery, _unsettled.get(7));
+        assertNull(_unsettled.get(6));
+        assertNull(_unsettled.get(8));
+        assertEquals(1, _unsettled.size());
+
+        assertSame(delivery, _unsettled.remove(7));
+        assertNull(_unsettled.get(7));
+        assertTrue(_unsettled.isEmpty());
+        assertNull(_unsettled.remove(7));
+    }
+
+    public void testGrowsBeyondInitialCapacity()
+    {
+        Delivery[] deliveries = new Delivery[100];
+        for (int i = 0; i < deliveries.length; i++)
+        {
+            deliveries[i] = mock(Delivery.class);
+            _unsettled.put(i, deliveries[i]);
+        }
+
+        assertEquals(deliveries.length, _unsettled.size());
+        for (int i = 0; i < deliveries.length; i++)
+        {
+            assertSame("Unexpected delivery for id " + i, deliveries[i], _unsettled.get(i));
+        }
+    }
+
+    public void testOutOfOrderRemovalKeepsRemainingDeliveries()
+    {
+        Delivery first = mock(Delivery.class);
+        Delivery second = mock(Delivery.class);
+        Delivery third = mock(Delivery.class);
+        _unsettled.put(1, first);
+        _unsettled.put(2, second);
+        _unsettled.put(3, third);
+
+        _unsettled.remove(2);
+        _unsettled.remove(1);
+
+        assertEquals(1, _unsettled.size());
+        assertSame(third, _unsettled.get(3));
+        assertEquals(3, _unsettled.rangeStart(0));
+    }
+
+    public void testWrapAround()
+    {
+        // delivery ids are unsigned, so 0xFFFFFFFF is followed by 0
+        Delivery beforeWrap = mock(Delivery.class);
+        Delivery afterWrap = mock(Delivery.class);
+        _unsettled.put(-2, mock(Delivery.class));
+        _unsettled.put(-1, beforeWrap);
+        _unsettled.put(0, afterWrap);
+        _unsettled.put(1, mock(Delivery.class));
+
+        assertSame(beforeWrap, _unsettled.get(-1));
+        assertSame(afterWrap, _unsettled.get(0));
+
+        _unsettled.removeRange(-2, 0);
+
+        assertEquals(1, _unsettled.size());
+        assertNull(_unsettled.get(-1));
+        assertNull(_unsettled.get(0));
+        assertNotNull(_unsettled.get(1));
+    }
+
+    public void testRemoveRangeOnlyVisitsUnsettledWindow()
+    {
+        for (int i = 10; i < 20; i++)
+        {
+            _unsettled.put(i, mock(Delivery.class));
+        }
+
+        assertEquals(10, _unsettled.rangeStart(0));
+        assertEquals(19, _unsettled.rangeEnd(Integer.MAX_VALUE - 1));
+
+        _unsettled.removeRange(0, 14);
+        assertEquals(5, _unsettled.size());
+        assertNull(_unsettled.get(14));
+        assertNotNull(_unsettled.get(15));
+
+        _unsettled.removeRange(15, Integer.MAX_VALUE - 1);
+        assertTrue(_unsettled.isEmpty());
+    }
+
+    public void testLongUnsettledHeadDelivery()
+    {
+        Delivery unsettled = mock(Delivery.class);
+        _unsettled.put(0, unsettled);
+
+        Delivery delivery = mock(Delivery.class);
+        for (int deliveryId = 1; deliveryId < 200000; deliveryId++)
+        {
+            _unsettled.put(deliveryId, delivery);
+            assertSame(delivery, _unsettled.remove(deliveryId));
+        }
+
+        assertEquals(1, _unsettled.size());
+        assertSame(unsettled, _unsettled.get(0));
+        assertEquals(Collections.singletonList(unsettled), _unsettled.getOutliers(0, 0));
+
+        _unsettled.put(200000, delivery);
+        _unsettled.removeRange(0, 199999);
+        assertEquals(1, _unsettled.size());
+        assertNull(_unsettled.get(0));
+        assertSame(delivery, _unsettled.get(200000));
+    }
+
+    public void testSparseDeliveryIds()
+    {
+        int[] deliveryIds = {0, Integer.MAX_VALUE, 1 << 20, -5, 1 << 30, 3};
+        Delivery[] deliveries = new Delivery[deliveryIds.length];
+        for (int i = 0; i < deliveryIds.length; i++)
+        {
+            deliveries[i] = mock(Delivery.class);
+            _unsettled.put(deliveryIds[i], deliveries[i]);
+        }
+
+        assertEquals(deliveryIds.length, _unsettled.size());
+        for (int i = 0; i < deliveryIds.length; i++)
+        {
+            assertSame("Unexpected delivery for id " + deliveryIds[i], deliveries[i], _unsettled.get(deliveryIds[i]));
+        }
+        assertNull(_unsettled.get(1));
+
+        List<Delivery> found = new ArrayList<>(_unsettled.getOutliers(-10, 10));
+        for (int deliveryId = _unsettled.rangeStart(-10); _unsettled.rangeEnd(10) - deliveryId >= 0; deliveryId++)
+        {
+            Delivery delivery = _unsettled.get(deliveryId);
+            if (delivery != null)
+            {
+                found.add(delivery);
+            }
+        }
+        assertEquals(new HashSet<>(Arrays.asList(deliveries[0], deliveries[3], deliveries[5])), new HashSet<>(found));
+        assertEquals("Deliveries should be visited once", 3, found.size());
+
+        _unsettled.removeRange(-10, 1 << 20);
+        assertEquals(2, _unsettled.size());
+        assertSame(deliveries[1], _unsettled.get(Integer.MAX_VALUE));
+        assertSame(deliveries[4], _unsettled.get(1 << 30));
+
+        assertSame(deliveries[1], _unsettled.remove(Integer.MAX_VALUE));
+        assertSame(deliveries[4], _unsettled.remove(1 << 30));
+        assertTrue(_unsettled.isEmpty());
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.qpid.amqp_1_0.type.transport.codec;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.qpid.amqp_1_0.codec.ValueHandler;
+import org.apache.qpid.amqp_1_0.codec.ValueWriter;
+import org.apache.qpid.amqp_1_0.type.AmqpErrorException;
+import org.apache.qpid.amqp_1_0.type.Binary;
+import org.apache.qpid.amqp_1_0.type.Symbol;
+import org.apache.qpid.amqp_1_0.type.UnsignedInteger;
+import org.apache.qpid.amqp_1_0.type.codec.AMQPDescribedTypeRegistry;
+import org.apache.qpid.amqp_1_0.type.messaging.Accepted;
+import org.apache.qpid.amqp_1_0.type.messaging.Rejected;
+import org.apache.qpid.amqp_1_0.type.transport.AmqpError;
+import org.apache.qpid.amqp_1_0.type.transport.Disposition;
+import org.apache.qpid.amqp_1_0.type.transport.Error;
+import org.apache.qpid.amqp_1_0.type.transport.Flow;
+import org.apache.qpid.amqp_1_0.type.transport.ReceiverSettleMode;
+import org.apache.qpid.amqp_1_0.type.transport.Role;
+import org.apache.qpid.amqp_1_0.type.transport.Transfer;
+import org.apache.qpid.bytebuffer.QpidByteBuffer;
+import org.apache.qpid.test.utils.QpidTestCase;
+
+public class PerformativeCodecTest extends QpidTestCase
+{
+    private final AMQPDescribedTypeRegistry _typeRegistry = AMQPDescribedTypeRegistry.newInstance()
+            .registerTransportLayer()
+            .registerMessagingLayer()
+            .registerTransactionLayer()
+            .registerSecurityLayer();
+
+    public void testTransferRoundTrip() throws Exception
+    {
+        Transfer transfer = new Transfer();
+        transfer.setHandle(UnsignedInteger.ONE);
+        transfer.setDeliveryId(UnsignedInteger.valueOf(100000));
+        transfer.setDeliveryTag(new Binary(new byte[]{1, 2, 3, 4}));
+        transfer.setMessageFormat(UnsignedInteger.ZERO);
+        transfer.setSettled(false);
+        transfer.setRcvSettleMode(ReceiverSettleMode.SECOND);
+        transfer.setState(new Accepted());
+
+        Transfer decoded = (Transfer) decode(encode(transfer));
+
+        assertEquals(transfer.getHandle(), decoded.getHandle());
+        assertEquals(transfer.getDeliveryId(), decoded.getDeliveryId());
+        assertEquals(transfer.getDeliveryTag(), decoded.getDeliveryTag());
+        assertEquals(transfer.getMessageFormat(), decoded.getMessageFormat());
+        assertEquals(Boolean.FALSE, decoded.getSettled());
+        assertNull(decoded.getMore());
+        assertEquals(ReceiverSettleMode.SECOND, decoded.getRcvSettleMode());
+        assertTrue(decoded.getState() instanceof Accepted);
+        assertNull(decoded.getBatchable());
+    }
+
+    public void testDeliveryTagTooLongForSingleOctetList() throws Exception
+    {
+        byte[] tag = new byte[300];
+        Arrays.fill(tag, (byte) 'x');
+        Transfer transfer = new Transfer();
+        transfer.setHandle(UnsignedInteger.ZERO);
+        transfer.setDeliveryTag(new Binary(tag));
+
+        byte[] encoded = encode(transfer);
+        assertEquals("Expected four octet list encoding", (byte) 0xd0, encoded[3]);
+
+        Transfer decoded = (Transfer) decode(encoded);
+        assertEquals(UnsignedInteger.ZERO, decoded.getHandle());
+        assertEquals(new Binary(tag), decoded.getDeliveryTag());
+    }
+
+    public void testDispositionRoundTrip() throws Exception
+    {
+        Disposition disposition = new Disposition();
+        disposition.setRole(Role.RECEIVER);
+        disposition.setFirst(UnsignedInteger.valueOf(7));
+        disposition.setLast(UnsignedInteger.valueOf(-2));
+        disposition.setSettled(true);
+        disposition.setState(new Accepted());
+
+        Disposition decoded = (Disposition) decode(encode(disposition));
+
+        assertEquals(Role.RECEIVER, decoded.getRole());
+        assertEquals(disposition.getFirst(), decoded.getFirst());
+        assertEquals(disposition.getLast(), decoded.getLast());
+        assertEquals(Boolean.TRUE, decoded.getSettled());
+        assertTrue(decoded.getState() instanceof Accepted);
+    }
+
+    public void testUnsupportedFieldUsesGeneratedWriter() throws Exception
+    {
+        Rejected rejected = new Rejected();
+        rejected.setError(new Error(AmqpError.NOT_ALLOWED, "test"));
+        Disposition disposition = new Disposition();
+        disposition.setRole(Role.SENDER);
+        disposition.setFirst(UnsignedInteger.ONE);
+        disposition.setState(rejected);
+
+        Disposition decoded = (Disposition) decode(encode(disposition));
+
+        assertEquals(Role.SENDER, decoded.getRole());
+        assertEquals(UnsignedInteger.ONE, decoded.getFirst());
+        assertTrue(decoded.getState() instanceof Rejected);
+        assertEquals("test", ((Rejected) decoded.getState()).getError().getDescription());
+    }
+
+    public void testFlowRoundTrip() throws Exception
+    {
+        Flow flow = new Flow();
+        flow.setNextIncomingId(UnsignedInteger.valueOf(300));
+        flow.setIncomingWindow(UnsignedInteger.valueOf(2048));
+        flow.setNextOutgoingId(UnsignedInteger.ZERO);
+        flow.setOutgoingWindow(UnsignedInteger.valueOf(2048));
+        flow.setHandle(UnsignedInteger.ZERO);
+        flow.setLinkCredit(UnsignedInteger.valueOf(100));
+        flow.setDrain(true);
+
+        Flow decoded = (Flow) decode(encode(flow));
+
+        assertEquals(flow.getNextIncomingId(), decoded.getNextIncomingId());
+        assertEquals(flow.getIncomingWindow(), decoded.getIncomingWindow());
+        assertEquals(flow.getNextOutgoingId(), decoded.getNextOutgoingId());
+        assertEquals(flow.getOutgoingWindow(), decoded.getOutgoingWindow());
+        assertEquals(flow.getHandle(), decoded.getHandle());
+        assertNull(decoded.getDeliveryCount());
+        assertEquals(flow.getLinkCredit(), decoded.getLinkCredit());
+        assertEquals(Boolean.TRUE, decoded.getDrain());
+        assertNull(decoded.getProperties());
+
+        Map<Symbol, Object> properties = new HashMap<>();
+        properties.put(Symbol.valueOf("key"), "value");
+        flow.setProperties(properties);
+
+        decoded = (Flow) decode(encode(flow));
+        assertEquals(properties, decoded.getProperties());
+    }
+
+    public void testEncodingSplitOverSeveralBuffers() throws Exception
+    {
+        Transfer transfer = new Transfer();
+        transfer.setHandle(UnsignedInteger.valueOf(3));
+        transfer.setDeliveryId(UnsignedInteger.valueOf(1000));
+        transfer.setDeliveryTag(new Binary("tag".getBytes()));
+        transfer.setMore(true);
+
+        byte[] expected = encode(transfer);
+
+        ValueWriter<Transfer> writer = _typeRegistry.getValueWriter(transfer);
+        byte[] actual = new byte[expected.length];
+        for (int offset = 0; offset < actual.length; offset += 3)
+        {
+            assertFalse(writer.isComplete());
+            int length = Math.min(3, actual.length - offset);
+            assertEquals(expected.length, writer.writeToBuffer(QpidByteBuffer.wrap(actual, offset, length)));
+        }
+
+        assertTrue(writer.isComplete());
+        assertTrue(Arrays.equals(expected, actual));
+    }
+
+    public void testWriterReusedFromLocalCache() throws Exception
+    {
+        Map<Class, ValueWriter> cache = new HashMap<>();
+        Flow flow = new Flow();
+        flow.setHandle(UnsignedInteger.ONE);
+
+        ValueWriter<Flow> writer = _typeRegistry.getValueWriter(flow, cache);
+        assertSame(writer, _typeRegistry.getValueWriter(new Flow(), cache));
+        assertEquals(Collections.<Class, ValueWriter>singletonMap(Flow.class, writer), cache);
+    }
+
+    private byte[] encode(final Object value)
+    {
+        ValueWriter<Object> writer = _typeRegistry.getValueWriter(value);
+        byte[] encoded = new byte[writer.writeToBuffer(QpidByteBuffer.wrap(new byte[0]))];
+        writer.writeToBuffer(QpidByteBuffer.wrap(encoded));
+        assertTrue("Value not completely written", writer.isComplete());
+        return encoded;
+    }
+
+    private Object decode(final byte[] encoded) throws AmqpErrorException
+    {
+        QpidByteBuffer buffer = QpidByteBuffer.wrap(encoded);
+        Object value = new ValueHandler(_typeRegistry).parse(buffer);
+        assertFalse("Unexpected trailing data", buffer.hasRemaining());
+        return value;
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.protocol.v1_0;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.qpid.amqp_1_0.messaging.SectionDecoderImpl;
+import org.apache.qpid.amqp_1_0.messaging.SectionEncoder;
+import org.apache.qpid.amqp_1_0.messaging.SectionEncoderImpl;
+import org.apache.qpid.amqp_1_0.type.Binary;
+import org.apache.qpid.amqp_1_0.type.Section;
+import org.apache.qpid.amqp_1_0.type.Symbol;
+import org.apache.qpid.amqp_1_0.type.UnsignedByte;
+import org.apache.qpid.amqp_1_0.type.codec.AMQPDescribedTypeRegistry;
+import org.apache.qpid.amqp_1_0.type.messaging.AmqpValue;
+import org.apache.qpid.amqp_1_0.type.messaging.ApplicationProperties;
+import org.apache.qpid.amqp_1_0.type.messaging.Footer;
+import org.apache.qpid.amqp_1_0.type.messaging.Header;
+import org.apache.qpid.amqp_1_0.type.messaging.Properties;
+import org.apache.qpid.bytebuffer.QpidByteBuffer;
+import org.apache.qpid.test.utils.QpidTestCase;
+
+public class MessageMetaData_1_0Test extends QpidTestCase
+{
+    private static final int NUMBER_OF_PROPERTIES = 300;
+
+    private final AMQPDescribedTypeRegistry _typeRegistry = AMQPDescribedTypeRegistry.newInstance()
+            .registerTransportLayer()
+            .registerMessagingLayer()
+            .registerTransactionLayer()
+            .registerSecurityLayer();
+
+    private byte[] _encodedMessage;
+
+    @Override
+    public void setUp() throws Exception
+    {
+        super.setUp();
+
+        Header header = new Header();
+        header.setDurable(true);
+        header.setPriority(UnsignedByte.valueOf((byte) 7));
+
+        Properties properties = new Properties();
+        properties.setSubject("testSubject");
+        properties.setTo("testDestination");
+
+        Map<String, Object> applicationProperties = new LinkedHashMap<>();
+        for (int i = 0; i < NUMBER_OF_PROPERTIES; i++)
+        {
+            applicationProperties.put("key" + i, i % 2 == 0 ? "value" + i : i);
+        }
+        applicationProperties.put("nullValued", null);
+
+        _encodedMessage = encode(header,
+                                 properties,
+                                 new ApplicationProperties(applicationProperties),
+                                 new AmqpValue("body"),
+                                 new Footer(Collections.singletonMap(Symbol.valueOf("footerKey"), "footerValue")));
+    }
+
+    public void testSectionsReadFromFragments()
+    {
+        QpidByteBuffer[] fragments = {QpidByteBuffer.wrap(Arrays.copyOfRange(_encodedMessage, 0, 100)),
+                                      QpidByteBuffer.wrap(Arrays.copyOfRange(_encodedMessage, 100, _encodedMessage.length))};
+        MessageMetaData_1_0 metaData = new MessageMetaData_1_0(fragments, new SectionDecoderImpl(_typeRegistry));
+
+        assertMetaData(metaData);
+    }
+
+    public void testSectionsReadFromStore()
+    {
+        MessageMetaData_1_0 metaData =
+                MessageMetaData_1_0.FACTORY.createMetaData(QpidByteBuffer.wrap(_encodedMessage));
+
+        assertMetaData(metaData);
+        assertEquals("Unexpected storable size", _encodedMessage.length, metaData.getStorableSize());
+    }
+
+    public void testSectionsDoNotRetainMessageBuffers()
+    {
+        for (int fragmentCount = 1; fragmentCount <= 2; fragmentCount++)
+        {
+            int split = fragmentCount == 1 ? _encodedMessage.length : 100;
+            QpidByteBuffer[] fragments = fragmentCount == 1
+                    ? new QpidByteBuffer[]{createDirectBuffer(0, split)}
+                    : new QpidByteBuffer[]{createDirectBuffer(0, split),
+                                           createDirectBuffer(split, _encodedMessage.length)};
+            List<QpidByteBuffer> immutableSections = new ArrayList<>();
+            MessageMetaData_1_0 metaData =
+                    new MessageMetaData_1_0(fragments, new SectionDecoderImpl(_typeRegistry), immutableSections);
+
+            for (QpidByteBuffer fragment : fragments)
+            {
+                fragment.put(new byte[fragment.remaining()]);
+                fragment.dispose();
+            }
+            for (QpidByteBuffer section : immutableSections)
+            {
+                section.dispose();
+            }
+
+            assertMetaData(metaData);
+            metaData.dispose();
+        }
+    }
+
+    public void testClearEncodedFormKeepsSections()
+    {
+        MessageMetaData_1_0 metaData =
+                MessageMetaData_1_0.FACTORY.createMetaData(QpidByteBuffer.wrap(_encodedMessage));
+        assertTrue(metaData.isPersistent());
+
+        metaData.clearEncodedForm();
+
+        assertMetaData(metaData);
+        assertEquals("Unexpected storable size", _encodedMessage.length, metaData.getStorableSize());
+
+        metaData.clearEncodedForm();
+        metaData.dispose();
+
+        assertTrue("Decoded header should survive dispose", metaData.isPersistent());
+        assertEquals("testSubject", metaData.getMessageHeader().getSubject());
+    }
+
+    public void testDisposeBeforeEncoding()
+    {
+        MessageMetaData_1_0 metaData =
+                MessageMetaData_1_0.FACTORY.createMetaData(QpidByteBuffer.wrap(_encodedMessage));
+        metaData.dispose();
+        metaData.dispose();
+    }
+
+    private QpidByteBuffer createDirectBuffer(final int from, final int to)
+    {
+        QpidByteBuffer buffer = QpidByteBuffer.allocateDirect(to - from);
+        buffer.put(_encodedMessage, from, to - from);
+        buffer.flip();
+        return buffer;
+    }
+
+    private void assertMetaData(final MessageMetaData_1_0 metaData)
+    {
+        MessageMetaData_1_0.MessageHeader_1_0 messageHeader = metaData.getMessageHeader();
+
+        assertEquals("value298", messageHeader.getHeader("key298"));
+        assertEquals(7, messageHeader.getHeader("key7"));
+        assertNull(messageHeader.getHeader("unknown"));
+        assertFalse(messageHeader.containsHeader("unknown"));
+        assertTrue(messageHeader.containsHeader("nullValued"));
+        assertNull(messageHeader.getHeader("nullValued"));
+        assertTrue(messageHeader.containsHeaders(new HashSet<>(Arrays.asList("key1", "key2"))));
+
+        assertTrue(metaData.isPersistent());
+        assertEquals(7, messageHeader.getPriority());
+        assertEquals("testSubject", messageHeader.getSubject());
+        assertEquals("testDestination", messageHeader.getTo());
+        assertEquals(NUMBER_OF_PROPERTIES + 1, messageHeader.getHeaderNames().size());
+        assertEquals("footerValue", metaData.getFooter().get(Symbol.valueOf("footerKey")));
+    }
+
+    private byte[] encode(Section... sections)
+    {
+        SectionEncoder encoder = new SectionEncoderImpl(_typeRegistry);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        for (Section section : sections)
+        {
+            encoder.encodeObject(section);
+            Binary encoding = encoder.getEncoding();
+            output.write(encoding.getArray(), encoding.getArrayOffset(), encoding.getLength());
+            encoder.reset();
+        }
+        return output.toByteArray();
+    }
+}
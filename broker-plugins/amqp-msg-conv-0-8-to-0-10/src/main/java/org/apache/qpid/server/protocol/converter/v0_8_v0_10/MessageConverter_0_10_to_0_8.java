@@ -245,10 +245,10 @@ public class MessageConverter_0_10_to_0_8 implements MessageConverter<MessageTra
         DeliveryProperties delvProps = message.getHeader().getDeliveryProperties();
         final AMQShortString exchangeName = (delvProps == null || delvProps.getExchange() == null)
                                             ? null
-                                            : new AMQShortString(delvProps.getExchange());
+                                            : AMQShortString.createAMQShortString(delvProps.getExchange());
         final AMQShortString routingKey = (delvProps == null || delvProps.getRoutingKey() == null)
                                           ? null
-                                          : new AMQShortString(delvProps.getRoutingKey());
+                                          : AMQShortString.createAMQShortString(delvProps.getRoutingKey());
         final boolean immediate = delvProps != null && delvProps.getImmediate();
         final boolean mandatory = delvProps != null && !delvProps.getDiscardUnroutable();
 
@@ -140,7 +140,7 @@ public class MessageConverter_1_0_to_v0_8 implements MessageConverter<Message_1_
             key = header.getSubject();
         }
 
-        MessagePublishInfo publishInfo = new MessagePublishInfo(null, false, false, AMQShortString.valueOf(key));
+        MessagePublishInfo publishInfo = new MessagePublishInfo(null, false, false, AMQShortString.createAMQShortString(key));
 
 
         final BasicContentHeaderProperties props = new BasicContentHeaderProperties();
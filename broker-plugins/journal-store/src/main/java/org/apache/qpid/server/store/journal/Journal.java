@@ -0,0 +1,1107 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.store.journal;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.apache.qpid.server.store.StoreException;
+
+/**
+ * An append-only log of records held in a sequence of preallocated segment files.
+ *
+ * Records are appended at the head of the newest segment.  When a record does not fit, the head moves on to a fresh
+ * segment which the housekeeping thread has normally zero-filled in advance, so that forcing a segment never has to
+ * update file metadata.  Each record is framed by its size, a CRC32 checksum and a type byte; the zeros left by
+ * preallocation mark the end of the records in a segment, and a record with a bad checksum marks the point at which
+ * a crash interrupted writing.
+ *
+ * Appending does not make a record durable.  Callers ask for durability with {@link #sync()}: a single committer
+ * thread forces every segment written since its previous pass and then completes all the requests made before it
+ * started, so concurrent transactions share the cost of a {@link FileChannel#force(boolean)}.
+ *
+ * The journal does not interpret records, but it keeps a count of the live bytes in each segment.  A record is live
+ * from its append until its owner {@link #release(long) releases} it; tombstones are appended dead.  The
+ * housekeeping thread compacts the segments below the compaction threshold, those with the fewest live bytes first:
+ * it appends a segment's live records again at the head, tells their owners where they have moved, and deletes the
+ * segment once the copies are durable.
+ *
+ * Deleting a segment also drops its tombstones, which is only safe once the records they cancel are gone.  A
+ * segment therefore remembers the oldest segment holding a record released while it was the head, or while its
+ * records were being recovered, together with any added by {@link #addDependency(long)}, and is not compacted while
+ * any segment from that one up to itself remains.  Owners append a tombstone before releasing the records it
+ * cancels.  Nothing older than the oldest segment remains, so it can always be compacted.  A segment holding a
+ * record of a type without a registered handler is never compacted.
+ *
+ * Appends, releases and relocations are serialized on the journal's monitor.  Owners hold the monitor while they
+ * update their own indices so that those updates are atomic with respect to compaction.
+ */
+public class Journal
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(Journal.class);
+
+    private static final int SEGMENT_MAGIC = 0x514A4E4C;
+    private static final int SEGMENT_VERSION = 1;
+    private static final int SEGMENT_HEADER_SIZE = 8;
+    private static final int RECORD_HEADER_SIZE = 9;
+    private static final int ZERO_FILL_BUFFER_SIZE = 64 * 1024;
+    private static final Pattern SEGMENT_FILE_NAME = Pattern.compile("(\\d{10})\\.jnl");
+    private static final String LOCK_FILE_NAME = "journal.lck";
+    private static final long HOUSEKEEPING_INTERVAL = 1000L;
+
+    /**
+     * Owns the records of some types, and tracks where they are.
+     */
+    public interface RecordHandler
+    {
+        /**
+         * Called with every record of the handled types, oldest first, when the handler is registered.
+         *
+         * @return whether the record is still live once those before it have been recovered
+         */
+        boolean recover(byte type, ByteBuffer payload, long location);
+
+        /**
+         * Called during compaction, with the journal's monitor held.
+         */
+        boolean isLive(byte type, ByteBuffer payload, long location);
+
+        /**
+         * Called during compaction, with the journal's monitor held, after a live record has been copied to the head.
+         */
+        void relocated(byte type, ByteBuffer payload, long oldLocation, long newLocation);
+    }
+
+    private final File _directory;
+    private final String _name;
+    private final int _segmentSize;
+    private final int _compactionThreshold;
+
+    private final ConcurrentNavigableMap<Integer, Segment> _segments = new ConcurrentSkipListMap<>();
+    private final RecordHandler[] _handlers = new RecordHandler[256];
+    private final Set<Segment> _unforcedSegments = new LinkedHashSet<>();
+    private final ByteBuffer _recordHeader = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+    private final CRC32 _checksum = new CRC32();
+    private final byte[] _checksumScratch = new byte[8192];
+
+    private final Object _syncLock = new Object();
+    private final List<SettableFuture<Void>> _pendingSyncs = new ArrayList<>();
+    private final Object _housekeepingLock = new Object();
+    private final Object _compactionLock = new Object();
+    private final List<Runnable> _sizeListeners = new CopyOnWriteArrayList<>();
+
+    private Segment _head;
+    private Segment _recovering;
+    private Segment _spare;
+    private int _nextSegmentNumber;
+    private RandomAccessFile _lockFile;
+    private FileLock _fileLock;
+    private Thread _committer;
+    private Thread _housekeeper;
+    private volatile boolean _closed = true;
+
+    /**
+     * @param compactionThreshold the percentage of live bytes below which a segment is compacted
+     */
+    public Journal(final File directory, final String name, final int segmentSize, final int compactionThreshold)
+    {
+        _directory = directory;
+        _name = name;
+        _segmentSize = segmentSize;
+        _compactionThreshold = compactionThreshold;
+    }
+
+    public synchronized void open()
+    {
+        if (!_directory.exists() && !_directory.mkdirs())
+        {
+            throw new StoreException("Cannot create journal directory " + _directory.getAbsolutePath());
+        }
+
+        try
+        {
+            lock();
+
+            Map<Integer, File> segmentFiles = new TreeMap<>();
+            File[] files = _directory.listFiles();
+            for (File file : files == null ? new File[0] : files)
+            {
+                Matcher matcher = SEGMENT_FILE_NAME.matcher(file.getName());
+                if (matcher.matches())
+                {
+                    segmentFiles.put(Integer.parseInt(matcher.group(1)), file);
+                }
+            }
+
+            for (Map.Entry<Integer, File> entry : segmentFiles.entrySet())
+            {
+                Segment segment = Segment.open(entry.getValue(), entry.getKey());
+                if (segment == null)
+                {
+                    LOGGER.warn("Deleting journal segment {} which was not completely created", entry.getValue());
+                    deleteFile(entry.getValue());
+                }
+                else
+                {
+                    _segments.put(segment._number, segment);
+                    _head = segment;
+                }
+            }
+
+            _nextSegmentNumber = _head == null ? 1 : _head._number + 1;
+            if (_head == null)
+            {
+                _head = createSegment(_nextSegmentNumber++);
+                _segments.put(_head._number, _head);
+            }
+        }
+        catch (IOException e)
+        {
+            closeSegments();
+            releaseLock();
+            throw new StoreException("Cannot open journal in " + _directory.getAbsolutePath(), e);
+        }
+
+        _closed = false;
+
+        _committer = new Thread(new Committer(), "Journal-Committer-" + _name);
+        _committer.setDaemon(true);
+        _committer.start();
+
+        _housekeeper = new Thread(new Housekeeper(), "Journal-Housekeeper-" + _name);
+        _housekeeper.setDaemon(true);
+        _housekeeper.start();
+    }
+
+    /**
+     * Registers the owner of the given record types and recovers their records through it.
+     */
+    public synchronized void registerHandler(final RecordHandler handler, final byte... types)
+    {
+        boolean[] handled = new boolean[256];
+        for (byte type : types)
+        {
+            _handlers[type & 0xFF] = handler;
+            handled[type & 0xFF] = true;
+        }
+
+        try
+        {
+            for (Segment segment : _segments.values())
+            {
+                _recovering = segment;
+                int offset = SEGMENT_HEADER_SIZE;
+                while (offset < segment._writePosition)
+                {
+                    int recordSize = segment.recordSize(offset);
+                    byte type = segment.recordType(offset);
+                    if (handled[type & 0xFF]
+                        && !handler.recover(type, segment.payload(offset), segment.location(offset)))
+                    {
+                        segment._liveBytes -= recordSize;
+                    }
+                    offset += recordSize;
+                }
+            }
+        }
+        finally
+        {
+            _recovering = null;
+        }
+    }
+
+    /**
+     * Stops the compaction of segments holding records of the handler's types.
+     */
+    public synchronized void unregisterHandler(final RecordHandler handler)
+    {
+        for (int i = 0; i < _handlers.length; i++)
+        {
+            if (_handlers[i] == handler)
+            {
+                _handlers[i] = null;
+            }
+        }
+    }
+
+    /**
+     * Appends a record at the head of the journal.
+     *
+     * @param live false for a tombstone, which never needs to be kept
+     * @return the location of the record
+     */
+    public synchronized long append(final byte type, final boolean live, final ByteBuffer... payload)
+    {
+        checkOpen();
+        try
+        {
+            return write(type, live, payload);
+        }
+        catch (IOException e)
+        {
+            throw new StoreException("Cannot append to journal " + _name, e);
+        }
+    }
+
+    /**
+     * Moves the head to a fresh segment unless records with payloads of the given sizes fit in the current one, so
+     * that records appended next under the same hold of the journal's monitor share a segment.
+     */
+    public synchronized void reserve(final int... payloadSizes)
+    {
+        checkOpen();
+        long size = 0;
+        for (int payloadSize : payloadSizes)
+        {
+            size += RECORD_HEADER_SIZE + payloadSize;
+        }
+        if (size > _segmentSize - SEGMENT_HEADER_SIZE)
+        {
+            throw new StoreException("Records of " + size + " bytes do not fit in a journal segment of "
+                                     + _segmentSize + " bytes");
+        }
+        if (_head._writePosition + size > _segmentSize)
+        {
+            try
+            {
+                roll();
+            }
+            catch (IOException e)
+            {
+                throw new StoreException("Cannot append to journal " + _name, e);
+            }
+        }
+    }
+
+    /**
+     * Marks the record at the given location as no longer needed.  A tombstone cancelling the record must be
+     * appended before it is released.
+     */
+    public synchronized void release(final long location)
+    {
+        Segment segment = _segments.get(segmentNumber(location));
+        if (segment != null)
+        {
+            segment._liveBytes -= segment.recordSize(offset(location));
+            addDependency(location);
+        }
+    }
+
+    /**
+     * Keeps the segment holding the record appended last, or the record being recovered, until the segment holding
+     * the given location has been compacted, as the record refers to the one there without cancelling it.
+     */
+    public synchronized void addDependency(final long location)
+    {
+        Segment dependent = _recovering == null ? _head : _recovering;
+        if (dependent != null && _segments.containsKey(segmentNumber(location)))
+        {
+            dependent._oldestDependency = Math.min(dependent._oldestDependency, segmentNumber(location));
+        }
+    }
+
+    /**
+     * @return a read-only view of the payload of the record at the given location, which remains readable even if
+     * the record is subsequently relocated
+     */
+    public ByteBuffer read(final long location)
+    {
+        Segment segment = _segments.get(segmentNumber(location));
+        if (segment == null)
+        {
+            throw new StoreException("Journal " + _name + " has no segment holding location " + location);
+        }
+        return segment.payload(offset(location));
+    }
+
+    /**
+     * @return a future completed once every record appended before the call is durable
+     */
+    public ListenableFuture<Void> sync()
+    {
+        SettableFuture<Void> future = SettableFuture.create();
+        synchronized (_syncLock)
+        {
+            if (_closed)
+            {
+                future.setException(new StoreException("Journal " + _name + " is closed"));
+            }
+            else
+            {
+                _pendingSyncs.add(future);
+                _syncLock.notifyAll();
+            }
+        }
+        return future;
+    }
+
+    /**
+     * Waits until every record appended before the call is durable.
+     */
+    public void flush()
+    {
+        try
+        {
+            sync().get();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new StoreException("Interrupted while waiting for journal " + _name + " to be forced", e);
+        }
+        catch (ExecutionException e)
+        {
+            Throwable cause = e.getCause();
+            throw cause instanceof StoreException
+                    ? (StoreException) cause
+                    : new StoreException("Cannot force journal " + _name, cause);
+        }
+    }
+
+    /**
+     * @return the space taken on disk by the journal's segments
+     */
+    public long getSize()
+    {
+        return _segments.size() * (long) _segmentSize;
+    }
+
+    /**
+     * Adds a listener run by the housekeeping thread after compaction has reduced the size of the journal.
+     */
+    public void addSizeListener(final Runnable listener)
+    {
+        _sizeListeners.add(listener);
+    }
+
+    public void removeSizeListener(final Runnable listener)
+    {
+        _sizeListeners.remove(listener);
+    }
+
+    public int getSegmentCount()
+    {
+        return _segments.size();
+    }
+
+    public File getDirectory()
+    {
+        return _directory;
+    }
+
+    public void close()
+    {
+        synchronized (_syncLock)
+        {
+            if (_closed)
+            {
+                return;
+            }
+            _closed = true;
+            _syncLock.notifyAll();
+        }
+        synchronized (_housekeepingLock)
+        {
+            _housekeepingLock.notifyAll();
+        }
+
+        try
+        {
+            _committer.join();
+            _housekeeper.join();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+
+        synchronized (this)
+        {
+            try
+            {
+                for (Segment segment : _unforcedSegments)
+                {
+                    segment.force();
+                }
+            }
+            catch (IOException e)
+            {
+                LOGGER.warn("Cannot force journal {} on close", _name, e);
+            }
+            _unforcedSegments.clear();
+            if (_spare != null)
+            {
+                _spare.close();
+                deleteFile(_spare._file);
+                _spare = null;
+            }
+            closeSegments();
+            releaseLock();
+        }
+    }
+
+    /**
+     * Compacts the segment with the fewest live bytes among those below the compaction threshold.
+     *
+     * @return true if a segment was deleted
+     */
+    boolean compact() throws IOException
+    {
+        synchronized (_compactionLock)
+        {
+            for (Segment segment : getCompactionCandidates())
+            {
+                if (compactSegment(segment))
+                {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private synchronized List<Segment> getCompactionCandidates()
+    {
+        final List<Segment> candidates = new ArrayList<>();
+        if (!_closed)
+        {
+            for (Segment segment : _segments.values())
+            {
+                final long usedBytes = segment._writePosition - SEGMENT_HEADER_SIZE;
+                if (segment != _head
+                    && segment._liveBytes * 100L < usedBytes * _compactionThreshold
+                    && isDependencyFree(segment))
+                {
+                    candidates.add(segment);
+                }
+            }
+        }
+        Collections.sort(candidates, new Comparator<Segment>()
+        {
+            @Override
+            public int compare(final Segment segment1, final Segment segment2)
+            {
+                // live ratios compared without division; neither product can overflow a long
+                return Long.compare(segment1._liveBytes * (segment2._writePosition - SEGMENT_HEADER_SIZE),
+                                    segment2._liveBytes * (segment1._writePosition - SEGMENT_HEADER_SIZE));
+            }
+        });
+        return candidates;
+    }
+
+    private boolean isDependencyFree(final Segment segment)
+    {
+        return _segments.subMap(segment._oldestDependency, segment._number).isEmpty();
+    }
+
+    private boolean compactSegment(final Segment segment) throws IOException
+    {
+        int offset = SEGMENT_HEADER_SIZE;
+        while (offset < segment._writePosition)
+        {
+            int recordSize = segment.recordSize(offset);
+            byte type = segment.recordType(offset);
+            synchronized (this)
+            {
+                if (_closed)
+                {
+                    return false;
+                }
+                RecordHandler handler = _handlers[type & 0xFF];
+                if (handler == null)
+                {
+                    LOGGER.debug("Not compacting journal segment {} as it holds records of type {} without a handler",
+                                 segment._file, type);
+                    return false;
+                }
+                long location = segment.location(offset);
+                ByteBuffer payload = segment.payload(offset);
+                if (handler.isLive(type, payload, location))
+                {
+                    long newLocation = write(type, true, payload.duplicate());
+                    segment._liveBytes -= recordSize;
+                    handler.relocated(type, payload, location, newLocation);
+                }
+            }
+            offset += recordSize;
+        }
+
+        flush();
+
+        synchronized (this)
+        {
+            // a handler registered since the segment was chosen may have recovered a dependency for it
+            if (_closed || !isDependencyFree(segment))
+            {
+                return false;
+            }
+            _segments.remove(segment._number);
+            _unforcedSegments.remove(segment);
+        }
+        segment.close();
+        deleteFile(segment._file);
+        LOGGER.debug("Compacted journal segment {}", segment._file);
+        return true;
+    }
+
+    private long write(final byte type, final boolean live, final ByteBuffer... payload) throws IOException
+    {
+        int length = 0;
+        for (ByteBuffer buffer : payload)
+        {
+            length += buffer.remaining();
+        }
+        final int recordSize = RECORD_HEADER_SIZE + length;
+        if (recordSize > _segmentSize - SEGMENT_HEADER_SIZE)
+        {
+            throw new StoreException("Record of " + length + " bytes does not fit in a journal segment of "
+                                     + _segmentSize + " bytes");
+        }
+        if (_head._writePosition + recordSize > _segmentSize)
+        {
+            roll();
+        }
+
+        _checksum.reset();
+        _checksum.update(type);
+        for (ByteBuffer buffer : payload)
+        {
+            updateChecksum(buffer);
+        }
+
+        _recordHeader.clear();
+        _recordHeader.putInt(recordSize);
+        _recordHeader.putInt((int) _checksum.getValue());
+        _recordHeader.put(type);
+        _recordHeader.flip();
+
+        ByteBuffer[] buffers = new ByteBuffer[payload.length + 1];
+        buffers[0] = _recordHeader;
+        for (int i = 0; i < payload.length; i++)
+        {
+            buffers[i + 1] = payload[i].duplicate();
+        }
+
+        final Segment head = _head;
+        final long location = head.location(head._writePosition);
+        head.write(buffers, recordSize);
+        head._writePosition += recordSize;
+        if (live)
+        {
+            head._liveBytes += recordSize;
+        }
+        _unforcedSegments.add(head);
+        return location;
+    }
+
+    private void roll() throws IOException
+    {
+        Segment next = _spare;
+        _spare = null;
+        if (next == null)
+        {
+            next = createSegment(_nextSegmentNumber++);
+        }
+        _segments.put(next._number, next);
+        _head = next;
+        synchronized (_housekeepingLock)
+        {
+            _housekeepingLock.notifyAll();
+        }
+    }
+
+    private void prepareSpareSegment() throws IOException
+    {
+        final int number;
+        synchronized (this)
+        {
+            if (_spare != null || _closed)
+            {
+                return;
+            }
+            number = _nextSegmentNumber++;
+        }
+
+        Segment spare = createSegment(number);
+        boolean installed = false;
+        synchronized (this)
+        {
+            if (_spare == null && !_closed && spare._number > _head._number)
+            {
+                _spare = spare;
+                installed = true;
+            }
+        }
+        if (!installed)
+        {
+            spare.close();
+            deleteFile(spare._file);
+        }
+    }
+
+    private Segment createSegment(final int number) throws IOException
+    {
+        return Segment.create(new File(_directory, String.format("%010d.jnl", number)), number, _segmentSize);
+    }
+
+    private void forceSegments()
+    {
+        final List<SettableFuture<Void>> syncs;
+        synchronized (_syncLock)
+        {
+            while (_pendingSyncs.isEmpty() && !_closed)
+            {
+                try
+                {
+                    _syncLock.wait();
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            syncs = new ArrayList<>(_pendingSyncs);
+            _pendingSyncs.clear();
+        }
+
+        final List<Segment> segments;
+        synchronized (this)
+        {
+            segments = new ArrayList<>(_unforcedSegments);
+            _unforcedSegments.clear();
+        }
+
+        try
+        {
+            for (Segment segment : segments)
+            {
+                segment.force();
+            }
+            for (SettableFuture<Void> sync : syncs)
+            {
+                sync.set(null);
+            }
+        }
+        catch (IOException e)
+        {
+            StoreException exception = new StoreException("Cannot force journal " + _name, e);
+            for (SettableFuture<Void> sync : syncs)
+            {
+                sync.setException(exception);
+            }
+        }
+    }
+
+    private void updateChecksum(final ByteBuffer buffer)
+    {
+        if (buffer.hasArray())
+        {
+            _checksum.update(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+        }
+        else
+        {
+            ByteBuffer source = buffer.duplicate();
+            while (source.hasRemaining())
+            {
+                int length = Math.min(source.remaining(), _checksumScratch.length);
+                source.get(_checksumScratch, 0, length);
+                _checksum.update(_checksumScratch, 0, length);
+            }
+        }
+    }
+
+    private void checkOpen()
+    {
+        if (_closed)
+        {
+            throw new StoreException("Journal " + _name + " is closed");
+        }
+    }
+
+    private void lock() throws IOException
+    {
+        File lockFile = new File(_directory, LOCK_FILE_NAME);
+        _lockFile = new RandomAccessFile(lockFile, "rw");
+        try
+        {
+            _fileLock = _lockFile.getChannel().tryLock();
+        }
+        catch (OverlappingFileLockException e)
+        {
+            _fileLock = null;
+        }
+        if (_fileLock == null)
+        {
+            _lockFile.close();
+            _lockFile = null;
+            throw new StoreException("Cannot get lock on journal " + lockFile.getAbsolutePath()
+                                     + ": it is in use");
+        }
+    }
+
+    private void releaseLock()
+    {
+        try
+        {
+            if (_fileLock != null)
+            {
+                _fileLock.release();
+            }
+            if (_lockFile != null)
+            {
+                _lockFile.close();
+            }
+        }
+        catch (IOException e)
+        {
+            LOGGER.warn("Cannot release lock on journal {}", _name, e);
+        }
+        finally
+        {
+            _fileLock = null;
+            _lockFile = null;
+            deleteFile(new File(_directory, LOCK_FILE_NAME));
+        }
+    }
+
+    private void closeSegments()
+    {
+        for (Segment segment : _segments.values())
+        {
+            segment.close();
+        }
+        _segments.clear();
+        _head = null;
+    }
+
+    private static void deleteFile(final File file)
+    {
+        if (file.exists() && !file.delete())
+        {
+            LOGGER.warn("Cannot delete journal file {}", file.getAbsolutePath());
+        }
+    }
+
+    private static int segmentNumber(final long location)
+    {
+        return (int) (location >>> 32);
+    }
+
+    private static int offset(final long location)
+    {
+        return (int) location;
+    }
+
+    private final class Committer implements Runnable
+    {
+        @Override
+        public void run()
+        {
+            while (!_closed)
+            {
+                forceSegments();
+            }
+            forceSegments();
+        }
+    }
+
+    private final class Housekeeper implements Runnable
+    {
+        @Override
+        public void run()
+        {
+            while (!_closed)
+            {
+                try
+                {
+                    prepareSpareSegment();
+                    boolean compacted = false;
+                    while (compact())
+                    {
+                        compacted = true;
+                        prepareSpareSegment();
+                    }
+                    if (compacted)
+                    {
+                        for (Runnable listener : _sizeListeners)
+                        {
+                            listener.run();
+                        }
+                    }
+                }
+                catch (IOException | RuntimeException e)
+                {
+                    LOGGER.warn("Housekeeping of journal {} failed", _name, e);
+                }
+
+                synchronized (_housekeepingLock)
+                {
+                    if (!_closed)
+                    {
+                        try
+                        {
+                            _housekeepingLock.wait(HOUSEKEEPING_INTERVAL);
+                        }
+                        catch (InterruptedException e)
+                        {
+                            Thread.currentThread().interrupt();
+                            return;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static final class Segment
+    {
+        private final int _number;
+        private final File _file;
+        private final RandomAccessFile _randomAccessFile;
+        private final FileChannel _channel;
+        private final MappedByteBuffer _mapped;
+
+        private int _writePosition = SEGMENT_HEADER_SIZE;
+        private long _liveBytes;
+        private int _oldestDependency;
+        private boolean _closed;
+
+        private Segment(final int number, final File file, final RandomAccessFile randomAccessFile) throws IOException
+        {
+            _number = number;
+            _oldestDependency = number;
+            _file = file;
+            _randomAccessFile = randomAccessFile;
+            _channel = randomAccessFile.getChannel();
+            _mapped = _channel.map(FileChannel.MapMode.READ_ONLY, 0, _channel.size());
+        }
+
+        static Segment create(final File file, final int number, final int size) throws IOException
+        {
+            RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+            try
+            {
+                FileChannel channel = randomAccessFile.getChannel();
+                ByteBuffer zeros = ByteBuffer.allocateDirect(ZERO_FILL_BUFFER_SIZE);
+                long position = 0;
+                while (position < size)
+                {
+                    zeros.clear();
+                    zeros.limit((int) Math.min(zeros.capacity(), size - position));
+                    position += channel.write(zeros, position);
+                }
+
+                ByteBuffer header = ByteBuffer.allocate(SEGMENT_HEADER_SIZE);
+                header.putInt(SEGMENT_MAGIC);
+                header.putInt(SEGMENT_VERSION);
+                header.flip();
+                channel.write(header, 0);
+                channel.force(true);
+                return new Segment(number, file, randomAccessFile);
+            }
+            catch (IOException | RuntimeException e)
+            {
+                randomAccessFile.close();
+                throw e;
+            }
+        }
+
+        /**
+         * @return the segment, or null if the file does not have a complete segment header
+         */
+        static Segment open(final File file, final int number) throws IOException
+        {
+            RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+            try
+            {
+                if (randomAccessFile.length() < SEGMENT_HEADER_SIZE)
+                {
+                    randomAccessFile.close();
+                    return null;
+                }
+                int magic = randomAccessFile.readInt();
+                int version = randomAccessFile.readInt();
+                if (magic != SEGMENT_MAGIC)
+                {
+                    randomAccessFile.close();
+                    return magic == 0 ? null : failOpen(file, "is not a journal segment");
+                }
+                if (version != SEGMENT_VERSION)
+                {
+                    randomAccessFile.close();
+                    return failOpen(file, "has unsupported version " + version);
+                }
+
+                Segment segment = new Segment(number, file, randomAccessFile);
+                segment.recover();
+                return segment;
+            }
+            catch (IOException | RuntimeException e)
+            {
+                randomAccessFile.close();
+                throw e;
+            }
+        }
+
+        private static Segment failOpen(final File file, final String reason)
+        {
+            throw new StoreException("Journal file " + file.getAbsolutePath() + " " + reason);
+        }
+
+        private void recover() throws IOException
+        {
+            CRC32 checksum = new CRC32();
+            ByteBuffer buffer = read();
+            int offset = SEGMENT_HEADER_SIZE;
+            while (offset + RECORD_HEADER_SIZE <= buffer.limit())
+            {
+                int recordSize = buffer.getInt(offset);
+                if (recordSize < RECORD_HEADER_SIZE || offset + recordSize > buffer.limit())
+                {
+                    break;
+                }
+                ByteBuffer record = buffer.duplicate();
+                record.position(offset + 8);
+                record.limit(offset + recordSize);
+                byte[] bytes = new byte[record.remaining()];
+                record.get(bytes);
+                checksum.reset();
+                checksum.update(bytes);
+                if ((int) checksum.getValue() != buffer.getInt(offset + 4))
+                {
+                    break;
+                }
+                offset += recordSize;
+                _liveBytes += recordSize;
+            }
+            _writePosition = offset;
+
+            int dirtyLength = Math.min(RECORD_HEADER_SIZE, buffer.limit() - offset);
+            byte[] tail = new byte[dirtyLength];
+            ByteBuffer tailBuffer = buffer.duplicate();
+            tailBuffer.position(offset);
+            tailBuffer.get(tail);
+            if (!Arrays.equals(tail, new byte[dirtyLength]))
+            {
+                LOGGER.warn("Discarding incomplete record at offset {} of journal segment {}", offset, _file);
+                ByteBuffer zeros = ByteBuffer.allocateDirect(ZERO_FILL_BUFFER_SIZE);
+                long position = offset;
+                while (position < buffer.limit())
+                {
+                    zeros.clear();
+                    zeros.limit((int) Math.min(zeros.capacity(), buffer.limit() - position));
+                    position += _channel.write(zeros, position);
+                }
+                _channel.force(false);
+            }
+        }
+
+        long location(final int offset)
+        {
+            return ((long) _number << 32) | offset;
+        }
+
+        ByteBuffer read()
+        {
+            return _mapped.duplicate();
+        }
+
+        int recordSize(final int offset)
+        {
+            return _mapped.getInt(offset);
+        }
+
+        byte recordType(final int offset)
+        {
+            return _mapped.get(offset + 8);
+        }
+
+        ByteBuffer payload(final int offset)
+        {
+            ByteBuffer buffer = _mapped.duplicate();
+            buffer.position(offset + RECORD_HEADER_SIZE);
+            buffer.limit(offset + _mapped.getInt(offset));
+            return buffer.slice();
+        }
+
+        void write(final ByteBuffer[] buffers, final int length) throws IOException
+        {
+            _channel.position(_writePosition);
+            long written = 0;
+            while (written < length)
+            {
+                written += _channel.write(buffers);
+            }
+        }
+
+        synchronized void force() throws IOException
+        {
+            if (!_closed)
+            {
+                _channel.force(false);
+            }
+        }
+
+        synchronized void close()
+        {
+            if (!_closed)
+            {
+                _closed = true;
+                try
+                {
+                    _randomAccessFile.close();
+                }
+                catch (IOException e)
+                {
+                    LOGGER.warn("Cannot close journal segment {}", _file, e);
+                }
+            }
+        }
+    }
+}
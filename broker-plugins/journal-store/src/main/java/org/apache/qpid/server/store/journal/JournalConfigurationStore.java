@@ -0,0 +1,629 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.store.journal;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.apache.qpid.server.model.ConfiguredObject;
+import org.apache.qpid.server.model.ConfiguredObjectJacksonModule;
+import org.apache.qpid.server.store.ConfiguredObjectRecord;
+import org.apache.qpid.server.store.ConfiguredObjectRecordImpl;
+import org.apache.qpid.server.store.DurableConfigurationStore;
+import org.apache.qpid.server.store.FileBasedSettings;
+import org.apache.qpid.server.store.MessageStore;
+import org.apache.qpid.server.store.MessageStoreProvider;
+import org.apache.qpid.server.store.StoreException;
+import org.apache.qpid.server.store.handler.ConfiguredObjectRecordHandler;
+import org.apache.qpid.util.FileUtils;
+
+/**
+ * Implementation of a DurableConfigurationStore backed by a {@link Journal} that also provides a MessageStore
+ * sharing the same journal.
+ *
+ * Each create or update of a configured object appends the whole record, and a removal appends a tombstone, so
+ * a change costs one append and one group commit however large the configuration is.
+ *
+ * An update or removal of several records appends them between transaction begin and commit markers.  Recovery
+ * holds back the records following a begin marker until it reaches the commit marker, and discards them if the
+ * journal ends, or another begin or an abort marker follows, first.  Opening a journal ending in an incomplete
+ * transaction appends an abort marker, so that records appended afterwards are not taken as part of it.  A
+ * transaction is appended within a single journal segment, so compaction never separates its records from its
+ * markers, and an abort marker is kept for as long as the segment holding the transaction it aborts.
+ */
+public class JournalConfigurationStore implements MessageStoreProvider, DurableConfigurationStore, Journal.RecordHandler
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(JournalConfigurationStore.class);
+
+    static final byte CONFIGURED_OBJECT = 16;
+    static final byte CONFIGURED_OBJECT_DELETE = 17;
+    static final byte TRANSACTION_BEGIN = 18;
+    static final byte TRANSACTION_COMMIT = 19;
+    static final byte TRANSACTION_ABORT = 20;
+
+    private static final String TYPE = "type";
+    private static final String ATTRIBUTES = "attributes";
+    private static final String PARENTS = "parents";
+
+    private final AtomicBoolean _configurationStoreOpen = new AtomicBoolean();
+    private final ProvidedMessageStore _providedMessageStore = new ProvidedMessageStore();
+    private final Map<UUID, ConfiguredObjectRecord> _records = new LinkedHashMap<>();
+    private final Map<UUID, Long> _locations = new HashMap<>();
+    private final ObjectMapper _objectMapper = ConfiguredObjectJacksonModule.newObjectMapper();
+    private final Class<? extends ConfiguredObject> _rootClass;
+
+    private Journal _journal;
+    private ConfiguredObject<?> _parent;
+    private List<RecoveredRecord> _recoveringTransaction;
+    private long _recoveringTransactionLocation;
+
+    public JournalConfigurationStore(final Class<? extends ConfiguredObject> rootClass)
+    {
+        _rootClass = rootClass;
+    }
+
+    @Override
+    public void openConfigurationStore(final ConfiguredObject<?> parent,
+                                       final boolean overwrite,
+                                       final ConfiguredObjectRecord... initialRecords) throws StoreException
+    {
+        if (_configurationStoreOpen.compareAndSet(false, true))
+        {
+            _parent = parent;
+            File storeLocation = new File(((FileBasedSettings) parent).getStorePath());
+            if (overwrite && storeLocation.exists() && !FileUtils.delete(storeLocation, true))
+            {
+                _configurationStoreOpen.set(false);
+                throw new StoreException("Cannot overwrite the store at location " + storeLocation);
+            }
+
+            _journal = JournalMessageStore.createJournal(parent, storeLocation);
+            _journal.open();
+
+            final boolean empty;
+            final boolean aborted;
+            synchronized (_journal)
+            {
+                // compaction must not relocate a record to the head before an incomplete transaction is aborted
+                _journal.registerHandler(this,
+                                         CONFIGURED_OBJECT,
+                                         CONFIGURED_OBJECT_DELETE,
+                                         TRANSACTION_BEGIN,
+                                         TRANSACTION_COMMIT,
+                                         TRANSACTION_ABORT);
+                aborted = _recoveringTransaction != null;
+                if (aborted)
+                {
+                    LOGGER.warn("Discarding {} records of an incomplete configuration transaction",
+                                _recoveringTransaction.size());
+                    _journal.append(TRANSACTION_ABORT, false);
+                    abortRecoveringTransaction();
+                }
+                empty = _records.isEmpty();
+            }
+            if (aborted)
+            {
+                _journal.flush();
+            }
+            if (empty)
+            {
+                update(true, initialRecords);
+            }
+        }
+    }
+
+    @Override
+    public void upgradeStoreStructure() throws StoreException
+    {
+        // No-op for the journal
+    }
+
+    @Override
+    public void visitConfiguredObjectRecords(final ConfiguredObjectRecordHandler handler) throws StoreException
+    {
+        checkConfigurationStoreOpen();
+        List<ConfiguredObjectRecord> records;
+        synchronized (_journal)
+        {
+            records = new ArrayList<>(_records.values());
+        }
+
+        handler.begin();
+        for (ConfiguredObjectRecord record : records)
+        {
+            if (!handler.handle(record))
+            {
+                break;
+            }
+        }
+        handler.end();
+    }
+
+    @Override
+    public void create(final ConfiguredObjectRecord record) throws StoreException
+    {
+        checkConfigurationStoreOpen();
+        synchronized (_journal)
+        {
+            if (_records.containsKey(record.getId()))
+            {
+                throw new StoreException("Object with id " + record.getId() + " already exists");
+            }
+            if (_rootClass.getSimpleName().equals(record.getType()))
+            {
+                for (ConfiguredObjectRecord existing : _records.values())
+                {
+                    if (_rootClass.getSimpleName().equals(existing.getType()))
+                    {
+                        throw new IllegalStateException("Only a single root entry of type "
+                                                        + _rootClass.getSimpleName()
+                                                        + " can exist in the store.");
+                    }
+                }
+            }
+            byte[] encoded = encode(record);
+            long location = _journal.append(CONFIGURED_OBJECT, true, encodeId(record.getId()), ByteBuffer.wrap(encoded));
+            put(record, location);
+        }
+        _journal.flush();
+    }
+
+    @Override
+    public void update(final boolean createIfNecessary, final ConfiguredObjectRecord... records)
+            throws StoreException
+    {
+        checkConfigurationStoreOpen();
+        if (records.length == 0)
+        {
+            return;
+        }
+
+        synchronized (_journal)
+        {
+            for (ConfiguredObjectRecord record : records)
+            {
+                ConfiguredObjectRecord existingRecord = _records.get(record.getId());
+                if (existingRecord == null && !createIfNecessary)
+                {
+                    throw new StoreException("Cannot update record with id " + record.getId()
+                                             + " of type " + record.getType() + " as it does not exist");
+                }
+                else if (existingRecord != null && !existingRecord.getType().equals(record.getType()))
+                {
+                    throw new StoreException("Cannot change the type of record " + record.getId() + " from type "
+                                             + existingRecord.getType() + " to type " + record.getType());
+                }
+            }
+
+            List<byte[]> encodedRecords = new ArrayList<>(records.length);
+            for (ConfiguredObjectRecord record : records)
+            {
+                encodedRecords.add(encode(record));
+            }
+
+            final boolean transactional = records.length > 1;
+            if (transactional)
+            {
+                int[] payloadSizes = new int[records.length + 2];
+                for (int i = 0; i < records.length; i++)
+                {
+                    payloadSizes[i + 1] = 16 + encodedRecords.get(i).length;
+                }
+                _journal.reserve(payloadSizes);
+            }
+            long[] locations = new long[records.length];
+            int appended = 0;
+            try
+            {
+                if (transactional)
+                {
+                    _journal.append(TRANSACTION_BEGIN, false);
+                }
+                for (; appended < records.length; appended++)
+                {
+                    locations[appended] = _journal.append(CONFIGURED_OBJECT,
+                                                          true,
+                                                          encodeId(records[appended].getId()),
+                                                          ByteBuffer.wrap(encodedRecords.get(appended)));
+                }
+                if (transactional)
+                {
+                    _journal.append(TRANSACTION_COMMIT, false);
+                }
+            }
+            catch (RuntimeException e)
+            {
+                for (int i = 0; i < appended; i++)
+                {
+                    _journal.release(locations[i]);
+                }
+                if (transactional)
+                {
+                    abortTransaction(e);
+                }
+                throw e;
+            }
+
+            for (int i = 0; i < records.length; i++)
+            {
+                put(records[i], locations[i]);
+            }
+        }
+        _journal.flush();
+    }
+
+    @Override
+    public UUID[] remove(final ConfiguredObjectRecord... objects) throws StoreException
+    {
+        checkConfigurationStoreOpen();
+        List<UUID> removedIds = new ArrayList<>();
+        synchronized (_journal)
+        {
+            for (ConfiguredObjectRecord object : objects)
+            {
+                if (_records.containsKey(object.getId()) && !removedIds.contains(object.getId()))
+                {
+                    removedIds.add(object.getId());
+                }
+            }
+
+            final boolean transactional = removedIds.size() > 1;
+            if (transactional)
+            {
+                int[] payloadSizes = new int[removedIds.size() + 2];
+                Arrays.fill(payloadSizes, 1, removedIds.size() + 1, 16);
+                _journal.reserve(payloadSizes);
+            }
+            try
+            {
+                if (transactional)
+                {
+                    _journal.append(TRANSACTION_BEGIN, false);
+                }
+                for (UUID id : removedIds)
+                {
+                    _journal.append(CONFIGURED_OBJECT_DELETE, false, encodeId(id));
+                }
+                if (transactional)
+                {
+                    _journal.append(TRANSACTION_COMMIT, false);
+                }
+            }
+            catch (RuntimeException e)
+            {
+                if (transactional)
+                {
+                    abortTransaction(e);
+                }
+                throw e;
+            }
+
+            for (UUID id : removedIds)
+            {
+                removeRecord(id);
+            }
+        }
+        if (!removedIds.isEmpty())
+        {
+            _journal.flush();
+        }
+        return removedIds.toArray(new UUID[removedIds.size()]);
+    }
+
+    @Override
+    public void closeConfigurationStore() throws StoreException
+    {
+        if (_providedMessageStore.isMessageStoreOpen())
+        {
+            throw new IllegalStateException("Cannot close the store as the provided message store is still open");
+        }
+
+        if (_configurationStoreOpen.compareAndSet(true, false))
+        {
+            _journal.unregisterHandler(this);
+            _journal.close();
+            synchronized (_journal)
+            {
+                _records.clear();
+                _locations.clear();
+            }
+        }
+    }
+
+    @Override
+    public void onDelete(final ConfiguredObject<?> parent)
+    {
+        if (_providedMessageStore.isMessageStoreOpen())
+        {
+            throw new IllegalStateException("Cannot delete the store as the provided message store is still open");
+        }
+
+        String storePath = ((FileBasedSettings) parent).getStorePath();
+        if (storePath != null)
+        {
+            LOGGER.debug("Deleting store {}", storePath);
+
+            File storeFile = new File(storePath);
+            if (!FileUtils.delete(storeFile, true))
+            {
+                LOGGER.info("Failed to delete the store at location " + storePath);
+            }
+        }
+    }
+
+    @Override
+    public MessageStore getMessageStore()
+    {
+        return _providedMessageStore;
+    }
+
+    @Override
+    public boolean recover(final byte type, final ByteBuffer payload, final long location)
+    {
+        switch (type)
+        {
+            case TRANSACTION_BEGIN:
+                if (_recoveringTransaction != null)
+                {
+                    abortRecoveringTransaction();
+                }
+                _recoveringTransaction = new ArrayList<>();
+                _recoveringTransactionLocation = location;
+                return false;
+            case TRANSACTION_COMMIT:
+                if (_recoveringTransaction != null)
+                {
+                    for (RecoveredRecord record : _recoveringTransaction)
+                    {
+                        applyRecovered(record._type, record._payload, record._location);
+                    }
+                    _recoveringTransaction = null;
+                }
+                return false;
+            case TRANSACTION_ABORT:
+                if (_recoveringTransaction != null)
+                {
+                    abortRecoveringTransaction();
+                }
+                return false;
+            default:
+                if (_recoveringTransaction != null)
+                {
+                    // held back, and counted as live, until the transaction is known to be complete
+                    _recoveringTransaction.add(new RecoveredRecord(type, payload, location));
+                }
+                else
+                {
+                    applyRecovered(type, payload, location);
+                }
+                return type == CONFIGURED_OBJECT;
+        }
+    }
+
+    @Override
+    public boolean isLive(final byte type, final ByteBuffer payload, final long location)
+    {
+        return type == CONFIGURED_OBJECT
+               && Long.valueOf(location).equals(_locations.get(new UUID(payload.getLong(0), payload.getLong(8))));
+    }
+
+    @Override
+    public void relocated(final byte type, final ByteBuffer payload, final long oldLocation, final long newLocation)
+    {
+        _locations.put(new UUID(payload.getLong(0), payload.getLong(8)), newLocation);
+    }
+
+    private void applyRecovered(final byte type, final ByteBuffer payload, final long location)
+    {
+        if (type == CONFIGURED_OBJECT)
+        {
+            ConfiguredObjectRecord record = decode(payload);
+            _records.put(record.getId(), record);
+            Long previousLocation = _locations.put(record.getId(), location);
+            if (previousLocation != null)
+            {
+                _journal.release(previousLocation);
+            }
+        }
+        else
+        {
+            removeRecord(new UUID(payload.getLong(0), payload.getLong(8)));
+        }
+    }
+
+    /**
+     * Called with the journal's monitor held, during recovery or after appending an abort marker.
+     */
+    private void abortRecoveringTransaction()
+    {
+        _journal.addDependency(_recoveringTransactionLocation);
+        for (RecoveredRecord record : _recoveringTransaction)
+        {
+            if (record._type == CONFIGURED_OBJECT)
+            {
+                _journal.release(record._location);
+            }
+        }
+        _recoveringTransaction = null;
+    }
+
+    private void abortTransaction(final RuntimeException cause)
+    {
+        try
+        {
+            _journal.append(TRANSACTION_ABORT, false);
+        }
+        catch (RuntimeException e)
+        {
+            // recovery discards the transaction anyway, and the next open marks it as aborted
+            LOGGER.warn("Cannot abort configuration transaction after failure: {}", cause.getMessage(), e);
+        }
+    }
+
+    private byte[] encode(final ConfiguredObjectRecord record)
+    {
+        if (record.getAttributes() == null || !(record.getAttributes().get(ConfiguredObject.NAME) instanceof String))
+        {
+            throw new StoreException("The record " + record.getId()
+                                     + " of type " + record.getType()
+                                     + " does not have an attribute '"
+                                     + ConfiguredObject.NAME
+                                     + "' of type String");
+        }
+
+        Map<String, String> parents = new HashMap<>();
+        if (record.getParents() != null)
+        {
+            for (Map.Entry<String, UUID> parent : record.getParents().entrySet())
+            {
+                parents.put(parent.getKey(), parent.getValue().toString());
+            }
+        }
+        Map<String, Object> data = new HashMap<>();
+        data.put(TYPE, record.getType());
+        data.put(ATTRIBUTES, record.getAttributes());
+        data.put(PARENTS, parents);
+
+        try
+        {
+            return _objectMapper.writeValueAsBytes(data);
+        }
+        catch (IOException e)
+        {
+            throw new StoreException("Cannot serialize configured object record " + record.getId(), e);
+        }
+    }
+
+    private void put(final ConfiguredObjectRecord record, final long location)
+    {
+        _records.put(record.getId(), new ConfiguredObjectRecordImpl(record));
+        Long previousLocation = _locations.put(record.getId(), location);
+        if (previousLocation != null)
+        {
+            _journal.release(previousLocation);
+        }
+    }
+
+    private void removeRecord(final UUID id)
+    {
+        _records.remove(id);
+        Long location = _locations.remove(id);
+        if (location != null)
+        {
+            _journal.release(location);
+        }
+    }
+
+    private ConfiguredObjectRecord decode(final ByteBuffer payload)
+    {
+        ByteBuffer buffer = payload.duplicate();
+        UUID id = new UUID(buffer.getLong(), buffer.getLong());
+        byte[] encoded = new byte[buffer.remaining()];
+        buffer.get(encoded);
+        try
+        {
+            Map<String, Object> data = _objectMapper.readValue(encoded, Map.class);
+            Map<String, UUID> parents = new HashMap<>();
+            Map<String, String> encodedParents = (Map<String, String>) data.get(PARENTS);
+            if (encodedParents != null)
+            {
+                for (Map.Entry<String, String> parent : encodedParents.entrySet())
+                {
+                    parents.put(parent.getKey(), UUID.fromString(parent.getValue()));
+                }
+            }
+            return new ConfiguredObjectRecordImpl(id,
+                                                  (String) data.get(TYPE),
+                                                  (Map<String, Object>) data.get(ATTRIBUTES),
+                                                  parents);
+        }
+        catch (IOException e)
+        {
+            throw new StoreException("Cannot recover configured object record " + id, e);
+        }
+    }
+
+    private static ByteBuffer encodeId(final UUID id)
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(16);
+        buffer.putLong(id.getMostSignificantBits());
+        buffer.putLong(id.getLeastSignificantBits());
+        buffer.flip();
+        return buffer;
+    }
+
+    private void checkConfigurationStoreOpen()
+    {
+        if (!_configurationStoreOpen.get())
+        {
+            throw new IllegalStateException("Configuration store is not open");
+        }
+    }
+
+    private static final class RecoveredRecord
+    {
+        private final byte _type;
+        private final ByteBuffer _payload;
+        private final long _location;
+
+        private RecoveredRecord(final byte type, final ByteBuffer payload, final long location)
+        {
+            _type = type;
+            _payload = payload;
+            _location = location;
+        }
+    }
+
+    private class ProvidedMessageStore extends JournalMessageStore
+    {
+        @Override
+        protected Journal openJournal(final ConfiguredObject<?> parent)
+        {
+            checkConfigurationStoreOpen();
+            return _journal;
+        }
+
+        @Override
+        protected void closeJournal(final Journal journal)
+        {
+            // Nothing to do, journal provided by JournalConfigurationStore
+        }
+
+        @Override
+        public void onDelete(final ConfiguredObject<?> parent)
+        {
+            // Nothing to do, journal provided by JournalConfigurationStore
+        }
+    }
+}
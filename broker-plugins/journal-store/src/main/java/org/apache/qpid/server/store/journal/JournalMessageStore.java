@@ -0,0 +1,1282 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.store.journal;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.apache.qpid.bytebuffer.QpidByteBuffer;
+import org.apache.qpid.server.message.EnqueueableMessage;
+import org.apache.qpid.server.model.ConfiguredObject;
+import org.apache.qpid.server.plugin.MessageMetaDataType;
+import org.apache.qpid.server.store.Event;
+import org.apache.qpid.server.store.EventListener;
+import org.apache.qpid.server.store.EventManager;
+import org.apache.qpid.server.store.FileBasedSettings;
+import org.apache.qpid.server.store.MessageDurability;
+import org.apache.qpid.server.store.MessageEnqueueRecord;
+import org.apache.qpid.server.store.MessageHandle;
+import org.apache.qpid.server.store.MessageMetaDataTypeRegistry;
+import org.apache.qpid.server.store.MessageStore;
+import org.apache.qpid.server.store.SizeMonitoringSettings;
+import org.apache.qpid.server.store.StorableMessageMetaData;
+import org.apache.qpid.server.store.StoreException;
+import org.apache.qpid.server.store.StoredMessage;
+import org.apache.qpid.server.store.Transaction;
+import org.apache.qpid.server.store.TransactionLogResource;
+import org.apache.qpid.server.store.Xid;
+import org.apache.qpid.server.store.handler.DistributedTransactionHandler;
+import org.apache.qpid.server.store.handler.MessageHandler;
+import org.apache.qpid.server.store.handler.MessageInstanceHandler;
+import org.apache.qpid.server.virtualhost.journal.JournalVirtualHost;
+import org.apache.qpid.util.FileUtils;
+
+/**
+ * A message store keeping its messages, queue entries and distributed transactions in a {@link Journal}.
+ *
+ * A message is written to the journal as a metadata record followed by content records when it is first enqueued
+ * durably, or when it flows to disk.  Enqueues and prepared distributed transactions are live records; dequeues,
+ * message deletions and the removal of distributed transactions are tombstones.  The store indexes the location of
+ * every live record in memory, so recovery is a single pass over the journal, and content which is no longer held in
+ * memory is read from the journal's memory mapped segments.
+ *
+ * Committing a transaction appends its records under the journal's monitor and then waits for, or with
+ * {@link Transaction#commitTranAsync()} returns, the journal's group commit.
+ */
+public class JournalMessageStore implements MessageStore, Journal.RecordHandler
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(JournalMessageStore.class);
+
+    public static final String TYPE = "Journal";
+
+    static final byte MESSAGE_METADATA = 1;
+    static final byte MESSAGE_CONTENT = 2;
+    static final byte MESSAGE_DELETE = 3;
+    static final byte ENQUEUE = 4;
+    static final byte DEQUEUE = 5;
+    static final byte XID = 6;
+    static final byte XID_REMOVE = 7;
+
+    private static final int MAX_CONTENT_RECORD_SIZE = 256 * 1024;
+    private static final int CONTENT_HEADER_SIZE = 12;
+    private static final int ENQUEUE_RECORD_SIZE = 24;
+    private static final long NOT_STORED = -1L;
+
+    private final AtomicBoolean _messageStoreOpen = new AtomicBoolean();
+    private final AtomicLong _messageId = new AtomicLong(1);
+    private final EventManager _eventManager = new EventManager();
+    private final ConcurrentMap<Long, StoredJournalMessage<?>> _messages = new ConcurrentHashMap<>();
+    private final Map<UUID, Map<Long, Long>> _enqueues = new HashMap<>();
+    private final Map<Xid, XidEntry> _xids = new HashMap<>();
+    private final Map<Long, Map<Integer, Long>> _recoveredOrphanContent = new HashMap<>();
+    private final Runnable _sizeListener = new Runnable()
+    {
+        @Override
+        public void run()
+        {
+            checkStoreSize();
+        }
+    };
+
+    private Journal _journal;
+    private long _maximumRecoveredMessageId;
+    private long _persistentSizeHighThreshold;
+    private long _persistentSizeLowThreshold;
+    private boolean _limitBusted;
+
+    @Override
+    public void openMessageStore(final ConfiguredObject<?> parent)
+    {
+        if (_messageStoreOpen.compareAndSet(false, true))
+        {
+            _journal = openJournal(parent);
+
+            if (parent instanceof SizeMonitoringSettings)
+            {
+                SizeMonitoringSettings sizeMonitorSettings = (SizeMonitoringSettings) parent;
+                _persistentSizeHighThreshold = sizeMonitorSettings.getStoreOverfullSize();
+                _persistentSizeLowThreshold = sizeMonitorSettings.getStoreUnderfullSize();
+
+                if (_persistentSizeLowThreshold > _persistentSizeHighThreshold || _persistentSizeLowThreshold < 0L)
+                {
+                    _persistentSizeLowThreshold = _persistentSizeHighThreshold;
+                }
+            }
+
+            synchronized (_journal)
+            {
+                _journal.registerHandler(this,
+                                         MESSAGE_METADATA,
+                                         MESSAGE_CONTENT,
+                                         MESSAGE_DELETE,
+                                         ENQUEUE,
+                                         DEQUEUE,
+                                         XID,
+                                         XID_REMOVE);
+                releaseOrphanContent();
+            }
+            _messageId.set(Math.max(_messageId.get(), _maximumRecoveredMessageId + 1));
+            _journal.addSizeListener(_sizeListener);
+            checkStoreSize();
+        }
+    }
+
+    protected Journal openJournal(final ConfiguredObject<?> parent)
+    {
+        Journal journal = createJournal(parent, new File(((FileBasedSettings) parent).getStorePath()));
+        journal.open();
+        return journal;
+    }
+
+    protected void closeJournal(final Journal journal)
+    {
+        journal.close();
+    }
+
+    static Journal createJournal(final ConfiguredObject<?> parent, final File directory)
+    {
+        return new Journal(directory,
+                           parent.getName(),
+                           parent.getContextValue(Integer.class, JournalVirtualHost.SEGMENT_SIZE),
+                           parent.getContextValue(Integer.class, JournalVirtualHost.COMPACTION_THRESHOLD));
+    }
+
+    @Override
+    public void upgradeStoreStructure() throws StoreException
+    {
+    }
+
+    @Override
+    public <T extends StorableMessageMetaData> MessageHandle<T> addMessage(final T metaData)
+    {
+        checkMessageStoreOpen();
+        return new StoredJournalMessage<>(getNextMessageId(), metaData);
+    }
+
+    @Override
+    public long getNextMessageId()
+    {
+        return _messageId.getAndIncrement();
+    }
+
+    @Override
+    public boolean isPersistent()
+    {
+        return true;
+    }
+
+    @Override
+    public Transaction newTransaction()
+    {
+        checkMessageStoreOpen();
+        return new JournalTransaction();
+    }
+
+    @Override
+    public void closeMessageStore()
+    {
+        if (_messageStoreOpen.compareAndSet(true, false))
+        {
+            _journal.removeSizeListener(_sizeListener);
+            _journal.unregisterHandler(this);
+            closeJournal(_journal);
+            synchronized (_journal)
+            {
+                _enqueues.clear();
+                _xids.clear();
+            }
+            _messages.clear();
+        }
+    }
+
+    @Override
+    public void addEventListener(final EventListener eventListener, final Event... events)
+    {
+        _eventManager.addEventListener(eventListener, events);
+    }
+
+    @Override
+    public String getStoreLocation()
+    {
+        File location = getStoreLocationAsFile();
+        return location == null ? null : location.getAbsolutePath();
+    }
+
+    @Override
+    public File getStoreLocationAsFile()
+    {
+        return _journal == null ? null : _journal.getDirectory();
+    }
+
+    @Override
+    public void onDelete(final ConfiguredObject<?> parent)
+    {
+        if (isMessageStoreOpen())
+        {
+            throw new IllegalStateException("Cannot delete the store as it is still open");
+        }
+
+        String storePath = ((FileBasedSettings) parent).getStorePath();
+        if (storePath != null)
+        {
+            LOGGER.debug("Deleting store {}", storePath);
+
+            File storeFile = new File(storePath);
+            if (!FileUtils.delete(storeFile, true))
+            {
+                LOGGER.info("Failed to delete the store at location " + storePath);
+            }
+        }
+    }
+
+    @Override
+    public MessageStoreReader newMessageStoreReader()
+    {
+        return new JournalMessageStoreReader();
+    }
+
+    protected boolean isMessageStoreOpen()
+    {
+        return _messageStoreOpen.get();
+    }
+
+    private void checkMessageStoreOpen()
+    {
+        if (!_messageStoreOpen.get())
+        {
+            throw new IllegalStateException("Message store is not open");
+        }
+    }
+
+    private void checkStoreSize()
+    {
+        if (_persistentSizeHighThreshold > 0)
+        {
+            synchronized (_eventManager)
+            {
+                long size = _journal.getSize();
+                if (!_limitBusted && size > _persistentSizeHighThreshold)
+                {
+                    _limitBusted = true;
+                    _eventManager.notifyEvent(Event.PERSISTENT_MESSAGE_SIZE_OVERFULL);
+                }
+                else if (_limitBusted && size < _persistentSizeLowThreshold)
+                {
+                    _limitBusted = false;
+                    _eventManager.notifyEvent(Event.PERSISTENT_MESSAGE_SIZE_UNDERFULL);
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean recover(final byte type, final ByteBuffer payload, final long location)
+    {
+        switch (type)
+        {
+            case MESSAGE_METADATA:
+            {
+                long messageId = payload.getLong(0);
+                _maximumRecoveredMessageId = Math.max(_maximumRecoveredMessageId, messageId);
+                StoredJournalMessage<?> message = _messages.get(messageId);
+                if (message == null)
+                {
+                    message = new StoredJournalMessage<>(messageId, location);
+                    Map<Integer, Long> orphanContent = _recoveredOrphanContent.remove(messageId);
+                    if (orphanContent != null)
+                    {
+                        message._contentLocations.putAll(orphanContent);
+                    }
+                    _messages.put(messageId, message);
+                }
+                else
+                {
+                    _journal.release(message._metaDataLocation);
+                    message._metaDataLocation = location;
+                }
+                return true;
+            }
+            case MESSAGE_CONTENT:
+            {
+                long messageId = payload.getLong(0);
+                StoredJournalMessage<?> message = _messages.get(messageId);
+                final Map<Integer, Long> contentLocations;
+                if (message == null)
+                {
+                    // compaction may have moved the metadata after its content, which waits for the metadata here
+                    contentLocations = getRecoveredOrphanContent(messageId);
+                }
+                else
+                {
+                    contentLocations = message._contentLocations;
+                }
+                Long previousLocation = contentLocations.put(payload.getInt(8), location);
+                if (previousLocation != null)
+                {
+                    _journal.release(previousLocation);
+                }
+                return true;
+            }
+            case MESSAGE_DELETE:
+            {
+                long messageId = payload.getLong(0);
+                _maximumRecoveredMessageId = Math.max(_maximumRecoveredMessageId, messageId);
+                StoredJournalMessage<?> message = _messages.remove(messageId);
+                if (message != null)
+                {
+                    message.releaseRecords();
+                }
+                Map<Integer, Long> orphanContent = _recoveredOrphanContent.remove(messageId);
+                if (orphanContent != null)
+                {
+                    releaseLocations(orphanContent.values());
+                }
+                return false;
+            }
+            case ENQUEUE:
+            {
+                Long previousLocation = putEnqueue(readUUID(payload, 0), payload.getLong(16), location);
+                if (previousLocation != null)
+                {
+                    _journal.release(previousLocation);
+                }
+                return true;
+            }
+            case DEQUEUE:
+            {
+                removeEnqueue(readUUID(payload, 0), payload.getLong(16));
+                return false;
+            }
+            case XID:
+            {
+                ByteBuffer buffer = payload.duplicate();
+                Xid xid = readXid(buffer);
+                XidEntry entry = new XidEntry(location, readRecords(buffer), readRecords(buffer));
+                XidEntry previous = _xids.put(xid, entry);
+                if (previous != null)
+                {
+                    _journal.release(previous._location);
+                }
+                return true;
+            }
+            case XID_REMOVE:
+            {
+                removeXid(readXid(payload.duplicate()));
+                return false;
+            }
+            default:
+                throw new StoreException("Unexpected journal record type " + type);
+        }
+    }
+
+    @Override
+    public boolean isLive(final byte type, final ByteBuffer payload, final long location)
+    {
+        switch (type)
+        {
+            case MESSAGE_METADATA:
+            {
+                StoredJournalMessage<?> message = _messages.get(payload.getLong(0));
+                return message != null && message._metaDataLocation == location;
+            }
+            case MESSAGE_CONTENT:
+            {
+                StoredJournalMessage<?> message = _messages.get(payload.getLong(0));
+                return message != null
+                       && Long.valueOf(location).equals(message._contentLocations.get(payload.getInt(8)));
+            }
+            case ENQUEUE:
+            {
+                Map<Long, Long> queueEnqueues = _enqueues.get(readUUID(payload, 0));
+                return queueEnqueues != null
+                       && Long.valueOf(location).equals(queueEnqueues.get(payload.getLong(16)));
+            }
+            case XID:
+            {
+                XidEntry entry = _xids.get(readXid(payload.duplicate()));
+                return entry != null && entry._location == location;
+            }
+            default:
+                return false;
+        }
+    }
+
+    @Override
+    public void relocated(final byte type, final ByteBuffer payload, final long oldLocation, final long newLocation)
+    {
+        switch (type)
+        {
+            case MESSAGE_METADATA:
+            {
+                StoredJournalMessage<?> message = _messages.get(payload.getLong(0));
+                synchronized (message)
+                {
+                    message._metaDataLocation = newLocation;
+                }
+                break;
+            }
+            case MESSAGE_CONTENT:
+            {
+                StoredJournalMessage<?> message = _messages.get(payload.getLong(0));
+                synchronized (message)
+                {
+                    message._contentLocations.put(payload.getInt(8), newLocation);
+                }
+                break;
+            }
+            case ENQUEUE:
+                putEnqueue(readUUID(payload, 0), payload.getLong(16), newLocation);
+                break;
+            case XID:
+                _xids.get(readXid(payload.duplicate()))._location = newLocation;
+                break;
+            default:
+                throw new StoreException("Unexpected relocation of journal record type " + type);
+        }
+    }
+
+    private Map<Integer, Long> getRecoveredOrphanContent(final long messageId)
+    {
+        Map<Integer, Long> orphanContent = _recoveredOrphanContent.get(messageId);
+        if (orphanContent == null)
+        {
+            orphanContent = new HashMap<>();
+            _recoveredOrphanContent.put(messageId, orphanContent);
+        }
+        return orphanContent;
+    }
+
+    /**
+     * Releases recovered content whose message's metadata was not recovered.  Called with the journal's monitor held.
+     */
+    private void releaseOrphanContent()
+    {
+        for (Map.Entry<Long, Map<Integer, Long>> orphanContent : _recoveredOrphanContent.entrySet())
+        {
+            LOGGER.debug("Discarding recovered content of message {} which has no metadata", orphanContent.getKey());
+            releaseLocations(orphanContent.getValue().values());
+        }
+        _recoveredOrphanContent.clear();
+    }
+
+    private void releaseLocations(final Collection<Long> locations)
+    {
+        for (Long location : locations)
+        {
+            _journal.release(location);
+        }
+    }
+
+    private Long putEnqueue(final UUID queueId, final long messageId, final long location)
+    {
+        Map<Long, Long> queueEnqueues = _enqueues.get(queueId);
+        if (queueEnqueues == null)
+        {
+            queueEnqueues = new HashMap<>();
+            _enqueues.put(queueId, queueEnqueues);
+        }
+        return queueEnqueues.put(messageId, location);
+    }
+
+    private void removeEnqueue(final UUID queueId, final long messageId)
+    {
+        Map<Long, Long> queueEnqueues = _enqueues.get(queueId);
+        if (queueEnqueues != null)
+        {
+            Long location = queueEnqueues.remove(messageId);
+            if (location != null)
+            {
+                _journal.release(location);
+            }
+            if (queueEnqueues.isEmpty())
+            {
+                _enqueues.remove(queueId);
+            }
+        }
+    }
+
+    private void removeXid(final Xid xid)
+    {
+        XidEntry entry = _xids.remove(xid);
+        if (entry != null)
+        {
+            _journal.release(entry._location);
+        }
+    }
+
+    private static ByteBuffer encodeEnqueue(final UUID queueId, final long messageId)
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(ENQUEUE_RECORD_SIZE);
+        buffer.putLong(queueId.getMostSignificantBits());
+        buffer.putLong(queueId.getLeastSignificantBits());
+        buffer.putLong(messageId);
+        buffer.flip();
+        return buffer;
+    }
+
+    private static ByteBuffer encodeXid(final Xid xid, final RecordImpl[] enqueues, final RecordImpl[] dequeues)
+    {
+        int size = 16 + xid.getGlobalId().length + xid.getBranchId().length;
+        if (enqueues != null)
+        {
+            size += 8 + ENQUEUE_RECORD_SIZE * (enqueues.length + dequeues.length);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putLong(xid.getFormat());
+        buffer.putInt(xid.getGlobalId().length);
+        buffer.put(xid.getGlobalId());
+        buffer.putInt(xid.getBranchId().length);
+        buffer.put(xid.getBranchId());
+        if (enqueues != null)
+        {
+            writeRecords(buffer, enqueues);
+            writeRecords(buffer, dequeues);
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static void writeRecords(final ByteBuffer buffer, final RecordImpl[] records)
+    {
+        buffer.putInt(records.length);
+        for (RecordImpl record : records)
+        {
+            buffer.putLong(record._queueId.getMostSignificantBits());
+            buffer.putLong(record._queueId.getLeastSignificantBits());
+            buffer.putLong(record._messageNumber);
+        }
+    }
+
+    private static Xid readXid(final ByteBuffer buffer)
+    {
+        long format = buffer.getLong();
+        byte[] globalId = new byte[buffer.getInt()];
+        buffer.get(globalId);
+        byte[] branchId = new byte[buffer.getInt()];
+        buffer.get(branchId);
+        return new Xid(format, globalId, branchId);
+    }
+
+    private static RecordImpl[] readRecords(final ByteBuffer buffer)
+    {
+        RecordImpl[] records = new RecordImpl[buffer.getInt()];
+        for (int i = 0; i < records.length; i++)
+        {
+            UUID queueId = new UUID(buffer.getLong(), buffer.getLong());
+            records[i] = new RecordImpl(queueId, buffer.getLong());
+        }
+        return records;
+    }
+
+    private static UUID readUUID(final ByteBuffer buffer, final int index)
+    {
+        return new UUID(buffer.getLong(index), buffer.getLong(index + 8));
+    }
+
+    private static final class XidEntry
+    {
+        private final RecordImpl[] _enqueues;
+        private final RecordImpl[] _dequeues;
+        private long _location;
+
+        private XidEntry(final long location, final RecordImpl[] enqueues, final RecordImpl[] dequeues)
+        {
+            _location = location;
+            _enqueues = enqueues;
+            _dequeues = dequeues;
+        }
+    }
+
+    private final class JournalTransaction implements Transaction
+    {
+        private final List<StoredJournalMessage<?>> _messagesToStore = new ArrayList<>();
+        private final List<RecordImpl> _enqueueRecords = new ArrayList<>();
+        private final List<MessageEnqueueRecord> _dequeueRecords = new ArrayList<>();
+        private final Map<Xid, XidEntry> _xidRecords = new HashMap<>();
+        private final List<Xid> _xidRemoves = new ArrayList<>();
+
+        @Override
+        public MessageEnqueueRecord enqueueMessage(final TransactionLogResource queue,
+                                                   final EnqueueableMessage message)
+        {
+            checkMessageStoreOpen();
+            addMessageToStore(message);
+            RecordImpl record = new RecordImpl(queue.getId(), message.getMessageNumber());
+            _enqueueRecords.add(record);
+            return record.getEnqueueRecord();
+        }
+
+        @Override
+        public void dequeueMessage(final MessageEnqueueRecord enqueueRecord)
+        {
+            checkMessageStoreOpen();
+            _dequeueRecords.add(enqueueRecord);
+        }
+
+        @Override
+        public void commitTran()
+        {
+            if (apply())
+            {
+                _journal.flush();
+                checkStoreSize();
+            }
+        }
+
+        @Override
+        public ListenableFuture<Void> commitTranAsync()
+        {
+            if (apply())
+            {
+                ListenableFuture<Void> future = _journal.sync();
+                checkStoreSize();
+                return future;
+            }
+            return Futures.immediateFuture(null);
+        }
+
+        @Override
+        public void abortTran()
+        {
+            clear();
+        }
+
+        @Override
+        public void removeXid(final StoredXidRecord record)
+        {
+            checkMessageStoreOpen();
+            _xidRemoves.add(new Xid(record.getFormat(), record.getGlobalId(), record.getBranchId()));
+        }
+
+        @Override
+        public StoredXidRecord recordXid(final long format,
+                                         final byte[] globalId,
+                                         final byte[] branchId,
+                                         final EnqueueRecord[] enqueues,
+                                         final DequeueRecord[] dequeues)
+        {
+            checkMessageStoreOpen();
+            RecordImpl[] enqueueRecords = new RecordImpl[enqueues.length];
+            for (int i = 0; i < enqueues.length; i++)
+            {
+                EnqueueableMessage message = enqueues[i].getMessage();
+                addMessageToStore(message);
+                enqueueRecords[i] = new RecordImpl(enqueues[i].getResource().getId(), message.getMessageNumber());
+            }
+            RecordImpl[] dequeueRecords = new RecordImpl[dequeues.length];
+            for (int i = 0; i < dequeues.length; i++)
+            {
+                MessageEnqueueRecord enqueueRecord = dequeues[i].getEnqueueRecord();
+                dequeueRecords[i] = new RecordImpl(enqueueRecord.getQueueId(), enqueueRecord.getMessageNumber());
+            }
+            _xidRecords.put(new Xid(format, globalId, branchId),
+                            new XidEntry(NOT_STORED, enqueueRecords, dequeueRecords));
+            return new JournalStoredXidRecord(format, globalId, branchId);
+        }
+
+        private void addMessageToStore(final EnqueueableMessage message)
+        {
+            StoredMessage storedMessage = message.getStoredMessage();
+            if (storedMessage instanceof StoredJournalMessage)
+            {
+                _messagesToStore.add((StoredJournalMessage<?>) storedMessage);
+            }
+        }
+
+        /**
+         * @return true if any records were appended to the journal
+         */
+        private boolean apply()
+        {
+            checkMessageStoreOpen();
+            try
+            {
+                if (_enqueueRecords.isEmpty() && _dequeueRecords.isEmpty()
+                    && _xidRecords.isEmpty() && _xidRemoves.isEmpty())
+                {
+                    return false;
+                }
+
+                synchronized (_journal)
+                {
+                    for (StoredJournalMessage<?> message : _messagesToStore)
+                    {
+                        message.store();
+                    }
+                    for (RecordImpl record : _enqueueRecords)
+                    {
+                        long location = _journal.append(ENQUEUE, true, encodeEnqueue(record._queueId,
+                                                                                     record._messageNumber));
+                        Long previousLocation = putEnqueue(record._queueId, record._messageNumber, location);
+                        if (previousLocation != null)
+                        {
+                            _journal.release(previousLocation);
+                        }
+                    }
+                    for (MessageEnqueueRecord record : _dequeueRecords)
+                    {
+                        _journal.append(DEQUEUE, false, encodeEnqueue(record.getQueueId(),
+                                                                      record.getMessageNumber()));
+                        removeEnqueue(record.getQueueId(), record.getMessageNumber());
+                    }
+                    for (Map.Entry<Xid, XidEntry> xidRecord : _xidRecords.entrySet())
+                    {
+                        XidEntry entry = xidRecord.getValue();
+                        entry._location = _journal.append(XID, true, encodeXid(xidRecord.getKey(),
+                                                                               entry._enqueues,
+                                                                               entry._dequeues));
+                        XidEntry previous = _xids.put(xidRecord.getKey(), entry);
+                        if (previous != null)
+                        {
+                            _journal.release(previous._location);
+                        }
+                    }
+                    for (Xid xid : _xidRemoves)
+                    {
+                        _journal.append(XID_REMOVE, false, encodeXid(xid, null, null));
+                        JournalMessageStore.this.removeXid(xid);
+                    }
+                }
+                return true;
+            }
+            finally
+            {
+                clear();
+            }
+        }
+
+        private void clear()
+        {
+            _messagesToStore.clear();
+            _enqueueRecords.clear();
+            _dequeueRecords.clear();
+            _xidRecords.clear();
+            _xidRemoves.clear();
+        }
+    }
+
+    private class StoredJournalMessage<T extends StorableMessageMetaData> implements StoredMessage<T>, MessageHandle<T>
+    {
+        private final long _messageId;
+        private final TreeMap<Integer, Long> _contentLocations = new TreeMap<>();
+        private T _metaData;
+        private List<QpidByteBuffer> _content;
+        private long _metaDataLocation = NOT_STORED;
+
+        StoredJournalMessage(final long messageId, final T metaData)
+        {
+            _messageId = messageId;
+            _metaData = metaData;
+        }
+
+        StoredJournalMessage(final long messageId, final long metaDataLocation)
+        {
+            _messageId = messageId;
+            _metaDataLocation = metaDataLocation;
+        }
+
+        @Override
+        public long getMessageNumber()
+        {
+            return _messageId;
+        }
+
+        @Override
+        public synchronized T getMetaData()
+        {
+            if (_metaData == null && _metaDataLocation != NOT_STORED)
+            {
+                ByteBuffer buffer = _journal.read(_metaDataLocation);
+                MessageMetaDataType type = MessageMetaDataTypeRegistry.fromOrdinal(buffer.get(8));
+                buffer.position(9);
+                _metaData = (T) type.createMetaData(QpidByteBuffer.wrap(buffer.slice()));
+            }
+            return _metaData;
+        }
+
+        @Override
+        public synchronized void addContent(final QpidByteBuffer src)
+        {
+            if (_content == null)
+            {
+                _content = new ArrayList<>();
+            }
+            _content.add(src.slice());
+        }
+
+        @Override
+        public StoredMessage<T> allContentAdded()
+        {
+            return this;
+        }
+
+        @Override
+        public int getContent(final int offsetInMessage, final ByteBuffer dst)
+        {
+            int length = 0;
+            for (QpidByteBuffer contentChunk : getContent(offsetInMessage, dst.remaining()))
+            {
+                length += contentChunk.remaining();
+                contentChunk.copyTo(dst);
+                contentChunk.dispose();
+            }
+            return length;
+        }
+
+        @Override
+        public synchronized Collection<QpidByteBuffer> getContent(final int offsetInMessage, final int size)
+        {
+            List<QpidByteBuffer> content = new ArrayList<>();
+            if (_content != null)
+            {
+                int position = 0;
+                int added = 0;
+                for (QpidByteBuffer buffer : _content)
+                {
+                    final int remaining = buffer.remaining();
+                    if (added < size && position + remaining > offsetInMessage)
+                    {
+                        int start = Math.max(0, offsetInMessage - position);
+                        QpidByteBuffer view = buffer.view(start, size - added);
+                        added += view.remaining();
+                        content.add(view);
+                    }
+                    position += remaining;
+                }
+            }
+            else
+            {
+                int added = 0;
+                for (Map.Entry<Integer, Long> entry : _contentLocations.entrySet())
+                {
+                    ByteBuffer buffer = _journal.read(entry.getValue());
+                    buffer.position(CONTENT_HEADER_SIZE);
+                    int position = entry.getKey();
+                    int remaining = buffer.remaining();
+                    if (added < size && position + remaining > offsetInMessage)
+                    {
+                        int start = Math.max(0, offsetInMessage - position);
+                        buffer.position(CONTENT_HEADER_SIZE + start);
+                        buffer.limit(CONTENT_HEADER_SIZE + start + Math.min(remaining - start, size - added));
+                        added += buffer.remaining();
+                        content.add(QpidByteBuffer.wrap(buffer.slice()));
+                    }
+                }
+            }
+            return content;
+        }
+
+        /**
+         * Appends the message to the journal if it has not been already.  Called with the journal's monitor held.
+         */
+        synchronized void store()
+        {
+            if (_metaDataLocation != NOT_STORED || _metaData == null)
+            {
+                return;
+            }
+
+            final int storableSize = _metaData.getStorableSize();
+            byte[] metaData = new byte[9 + storableSize];
+            ByteBuffer metaDataBuffer = ByteBuffer.wrap(metaData);
+            metaDataBuffer.putLong(_messageId);
+            metaDataBuffer.put((byte) _metaData.getType().ordinal());
+            _metaData.writeToBuffer(QpidByteBuffer.wrap(metaData, 9, storableSize));
+            _metaDataLocation = _journal.append(MESSAGE_METADATA, true, ByteBuffer.wrap(metaData));
+
+            if (_content != null)
+            {
+                int offset = 0;
+                for (QpidByteBuffer buffer : _content)
+                {
+                    QpidByteBuffer source = buffer.duplicate();
+                    while (source.hasRemaining())
+                    {
+                        byte[] chunk = new byte[Math.min(source.remaining(), MAX_CONTENT_RECORD_SIZE)];
+                        source.get(chunk);
+                        ByteBuffer header = ByteBuffer.allocate(CONTENT_HEADER_SIZE);
+                        header.putLong(_messageId);
+                        header.putInt(offset);
+                        header.flip();
+                        _contentLocations.put(offset, _journal.append(MESSAGE_CONTENT,
+                                                                      true,
+                                                                      header,
+                                                                      ByteBuffer.wrap(chunk)));
+                        offset += chunk.length;
+                    }
+                    source.dispose();
+                }
+            }
+            _messages.put(_messageId, this);
+        }
+
+        @Override
+        public void remove()
+        {
+            synchronized (_journal)
+            {
+                synchronized (this)
+                {
+                    if (_metaDataLocation != NOT_STORED && _messages.remove(_messageId) != null)
+                    {
+                        ByteBuffer messageId = ByteBuffer.allocate(8);
+                        messageId.putLong(0, _messageId);
+                        _journal.append(MESSAGE_DELETE, false, messageId);
+                        releaseRecords();
+                    }
+                    disposeContent();
+                    if (_metaData != null)
+                    {
+                        _metaData.dispose();
+                        _metaData = null;
+                    }
+                }
+            }
+        }
+
+        @Override
+        public synchronized boolean isInMemory()
+        {
+            return _metaDataLocation == NOT_STORED || _content != null;
+        }
+
+        @Override
+        public boolean flowToDisk()
+        {
+            synchronized (_journal)
+            {
+                synchronized (this)
+                {
+                    store();
+                    disposeContent();
+                }
+            }
+            return true;
+        }
+
+        private void releaseRecords()
+        {
+            _journal.release(_metaDataLocation);
+            for (Long location : _contentLocations.values())
+            {
+                _journal.release(location);
+            }
+            _contentLocations.clear();
+        }
+
+        private void disposeContent()
+        {
+            if (_content != null)
+            {
+                for (QpidByteBuffer buffer : _content)
+                {
+                    buffer.dispose();
+                }
+                _content = null;
+            }
+        }
+
+        @Override
+        public String toString()
+        {
+            return getClass().getSimpleName() + "[messageId=" + _messageId + "]";
+        }
+    }
+
+    private static final class JournalStoredXidRecord implements Transaction.StoredXidRecord
+    {
+        private final long _format;
+        private final byte[] _globalId;
+        private final byte[] _branchId;
+
+        private JournalStoredXidRecord(final long format, final byte[] globalId, final byte[] branchId)
+        {
+            _format = format;
+            _globalId = globalId;
+            _branchId = branchId;
+        }
+
+        @Override
+        public long getFormat()
+        {
+            return _format;
+        }
+
+        @Override
+        public byte[] getGlobalId()
+        {
+            return _globalId;
+        }
+
+        @Override
+        public byte[] getBranchId()
+        {
+            return _branchId;
+        }
+
+        @Override
+        public boolean equals(final Object o)
+        {
+            if (this == o)
+            {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass())
+            {
+                return false;
+            }
+
+            final JournalStoredXidRecord that = (JournalStoredXidRecord) o;
+
+            return _format == that._format
+                   && Arrays.equals(_globalId, that._globalId)
+                   && Arrays.equals(_branchId, that._branchId);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            int result = (int) (_format ^ (_format >>> 32));
+            result = 31 * result + Arrays.hashCode(_globalId);
+            result = 31 * result + Arrays.hashCode(_branchId);
+            return result;
+        }
+    }
+
+    private static class JournalEnqueueRecord implements MessageEnqueueRecord
+    {
+        private final UUID _queueId;
+        private final long _messageNumber;
+
+        private JournalEnqueueRecord(final UUID queueId, final long messageNumber)
+        {
+            _queueId = queueId;
+            _messageNumber = messageNumber;
+        }
+
+        @Override
+        public UUID getQueueId()
+        {
+            return _queueId;
+        }
+
+        @Override
+        public long getMessageNumber()
+        {
+            return _messageNumber;
+        }
+    }
+
+    private static class RecordImpl implements Transaction.EnqueueRecord, Transaction.DequeueRecord,
+                                               TransactionLogResource, EnqueueableMessage
+    {
+        private final UUID _queueId;
+        private final long _messageNumber;
+        private final JournalEnqueueRecord _record;
+
+        private RecordImpl(final UUID queueId, final long messageNumber)
+        {
+            _queueId = queueId;
+            _messageNumber = messageNumber;
+            _record = new JournalEnqueueRecord(queueId, messageNumber);
+        }
+
+        @Override
+        public MessageEnqueueRecord getEnqueueRecord()
+        {
+            return _record;
+        }
+
+        @Override
+        public TransactionLogResource getResource()
+        {
+            return this;
+        }
+
+        @Override
+        public EnqueueableMessage getMessage()
+        {
+            return this;
+        }
+
+        @Override
+        public long getMessageNumber()
+        {
+            return _messageNumber;
+        }
+
+        @Override
+        public boolean isPersistent()
+        {
+            return true;
+        }
+
+        @Override
+        public StoredMessage getStoredMessage()
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String getName()
+        {
+            return _queueId.toString();
+        }
+
+        @Override
+        public UUID getId()
+        {
+            return _queueId;
+        }
+
+        @Override
+        public MessageDurability getMessageDurability()
+        {
+            return MessageDurability.DEFAULT;
+        }
+    }
+
+    private class JournalMessageStoreReader implements MessageStoreReader
+    {
+        @Override
+        public StoredMessage<?> getMessage(final long messageId)
+        {
+            checkMessageStoreOpen();
+            return _messages.get(messageId);
+        }
+
+        @Override
+        public void close()
+        {
+        }
+
+        @Override
+        public void visitMessages(final MessageHandler handler) throws StoreException
+        {
+            checkMessageStoreOpen();
+            for (StoredJournalMessage<?> message : new ArrayList<>(_messages.values()))
+            {
+                if (!handler.handle(message))
+                {
+                    break;
+                }
+            }
+        }
+
+        @Override
+        public void visitMessageInstances(final MessageInstanceHandler handler) throws StoreException
+        {
+            checkMessageStoreOpen();
+            List<JournalEnqueueRecord> records = new ArrayList<>();
+            synchronized (_journal)
+            {
+                for (Map.Entry<UUID, Map<Long, Long>> queueEnqueues : _enqueues.entrySet())
+                {
+                    for (Long messageId : queueEnqueues.getValue().keySet())
+                    {
+                        records.add(new JournalEnqueueRecord(queueEnqueues.getKey(), messageId));
+                    }
+                }
+            }
+            visitMessageInstances(records, handler);
+        }
+
+        @Override
+        public void visitMessageInstances(final TransactionLogResource queue,
+                                          final MessageInstanceHandler handler) throws StoreException
+        {
+            checkMessageStoreOpen();
+            List<JournalEnqueueRecord> records = new ArrayList<>();
+            synchronized (_journal)
+            {
+                Map<Long, Long> queueEnqueues = _enqueues.get(queue.getId());
+                if (queueEnqueues != null)
+                {
+                    for (Long messageId : queueEnqueues.keySet())
+                    {
+                        records.add(new JournalEnqueueRecord(queue.getId(), messageId));
+                    }
+                }
+            }
+            visitMessageInstances(records, handler);
+        }
+
+        private void visitMessageInstances(final List<JournalEnqueueRecord> records,
+                                           final MessageInstanceHandler handler)
+        {
+            Collections.sort(records, new Comparator<JournalEnqueueRecord>()
+            {
+                @Override
+                public int compare(final JournalEnqueueRecord left, final JournalEnqueueRecord right)
+                {
+                    return Long.compare(left.getMessageNumber(), right.getMessageNumber());
+                }
+            });
+            for (JournalEnqueueRecord record : records)
+            {
+                if (!handler.handle(record))
+                {
+                    break;
+                }
+            }
+        }
+
+        @Override
+        public void visitDistributedTransactions(final DistributedTransactionHandler handler) throws StoreException
+        {
+            checkMessageStoreOpen();
+            Map<Xid, XidEntry> xids;
+            synchronized (_journal)
+            {
+                xids = new HashMap<>(_xids);
+            }
+            for (Map.Entry<Xid, XidEntry> entry : xids.entrySet())
+            {
+                Xid xid = entry.getKey();
+                if (!handler.handle(new JournalStoredXidRecord(xid.getFormat(), xid.getGlobalId(), xid.getBranchId()),
+                                    entry.getValue()._enqueues,
+                                    entry.getValue()._dequeues))
+                {
+                    break;
+                }
+            }
+        }
+    }
+}
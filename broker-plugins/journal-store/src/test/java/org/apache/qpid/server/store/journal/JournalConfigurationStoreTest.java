@@ -0,0 +1,202 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.store.journal;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import org.apache.qpid.server.model.ConfiguredObject;
+import org.apache.qpid.server.model.ConfiguredObjectFactory;
+import org.apache.qpid.server.model.ConfiguredObjectJacksonModule;
+import org.apache.qpid.server.model.Exchange;
+import org.apache.qpid.server.model.Queue;
+import org.apache.qpid.server.model.VirtualHost;
+import org.apache.qpid.server.model.VirtualHostNode;
+import org.apache.qpid.server.store.AbstractDurableConfigurationStoreTestCase;
+import org.apache.qpid.server.store.ConfiguredObjectRecord;
+import org.apache.qpid.server.store.ConfiguredObjectRecordImpl;
+import org.apache.qpid.server.store.handler.ConfiguredObjectRecordHandler;
+import org.apache.qpid.server.virtualhost.journal.JournalVirtualHost;
+import org.apache.qpid.server.virtualhostnode.journal.JournalVirtualHostNode;
+
+public class JournalConfigurationStoreTest extends AbstractDurableConfigurationStoreTestCase
+{
+    private static final int SEGMENT_SIZE = 64 * 1024;
+    private static final int COMPACTION_THRESHOLD = 50;
+
+    private JournalVirtualHostNode<?> _node;
+    private JournalConfigurationStore _store;
+
+    public void testUpdateOfSeveralRecordsRecovered() throws Exception
+    {
+        ConfiguredObjectRecord queue = createRecord(Queue.class.getSimpleName(), "queue");
+        ConfiguredObjectRecord exchange = createRecord(Exchange.class.getSimpleName(), "exchange");
+        _store.update(true, queue, exchange);
+        _store.closeConfigurationStore();
+
+        JournalConfigurationStore store = reopen();
+        try
+        {
+            assertNotNull("Queue record was not recovered", getRecord(store, queue.getId()));
+            assertNotNull("Exchange record was not recovered", getRecord(store, exchange.getId()));
+        }
+        finally
+        {
+            store.closeConfigurationStore();
+        }
+    }
+
+    public void testIncompleteTransactionDiscardedOnRecovery() throws Exception
+    {
+        _store.closeConfigurationStore();
+
+        UUID queueId = UUID.randomUUID();
+        File storeLocation = new File(_node.getStorePath());
+        Journal journal = new Journal(storeLocation, getTestName(), SEGMENT_SIZE, COMPACTION_THRESHOLD);
+        journal.open();
+        try
+        {
+            // a transaction interrupted before its commit marker was appended
+            journal.append(JournalConfigurationStore.TRANSACTION_BEGIN, false);
+            journal.append(JournalConfigurationStore.CONFIGURED_OBJECT,
+                           true,
+                           encodeId(queueId),
+                           ByteBuffer.wrap(encodeRecord(Queue.class.getSimpleName(), "queue")));
+            journal.flush();
+        }
+        finally
+        {
+            journal.close();
+        }
+
+        JournalConfigurationStore store = reopen();
+        ConfiguredObjectRecord exchange = createRecord(Exchange.class.getSimpleName(), "exchange");
+        try
+        {
+            assertNull("Record of an incomplete transaction was recovered", getRecord(store, queueId));
+            store.create(exchange);
+        }
+        finally
+        {
+            store.closeConfigurationStore();
+        }
+
+        store = reopen();
+        try
+        {
+            assertNull("Record of an incomplete transaction was recovered", getRecord(store, queueId));
+            assertNotNull("Record created after an incomplete transaction was not recovered",
+                          getRecord(store, exchange.getId()));
+        }
+        finally
+        {
+            store.closeConfigurationStore();
+        }
+    }
+
+    @Override
+    protected VirtualHostNode createVirtualHostNode(String storeLocation, ConfiguredObjectFactory factory)
+    {
+        final JournalVirtualHostNode parent = mock(JournalVirtualHostNode.class);
+        when(parent.getName()).thenReturn(getTestName());
+        when(parent.getStorePath()).thenReturn(storeLocation);
+        when(parent.getContextValue(Integer.class, JournalVirtualHost.SEGMENT_SIZE)).thenReturn(SEGMENT_SIZE);
+        when(parent.getContextValue(Integer.class, JournalVirtualHost.COMPACTION_THRESHOLD))
+                .thenReturn(COMPACTION_THRESHOLD);
+        _node = parent;
+        return parent;
+    }
+
+    @Override
+    protected JournalConfigurationStore createConfigStore() throws Exception
+    {
+        _store = new JournalConfigurationStore(VirtualHost.class);
+        return _store;
+    }
+
+    private JournalConfigurationStore reopen()
+    {
+        JournalConfigurationStore store = new JournalConfigurationStore(VirtualHost.class);
+        store.openConfigurationStore(_node, false);
+        return store;
+    }
+
+    private ConfiguredObjectRecord createRecord(final String type, final String name)
+    {
+        return new ConfiguredObjectRecordImpl(UUID.randomUUID(),
+                                              type,
+                                              Collections.<String, Object>singletonMap(ConfiguredObject.NAME, name));
+    }
+
+    private ConfiguredObjectRecord getRecord(final JournalConfigurationStore store, final UUID id)
+    {
+        final ConfiguredObjectRecord[] found = new ConfiguredObjectRecord[1];
+        store.visitConfiguredObjectRecords(new ConfiguredObjectRecordHandler()
+        {
+            @Override
+            public void begin()
+            {
+            }
+
+            @Override
+            public boolean handle(final ConfiguredObjectRecord record)
+            {
+                if (record.getId().equals(id))
+                {
+                    found[0] = record;
+                    return false;
+                }
+                return true;
+            }
+
+            @Override
+            public void end()
+            {
+            }
+        });
+        return found[0];
+    }
+
+    private static byte[] encodeRecord(final String type, final String name) throws Exception
+    {
+        Map<String, Object> data = new HashMap<>();
+        data.put("type", type);
+        data.put("attributes", Collections.singletonMap(ConfiguredObject.NAME, name));
+        data.put("parents", Collections.emptyMap());
+        return ConfiguredObjectJacksonModule.newObjectMapper().writeValueAsBytes(data);
+    }
+
+    private static ByteBuffer encodeId(final UUID id)
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(16);
+        buffer.putLong(id.getMostSignificantBits());
+        buffer.putLong(id.getLeastSignificantBits());
+        buffer.flip();
+        return buffer;
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.store.journal;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.qpid.server.message.EnqueueableMessage;
+import org.apache.qpid.server.model.VirtualHost;
+import org.apache.qpid.server.store.Event;
+import org.apache.qpid.server.store.EventListener;
+import org.apache.qpid.server.store.MessageStore;
+import org.apache.qpid.server.store.MessageStoreQuotaEventsTestBase;
+import org.apache.qpid.server.store.Transaction;
+import org.apache.qpid.server.virtualhost.journal.JournalVirtualHost;
+
+public class JournalMessageStoreQuotaEventsTest extends MessageStoreQuotaEventsTestBase
+{
+    private static final int NUMBER_OF_MESSAGES_TO_OVERFILL_STORE = 10;
+
+    /** Small enough that each message takes a segment of its own */
+    private static final int SEGMENT_SIZE = 64 * 1024;
+
+    private static final long OVERFULL_SIZE = 5l * SEGMENT_SIZE;
+
+    private static final long UNDERFULL_SIZE = 3l * SEGMENT_SIZE;
+
+    private static final long COMPACTION_TIMEOUT = 10000l;
+
+    private final BlockingQueue<Event> _events = new LinkedBlockingQueue<>();
+    private MessageStore _store;
+
+    /**
+     * The journal only shrinks once its housekeeping thread has compacted the segments of the removed messages, so
+     * the underfull event is awaited rather than expected as soon as the messages are removed.
+     */
+    @Override
+    public void testOverflow() throws Exception
+    {
+        _store.addEventListener(new EventListener()
+                                {
+                                    @Override
+                                    public void event(final Event event)
+                                    {
+                                        _events.add(event);
+                                    }
+                                },
+                                Event.PERSISTENT_MESSAGE_SIZE_OVERFULL,
+                                Event.PERSISTENT_MESSAGE_SIZE_UNDERFULL);
+
+        Transaction transaction = _store.newTransaction();
+        List<EnqueueableMessage> messages = new ArrayList<>();
+        for (int i = 0; i < getNumberOfMessagesToFillStore(); i++)
+        {
+            EnqueueableMessage message = addMessage(i);
+            messages.add(message);
+            transaction.enqueueMessage(this, message);
+        }
+        transaction.commitTran();
+
+        assertEquals("Unexpected event on filling the store", Event.PERSISTENT_MESSAGE_SIZE_OVERFULL, _events.poll());
+
+        for (EnqueueableMessage message : messages)
+        {
+            message.getStoredMessage().remove();
+        }
+
+        assertEquals("Unexpected event on compacting the store",
+                     Event.PERSISTENT_MESSAGE_SIZE_UNDERFULL,
+                     _events.poll(COMPACTION_TIMEOUT, TimeUnit.MILLISECONDS));
+        assertNull("Unexpected further event", _events.poll());
+    }
+
+    @Override
+    protected int getNumberOfMessagesToFillStore()
+    {
+        return NUMBER_OF_MESSAGES_TO_OVERFILL_STORE;
+    }
+
+    @Override
+    protected VirtualHost createVirtualHost(String storeLocation)
+    {
+        final JournalVirtualHost parent = mock(JournalVirtualHost.class);
+        when(parent.getName()).thenReturn(getTestName());
+        when(parent.getStorePath()).thenReturn(storeLocation);
+        when(parent.getContextValue(Integer.class, JournalVirtualHost.SEGMENT_SIZE)).thenReturn(SEGMENT_SIZE);
+        when(parent.getContextValue(Integer.class, JournalVirtualHost.COMPACTION_THRESHOLD)).thenReturn(50);
+        when(parent.getStoreOverfullSize()).thenReturn(OVERFULL_SIZE);
+        when(parent.getStoreUnderfullSize()).thenReturn(UNDERFULL_SIZE);
+        return parent;
+    }
+
+    @Override
+    protected MessageStore createStore() throws Exception
+    {
+        _store = new JournalMessageStore();
+        return _store;
+    }
+}
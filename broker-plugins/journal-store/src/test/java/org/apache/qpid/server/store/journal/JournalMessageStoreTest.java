@@ -0,0 +1,197 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.store.journal;
+
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.qpid.bytebuffer.QpidByteBuffer;
+import org.apache.qpid.server.model.ConfiguredObject;
+import org.apache.qpid.server.model.VirtualHost;
+import org.apache.qpid.server.store.MessageHandle;
+import org.apache.qpid.server.store.MessageStore;
+import org.apache.qpid.server.store.MessageStoreTestCase;
+import org.apache.qpid.server.store.StoredMessage;
+import org.apache.qpid.server.store.TestMessageMetaData;
+import org.apache.qpid.server.store.handler.MessageHandler;
+import org.apache.qpid.server.virtualhost.journal.JournalVirtualHost;
+import org.apache.qpid.util.FileUtils;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class JournalMessageStoreTest extends MessageStoreTestCase
+{
+    private static final int SEGMENT_SIZE = 1024 * 1024;
+
+    private String _storeLocation;
+    private RollingJournal _journal;
+
+    @Override
+    public void tearDown() throws Exception
+    {
+        try
+        {
+            deleteStoreIfExists();
+        }
+        finally
+        {
+            super.tearDown();
+        }
+    }
+
+    public void testOnDelete() throws Exception
+    {
+        File location = new File(_storeLocation);
+        assertTrue("Store does not exist at " + _storeLocation, location.exists());
+
+        getStore().closeMessageStore();
+        assertTrue("Store does not exist at " + _storeLocation, location.exists());
+
+        JournalVirtualHost mockVH = mock(JournalVirtualHost.class);
+        when(mockVH.getStorePath()).thenReturn(_storeLocation);
+
+        getStore().onDelete(mockVH);
+        assertFalse("Store exists at " + _storeLocation, location.exists());
+    }
+
+    public void testContentRecoveredAfterCompactionMovesMetaDataPastIt() throws Exception
+    {
+        StoredMessage<TestMessageMetaData> filler = storeMessage(SEGMENT_SIZE / 2);
+
+        byte[] content = new byte[1000];
+        for (int i = 0; i < content.length; i++)
+        {
+            content[i] = (byte) i;
+        }
+        MessageHandle<TestMessageMetaData> handle = getStore().addMessage(new TestMessageMetaData(2, content.length));
+        handle.addContent(QpidByteBuffer.wrap(content));
+        StoredMessage<TestMessageMetaData> message = handle.allContentAdded();
+        _journal._rollBeforeContentOf = message.getMessageNumber();
+        enqueueMessage(message, "dummyQ");
+        assertEquals("The content should have been appended to a new segment", 2, _journal.getSegmentCount());
+
+        // leaves the metadata as the only live record of the first segment, which compaction moves past the content
+        filler.remove();
+        while (_journal.compact())
+        {
+        }
+        assertEquals("The first segment should have been compacted", 1, _journal.getSegmentCount());
+
+        reopenStore();
+
+        final AtomicReference<StoredMessage<?>> recovered = new AtomicReference<>();
+        MessageStore.MessageStoreReader reader = getStore().newMessageStoreReader();
+        reader.visitMessages(new MessageHandler()
+        {
+            @Override
+            public boolean handle(final StoredMessage<?> storedMessage)
+            {
+                recovered.set(storedMessage);
+                return true;
+            }
+        });
+        reader.close();
+
+        assertNotNull("Message was not recovered", recovered.get());
+        assertEquals("Unexpected message recovered", message.getMessageNumber(), recovered.get().getMessageNumber());
+        ByteBuffer recoveredContent = ByteBuffer.allocate(content.length);
+        assertEquals("Unexpected content size", content.length, recovered.get().getContent(0, recoveredContent));
+        assertEquals("Unexpected content", ByteBuffer.wrap(content), recoveredContent.flip());
+    }
+
+    private StoredMessage<TestMessageMetaData> storeMessage(final int contentSize)
+    {
+        MessageHandle<TestMessageMetaData> handle = getStore().addMessage(new TestMessageMetaData(1, contentSize));
+        handle.addContent(QpidByteBuffer.wrap(new byte[contentSize]));
+        StoredMessage<TestMessageMetaData> message = handle.allContentAdded();
+        enqueueMessage(message, "fillerQ");
+        return message;
+    }
+
+    @Override
+    protected VirtualHost createVirtualHost()
+    {
+        _storeLocation = TMP_FOLDER + File.separator + getTestName();
+        deleteStoreIfExists();
+
+        final JournalVirtualHost parent = mock(JournalVirtualHost.class);
+        when(parent.getName()).thenReturn(getTestName());
+        when(parent.getStorePath()).thenReturn(_storeLocation);
+        when(parent.getContextValue(Integer.class, JournalVirtualHost.SEGMENT_SIZE)).thenReturn(SEGMENT_SIZE);
+        when(parent.getContextValue(Integer.class, JournalVirtualHost.COMPACTION_THRESHOLD)).thenReturn(50);
+        return parent;
+    }
+
+    private void deleteStoreIfExists()
+    {
+        if (_storeLocation != null)
+        {
+            File location = new File(_storeLocation);
+            if (location.exists())
+            {
+                FileUtils.delete(location, true);
+            }
+        }
+    }
+
+    @Override
+    protected MessageStore createMessageStore()
+    {
+        return new JournalMessageStore()
+        {
+            @Override
+            protected Journal openJournal(final ConfiguredObject<?> parent)
+            {
+                _journal = new RollingJournal(new File(_storeLocation), getTestName());
+                _journal.open();
+                return _journal;
+            }
+        };
+    }
+
+    /**
+     * Moves to a new segment before appending the first content of the chosen message.
+     */
+    private static class RollingJournal extends Journal
+    {
+        private volatile long _rollBeforeContentOf = -1L;
+
+        RollingJournal(final File directory, final String name)
+        {
+            super(directory, name, SEGMENT_SIZE, 50);
+        }
+
+        @Override
+        public synchronized long append(final byte type, final boolean live, final ByteBuffer... payload)
+        {
+            if (type == JournalMessageStore.MESSAGE_CONTENT && payload[0].getLong(0) == _rollBeforeContentOf)
+            {
+                _rollBeforeContentOf = -1L;
+                // as large a record as fits in a segment, so that it only fits in a new one
+                reserve(SEGMENT_SIZE - 17);
+            }
+            return super.append(type, live, payload);
+        }
+    }
+}
@@ -0,0 +1,364 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.store.journal;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.qpid.server.store.StoreException;
+import org.apache.qpid.test.utils.QpidTestCase;
+import org.apache.qpid.util.FileUtils;
+
+public class JournalTest extends QpidTestCase
+{
+    private static final byte RECORD = 1;
+    private static final byte REMOVE = 2;
+    private static final int SEGMENT_SIZE = 4096;
+
+    private File _directory;
+    private Journal _journal;
+
+    @Override
+    public void setUp() throws Exception
+    {
+        super.setUp();
+        _directory = new File(TMP_FOLDER, getTestName() + System.nanoTime());
+        _journal = new Journal(_directory, getTestName(), SEGMENT_SIZE, 50);
+        _journal.open();
+    }
+
+    @Override
+    public void tearDown() throws Exception
+    {
+        try
+        {
+            _journal.close();
+            FileUtils.delete(_directory, true);
+        }
+        finally
+        {
+            super.tearDown();
+        }
+    }
+
+    public void testAppendAndRead() throws Exception
+    {
+        long location = _journal.append(RECORD, true, buffer(1, 100));
+        assertEquals("Unexpected payload", buffer(1, 100), _journal.read(location));
+    }
+
+    public void testRecoveryAfterReopen() throws Exception
+    {
+        for (int i = 0; i < 10; i++)
+        {
+            _journal.append(RECORD, true, buffer(i, 10 + i));
+        }
+        _journal.append(REMOVE, false, buffer(3, 4));
+        _journal.flush();
+
+        reopen();
+
+        RecordingHandler handler = new RecordingHandler();
+        _journal.registerHandler(handler, RECORD, REMOVE);
+
+        assertEquals("Unexpected live records", 9, handler._live.size());
+        assertFalse("Removed record was recovered", handler._live.containsKey(3));
+        assertEquals("Unexpected payload", buffer(7, 17), _journal.read(handler._live.get(7)));
+    }
+
+    public void testTruncatedRecordIsDiscardedOnRecovery() throws Exception
+    {
+        long first = _journal.append(RECORD, true, buffer(1, 100));
+        long second = _journal.append(RECORD, true, buffer(2, 100));
+        _journal.flush();
+        _journal.close();
+
+        File segment = new File(_directory, String.format("%010d.jnl", first >>> 32));
+        try (RandomAccessFile file = new RandomAccessFile(segment, "rw"))
+        {
+            file.seek((int) second + 20);
+            file.write(0xFF);
+        }
+
+        _journal = new Journal(_directory, getTestName(), SEGMENT_SIZE, 50);
+        _journal.open();
+        RecordingHandler handler = new RecordingHandler();
+        _journal.registerHandler(handler, RECORD, REMOVE);
+
+        assertEquals("Unexpected live records", 1, handler._live.size());
+        assertEquals("Unexpected location", Long.valueOf(first), handler._live.get(1));
+
+        long third = _journal.append(RECORD, true, buffer(3, 100));
+        assertEquals("Corrupt record was not overwritten", second, third);
+    }
+
+    public void testCompactionRelocatesLiveRecords() throws Exception
+    {
+        RecordingHandler handler = new RecordingHandler();
+        _journal.registerHandler(handler, RECORD, REMOVE);
+
+        for (int i = 0; i < 100; i++)
+        {
+            handler._live.put(i, _journal.append(RECORD, true, buffer(i, 100)));
+        }
+        assertTrue("Expected several segments", _journal.getSegmentCount() > 2);
+
+        for (int i = 0; i < 100; i++)
+        {
+            if (i % 10 != 0)
+            {
+                _journal.append(REMOVE, false, buffer(i, 4));
+                _journal.release(handler._live.remove(i));
+            }
+        }
+
+        while (_journal.compact())
+        {
+        }
+
+        assertEquals("Unexpected live records", 10, handler._live.size());
+        for (Map.Entry<Integer, Long> entry : handler._live.entrySet())
+        {
+            assertEquals("Unexpected payload", buffer(entry.getKey(), 100), _journal.read(entry.getValue()));
+        }
+        assertTrue("Records were not relocated", handler._relocations > 0);
+
+        int segmentCount = _journal.getSegmentCount();
+        reopen();
+        RecordingHandler recovered = new RecordingHandler();
+        _journal.registerHandler(recovered, RECORD, REMOVE);
+        assertEquals("Unexpected segments after reopen", segmentCount, _journal.getSegmentCount());
+        assertEquals("Unexpected live records after reopen", handler._live, recovered._live);
+    }
+
+    public void testSegmentWithFewestLiveBytesIsCompactedFirst() throws Exception
+    {
+        RecordingHandler handler = new RecordingHandler();
+        _journal.registerHandler(handler, RECORD, REMOVE);
+
+        final int secondSegmentStart = appendRecords(handler, 0, 2) - 1;
+        final int thirdSegmentStart = appendRecords(handler, secondSegmentStart + 1, 3) - 1;
+        appendRecords(handler, thirdSegmentStart + 1, 4);
+        Map<Integer, Long> oldestSegmentRecords = new HashMap<>();
+        for (int i = 0; i < secondSegmentStart; i++)
+        {
+            oldestSegmentRecords.put(i, handler._live.get(i));
+        }
+
+        removeRecords(handler, secondSegmentStart, thirdSegmentStart);
+
+        while (_journal.compact())
+        {
+        }
+        assertEquals("Only the second segment should have been compacted", 3, _journal.getSegmentCount());
+        assertEquals("Unexpected relocations", 0, handler._relocations);
+        for (Map.Entry<Integer, Long> entry : oldestSegmentRecords.entrySet())
+        {
+            assertEquals("Record of the oldest segment was moved", entry.getValue(), handler._live.get(entry.getKey()));
+            assertEquals("Unexpected payload", buffer(entry.getKey(), 100), _journal.read(entry.getValue()));
+        }
+
+        reopen();
+        RecordingHandler recovered = new RecordingHandler();
+        _journal.registerHandler(recovered, RECORD, REMOVE);
+        assertEquals("Unexpected live records after reopen", handler._live, recovered._live);
+    }
+
+    public void testSegmentIsNotCompactedBeforeRecordsItsTombstonesCancel() throws Exception
+    {
+        RecordingHandler handler = new RecordingHandler();
+        _journal.registerHandler(handler, RECORD, REMOVE);
+
+        final int secondSegmentStart = appendRecords(handler, 0, 2) - 1;
+        // the second segment cancels a record of the first, which remains well above the compaction threshold
+        removeRecords(handler, 0, 1);
+        final int thirdSegmentStart = appendRecords(handler, secondSegmentStart + 1, 3) - 1;
+        removeRecords(handler, secondSegmentStart, thirdSegmentStart);
+
+        assertFalse("Segment was compacted before the record its tombstone cancels", _journal.compact());
+
+        reopen();
+        handler = new RecordingHandler();
+        _journal.registerHandler(handler, RECORD, REMOVE);
+        assertFalse("Cancelled record was recovered", handler._live.containsKey(0));
+        assertFalse("Segment was compacted before the record its tombstone cancels after reopen", _journal.compact());
+
+        final int segmentCount = _journal.getSegmentCount();
+        removeRecords(handler, 1, secondSegmentStart);
+        while (_journal.compact())
+        {
+        }
+        assertTrue("The first two segments should have been compacted",
+                   _journal.getSegmentCount() <= segmentCount - 2);
+
+        Map<Integer, Long> live = new HashMap<>(handler._live);
+        reopen();
+        RecordingHandler recovered = new RecordingHandler();
+        _journal.registerHandler(recovered, RECORD, REMOVE);
+        assertEquals("Unexpected live records after reopen", live, recovered._live);
+    }
+
+    public void testReservedRecordsShareASegment() throws Exception
+    {
+        RecordingHandler handler = new RecordingHandler();
+        _journal.registerHandler(handler, RECORD, REMOVE);
+
+        appendRecords(handler, 0, 2);
+        _journal.reserve(1000, 1000);
+        assertEquals("Head should not have moved", 2, _journal.getSegmentCount());
+        _journal.reserve(SEGMENT_SIZE / 2, SEGMENT_SIZE / 2 - 100);
+        assertEquals("Head should have moved", 3, _journal.getSegmentCount());
+
+        try
+        {
+            _journal.reserve(SEGMENT_SIZE / 2, SEGMENT_SIZE / 2);
+            fail("Exception not thrown");
+        }
+        catch (StoreException e)
+        {
+            // pass
+        }
+    }
+
+    public void testSegmentWithUnhandledRecordsIsNotCompacted() throws Exception
+    {
+        long location = _journal.append(RECORD, true, buffer(1, 100));
+        _journal.release(location);
+        while (_journal.getSegmentCount() < 3)
+        {
+            _journal.append(REMOVE, false, buffer(1, 500));
+        }
+
+        assertFalse("Segment was compacted", _journal.compact());
+        assertEquals("Unexpected payload", buffer(1, 100), _journal.read(location));
+    }
+
+    public void testRecordLargerThanSegmentIsRejected() throws Exception
+    {
+        try
+        {
+            _journal.append(RECORD, true, ByteBuffer.allocate(SEGMENT_SIZE));
+            fail("Exception not thrown");
+        }
+        catch (StoreException e)
+        {
+            // pass
+        }
+    }
+
+    public void testJournalCannotBeOpenedTwice() throws Exception
+    {
+        Journal other = new Journal(_directory, getTestName(), SEGMENT_SIZE, 50);
+        try
+        {
+            other.open();
+            other.close();
+            fail("Exception not thrown");
+        }
+        catch (StoreException e)
+        {
+            // pass
+        }
+    }
+
+    /**
+     * Appends records of 100 bytes until the journal has the given number of segments.
+     *
+     * @return the id following that of the last record, which is the first in the newest segment
+     */
+    private int appendRecords(final RecordingHandler handler, final int firstId, final int segmentCount)
+    {
+        int id = firstId;
+        while (_journal.getSegmentCount() < segmentCount)
+        {
+            handler._live.put(id, _journal.append(RECORD, true, buffer(id, 100)));
+            id++;
+        }
+        return id;
+    }
+
+    private void removeRecords(final RecordingHandler handler, final int firstId, final int endId)
+    {
+        for (int id = firstId; id < endId; id++)
+        {
+            _journal.append(REMOVE, false, buffer(id, 4));
+            _journal.release(handler._live.remove(id));
+        }
+    }
+
+    private void reopen()
+    {
+        _journal.close();
+        _journal = new Journal(_directory, getTestName(), SEGMENT_SIZE, 50);
+        _journal.open();
+    }
+
+    private static ByteBuffer buffer(final int id, final int length)
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        buffer.putInt(id);
+        while (buffer.hasRemaining())
+        {
+            buffer.put((byte) id);
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private class RecordingHandler implements Journal.RecordHandler
+    {
+        private final Map<Integer, Long> _live = new HashMap<>();
+        private int _relocations;
+
+        @Override
+        public boolean recover(final byte type, final ByteBuffer payload, final long location)
+        {
+            int id = payload.getInt(0);
+            if (type == RECORD)
+            {
+                _live.put(id, location);
+                return true;
+            }
+            Long removedLocation = _live.remove(id);
+            if (removedLocation != null)
+            {
+                _journal.release(removedLocation);
+            }
+            return false;
+        }
+
+        @Override
+        public boolean isLive(final byte type, final ByteBuffer payload, final long location)
+        {
+            return type == RECORD && _live.containsValue(location);
+        }
+
+        @Override
+        public void relocated(final byte type, final ByteBuffer payload, final long oldLocation, final long newLocation)
+        {
+            _live.put(payload.getInt(0), newLocation);
+            _relocations++;
+        }
+    }
+}
@@ -30,6 +30,7 @@ import java.security.PrivilegedActionException;
 import java.security.PrivilegedExceptionAction;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
 
 import javax.security.auth.Subject;
@@ -44,6 +45,7 @@ import org.apache.qpid.server.model.Content;
 import org.apache.qpid.server.model.CustomRestHeaders;
 import org.apache.qpid.server.model.RestContentHeader;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import org.slf4j.Logger;
@@ -279,6 +281,39 @@ public abstract class AbstractServlet extends HttpServlet
         writeObjectToResponse(object, request, response);
     }
 
+    /**
+     * Writes the elements supplied by the iterator as a JSON array directly to the response stream, so that
+     * only one element needs to be held in memory at a time.
+     */
+    protected final void sendJsonArrayResponse(Iterator<?> elements,
+                                               HttpServletRequest request,
+                                               HttpServletResponse response,
+                                               int responseCode,
+                                               boolean sendCachingHeaders) throws IOException
+    {
+        response.setStatus(responseCode);
+        response.setContentType("application/json");
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+
+        if (sendCachingHeaders)
+        {
+            sendCachingHeadersOnResponse(response);
+        }
+
+        OutputStream stream = getOutputStream(request, response);
+        ObjectMapper mapper = ConfiguredObjectJacksonModule.newObjectMapper();
+        mapper.configure(SerializationFeature.INDENT_OUTPUT, true);
+        JsonGenerator generator = mapper.getFactory().createGenerator(stream);
+        generator.useDefaultPrettyPrinter();
+        generator.writeStartArray();
+        while (elements.hasNext())
+        {
+            mapper.writeValue(generator, elements.next());
+        }
+        generator.writeEndArray();
+        generator.close();
+    }
+
     protected final void sendJsonErrorResponse(HttpServletRequest request,
                                                HttpServletResponse response,
                                                int responseCode,
@@ -0,0 +1,172 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.management.plugin.servlet.rest;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.qpid.server.model.ConfiguredObject;
+
+/**
+ * Orders configured objects by a list of attribute or statistic names, each optionally prefixed with
+ * <code>+</code> (ascending, the default) or <code>-</code> (descending).  Objects lacking a value sort first.
+ * <p>
+ * Reading the values may build a map of all of an object's statistics, so {@link #sort(List)} reads them once per
+ * object rather than once per comparison.
+ */
+class ConfiguredObjectComparator implements Comparator<ConfiguredObject<?>>
+{
+    private final String[] _keys;
+    private final boolean[] _descending;
+
+    public ConfiguredObjectComparator(final String[] sortKeys)
+    {
+        _keys = new String[sortKeys.length];
+        _descending = new boolean[sortKeys.length];
+        for(int i = 0; i < sortKeys.length; i++)
+        {
+            String key = sortKeys[i];
+            if(key.startsWith("+") || key.startsWith(" "))
+            {
+                key = key.substring(1);
+            }
+            else if(key.startsWith("-"))
+            {
+                key = key.substring(1);
+                _descending[i] = true;
+            }
+            _keys[i] = key.trim();
+        }
+    }
+
+    /**
+     * Sorts the given objects in place.
+     */
+    public void sort(final List<ConfiguredObject<?>> objects)
+    {
+        final List<SortEntry> entries = new ArrayList<>(objects.size());
+        for(ConfiguredObject<?> object : objects)
+        {
+            entries.add(new SortEntry(object, getAttributeOrStatisticValues(object, _keys)));
+        }
+        Collections.sort(entries, new Comparator<SortEntry>()
+        {
+            @Override
+            public int compare(final SortEntry e1, final SortEntry e2)
+            {
+                return compareSortValues(e1._values, e2._values);
+            }
+        });
+        for(int i = 0; i < entries.size(); i++)
+        {
+            objects.set(i, entries.get(i)._object);
+        }
+    }
+
+    @Override
+    public int compare(final ConfiguredObject<?> o1, final ConfiguredObject<?> o2)
+    {
+        return compareSortValues(getAttributeOrStatisticValues(o1, _keys), getAttributeOrStatisticValues(o2, _keys));
+    }
+
+    private int compareSortValues(final Object[] values1, final Object[] values2)
+    {
+        for(int i = 0; i < _keys.length; i++)
+        {
+            int result = compareValues(values1[i], values2[i]);
+            if(result != 0)
+            {
+                return _descending[i] ? -result : result;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Reads the value of each of the given attribute or statistic names, fetching the object's statistics at most once.
+     */
+    static Object[] getAttributeOrStatisticValues(final ConfiguredObject<?> object, final String[] keys)
+    {
+        final Object[] values = new Object[keys.length];
+        final Collection<String> attributeNames = object.getAttributeNames();
+        Map<String, Number> statistics = null;
+        for(int i = 0; i < keys.length; i++)
+        {
+            if(attributeNames.contains(keys[i]))
+            {
+                values[i] = object.getAttribute(keys[i]);
+            }
+            else
+            {
+                if(statistics == null)
+                {
+                    statistics = object.getStatistics();
+                    if(statistics == null)
+                    {
+                        statistics = Collections.emptyMap();
+                    }
+                }
+                values[i] = statistics.get(keys[i]);
+            }
+        }
+        return values;
+    }
+
+    private static int compareValues(final Object left, final Object right)
+    {
+        if(left == null)
+        {
+            return right == null ? 0 : -1;
+        }
+        else if(right == null)
+        {
+            return 1;
+        }
+        else if(left instanceof Comparable && left.getClass() == right.getClass())
+        {
+            return ((Comparable) left).compareTo(right);
+        }
+        else if(left instanceof Number && right instanceof Number)
+        {
+            return Double.compare(((Number) left).doubleValue(), ((Number) right).doubleValue());
+        }
+        else
+        {
+            return String.valueOf(left).compareTo(String.valueOf(right));
+        }
+    }
+
+    private static final class SortEntry
+    {
+        private final ConfiguredObject<?> _object;
+        private final Object[] _values;
+
+        private SortEntry(final ConfiguredObject<?> object, final Object[] values)
+        {
+            _object = object;
+            _values = values;
+        }
+    }
+}
@@ -79,6 +79,20 @@ public class ConfiguredObjectToMapConverter
     }
 
 
+    /**
+     * Converts an object into a compact map holding only its identity and statistics, for use by
+     * monitoring clients which have no interest in the configured attributes or children.
+     */
+    public Map<String, Object> convertStatisticsToMap(final ConfiguredObject<?> confObject)
+    {
+        Map<String, Object> object = new LinkedHashMap<>();
+        object.put(ConfiguredObject.ID, confObject.getId());
+        object.put(ConfiguredObject.NAME, confObject.getName());
+        incorporateStatisticsIntoMap(confObject, object);
+        return object;
+    }
+
+
     private void incorporateAttributesIntoMap(
             final ConfiguredObject<?> confObject,
             Map<String, Object> object,
@@ -0,0 +1,324 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.qpid.server.management.plugin.servlet.rest;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.qpid.server.model.Broker;
+import org.apache.qpid.server.model.ConfiguredObject;
+import org.apache.qpid.server.model.ConfiguredObjectStatistic;
+import org.apache.qpid.server.model.Model;
+import org.apache.qpid.server.model.StatisticType;
+
+/**
+ * Exposes the managed statistics of the configured object tree in the Prometheus text exposition format.
+ * <p>
+ * The output is written directly to the response as the tree is walked.  The categories reported can be
+ * narrowed with the <code>include</code> and <code>exclude</code> parameters, each taking a comma separated
+ * list of category names (e.g. <code>?include=Queue,Exchange</code>).  Categories which neither match nor
+ * lead to a matching category are not visited.
+ */
+public class MetricsServlet extends AbstractServlet
+{
+    public static final String INCLUDE_PARAM = "include";
+    public static final String EXCLUDE_PARAM = "exclude";
+
+    static final String METRIC_PREFIX = "qpid_";
+    static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    public MetricsServlet()
+    {
+        super();
+    }
+
+    @Override
+    protected void doGetWithSubjectAndActor(HttpServletRequest request, HttpServletResponse response)
+            throws IOException, ServletException
+    {
+        final Broker<?> broker = getBroker();
+        final Model model = broker.getModel();
+        final Set<String> included = getCategoryNames(request, INCLUDE_PARAM);
+        final Set<String> excluded = getCategoryNames(request, EXCLUDE_PARAM);
+
+        final Map<Class<? extends ConfiguredObject>, List<ConfiguredObject<?>>> objectsByCategory =
+                new LinkedHashMap<>();
+        collectObjects(broker, Broker.class, model, included, excluded, objectsByCategory);
+
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(CONTENT_TYPE);
+        sendCachingHeadersOnResponse(response);
+
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(getOutputStream(request, response),
+                                                                       StandardCharsets.UTF_8)))
+        {
+            for (Map.Entry<Class<? extends ConfiguredObject>, List<ConfiguredObject<?>>> entry :
+                    objectsByCategory.entrySet())
+            {
+                writeCategory(writer, model, entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    private void collectObjects(final ConfiguredObject<?> object,
+                                   final Class<? extends ConfiguredObject> category,
+                                   final Model model,
+                                   final Set<String> included,
+                                   final Set<String> excluded,
+                                   final Map<Class<? extends ConfiguredObject>, List<ConfiguredObject<?>>> objectsByCategory)
+    {
+        if (isReported(category, included, excluded))
+        {
+            List<ConfiguredObject<?>> objects = objectsByCategory.get(category);
+            if (objects == null)
+            {
+                objects = new ArrayList<>();
+                objectsByCategory.put(category, objects);
+            }
+            objects.add(object);
+        }
+
+        for (Class<? extends ConfiguredObject> childCategory : model.getChildTypes(category))
+        {
+            // only follow the primary parent so that objects with several parents are reported once
+            if (model.getParentTypes(childCategory).iterator().next() != category
+                || !isVisited(childCategory, model, included, excluded))
+            {
+                continue;
+            }
+
+            Collection<? extends ConfiguredObject> children = object.getChildren(childCategory);
+            if (children != null)
+            {
+                for (ConfiguredObject child : children)
+                {
+                    collectObjects(child, childCategory, model, included, excluded, objectsByCategory);
+                }
+            }
+        }
+    }
+
+    private boolean isVisited(final Class<? extends ConfiguredObject> category,
+                              final Model model,
+                              final Set<String> included,
+                              final Set<String> excluded)
+    {
+        if (isReported(category, included, excluded))
+        {
+            return true;
+        }
+        for (Class<? extends ConfiguredObject> descendant : model.getDescendantCategories(category))
+        {
+            if (isReported(descendant, included, excluded))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isReported(final Class<? extends ConfiguredObject> category,
+                               final Set<String> included,
+                               final Set<String> excluded)
+    {
+        String name = category.getSimpleName().toLowerCase();
+        return (included.isEmpty() || included.contains(name)) && !excluded.contains(name);
+    }
+
+    private void writeCategory(final Writer writer,
+                               final Model model,
+                               final Class<? extends ConfiguredObject> category,
+                               final List<ConfiguredObject<?>> objects) throws IOException
+    {
+        // statistics are declared on the concrete classes, which may differ between objects of one category
+        final Map<Class<?>, Map<String, ConfiguredObjectStatistic>> statisticsByClass = new HashMap<>();
+        final Map<String, ConfiguredObjectStatistic> families = new LinkedHashMap<>();
+        for (ConfiguredObject<?> object : objects)
+        {
+            if (!statisticsByClass.containsKey(object.getClass()))
+            {
+                Map<String, ConfiguredObjectStatistic> statistics = new HashMap<>();
+                for (ConfiguredObjectStatistic statistic : model.getTypeRegistry().getStatistics(object.getClass()))
+                {
+                    statistics.put(statistic.getName(), statistic);
+                    if (!families.containsKey(statistic.getName()))
+                    {
+                        families.put(statistic.getName(), statistic);
+                    }
+                }
+                statisticsByClass.put(object.getClass(), statistics);
+            }
+        }
+
+        final String categoryName = category.getSimpleName().toLowerCase();
+        for (ConfiguredObjectStatistic family : families.values())
+        {
+            final boolean counter = family.getStatisticType() == StatisticType.CUMULATIVE;
+            final String metricName = getMetricName(categoryName, family.getName(), counter);
+
+            writer.write("# HELP ");
+            writer.write(metricName);
+            writer.write(' ');
+            writer.write(escapeHelp(family.getDescription()));
+            writer.write("\n# TYPE ");
+            writer.write(metricName);
+            writer.write(counter ? " counter\n" : " gauge\n");
+
+            for (ConfiguredObject<?> object : objects)
+            {
+                ConfiguredObjectStatistic statistic = statisticsByClass.get(object.getClass()).get(family.getName());
+                if (statistic != null)
+                {
+                    Object value = statistic.getValue(object);
+                    if (value instanceof Number)
+                    {
+                        writer.write(metricName);
+                        writeLabels(writer, model, object, category);
+                        writer.write(' ');
+                        writer.write(formatValue((Number) value));
+                        writer.write('\n');
+                    }
+                }
+            }
+        }
+    }
+
+    private void writeLabels(final Writer writer,
+                             final Model model,
+                             final ConfiguredObject<?> object,
+                             final Class<? extends ConfiguredObject> category) throws IOException
+    {
+        if (category == Broker.class)
+        {
+            return;
+        }
+        writer.write('{');
+        writeAncestorLabels(writer, model, object, category);
+        writer.write('}');
+    }
+
+    private void writeAncestorLabels(final Writer writer,
+                                     final Model model,
+                                     final ConfiguredObject<?> object,
+                                     final Class<? extends ConfiguredObject> category) throws IOException
+    {
+        Class<? extends ConfiguredObject> parentCategory = model.getParentTypes(category).iterator().next();
+        if (parentCategory != Broker.class)
+        {
+            ConfiguredObject<?> parent = object.getParent(parentCategory);
+            if (parent != null)
+            {
+                writeAncestorLabels(writer, model, parent, parentCategory);
+                writer.write(',');
+            }
+        }
+        writer.write(category.getSimpleName().toLowerCase());
+        writer.write("=\"");
+        writer.write(escapeLabelValue(object.getName()));
+        writer.write('"');
+    }
+
+    private Set<String> getCategoryNames(final HttpServletRequest request, final String paramName)
+    {
+        String[] values = request.getParameterValues(paramName);
+        if (values == null)
+        {
+            return Collections.emptySet();
+        }
+        Set<String> names = new HashSet<>();
+        for (String value : values)
+        {
+            for (String name : value.split(","))
+            {
+                if (name.trim().length() > 0)
+                {
+                    names.add(name.trim().toLowerCase());
+                }
+            }
+        }
+        return names;
+    }
+
+    static String getMetricName(final String categoryName, final String statisticName, final boolean counter)
+    {
+        StringBuilder name = new StringBuilder(METRIC_PREFIX).append(categoryName).append('_');
+        for (int i = 0; i < statisticName.length(); i++)
+        {
+            char c = statisticName.charAt(i);
+            if (Character.isUpperCase(c))
+            {
+                name.append('_').append(Character.toLowerCase(c));
+            }
+            else if (Character.isLetterOrDigit(c) || c == '_')
+            {
+                name.append(c);
+            }
+            else
+            {
+                name.append('_');
+            }
+        }
+        if (counter)
+        {
+            name.append("_total");
+        }
+        return name.toString();
+    }
+
+    static String formatValue(final Number value)
+    {
+        if (value instanceof Double || value instanceof Float)
+        {
+            double doubleValue = value.doubleValue();
+            if (Double.isNaN(doubleValue))
+            {
+                return "NaN";
+            }
+            else if (Double.isInfinite(doubleValue))
+            {
+                return doubleValue > 0 ? "+Inf" : "-Inf";
+            }
+        }
+        return String.valueOf(value);
+    }
+
+    static String escapeHelp(final String help)
+    {
+        return help == null ? "" : help.replace("\\", "\\\\").replace("\n", "\\n");
+    }
+
+    static String escapeLabelValue(final String value)
+    {
+        return value == null ? "" : value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
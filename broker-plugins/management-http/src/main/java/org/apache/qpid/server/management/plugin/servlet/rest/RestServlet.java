@@ -74,6 +74,10 @@ public class RestServlet extends AbstractServlet
     public static final String INCLUDE_SYS_CONTEXT_PARAM = "includeSysContext";
     public static final String INHERITED_ACTUALS_PARAM = "inheritedActuals";
     public static final String EXTRACT_INITIAL_CONFIG_PARAM = "extractInitialConfig";
+    public static final String ORDER_BY_PARAM = "orderBy";
+    public static final String OFFSET_PARAM = "offset";
+    public static final String LIMIT_PARAM = "limit";
+    public static final String STATISTICS_ONLY_PARAM = "statisticsOnly";
     public static final int SC_UNPROCESSABLE_ENTITY = 422;
 
     /**
@@ -90,6 +94,10 @@ public class RestServlet extends AbstractServlet
                                         INCLUDE_SYS_CONTEXT_PARAM,
                                         EXTRACT_INITIAL_CONFIG_PARAM,
                                         INHERITED_ACTUALS_PARAM,
+                                        ORDER_BY_PARAM,
+                                        OFFSET_PARAM,
+                                        LIMIT_PARAM,
+                                        STATISTICS_ONLY_PARAM,
                                         CONTENT_DISPOSITION_ATTACHMENT_FILENAME_PARAM));
     public static final int DEFAULT_DEPTH = 1;
     public static final int DEFAULT_OVERSIZE = 120;
@@ -299,17 +307,19 @@ public class RestServlet extends AbstractServlet
 
         Collection<ConfiguredObject<?>> filteredObj = new ArrayList<>(objects);
 
+        String[] filterKeys = filters.keySet().toArray(new String[filters.size()]);
         Iterator<ConfiguredObject<?>> iter = filteredObj.iterator();
 
         while(iter.hasNext())
         {
-            ConfiguredObject obj = iter.next();
-            for(Map.Entry<String, Collection<String>> entry : filters.entrySet())
+            ConfiguredObject<?> obj = iter.next();
+            Object[] values = ConfiguredObjectComparator.getAttributeOrStatisticValues(obj, filterKeys);
+            for(int i = 0; i < filterKeys.length; i++)
             {
-                Object value = obj.getAttribute(entry.getKey());
-                if(!entry.getValue().contains(String.valueOf(value)))
+                if(!filters.get(filterKeys[i]).contains(String.valueOf(values[i])))
                 {
                     iter.remove();
+                    break;
                 }
             }
 
@@ -361,7 +371,7 @@ public class RestServlet extends AbstractServlet
             {
                 // TODO - sort special params, everything else should act as a filter
                 String attachmentFilename = request.getParameter(CONTENT_DISPOSITION_ATTACHMENT_FILENAME_PARAM);
-                boolean extractInitialConfig = getBooleanParameterFromRequest(request, EXTRACT_INITIAL_CONFIG_PARAM);
+                final boolean extractInitialConfig = getBooleanParameterFromRequest(request, EXTRACT_INITIAL_CONFIG_PARAM);
 
                 if (attachmentFilename != null)
                 {
@@ -399,25 +409,98 @@ public class RestServlet extends AbstractServlet
                     inheritedActuals = getBooleanParameterFromRequest(request, INHERITED_ACTUALS_PARAM);
                 }
 
-                List<Map<String, Object>> output = new ArrayList<>();
-                for (ConfiguredObject configuredObject : allObjects)
-                {
+                final List<ConfiguredObject<?>> selectedObjects = selectPage(allObjects, request);
+                final int convertDepth = depth;
+                final boolean convertActuals = actuals;
+                final boolean convertInheritedActuals = inheritedActuals;
+                final boolean convertIncludeSystemContext = includeSystemContext;
+                final int convertOversizeThreshold = oversizeThreshold;
+                final boolean statisticsOnly = !extractInitialConfig
+                                               && getBooleanParameterFromRequest(request, STATISTICS_ONLY_PARAM);
+                final boolean isSecure = request.isSecure();
 
-                    output.add(_objectConverter.convertObjectToMap(configuredObject, getConfiguredClass(),
-                            depth, actuals, inheritedActuals, includeSystemContext, extractInitialConfig, oversizeThreshold, request.isSecure()));
+                boolean sendCachingHeaders = attachmentFilename == null;
+                if (extractInitialConfig && selectedObjects.size() == 1)
+                {
+                    sendJsonResponse(_objectConverter.convertObjectToMap(selectedObjects.get(0),
+                                                                         getConfiguredClass(),
+                                                                         depth,
+                                                                         actuals,
+                                                                         inheritedActuals,
+                                                                         includeSystemContext,
+                                                                         true,
+                                                                         oversizeThreshold,
+                                                                         isSecure),
+                                     request,
+                                     response,
+                                     HttpServletResponse.SC_OK,
+                                     sendCachingHeaders);
                 }
+                else
+                {
+                    // objects are converted one at a time as the response is written, so that the
+                    // complete response never needs to be held in memory
+                    final Iterator<ConfiguredObject<?>> objectIterator = selectedObjects.iterator();
+                    Iterator<Map<String, Object>> output = new Iterator<Map<String, Object>>()
+                    {
+                        @Override
+                        public boolean hasNext()
+                        {
+                            return objectIterator.hasNext();
+                        }
+
+                        @Override
+                        public Map<String, Object> next()
+                        {
+                            ConfiguredObject<?> configuredObject = objectIterator.next();
+                            if (statisticsOnly)
+                            {
+                                return _objectConverter.convertStatisticsToMap(configuredObject);
+                            }
+                            return _objectConverter.convertObjectToMap(configuredObject,
+                                                                       getConfiguredClass(),
+                                                                       convertDepth,
+                                                                       convertActuals,
+                                                                       convertInheritedActuals,
+                                                                       convertIncludeSystemContext,
+                                                                       extractInitialConfig,
+                                                                       convertOversizeThreshold,
+                                                                       isSecure);
+                        }
 
+                        @Override
+                        public void remove()
+                        {
+                            throw new UnsupportedOperationException();
+                        }
+                    };
 
-                boolean sendCachingHeaders = attachmentFilename == null;
-                sendJsonResponse(extractInitialConfig && output.size() == 1 ? output.get(0) : output,
-                        request,
-                        response,
-                        HttpServletResponse.SC_OK,
-                        sendCachingHeaders);
+                    sendJsonArrayResponse(output, request, response, HttpServletResponse.SC_OK, sendCachingHeaders);
+                }
             }
         }
     }
 
+    private List<ConfiguredObject<?>> selectPage(Collection<ConfiguredObject<?>> objects, HttpServletRequest request)
+    {
+        List<ConfiguredObject<?>> selected = new ArrayList<>(objects);
+
+        String orderBy = request.getParameter(ORDER_BY_PARAM);
+        if (orderBy != null && orderBy.trim().length() > 0)
+        {
+            new ConfiguredObjectComparator(orderBy.split(",")).sort(selected);
+        }
+
+        int offset = Math.max(0, getIntParameterFromRequest(request, OFFSET_PARAM, 0));
+        int limit = getIntParameterFromRequest(request, LIMIT_PARAM, -1);
+        if (offset >= selected.size())
+        {
+            return Collections.emptyList();
+        }
+        int end = limit < 0 ? selected.size() : (int) Math.min((long) offset + limit, selected.size());
+        return offset == 0 && end == selected.size() ? selected : selected.subList(offset, end);
+    }
+
     private boolean isSingleObjectRequest(HttpServletRequest request)
     {
         if (_hierarchy.length > 0)
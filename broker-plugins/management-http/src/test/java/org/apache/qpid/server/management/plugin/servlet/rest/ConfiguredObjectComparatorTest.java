@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.management.plugin.servlet.rest;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.qpid.server.model.ConfiguredObject;
+import org.apache.qpid.test.utils.QpidTestCase;
+
+public class ConfiguredObjectComparatorTest extends QpidTestCase
+{
+    private ConfiguredObject<?> _a;
+    private ConfiguredObject<?> _b;
+    private ConfiguredObject<?> _c;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+        _a = createObject("a", "x", 30L);
+        _b = createObject("b", "y", 10L);
+        _c = createObject("c", "x", 20L);
+    }
+
+    public void testOrderByAttribute()
+    {
+        assertOrder(new String[]{"name"}, _a, _b, _c);
+        assertOrder(new String[]{"-name"}, _c, _b, _a);
+    }
+
+    public void testOrderByStatistic()
+    {
+        assertOrder(new String[]{"depth"}, _b, _c, _a);
+        assertOrder(new String[]{"-depth"}, _a, _c, _b);
+    }
+
+    public void testOrderByMultipleKeys()
+    {
+        assertOrder(new String[]{"group", "-depth"}, _a, _c, _b);
+    }
+
+    public void testMissingValuesSortFirst()
+    {
+        ConfiguredObject<?> noStatistics = createObject("d", "x", null);
+        List<ConfiguredObject<?>> objects = new ArrayList<ConfiguredObject<?>>(Arrays.asList(_a, noStatistics));
+        Collections.sort(objects, new ConfiguredObjectComparator(new String[]{"depth"}));
+        assertEquals("Unexpected order", Arrays.asList(noStatistics, _a), objects);
+    }
+
+    public void testSortReadsStatisticsOncePerObject()
+    {
+        List<ConfiguredObject<?>> objects = new ArrayList<ConfiguredObject<?>>(Arrays.asList(_c, _a, _b));
+        new ConfiguredObjectComparator(new String[]{"depth", "-name"}).sort(objects);
+        assertEquals("Unexpected order", Arrays.asList(_b, _c, _a), objects);
+        for (ConfiguredObject<?> object : objects)
+        {
+            verify(object).getStatistics();
+        }
+    }
+
+    private void assertOrder(String[] keys, ConfiguredObject<?>... expected)
+    {
+        List<ConfiguredObject<?>> objects = new ArrayList<ConfiguredObject<?>>(Arrays.asList(_c, _a, _b));
+        Collections.sort(objects, new ConfiguredObjectComparator(keys));
+        assertEquals("Unexpected order for " + Arrays.toString(keys), Arrays.asList(expected), objects);
+
+        objects = new ArrayList<ConfiguredObject<?>>(Arrays.asList(_c, _a, _b));
+        new ConfiguredObjectComparator(keys).sort(objects);
+        assertEquals("Unexpected sorted order for " + Arrays.toString(keys), Arrays.asList(expected), objects);
+    }
+
+    private ConfiguredObject<?> createObject(String name, String group, Long depth)
+    {
+        ConfiguredObject<?> object = mock(ConfiguredObject.class);
+        when(object.getAttributeNames()).thenReturn(Arrays.asList("name", "group"));
+        when(object.getAttribute("name")).thenReturn(name);
+        when(object.getAttribute("group")).thenReturn(group);
+        when(object.getStatistics()).thenReturn(depth == null
+                                                        ? Collections.<String, Number>emptyMap()
+                                                        : Collections.<String, Number>singletonMap("depth", depth));
+        return object;
+    }
+}
@@ -35,6 +35,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
 
 import org.apache.qpid.server.model.ConfiguredObject;
 import org.apache.qpid.server.model.ConfiguredObjectAttribute;
@@ -75,6 +76,24 @@ public class ConfiguredObjectToMapConverterTest extends QpidTestCase
         assertEquals("Unexpected statistic value", statisticValue, statsAsMap.get(statisticName));
     }
 
+    public void testStatisticsOnlyConversion() throws Exception
+    {
+        final UUID id = UUID.randomUUID();
+        when(_configuredObject.getId()).thenReturn(id);
+        when(_configuredObject.getName()).thenReturn("testObject");
+        configureMockToReturnOneAttribute(_configuredObject, "attribute", "value");
+        when(_configuredObject.getStatistics()).thenReturn(Collections.singletonMap("statisticName", (Number) 10));
+
+        Map<String, Object> resultMap = _converter.convertStatisticsToMap(_configuredObject);
+
+        assertEquals("Unexpected number of entries", 3, resultMap.size());
+        assertEquals("Unexpected id", id, resultMap.get(ConfiguredObject.ID));
+        assertEquals("Unexpected name", "testObject", resultMap.get(ConfiguredObject.NAME));
+        assertFalse("Attributes should not be part of map", resultMap.containsKey("attribute"));
+        Map<String, Object> statsAsMap = (Map<String, Object>) resultMap.get(STATISTICS_MAP_KEY);
+        assertEquals("Unexpected statistic value", 10, statsAsMap.get("statisticName"));
+    }
+
     public void testConfiguredObjectWithSingleNonConfiguredObjectAttribute() throws Exception
     {
         final String attributeName = "attribute";
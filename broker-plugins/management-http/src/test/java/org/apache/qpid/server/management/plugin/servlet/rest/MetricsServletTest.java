@@ -0,0 +1,217 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.management.plugin.servlet.rest;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.qpid.server.model.Broker;
+import org.apache.qpid.server.model.BrokerModel;
+import org.apache.qpid.server.model.ConfiguredObject;
+import org.apache.qpid.server.model.ConfiguredObjectStatistic;
+import org.apache.qpid.server.model.ConfiguredObjectTypeRegistry;
+import org.apache.qpid.server.model.Exchange;
+import org.apache.qpid.server.model.Model;
+import org.apache.qpid.server.model.Queue;
+import org.apache.qpid.server.model.VirtualHost;
+import org.apache.qpid.server.model.VirtualHostNode;
+import org.apache.qpid.test.utils.QpidTestCase;
+
+public class MetricsServletTest extends QpidTestCase
+{
+    private Broker<?> _broker;
+    private VirtualHost<?, ?, ?> _virtualHost;
+    private HttpServletRequest _request;
+    private HttpServletResponse _response;
+    private ByteArrayOutputStream _output;
+    private MetricsServlet _servlet;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+
+        // a small hierarchy of broker -> node -> virtual host -> queue and exchange, reporting the statistics
+        // declared on the category interfaces
+        Model model = mock(Model.class);
+        ConfiguredObjectTypeRegistry typeRegistry = mock(ConfiguredObjectTypeRegistry.class);
+        when(model.getTypeRegistry()).thenReturn(typeRegistry);
+
+        _broker = createObject(Broker.class, "broker", model, typeRegistry);
+        when(_broker.getMessagesIn()).thenReturn(40L);
+
+        VirtualHostNode<?> node = createObject(VirtualHostNode.class, "node", model, typeRegistry);
+        addChild(model, _broker, Broker.class, node, VirtualHostNode.class);
+
+        _virtualHost = createObject(VirtualHost.class, "vhost", model, typeRegistry);
+        when(_virtualHost.getMessagesIn()).thenReturn(30L);
+        addChild(model, node, VirtualHostNode.class, _virtualHost, VirtualHost.class);
+
+        Queue<?> queue = createObject(Queue.class, "queue", model, typeRegistry);
+        when(queue.getQueueDepthMessages()).thenReturn(5);
+        when(queue.getParent(VirtualHost.class)).thenReturn(_virtualHost);
+
+        Exchange<?> exchange = createObject(Exchange.class, "exchange", model, typeRegistry);
+        when(exchange.getMessagesIn()).thenReturn(20L);
+        when(exchange.getParent(VirtualHost.class)).thenReturn(_virtualHost);
+
+        when(model.getChildTypes(VirtualHost.class)).thenReturn(Arrays.<Class<? extends ConfiguredObject>>asList(
+                Queue.class,
+                Exchange.class));
+        when(model.getParentTypes(Queue.class)).thenReturn(Collections.<Class<? extends ConfiguredObject>>singleton(
+                VirtualHost.class));
+        when(model.getParentTypes(Exchange.class)).thenReturn(Collections.<Class<? extends ConfiguredObject>>singleton(
+                VirtualHost.class));
+        when(_virtualHost.getChildren(Queue.class)).thenReturn((Collection) Collections.singletonList(queue));
+        when(_virtualHost.getChildren(Exchange.class)).thenReturn((Collection) Collections.singletonList(exchange));
+        when(_virtualHost.getParent(VirtualHostNode.class)).thenReturn(node);
+
+        _request = mock(HttpServletRequest.class);
+        _response = mock(HttpServletResponse.class);
+        _output = new ByteArrayOutputStream();
+        _servlet = new MetricsServlet()
+        {
+            @Override
+            protected Broker<?> getBroker()
+            {
+                return _broker;
+            }
+
+            @Override
+            public OutputStream getOutputStream(final HttpServletRequest request, final HttpServletResponse response)
+            {
+                return _output;
+            }
+        };
+    }
+
+    public void testAllCategoriesReported() throws Exception
+    {
+        String metrics = getMetrics();
+
+        verify(_response).setContentType(MetricsServlet.CONTENT_TYPE);
+        assertTrue("Broker metric missing: " + metrics, metrics.contains("\nqpid_broker_messages_in_total 40\n"));
+        assertTrue("Virtual host metric missing: " + metrics,
+                   metrics.contains("\nqpid_virtualhost_messages_in_total{virtualhostnode=\"node\",virtualhost=\"vhost\"} 30\n"));
+        assertTrue("Queue metric missing: " + metrics,
+                   metrics.contains("\n# TYPE qpid_queue_queue_depth_messages gauge\n"
+                                    + "qpid_queue_queue_depth_messages{virtualhostnode=\"node\",virtualhost=\"vhost\",queue=\"queue\"} 5\n"));
+        assertTrue("Exchange metric missing: " + metrics,
+                   metrics.contains("\n# TYPE qpid_exchange_messages_in_total counter\n"
+                                    + "qpid_exchange_messages_in_total{virtualhostnode=\"node\",virtualhost=\"vhost\",exchange=\"exchange\"} 20\n"));
+    }
+
+    public void testIncludeReportsOnlyNamedCategories() throws Exception
+    {
+        when(_request.getParameterValues(MetricsServlet.INCLUDE_PARAM)).thenReturn(new String[]{"Queue"});
+
+        String metrics = getMetrics();
+
+        assertTrue("Queue metric missing: " + metrics,
+                   metrics.contains("qpid_queue_queue_depth_messages{virtualhostnode=\"node\",virtualhost=\"vhost\",queue=\"queue\"} 5\n"));
+        assertFalse("Broker metrics should be omitted: " + metrics, metrics.contains("qpid_broker_"));
+        assertFalse("Virtual host metrics should be omitted: " + metrics, metrics.contains("qpid_virtualhost_"));
+        assertFalse("Exchange metrics should be omitted: " + metrics, metrics.contains("qpid_exchange_"));
+        verify(_virtualHost, never()).getChildren(Exchange.class);
+    }
+
+    public void testExcludeOmitsNamedCategories() throws Exception
+    {
+        when(_request.getParameterValues(MetricsServlet.EXCLUDE_PARAM)).thenReturn(new String[]{"queue, exchange"});
+
+        String metrics = getMetrics();
+
+        assertTrue("Broker metric missing: " + metrics, metrics.contains("qpid_broker_messages_in_total 40\n"));
+        assertTrue("Virtual host metric missing: " + metrics, metrics.contains("qpid_virtualhost_messages_in_total{"));
+        assertFalse("Queue metrics should be omitted: " + metrics, metrics.contains("qpid_queue_"));
+        assertFalse("Exchange metrics should be omitted: " + metrics, metrics.contains("qpid_exchange_"));
+        verify(_virtualHost, never()).getChildren(Queue.class);
+        verify(_virtualHost, never()).getChildren(Exchange.class);
+    }
+
+    public void testMetricName()
+    {
+        assertEquals("qpid_queue_queue_depth_messages",
+                     MetricsServlet.getMetricName("queue", "queueDepthMessages", false));
+        assertEquals("qpid_virtualhost_bytes_in_total",
+                     MetricsServlet.getMetricName("virtualhost", "bytesIn", true));
+    }
+
+    public void testFormatValue()
+    {
+        assertEquals("42", MetricsServlet.formatValue(42L));
+        assertEquals("1.5", MetricsServlet.formatValue(1.5d));
+        assertEquals("NaN", MetricsServlet.formatValue(Double.NaN));
+        assertEquals("+Inf", MetricsServlet.formatValue(Double.POSITIVE_INFINITY));
+        assertEquals("-Inf", MetricsServlet.formatValue(Double.NEGATIVE_INFINITY));
+    }
+
+    public void testEscaping()
+    {
+        assertEquals("a\\\"b\\\\c\\nd", MetricsServlet.escapeLabelValue("a\"b\\c\nd"));
+        assertEquals("a\"b\\\\c\\nd", MetricsServlet.escapeHelp("a\"b\\c\nd"));
+        assertEquals("", MetricsServlet.escapeHelp(null));
+    }
+
+    private String getMetrics() throws Exception
+    {
+        _servlet.doGetWithSubjectAndActor(_request, _response);
+        return "\n" + new String(_output.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private <C extends ConfiguredObject> C createObject(final Class<C> category,
+                                                        final String name,
+                                                        final Model model,
+                                                        final ConfiguredObjectTypeRegistry typeRegistry)
+    {
+        C object = mock(category);
+        when(object.getName()).thenReturn(name);
+        when(object.getModel()).thenReturn(model);
+        Collection<ConfiguredObjectStatistic> statistics =
+                BrokerModel.getInstance().getTypeRegistry().getStatistics(category);
+        when(typeRegistry.getStatistics(object.getClass())).thenReturn(statistics);
+        return object;
+    }
+
+    private void addChild(final Model model,
+                          final ConfiguredObject<?> parent,
+                          final Class<? extends ConfiguredObject> parentCategory,
+                          final ConfiguredObject<?> child,
+                          final Class<? extends ConfiguredObject> childCategory)
+    {
+        when(model.getChildTypes(parentCategory)).thenReturn(
+                Collections.<Class<? extends ConfiguredObject>>singletonList(childCategory));
+        when(model.getParentTypes(childCategory)).thenReturn(
+                Collections.<Class<? extends ConfiguredObject>>singleton(parentCategory));
+        when(parent.getChildren(childCategory)).thenReturn((Collection) Collections.singletonList(child));
+    }
+}
@@ -55,6 +55,13 @@ public class CommonProperties
     public static final String HANDSHAKE_TIMEOUT_PROP_NAME = "qpid.handshake_timeout";
     public static final int HANDSHAKE_TIMEOUT_DEFAULT = 2;
 
+    /**
+     * The range set implementation used to track 0-10 command and message ids: "compact" for the array backed
+     * implementation, or "list" for the implementation holding a list of ranges
+     */
+    public static final String RANGE_SET_IMPLEMENTATION_PROP_NAME = "qpid.range_set_implementation";
+    public static final String RANGE_SET_IMPLEMENTATION_DEFAULT = "compact";
+
     /** The name of the version properties file to load from the class path. */
     public static final String VERSION_RESOURCE = "qpidversion.properties";
 
@@ -33,6 +33,8 @@ import java.util.concurrent.ConcurrentMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.apache.qpid.bytebuffer.QpidByteBuffer;
+
 /**
  * A short string is a representation of an AMQ Short String
  * Short strings differ from the Java String class by being limited to on ASCII characters (0-127)
@@ -45,6 +47,14 @@ public final class AMQShortString implements Comparable<AMQShortString>
      * The maximum number of octets in AMQ short string as defined in AMQP specification
      */
     public static final int MAX_LENGTH = 255;
+
+    /**
+     * The number of slots in each of the caches of canonical short string instances, rounded up to a power of two.
+     * A value of zero disables the caches.
+     */
+    public static final String CACHE_SIZE_PROP_NAME = "qpid.amqshortstring_cache_size";
+    public static final int DEFAULT_CACHE_SIZE = 4096;
+
     private static final byte MINUS = (byte)'-';
     private static final byte ZERO = (byte) '0';
 
@@ -60,6 +70,19 @@ public final class AMQShortString implements Comparable<AMQShortString>
 
     public static final AMQShortString EMPTY_STRING = new AMQShortString((String)null);
 
+    /*
+     * Exchange names, routing keys and consumer tags repeat frame after frame on the wire.  These direct mapped
+     * caches hold the last instance seen for each slot so that decoding (keyed by the hash of the encoded bytes)
+     * and construction from a String (keyed by the String's hash) can hand back a canonical instance whose hash code
+     * and String form have already been computed.  Slots are overwritten on collision, so the caches are bounded.
+     * Reads and writes are deliberately unsynchronized: instances are immutable apart from their idempotently
+     * computed hash code and String form, so a racing reader sees either a complete instance or misses.
+     */
+    private static final int CACHE_SIZE = getCacheSize();
+    private static final int CACHE_MASK = CACHE_SIZE - 1;
+    private static final AMQShortString[] ENCODED_CACHE = new AMQShortString[CACHE_SIZE];
+    private static final AMQShortString[] STRING_CACHE = new AMQShortString[CACHE_SIZE];
+
     public AMQShortString(byte[] data)
     {
         if (data == null)
@@ -134,12 +157,93 @@ public final class AMQShortString implements Comparable<AMQShortString>
                                                    + " bytes.");
 
             }
+            final int position = buffer.position();
+            int hash = 0;
+            for (int i = 0; i < length; i++)
+            {
+                hash = (31 * hash) + buffer.get(position + i);
+            }
+
+            if (CACHE_SIZE != 0)
+            {
+                final int slot = hash & CACHE_MASK;
+                final AMQShortString cached = ENCODED_CACHE[slot];
+                if (cached != null && cached.hashCode() == hash && cached.equalsEncoded(buffer, position, length))
+                {
+                    buffer.position(position + length);
+                    return cached;
+                }
+            }
+
             byte[] data = new byte[length];
             buffer.get(data);
-            return new AMQShortString(data, 0, length);
+            final AMQShortString shortString = new AMQShortString(data, 0, length);
+            shortString._hashCode = hash;
+            if (CACHE_SIZE != 0)
+            {
+                ENCODED_CACHE[hash & CACHE_MASK] = shortString;
+            }
+            return shortString;
+        }
+    }
+
+    /**
+     * Returns a short string equal to the given value, reusing a previously created canonical instance if one is
+     * cached.  Intended for values which are likely to repeat such as exchange names and routing keys.
+     *
+     * @param value the value, may be null
+     * @return the short string, or null if the value was null
+     */
+    public static AMQShortString createAMQShortString(String value)
+    {
+        if (value == null)
+        {
+            return null;
+        }
+        else if (CACHE_SIZE == 0)
+        {
+            return new AMQShortString(value);
+        }
+        else
+        {
+            final int slot = value.hashCode() & CACHE_MASK;
+            final AMQShortString cached = STRING_CACHE[slot];
+            if (cached != null && value.equals(cached._asString))
+            {
+                return cached;
+            }
+            final AMQShortString shortString = new AMQShortString(value);
+            STRING_CACHE[slot] = shortString;
+            return shortString;
         }
     }
 
+    private boolean equalsEncoded(final ByteBuffer buffer, final int position, final int length)
+    {
+        if (length != _length)
+        {
+            return false;
+        }
+        for (int i = 0; i < length; i++)
+        {
+            if (_data[_offset + i] != buffer.get(position + i))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int getCacheSize()
+    {
+        final int requestedSize = Integer.getInteger(CACHE_SIZE_PROP_NAME, DEFAULT_CACHE_SIZE);
+        if (requestedSize <= 0)
+        {
+            return 0;
+        }
+        return Integer.highestOneBit(Math.min(requestedSize, 1 << 20) * 2 - 1);
+    }
+
     public AMQShortString(byte[] data, final int offset, final int length)
     {
         if (length > MAX_LENGTH)
@@ -209,6 +313,13 @@ public final class AMQShortString implements Comparable<AMQShortString>
 
     }
 
+    public void writeToBuffer(QpidByteBuffer buffer)
+    {
+        final int size = length();
+        buffer.put((byte) size);
+        buffer.put(_data, _offset, size);
+    }
+
 
     public boolean equals(Object o)
     {
@@ -22,6 +22,7 @@ package org.apache.qpid.framing;
 
 import java.io.DataOutput;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 import org.apache.qpid.QpidException;
 import org.apache.qpid.bytebuffer.QpidByteBuffer;
@@ -41,6 +42,9 @@ public class ContentHeaderBody implements AMQBody
     /** must never be null */
     private final BasicContentHeaderProperties _properties;
 
+    /** encoded form of the fixed part of the header, reused while the body size and property flags are unchanged */
+    private volatile EncodedHeader _encodedHeader;
+
     public ContentHeaderBody(MarkableDataInput buffer, long size) throws AMQFrameDecodingException, IOException
     {
         buffer.readUnsignedShort();
@@ -104,16 +108,46 @@ public class ContentHeaderBody implements AMQBody
     public long writePayload(final ByteBufferSender sender) throws IOException
     {
         QpidByteBuffer data = QpidByteBuffer.allocateDirect(HEADER_SIZE);
-        EncodingUtils.writeUnsignedShort(data, CLASS_ID);
-        EncodingUtils.writeUnsignedShort(data, 0);
-        data.putLong(_bodySize);
-        EncodingUtils.writeUnsignedShort(data, _properties.getPropertyFlags());
+        data.put(getEncodedHeader());
         data.flip();
         sender.send(data);
         data.dispose();
         return HEADER_SIZE + _properties.writePropertyListPayload(sender);
     }
 
+    private byte[] getEncodedHeader()
+    {
+        final long bodySize = _bodySize;
+        final int propertyFlags = _properties.getPropertyFlags();
+        EncodedHeader encodedHeader = _encodedHeader;
+        if (encodedHeader == null
+            || encodedHeader._bodySize != bodySize
+            || encodedHeader._propertyFlags != propertyFlags)
+        {
+            encodedHeader = new EncodedHeader(bodySize, propertyFlags);
+            _encodedHeader = encodedHeader;
+        }
+        return encodedHeader._bytes;
+    }
+
+    private static final class EncodedHeader
+    {
+        private final long _bodySize;
+        private final int _propertyFlags;
+        private final byte[] _bytes = new byte[HEADER_SIZE];
+
+        private EncodedHeader(final long bodySize, final int propertyFlags)
+        {
+            _bodySize = bodySize;
+            _propertyFlags = propertyFlags;
+            ByteBuffer.wrap(_bytes)
+                    .putShort((short) CLASS_ID)
+                    .putShort((short) 0)
+                    .putLong(bodySize)
+                    .putShort((short) propertyFlags);
+        }
+    }
+
     public void handle(final int channelId, final AMQVersionAwareProtocolSession session)
             throws QpidException
     {
@@ -193,11 +227,13 @@ public class ContentHeaderBody implements AMQBody
 
     public void dispose()
     {
+        _encodedHeader = null;
         _properties.dispose();
     }
 
     public void clearEncodedForm()
     {
+        _encodedHeader = null;
         _properties.clearEncodedForm();
     }
 }
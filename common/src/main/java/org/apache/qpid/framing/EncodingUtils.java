@@ -245,6 +245,18 @@ public class EncodingUtils
         }
     }
 
+    public static void writeShortStringBytes(QpidByteBuffer buffer, AMQShortString s)
+    {
+        if (s != null)
+        {
+            s.writeToBuffer(buffer);
+        }
+        else
+        {
+            buffer.put((byte) 0);
+        }
+    }
+
     public static void writeLongStringBytes(DataOutput buffer, String s) throws IOException
     {
         if (s != null)
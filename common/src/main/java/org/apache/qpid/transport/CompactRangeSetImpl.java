@@ -0,0 +1,345 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.transport;
+
+import static org.apache.qpid.util.Serial.gt;
+import static org.apache.qpid.util.Serial.le;
+import static org.apache.qpid.util.Serial.lt;
+import static org.apache.qpid.util.Serial.max;
+import static org.apache.qpid.util.Serial.min;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A range set holding the bounds of its ranges in a single array of ints, lower and upper bound of each range in turn,
+ * ordered by serial number.
+ *
+ * The range a value falls into or next to is found by binary search, so adding to or querying a fragmented set does
+ * not walk every range, and no objects are allocated except when the array needs to grow or a {@link Range} is asked
+ * for.  The bounds may be read without allocation through {@link #getLower(int)} and {@link #getUpper(int)}.
+ */
+public class CompactRangeSetImpl implements RangeSet
+{
+    private static final int DEFAULT_CAPACITY = 4;
+
+    private int[] _bounds;
+    private int _size;
+
+    public CompactRangeSetImpl()
+    {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public CompactRangeSetImpl(int size)
+    {
+        _bounds = new int[2 * Math.max(size, 1)];
+    }
+
+    public CompactRangeSetImpl(CompactRangeSetImpl copy)
+    {
+        _bounds = Arrays.copyOf(copy._bounds, Math.max(2 * copy._size, 2));
+        _size = copy._size;
+    }
+
+    public int size()
+    {
+        return _size;
+    }
+
+    public int getLower(int index)
+    {
+        checkIndex(index);
+        return _bounds[2 * index];
+    }
+
+    public int getUpper(int index)
+    {
+        checkIndex(index);
+        return _bounds[2 * index + 1];
+    }
+
+    public Iterator<Range> iterator()
+    {
+        return new RangeIterator();
+    }
+
+    public Range getFirst()
+    {
+        checkIndex(0);
+        return Range.newInstance(_bounds[0], _bounds[1]);
+    }
+
+    public Range getLast()
+    {
+        checkIndex(_size - 1);
+        return Range.newInstance(_bounds[2 * _size - 2], _bounds[2 * _size - 1]);
+    }
+
+    public boolean includes(Range range)
+    {
+        int index = indexOfFirstRangeNotBelow(range.getLower());
+        return index < _size
+               && le(_bounds[2 * index], range.getLower())
+               && le(range.getUpper(), _bounds[2 * index + 1]);
+    }
+
+    public boolean includes(int n)
+    {
+        int index = indexOfFirstRangeNotBelow(n);
+        return index < _size && le(_bounds[2 * index], n);
+    }
+
+    public void add(Range range)
+    {
+        add(range.getLower(), range.getUpper());
+    }
+
+    public void add(int lower, int upper)
+    {
+        // ranges are usually added in order, so try extending or appending to the last range first
+        if (_size == 0 || gt(lower, _bounds[2 * _size - 1] + 1))
+        {
+            insert(_size, lower, upper);
+            return;
+        }
+
+        // the ranges from start (inclusive) to end (exclusive) overlap or adjoin the added range
+        int start = indexOfFirstRangeNotBelow(lower - 1);
+        int end = indexOfFirstRangeAbove(upper + 1, start);
+
+        if (start == end)
+        {
+            insert(start, lower, upper);
+        }
+        else
+        {
+            _bounds[2 * start] = min(lower, _bounds[2 * start]);
+            _bounds[2 * start + 1] = max(upper, _bounds[2 * end - 1]);
+            remove(start + 1, end);
+        }
+    }
+
+    public void add(int value)
+    {
+        add(value, value);
+    }
+
+    public void subtract(final RangeSet other)
+    {
+        final int otherSize = other.size();
+        if (_size == 0 || otherSize == 0)
+        {
+            return;
+        }
+
+        final int[] result = new int[2 * (_size + otherSize)];
+        int resultSize = 0;
+        int otherIndex = 0;
+
+        for (int index = 0; index < _size; index++)
+        {
+            int lower = _bounds[2 * index];
+            final int upper = _bounds[2 * index + 1];
+            boolean remaining = true;
+
+            while (otherIndex < otherSize && lt(other.getUpper(otherIndex), lower))
+            {
+                otherIndex++;
+            }
+
+            while (otherIndex < otherSize && le(other.getLower(otherIndex), upper))
+            {
+                final int otherLower = other.getLower(otherIndex);
+                final int otherUpper = other.getUpper(otherIndex);
+                if (lt(lower, otherLower))
+                {
+                    result[2 * resultSize] = lower;
+                    result[2 * resultSize + 1] = otherLower - 1;
+                    resultSize++;
+                }
+                if (lt(otherUpper, upper))
+                {
+                    lower = otherUpper + 1;
+                    otherIndex++;
+                }
+                else
+                {
+                    // the other range may also cover the following ranges
+                    remaining = false;
+                    break;
+                }
+            }
+
+            if (remaining)
+            {
+                result[2 * resultSize] = lower;
+                result[2 * resultSize + 1] = upper;
+                resultSize++;
+            }
+        }
+
+        _bounds = result;
+        _size = resultSize;
+    }
+
+    public void clear()
+    {
+        _size = 0;
+    }
+
+    public RangeSet copy()
+    {
+        return new CompactRangeSetImpl(this);
+    }
+
+    /**
+     * @return the index of the first range whose upper bound is not below the given value, or the size of the set if
+     * there is none
+     */
+    private int indexOfFirstRangeNotBelow(final int value)
+    {
+        int low = 0;
+        int high = _size;
+        while (low < high)
+        {
+            int mid = (low + high) >>> 1;
+            if (lt(_bounds[2 * mid + 1], value))
+            {
+                low = mid + 1;
+            }
+            else
+            {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return the index, from the given index onwards, of the first range whose lower bound is above the given value,
+     * or the size of the set if there is none
+     */
+    private int indexOfFirstRangeAbove(final int value, final int from)
+    {
+        int low = from;
+        int high = _size;
+        while (low < high)
+        {
+            int mid = (low + high) >>> 1;
+            if (le(_bounds[2 * mid], value))
+            {
+                low = mid + 1;
+            }
+            else
+            {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void insert(final int index, final int lower, final int upper)
+    {
+        if (2 * _size == _bounds.length)
+        {
+            _bounds = Arrays.copyOf(_bounds, 2 * _bounds.length);
+        }
+        if (index < _size)
+        {
+            System.arraycopy(_bounds, 2 * index, _bounds, 2 * index + 2, 2 * (_size - index));
+        }
+        _bounds[2 * index] = lower;
+        _bounds[2 * index + 1] = upper;
+        _size++;
+    }
+
+    /**
+     * Removes the ranges from the start index (inclusive) to the end index (exclusive).
+     */
+    private void remove(final int start, final int end)
+    {
+        if (end < _size)
+        {
+            System.arraycopy(_bounds, 2 * end, _bounds, 2 * start, 2 * (_size - end));
+        }
+        _size -= end - start;
+    }
+
+    private void checkIndex(final int index)
+    {
+        if (index < 0 || index >= _size)
+        {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + _size);
+        }
+    }
+
+    public String toString()
+    {
+        StringBuilder str = new StringBuilder();
+        str.append("{");
+        for (int index = 0; index < _size; index++)
+        {
+            if (index != 0)
+            {
+                str.append(", ");
+            }
+            str.append("[").append(_bounds[2 * index]).append(", ").append(_bounds[2 * index + 1]).append("]");
+        }
+        str.append("}");
+        return str.toString();
+    }
+
+    private class RangeIterator implements Iterator<Range>
+    {
+        private int _next;
+        private boolean _removable;
+
+        public boolean hasNext()
+        {
+            return _next < _size;
+        }
+
+        public Range next()
+        {
+            if (_next >= _size)
+            {
+                throw new NoSuchElementException();
+            }
+            Range range = Range.newInstance(_bounds[2 * _next], _bounds[2 * _next + 1]);
+            _next++;
+            _removable = true;
+            return range;
+        }
+
+        public void remove()
+        {
+            if (!_removable)
+            {
+                throw new IllegalStateException();
+            }
+            _next--;
+            CompactRangeSetImpl.this.remove(_next, _next + 1);
+            _removable = false;
+        }
+    }
+}
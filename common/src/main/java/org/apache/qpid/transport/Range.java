@@ -87,6 +87,26 @@ public abstract class Range implements RangeSet
         return 1;
     }
 
+    public int getLower(int index)
+    {
+        checkIndex(index);
+        return getLower();
+    }
+
+    public int getUpper(int index)
+    {
+        checkIndex(index);
+        return getUpper();
+    }
+
+    private void checkIndex(int index)
+    {
+        if (index != 0)
+        {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: 1");
+        }
+    }
+
     public Iterator<Range> iterator()
     {
         return new RangeIterator();
@@ -33,6 +33,16 @@ public interface RangeSet extends Iterable<Range>
 
     int size();
 
+    /**
+     * @return the lower bound of the range at the given position, without allocating a {@link Range}
+     */
+    int getLower(int index);
+
+    /**
+     * @return the upper bound of the range at the given position, without allocating a {@link Range}
+     */
+    int getUpper(int index);
+
     Iterator<Range> iterator();
 
     Range getFirst();
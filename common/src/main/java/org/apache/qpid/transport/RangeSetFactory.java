@@ -20,19 +20,25 @@
  */
 package org.apache.qpid.transport;
 
+import org.apache.qpid.configuration.CommonProperties;
+
 public class RangeSetFactory
 {
+    private static final boolean USE_LIST_RANGE_SET =
+            "list".equalsIgnoreCase(System.getProperty(CommonProperties.RANGE_SET_IMPLEMENTATION_PROP_NAME,
+                                                       CommonProperties.RANGE_SET_IMPLEMENTATION_DEFAULT));
+
     private RangeSetFactory()
     {
     }
 
     public static RangeSet createRangeSet()
     {
-        return new RangeSetImpl();
+        return USE_LIST_RANGE_SET ? new RangeSetImpl() : new CompactRangeSetImpl();
     }
 
     public static RangeSet createRangeSet(int size)
     {
-        return new RangeSetImpl(size);
+        return USE_LIST_RANGE_SET ? new RangeSetImpl(size) : new CompactRangeSetImpl(size);
     }
 }
@@ -53,6 +53,16 @@ public class RangeSetImpl implements RangeSet
         return ranges.size();
     }
 
+    public int getLower(int index)
+    {
+        return ranges.get(index).getLower();
+    }
+
+    public int getUpper(int index)
+    {
+        return ranges.get(index).getUpper();
+    }
+
     public Iterator<Range> iterator()
     {
         return ranges.iterator();
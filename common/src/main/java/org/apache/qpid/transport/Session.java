@@ -41,11 +41,14 @@ import static org.apache.qpid.util.Serial.max;
 import static org.apache.qpid.util.Strings.toUTF8;
 
 import java.nio.ByteBuffer;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -60,6 +63,9 @@ public class Session extends SessionInvoker
 {
     private static final Logger LOGGER = LoggerFactory.getLogger(Session.class);
 
+    private static final AtomicIntegerFieldUpdater<Session> MAX_COMPLETE_UPDATER =
+            AtomicIntegerFieldUpdater.newUpdater(Session.class, "maxComplete");
+
     public enum State { NEW, DETACHED, RESUMING, OPEN, CLOSING, CLOSED }
 
     static class DefaultSessionListener implements SessionListener
@@ -113,11 +119,15 @@ public class Session extends SessionInvoker
     // outgoing command count
     private int commandsOut = 0;
     private final int commandLimit = Integer.getInteger("qpid.session.command_limit", 64 * 1024);
-    private Map<Integer,Method> commands = new HashMap<Integer, Method>();
+    // outgoing commands retained until completed; issuing commands is serialised by commandsLock, whereas
+    // completions update the retained commands, their size and maxComplete without it, and take commandsLock
+    // only to wake threads that are waiting for commands to complete
+    private final Map<Integer,Method> commands = new ConcurrentHashMap<Integer, Method>();
     private final Object commandsLock = new Object();
-    private int commandBytes = 0;
+    private final AtomicInteger commandBytes = new AtomicInteger();
     private int byteLimit = Integer.getInteger("qpid.session.byte_limit", 1024*1024);
-    private int maxComplete = commandsOut - 1;
+    private volatile int maxComplete = commandsOut - 1;
+    private final AtomicInteger completionWaiters = new AtomicInteger();
     private boolean needSync = false;
 
     private State state = NEW;
@@ -550,31 +560,43 @@ public class Session extends SessionInvoker
         {
             LOGGER.debug("{} complete({}, {})", this, lower, upper);
         }
-        synchronized (commandsLock)
+        for (int id = max(maxComplete, lower); le(id, upper); id++)
         {
-            int old = maxComplete;
-            for (int id = max(maxComplete, lower); le(id, upper); id++)
+            Method m = removeCommand(id);
+            if (m != null)
             {
-                Method m = removeCommand(id);
-                if (m != null)
-                {
-                    commandBytes -= m.getBodySize();
-                    m.complete();
-                }
+                commandBytes.addAndGet(-m.getBodySize());
+                m.complete();
             }
-            if (le(lower, maxComplete + 1))
+        }
+
+        boolean advanced = false;
+        int old = maxComplete;
+        while (le(lower, old + 1) && gt(upper, old))
+        {
+            if (MAX_COMPLETE_UPDATER.compareAndSet(this, old, upper))
             {
-                maxComplete = max(maxComplete, upper);
+                advanced = true;
+                break;
             }
+            old = maxComplete;
+        }
 
-            if(LOGGER.isDebugEnabled())
+        if(LOGGER.isDebugEnabled())
+        {
+            LOGGER.debug("{}   commands remaining: {}", this, commandsOut - maxComplete);
+        }
+
+        // a waiter registers itself before checking whether the commands it waits for have completed, so if it
+        // is not seen here, it will see the progress made above
+        if (completionWaiters.get() > 0)
+        {
+            synchronized (commandsLock)
             {
-                LOGGER.debug("{}   commands remaining: {}", this, commandsOut - maxComplete);
+                commandsLock.notifyAll();
             }
-
-            commandsLock.notifyAll();
-            return gt(maxComplete, old);
         }
+        return advanced;
     }
 
     void received(Method m)
@@ -600,7 +622,7 @@ public class Session extends SessionInvoker
 
     protected boolean isBytesFull()
     {
-        return commandBytes >= byteLimit;
+        return commandBytes.get() >= byteLimit;
     }
 
     protected boolean isCommandsFull(int id)
@@ -688,30 +710,38 @@ public class Session extends SessionInvoker
                 if (isFull(next))
                 {
                     Waiter w = new Waiter(commandsLock, timeout);
-                    while (w.hasTime() && isFull(next) && state != CLOSED)
+                    completionWaiters.incrementAndGet();
+                    try
                     {
-                        if (state == OPEN || state == RESUMING)
+                        while (w.hasTime() && isFull(next) && state != CLOSED)
                         {
-                            try
+                            if (state == OPEN || state == RESUMING)
                             {
-                                sessionFlush(COMPLETED);
-                            }
-                            catch (SenderException e)
-                            {
-                                if (!closing)
+                                try
                                 {
-                                    // if expiry is > 0 then this will
-                                    // happen again on resume
-                                    LOGGER.error("error sending flush (full replay buffer)", e);
+                                    sessionFlush(COMPLETED);
                                 }
-                                else
+                                catch (SenderException e)
                                 {
-                                    e.rethrow();
+                                    if (!closing)
+                                    {
+                                        // if expiry is > 0 then this will
+                                        // happen again on resume
+                                        LOGGER.error("error sending flush (full replay buffer)", e);
+                                    }
+                                    else
+                                    {
+                                        e.rethrow();
+                                    }
                                 }
                             }
+                            checkFailoverRequired("Command was interrupted because of failover, before being sent");
+                            w.await();
                         }
-                        checkFailoverRequired("Command was interrupted because of failover, before being sent");
-                        w.await();
+                    }
+                    finally
+                    {
+                        completionWaiters.decrementAndGet();
                     }
                 }
 
@@ -745,7 +775,7 @@ public class Session extends SessionInvoker
                 if ((replayTransfer) || m.hasCompletionListener())
                 {
                     setCommand(next, m);
-                    commandBytes += m.getBodySize();
+                    commandBytes.addAndGet(m.getBodySize());
                 }
                 if (autoSync)
                 {
@@ -836,14 +866,22 @@ public class Session extends SessionInvoker
             }
 
             Waiter w = new Waiter(commandsLock, timeout);
-            while (w.hasTime() && state != CLOSED && lt(maxComplete, point))
+            completionWaiters.incrementAndGet();
+            try
             {
-                checkFailoverRequired("Session sync was interrupted by failover.");
-                if(LOGGER.isDebugEnabled())
+                while (w.hasTime() && state != CLOSED && lt(maxComplete, point))
                 {
-                    LOGGER.debug("{}   waiting for[{}]: {}, {}", this, point, maxComplete, commands);
+                    checkFailoverRequired("Session sync was interrupted by failover.");
+                    if(LOGGER.isDebugEnabled())
+                    {
+                        LOGGER.debug("{}   waiting for[{}]: {}, {}", this, point, maxComplete, commands);
+                    }
+                    w.await();
                 }
-                w.await();
+            }
+            finally
+            {
+                completionWaiters.decrementAndGet();
             }
 
             if (lt(maxComplete, point))
@@ -866,16 +904,12 @@ public class Session extends SessionInvoker
         }
     }
 
-    private Map<Integer,ResultFuture<?>> results = new HashMap<Integer,ResultFuture<?>>();
-    private ExecutionException exception = null;
+    private final Map<Integer,ResultFuture<?>> results = new ConcurrentHashMap<Integer,ResultFuture<?>>();
+    private final AtomicReference<ExecutionException> exception = new AtomicReference<ExecutionException>();
 
     void result(int command, Struct result)
     {
-        ResultFuture<?> future;
-        synchronized (results)
-        {
-            future = results.remove(command);
-        }
+        ResultFuture<?> future = results.remove(command);
 
         if (future != null)
         {
@@ -891,23 +925,16 @@ public class Session extends SessionInvoker
 
     void setException(ExecutionException exc)
     {
-        synchronized (results)
+        if (!exception.compareAndSet(null, exc))
         {
-            if (exception != null)
-            {
-                throw new IllegalStateException(
-                        String.format("too many exceptions: %s, %s", exception, exc));
-            }
-            exception = exc;
+            throw new IllegalStateException(
+                    String.format("too many exceptions: %s, %s", exception.get(), exc));
         }
     }
 
     ExecutionException getException()
     {
-        synchronized (results)
-        {
-            return exception;
-        }
+        return exception.get();
     }
 
     protected <T> Future<T> invoke(Method m, Class<T> klass)
@@ -916,10 +943,7 @@ public class Session extends SessionInvoker
         {
             int command = commandsOut;
             ResultFuture<T> future = new ResultFuture<T>(klass);
-            synchronized (results)
-            {
-                results.put(command, future);
-            }
+            results.put(command, future);
             invoke(m);
             return future;
         }
@@ -1079,14 +1103,11 @@ public class Session extends SessionInvoker
 
             commandsLock.notifyAll();
 
-            synchronized (results)
+            for (ResultFuture<?> result : results.values())
             {
-                for (ResultFuture<?> result : results.values())
+                synchronized(result)
                 {
-                    synchronized(result)
-                    {
-                        result.notifyAll();
-                    }
+                    result.notifyAll();
                 }
             }
             if(state == CLOSED)
@@ -1178,14 +1199,11 @@ public class Session extends SessionInvoker
         {
             commandsLock.notifyAll();
         }
-        synchronized (results)
+        for (ResultFuture<?> result : results.values())
         {
-            for (ResultFuture<?> result : results.values())
+            synchronized(result)
             {
-                synchronized(result)
-                {
-                    result.notifyAll();
-                }
+                result.notifyAll();
             }
         }
     }
@@ -117,12 +117,14 @@ public class SessionDelegate
                 {
                     known = RangeSetFactory.createRangeSet();
                 }
-                for (Range range : ranges)
+                for (int i = 0; i < ranges.size(); i++)
                 {
-                    boolean advanced = ssn.complete(range.getLower(), range.getUpper());
+                    int lower = ranges.getLower(i);
+                    int upper = ranges.getUpper(i);
+                    boolean advanced = ssn.complete(lower, upper);
                     if (advanced && known != null)
                     {
-                        known.add(range);
+                        known.add(lower, upper);
                     }
                 }
             }
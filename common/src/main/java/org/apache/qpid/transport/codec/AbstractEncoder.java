@@ -30,7 +30,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
-import org.apache.qpid.transport.Range;
 import org.apache.qpid.transport.RangeSet;
 import org.apache.qpid.transport.Struct;
 import org.apache.qpid.transport.Type;
@@ -219,11 +218,12 @@ public abstract class AbstractEncoder implements Encoder
         }
         else
         {
-            writeUint16(ranges.size() * 8);
-            for (Range range : ranges)
+            final int size = ranges.size();
+            writeUint16(size * 8);
+            for (int i = 0; i < size; i++)
             {
-                writeSequenceNo(range.getLower());
-                writeSequenceNo(range.getUpper());
+                writeSequenceNo(ranges.getLower(i));
+                writeSequenceNo(ranges.getUpper(i));
             }
         }
     }
@@ -23,6 +23,8 @@ package org.apache.qpid.framing;
 import org.apache.qpid.test.utils.QpidTestCase;
 
 import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 
 public class AMQShortStringTest extends QpidTestCase
 {
@@ -154,6 +156,35 @@ public class AMQShortStringTest extends QpidTestCase
         assertEquals("Unexpected null string from valueOf", null, shortString);
     }
 
+    public void testReadAMQShortStringReusesCachedInstance()
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(32);
+        buffer.put((byte) 5).put("amq.x".getBytes(StandardCharsets.US_ASCII));
+        buffer.put((byte) 5).put("amq.x".getBytes(StandardCharsets.US_ASCII));
+        buffer.put((byte) 5).put("amq.y".getBytes(StandardCharsets.US_ASCII));
+        buffer.flip();
+
+        AMQShortString first = AMQShortString.readAMQShortString(buffer);
+        AMQShortString second = AMQShortString.readAMQShortString(buffer);
+        AMQShortString third = AMQShortString.readAMQShortString(buffer);
+
+        assertEquals("Unexpected decoded value", "amq.x", first.toString());
+        assertSame("Repeated short string was not reused", first, second);
+        assertEquals("Unexpected decoded value", "amq.y", third.toString());
+        assertEquals("Unexpected hash code", new AMQShortString("amq.x").hashCode(), first.hashCode());
+        assertFalse("Buffer not fully consumed", buffer.hasRemaining());
+    }
+
+    public void testCreateAMQShortStringReusesCachedInstance()
+    {
+        AMQShortString first = AMQShortString.createAMQShortString("routing.key");
+        AMQShortString second = AMQShortString.createAMQShortString("routing.key");
+
+        assertSame("Repeated short string was not reused", first, second);
+        assertEquals("Unexpected value", new AMQShortString("routing.key"), first);
+        assertNull("Null value should give null short string", AMQShortString.createAMQShortString(null));
+    }
+
     /**
      * A helper method to generate a string with given length containing given
      * character
@@ -0,0 +1,248 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.transport;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.apache.qpid.test.utils.QpidTestCase;
+
+public class CompactRangeSetImplTest extends QpidTestCase
+{
+    private static final int WINDOW = 2000;
+    private static final int OPERATIONS = 5000;
+
+    private long _seed;
+    private Random _random;
+
+    @Override
+    public void setUp() throws Exception
+    {
+        super.setUp();
+        _seed = System.currentTimeMillis();
+        _random = new Random(_seed);
+    }
+
+    public void testRandomAddsMatchModel()
+    {
+        doTestRandomAdds(0);
+    }
+
+    public void testRandomAddsMatchModelWithNegativeValues()
+    {
+        doTestRandomAdds(-WINDOW / 2);
+    }
+
+    public void testRandomAddsMatchModelAcrossSerialWrapAround()
+    {
+        doTestRandomAdds(Integer.MAX_VALUE - WINDOW / 2);
+    }
+
+    public void testRandomSubtractsMatchModel()
+    {
+        doTestRandomSubtracts(0);
+    }
+
+    public void testRandomSubtractsMatchModelAcrossSerialWrapAround()
+    {
+        doTestRandomSubtracts(Integer.MAX_VALUE - WINDOW / 2);
+    }
+
+    public void testRandomAddsMatchListImplementation()
+    {
+        RangeSet compact = new CompactRangeSetImpl();
+        RangeSet list = new RangeSetImpl();
+        for (int i = 0; i < OPERATIONS; i++)
+        {
+            int lower = _random.nextInt(WINDOW);
+            int upper = lower + _random.nextInt(5);
+            compact.add(lower, upper);
+            list.add(lower, upper);
+        }
+        assertEquals("Seed " + _seed, list.toString(), compact.toString());
+
+        RangeSet other = new RangeSetImpl();
+        for (int i = 0; i < 100; i++)
+        {
+            int lower = _random.nextInt(WINDOW);
+            other.add(lower, lower + _random.nextInt(20));
+        }
+        compact.subtract(other);
+        list.subtract(other);
+        assertEquals("Seed " + _seed, list.toString(), compact.toString());
+    }
+
+    public void testIndexedAccess()
+    {
+        RangeSet ranges = new CompactRangeSetImpl();
+        ranges.add(10, 12);
+        ranges.add(1);
+        ranges.add(20, 25);
+
+        assertEquals(3, ranges.size());
+        assertEquals(1, ranges.getLower(0));
+        assertEquals(1, ranges.getUpper(0));
+        assertEquals(10, ranges.getLower(1));
+        assertEquals(12, ranges.getUpper(1));
+        assertEquals(20, ranges.getLower(2));
+        assertEquals(25, ranges.getUpper(2));
+        assertEquals(25, ranges.getLast().getUpper());
+
+        try
+        {
+            ranges.getLower(3);
+            fail("Exception not thrown");
+        }
+        catch (IndexOutOfBoundsException e)
+        {
+            // pass
+        }
+    }
+
+    public void testIteratorRemove()
+    {
+        RangeSet ranges = new CompactRangeSetImpl();
+        ranges.add(1, 2);
+        ranges.add(4, 5);
+        ranges.add(7, 8);
+
+        Iterator<Range> iterator = ranges.iterator();
+        iterator.next();
+        iterator.next();
+        iterator.remove();
+        assertEquals(7, iterator.next().getLower());
+        assertFalse(iterator.hasNext());
+        assertEquals("{[1, 2], [7, 8]}", ranges.toString());
+    }
+
+    public void testCopyIsIndependent()
+    {
+        RangeSet ranges = new CompactRangeSetImpl();
+        ranges.add(1, 2);
+        RangeSet copy = ranges.copy();
+        ranges.add(4);
+        copy.add(6);
+
+        assertEquals("{[1, 2], [4, 4]}", ranges.toString());
+        assertEquals("{[1, 2], [6, 6]}", copy.toString());
+    }
+
+    private void doTestRandomAdds(final int base)
+    {
+        RangeSet ranges = new CompactRangeSetImpl(1);
+        TreeSet<Integer> model = new TreeSet<Integer>();
+        for (int i = 0; i < OPERATIONS; i++)
+        {
+            int offset = _random.nextInt(WINDOW);
+            int length = _random.nextInt(4) == 0 ? _random.nextInt(50) : 0;
+            length = Math.min(length, WINDOW - 1 - offset);
+            ranges.add(base + offset, base + offset + length);
+            for (int j = offset; j <= offset + length; j++)
+            {
+                model.add(j);
+            }
+
+            if (i % 100 == 0)
+            {
+                assertMatchesModel(ranges, model, base);
+            }
+        }
+        assertMatchesModel(ranges, model, base);
+    }
+
+    private void doTestRandomSubtracts(final int base)
+    {
+        for (int i = 0; i < OPERATIONS / 50; i++)
+        {
+            RangeSet ranges = new CompactRangeSetImpl();
+            TreeSet<Integer> model = new TreeSet<Integer>();
+            addRandomRanges(ranges, model, base);
+
+            RangeSet other = new CompactRangeSetImpl();
+            TreeSet<Integer> otherModel = new TreeSet<Integer>();
+            addRandomRanges(other, otherModel, base);
+
+            ranges.subtract(other);
+            model.removeAll(otherModel);
+            assertMatchesModel(ranges, model, base);
+        }
+    }
+
+    private void addRandomRanges(final RangeSet ranges, final TreeSet<Integer> model, final int base)
+    {
+        int count = _random.nextInt(50);
+        for (int i = 0; i < count; i++)
+        {
+            int offset = _random.nextInt(WINDOW - 100);
+            int length = _random.nextInt(100);
+            ranges.add(base + offset, base + offset + length);
+            for (int j = offset; j <= offset + length; j++)
+            {
+                model.add(j);
+            }
+        }
+    }
+
+    private void assertMatchesModel(final RangeSet ranges, final TreeSet<Integer> model, final int base)
+    {
+        List<Integer> expectedBounds = new ArrayList<Integer>();
+        Integer previous = null;
+        for (Integer offset : model)
+        {
+            if (previous == null || offset != previous + 1)
+            {
+                if (previous != null)
+                {
+                    expectedBounds.add(base + previous);
+                }
+                expectedBounds.add(base + offset);
+            }
+            previous = offset;
+        }
+        if (previous != null)
+        {
+            expectedBounds.add(base + previous);
+        }
+
+        List<Integer> actualBounds = new ArrayList<Integer>();
+        for (Range range : ranges)
+        {
+            actualBounds.add(range.getLower());
+            actualBounds.add(range.getUpper());
+        }
+        assertEquals("Unexpected ranges with seed " + _seed, expectedBounds, actualBounds);
+        assertEquals("Unexpected size", expectedBounds.size() / 2, ranges.size());
+
+        for (int i = 0; i < 20; i++)
+        {
+            int offset = _random.nextInt(WINDOW);
+            assertEquals("Unexpected inclusion of " + (base + offset) + " with seed " + _seed,
+                         model.contains(offset), ranges.includes(base + offset));
+        }
+        for (int i = 0; i < ranges.size(); i++)
+        {
+            assertTrue(ranges.includes(Range.newInstance(ranges.getLower(i), ranges.getUpper(i))));
+        }
+    }
+}
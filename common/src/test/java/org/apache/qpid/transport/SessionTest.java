@@ -0,0 +1,240 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.transport;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.qpid.transport.network.Frame;
+import org.apache.qpid.test.utils.QpidTestCase;
+
+public class SessionTest extends QpidTestCase
+{
+    private static final int COMMAND_LIMIT = 16;
+
+    private RecordingConnection _connection;
+    private TestSession _session;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+        setTestSystemProperty("qpid.session.command_limit", String.valueOf(COMMAND_LIMIT));
+        _connection = new RecordingConnection();
+        _session = new TestSession(_connection);
+        _session.setState(Session.State.OPEN);
+    }
+
+    @Override
+    protected void tearDown() throws Exception
+    {
+        try
+        {
+            revertTestSystemProperties();
+        }
+        finally
+        {
+            super.tearDown();
+        }
+    }
+
+    public void testCompleteReportsWhetherCompletionAdvanced()
+    {
+        transfer();
+        transfer();
+        transfer();
+
+        assertFalse("Completion should not advance past the incomplete first command", _session.complete(1, 2));
+        assertTrue("Completion should advance", _session.complete(0, 0));
+        assertTrue("Completion should advance", _session.complete(0, 2));
+        assertFalse("Completion should already have advanced", _session.complete(0, 2));
+    }
+
+    public void testCompletionListenerNotifiedOnce()
+    {
+        final AtomicInteger completions = new AtomicInteger();
+        MessageTransfer transfer = new MessageTransfer();
+        transfer.setCompletionListener(new Method.CompletionListener()
+        {
+            @Override
+            public void onComplete(final Method method)
+            {
+                completions.incrementAndGet();
+            }
+        });
+        _session.invoke(transfer);
+
+        _session.complete(0, 0);
+        _session.complete(0, 0);
+        assertEquals("Unexpected number of completions", 1, completions.get());
+    }
+
+    public void testSyncReturnsWhenCompletedByAnotherThread() throws Exception
+    {
+        transfer();
+        final Thread completer = new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    Thread.sleep(100);
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                }
+                _session.complete(0, _connection.getLastCommandId());
+            }
+        });
+        completer.start();
+
+        long start = System.currentTimeMillis();
+        _session.sync(10000);
+        assertTrue("Sync should have been woken by the completion", System.currentTimeMillis() - start < 5000);
+        completer.join();
+    }
+
+    public void testConcurrentInvokersThrottledByCompletions() throws Exception
+    {
+        final int threads = 4;
+        final int transfersPerThread = 500;
+        final CountDownLatch done = new CountDownLatch(threads);
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        final AtomicBoolean completing = new AtomicBoolean(true);
+
+        for (int i = 0; i < threads; i++)
+        {
+            new Thread(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        for (int j = 0; j < transfersPerThread; j++)
+                        {
+                            transfer();
+                        }
+                    }
+                    catch (Throwable t)
+                    {
+                        failure.compareAndSet(null, t);
+                    }
+                    finally
+                    {
+                        done.countDown();
+                    }
+                }
+            }).start();
+        }
+
+        Thread completer = new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                while (completing.get())
+                {
+                    int lastCommandId = _connection.getLastCommandId();
+                    if (lastCommandId >= 0)
+                    {
+                        _session.complete(0, lastCommandId);
+                    }
+                    Thread.yield();
+                }
+            }
+        });
+        completer.start();
+
+        try
+        {
+            assertTrue("Invokers did not finish", done.await(30, TimeUnit.SECONDS));
+        }
+        finally
+        {
+            completing.set(false);
+            completer.join();
+        }
+        assertNull("Unexpected failure: " + failure.get(), failure.get());
+
+        List<Integer> commandIds = _connection.getCommandIds();
+        Collections.sort(commandIds);
+        assertEquals("Unexpected number of commands", threads * transfersPerThread, commandIds.size());
+        for (int i = 0; i < commandIds.size(); i++)
+        {
+            assertEquals("Unexpected command id", i, (int) commandIds.get(i));
+        }
+    }
+
+    private void transfer()
+    {
+        _session.messageTransfer("destination", MessageAcceptMode.EXPLICIT, MessageAcquireMode.PRE_ACQUIRED,
+                                 null, new byte[0]);
+    }
+
+    private class TestSession extends Session
+    {
+        private TestSession(final Connection connection)
+        {
+            super(connection, new Binary(new byte[0]), 0);
+        }
+    }
+
+    private class RecordingConnection extends Connection
+    {
+        private final List<Integer> _commandIds = new ArrayList<Integer>();
+        private int _lastCommandId = -1;
+
+        @Override
+        public synchronized void send(final ProtocolEvent event)
+        {
+            Method method = (Method) event;
+            if (method.getEncodedTrack() == Frame.L4)
+            {
+                _commandIds.add(method.getId());
+                _lastCommandId = Math.max(_lastCommandId, method.getId());
+            }
+        }
+
+        @Override
+        public void flush()
+        {
+        }
+
+        synchronized int getLastCommandId()
+        {
+            return _lastCommandId;
+        }
+
+        synchronized List<Integer> getCommandIds()
+        {
+            return new ArrayList<Integer>(_commandIds);
+        }
+    }
+}
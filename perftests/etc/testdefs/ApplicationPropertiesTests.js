@@ -0,0 +1,121 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+/*
+ * Messages carrying many application properties, consumed through a selector that reads only one of them.
+ * Exercises the broker's handling of large application-properties sections when routing and filtering.
+ */
+
+var ACKNOWLEDGE_MODE_AUTO_ACKNOWLEDGE = 1;
+var DELIVERY_MODE_TRANSIENT = 1;
+
+var messageSize = 256;
+var maximumDuration = 10000;
+
+function createMessageProperties(numberOfProperties)
+{
+  var messageProperties = {"selected": "yes"};
+  for(var i=0; i < numberOfProperties; i++)
+  {
+    messageProperties["property_" + i] = "value_" + i;
+  }
+  return messageProperties;
+}
+
+function createTest(numberOfProperties)
+{
+  var queueName = "applicationPropertiesQueue";
+  var destination = "BURL:direct:////" + queueName + "?durable='true'";
+
+  var test = {
+    "_name": "application_properties_" + numberOfProperties,
+    "_queues": [
+      {
+        "_name": destination,
+        "_durable": true
+      }
+    ],
+    "_clients": [
+      {
+        "_name": "producingClient",
+        "_messageProviders": [
+          {
+            "_name": "propertiesProvider",
+            "_messageProperties": createMessageProperties(numberOfProperties)
+          }
+        ],
+        "_connections": [
+          {
+            "_name": "producingConnection",
+            "_factory": "connectionfactory",
+            "_sessions": [
+              {
+                "_sessionName": "producingSession",
+                "_acknowledgeMode": ACKNOWLEDGE_MODE_AUTO_ACKNOWLEDGE,
+                "_producers": [
+                  {
+                    "_name": "Producer",
+                    "_destinationName": destination,
+                    "_messageSize": messageSize,
+                    "_deliveryMode": DELIVERY_MODE_TRANSIENT,
+                    "_messageProviderName": "propertiesProvider",
+                    "_maximumDuration": maximumDuration
+                  }
+                ]
+              }
+            ]
+          }
+        ]
+      },
+      {
+        "_name": "consumingClient",
+        "_connections": [
+          {
+            "_name": "consumingConnection",
+            "_factory": "connectionfactory",
+            "_sessions": [
+              {
+                "_sessionName": "consumingSession",
+                "_acknowledgeMode": ACKNOWLEDGE_MODE_AUTO_ACKNOWLEDGE,
+                "_consumers": [
+                  {
+                    "_name": "Consumer",
+                    "_destinationName": destination,
+                    "_selector": "selected = 'yes'",
+                    "_maximumDuration": maximumDuration
+                  }
+                ]
+              }
+            ]
+          }
+        ]
+      }
+    ]
+  };
+
+  return test;
+}
+
+var jsonObject = {
+  _tests: [createTest(10),
+           createTest(100),
+           createTest(500)]
+};
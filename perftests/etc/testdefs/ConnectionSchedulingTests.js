@@ -0,0 +1,114 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+/*
+ * Many connections, each with a single producer or consumer exchanging small messages, so that the broker spends
+ * most of its time scheduling connection I/O rather than moving message data.  Run once against a broker with the
+ * default work stealing I/O scheduler and once against a broker started with the context variable
+ * port.amqp.threadPool.workStealing set to false, which schedules connections on a single shared queue, to compare
+ * their overhead.
+ */
+
+var ACKNOWLEDGE_MODE_AUTO_ACKNOWLEDGE = 1;
+var DELIVERY_MODE_TRANSIENT = 1;
+
+var messageSize = 64;
+var maximumDuration = 10000;
+
+function createProducerConnection(i, destination)
+{
+  return {
+    "_name": "producingConnection_" + i,
+    "_factory": "connectionfactory",
+    "_sessions": [
+      {
+        "_sessionName": "producingSession_" + i,
+        "_acknowledgeMode": ACKNOWLEDGE_MODE_AUTO_ACKNOWLEDGE,
+        "_producers": [
+          {
+            "_name": "Producer_" + i,
+            "_destinationName": destination,
+            "_messageSize": messageSize,
+            "_deliveryMode": DELIVERY_MODE_TRANSIENT,
+            "_maximumDuration": maximumDuration
+          }
+        ]
+      }
+    ]
+  };
+}
+
+function createConsumerConnection(i, destination)
+{
+  return {
+    "_name": "consumingConnection_" + i,
+    "_factory": "connectionfactory",
+    "_sessions": [
+      {
+        "_sessionName": "consumingSession_" + i,
+        "_acknowledgeMode": ACKNOWLEDGE_MODE_AUTO_ACKNOWLEDGE,
+        "_consumers": [
+          {
+            "_name": "Consumer_" + i,
+            "_destinationName": destination,
+            "_maximumDuration": maximumDuration
+          }
+        ]
+      }
+    ]
+  };
+}
+
+function createTest(numberOfParticipantPairs)
+{
+  var test = {
+    "_name": "connection_scheduling_" + numberOfParticipantPairs + "_pairs",
+    "_queues": [],
+    "_clients": [
+      {
+        "_name": "producingClient",
+        "_connections": []
+      },
+      {
+        "_name": "consumingClient",
+        "_connections": []
+      }
+    ]
+  };
+
+  for(var i=0; i < numberOfParticipantPairs; i++)
+  {
+    var queueName = "schedulingTestQueue_" + i;
+    var destination = "BURL:direct:////" + queueName + "?durable='false'";
+    test._queues.push({"_name": destination, "_durable": false});
+
+    test._clients[0]._connections.push(createProducerConnection(i, destination));
+    test._clients[1]._connections.push(createConsumerConnection(i, destination));
+  }
+
+  return test;
+}
+
+var jsonObject = {
+  _tests: [createTest(10),
+           createTest(100),
+           createTest(500)]
+};
@@ -0,0 +1,106 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+/*
+ * A single producer publishing to a topic with many subscribers, so that each message is delivered to every
+ * consumer.  Exercises the per-delivery encoding cost on the broker.
+ */
+
+var ACKNOWLEDGE_MODE_AUTO_ACKNOWLEDGE = 1;
+var DELIVERY_MODE_TRANSIENT = 1;
+
+var messageSize = 256;
+var maximumDuration = 10000;
+var destination = "BURL:topic://amq.topic//fanOut?routingkey='fanOut'";
+
+function createConsumerConnection(i)
+{
+  return {
+    "_name": "consumingConnection_" + i,
+    "_factory": "connectionfactory",
+    "_sessions": [
+      {
+        "_sessionName": "consumingSession_" + i,
+        "_acknowledgeMode": ACKNOWLEDGE_MODE_AUTO_ACKNOWLEDGE,
+        "_consumers": [
+          {
+            "_name": "Consumer_" + i,
+            "_destinationName": destination,
+            "_isTopic": true,
+            "_maximumDuration": maximumDuration
+          }
+        ]
+      }
+    ]
+  };
+}
+
+function createTest(numberOfConsumers)
+{
+  var test = {
+    "_name": "fan_out_" + numberOfConsumers + "_consumers",
+    "_queues": [],
+    "_clients": [
+      {
+        "_name": "producingClient",
+        "_connections": [
+          {
+            "_name": "producingConnection",
+            "_factory": "connectionfactory",
+            "_sessions": [
+              {
+                "_sessionName": "producingSession",
+                "_acknowledgeMode": ACKNOWLEDGE_MODE_AUTO_ACKNOWLEDGE,
+                "_producers": [
+                  {
+                    "_name": "Producer",
+                    "_destinationName": destination,
+                    "_isTopic": true,
+                    "_messageSize": messageSize,
+                    "_deliveryMode": DELIVERY_MODE_TRANSIENT,
+                    "_maximumDuration": maximumDuration
+                  }
+                ]
+              }
+            ]
+          }
+        ]
+      },
+      {
+        "_name": "consumingClient",
+        "_connections": []
+      }
+    ]
+  };
+
+  for(var i=0; i < numberOfConsumers; i++)
+  {
+    test._clients[1]._connections.push(createConsumerConnection(i));
+  }
+
+  return test;
+}
+
+var jsonObject = {
+  _tests: [createTest(1),
+           createTest(10),
+           createTest(50)]
+};
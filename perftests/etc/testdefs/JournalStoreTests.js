@@ -0,0 +1,114 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+/*
+ * Persistent messaging through durable queues, with one or many concurrent transacted producer/consumer pairs so that
+ * the store's commits can be grouped.  Run against a broker whose virtual host is of type Journal and again against one
+ * of type BDB to compare the two message stores.
+ */
+
+var ACKNOWLEDGE_MODE_SESSION_TRANSACTED = 0;
+var ACKNOWLEDGE_MODE_AUTO_ACKNOWLEDGE = 1;
+var DELIVERY_MODE_PERSISTENT = 2;
+
+var maximumDuration = 10000;
+
+function createProducerConnection(i, destination, acknowledgeMode, messageSize)
+{
+  return {
+    "_name": "producingConnection_" + i,
+    "_factory": "connectionfactory",
+    "_sessions": [
+      {
+        "_sessionName": "producingSession_" + i,
+        "_acknowledgeMode": acknowledgeMode,
+        "_producers": [
+          {
+            "_name": "Producer_" + i,
+            "_destinationName": destination,
+            "_messageSize": messageSize,
+            "_deliveryMode": DELIVERY_MODE_PERSISTENT,
+            "_maximumDuration": maximumDuration
+          }
+        ]
+      }
+    ]
+  };
+}
+
+function createConsumerConnection(i, destination, acknowledgeMode)
+{
+  return {
+    "_name": "consumingConnection_" + i,
+    "_factory": "connectionfactory",
+    "_sessions": [
+      {
+        "_sessionName": "consumingSession_" + i,
+        "_acknowledgeMode": acknowledgeMode,
+        "_consumers": [
+          {
+            "_name": "Consumer_" + i,
+            "_destinationName": destination,
+            "_maximumDuration": maximumDuration
+          }
+        ]
+      }
+    ]
+  };
+}
+
+function createTest(name, acknowledgeMode, messageSize, numberOfParticipantPairs)
+{
+  var test = {
+    "_name": name + "_" + messageSize + "_bytes_" + numberOfParticipantPairs + "_pairs",
+    "_queues": [],
+    "_clients": [
+      {
+        "_name": "producingClient",
+        "_connections": []
+      },
+      {
+        "_name": "consumingClient",
+        "_connections": []
+      }
+    ]
+  };
+
+  for(var i=0; i < numberOfParticipantPairs; i++)
+  {
+    var queueName = "storeTestQueue_" + i;
+    var destination = "BURL:direct:////" + queueName + "?durable='true'";
+    test._queues.push({"_name": destination, "_durable": true});
+
+    test._clients[0]._connections.push(createProducerConnection(i, destination, acknowledgeMode, messageSize));
+    test._clients[1]._connections.push(createConsumerConnection(i, destination, acknowledgeMode));
+  }
+
+  return test;
+}
+
+var jsonObject = {
+  _tests: [createTest("persistent_transaction", ACKNOWLEDGE_MODE_SESSION_TRANSACTED, 256, 1),
+           createTest("persistent_transaction", ACKNOWLEDGE_MODE_SESSION_TRANSACTED, 256, 50),
+           createTest("persistent_transaction", ACKNOWLEDGE_MODE_SESSION_TRANSACTED, 4096, 10),
+           createTest("persistent_transaction", ACKNOWLEDGE_MODE_SESSION_TRANSACTED, 65536, 10),
+           createTest("persistent_autoack", ACKNOWLEDGE_MODE_AUTO_ACKNOWLEDGE, 1024, 10)]
+};
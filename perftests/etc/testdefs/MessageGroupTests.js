@@ -0,0 +1,124 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+/*
+ * A single producer spreading messages over many message groups on one queue, consumed by many consumers.  Each group
+ * is assigned to one consumer at a time, so the broker must track assignments per group and find the entries that
+ * other consumers have passed over whenever a group is released or a consumer goes away.
+ */
+
+var ACKNOWLEDGE_MODE_AUTO_ACKNOWLEDGE = 1;
+var DELIVERY_MODE_TRANSIENT = 1;
+
+var messageSize = 256;
+var maximumDuration = 10000;
+
+function createConsumerSession(i, destination)
+{
+  return {
+    "_sessionName": "consumingSession_" + i,
+    "_acknowledgeMode": ACKNOWLEDGE_MODE_AUTO_ACKNOWLEDGE,
+    "_consumers": [
+      {
+        "_name": "Consumer_" + i,
+        "_destinationName": destination,
+        "_maximumDuration": maximumDuration
+      }
+    ]
+  };
+}
+
+function createTest(numberOfGroups, numberOfConsumers)
+{
+  var queueName = "messageGroupQueue";
+  var destination = "BURL:direct:////" + queueName + "?durable='true'";
+
+  var test = {
+    "_name": "message_groups_" + numberOfGroups + "_groups_" + numberOfConsumers + "_consumers",
+    "_queues": [
+      {
+        "_name": destination,
+        "_durable": true,
+        "_attributes": {
+          "qpid.group_header_key": "group"
+        }
+      }
+    ],
+    "_clients": [
+      {
+        "_name": "producingClient",
+        "_messageProviders": [
+          {
+            "_name": "groupProvider",
+            "_messageProperties": {
+              "group": {"@def": "range", "_lower": 0, "_upper": numberOfGroups - 1, "_type": "int"}
+            }
+          }
+        ],
+        "_connections": [
+          {
+            "_name": "producingConnection",
+            "_factory": "connectionfactory",
+            "_sessions": [
+              {
+                "_sessionName": "producingSession",
+                "_acknowledgeMode": ACKNOWLEDGE_MODE_AUTO_ACKNOWLEDGE,
+                "_producers": [
+                  {
+                    "_name": "Producer",
+                    "_destinationName": destination,
+                    "_messageSize": messageSize,
+                    "_deliveryMode": DELIVERY_MODE_TRANSIENT,
+                    "_messageProviderName": "groupProvider",
+                    "_maximumDuration": maximumDuration
+                  }
+                ]
+              }
+            ]
+          }
+        ]
+      },
+      {
+        "_name": "consumingClient",
+        "_connections": [
+          {
+            "_name": "consumingConnection",
+            "_factory": "connectionfactory",
+            "_sessions": []
+          }
+        ]
+      }
+    ]
+  };
+
+  for(var i=0; i < numberOfConsumers; i++)
+  {
+    test._clients[1]._connections[0]._sessions.push(createConsumerSession(i, destination));
+  }
+
+  return test;
+}
+
+var jsonObject = {
+  _tests: [createTest(100, 50),
+           createTest(10000, 1),
+           createTest(10000, 50)]
+};
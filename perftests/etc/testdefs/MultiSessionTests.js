@@ -0,0 +1,112 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+/*
+ * A single producing connection and a single consuming connection, each multiplexing many sessions, with every
+ * session pair using its own queue.  Exercises per-session concurrency within one connection; to measure the
+ * AMQP 1.0 path, point the connection factory at a 1.0 client.
+ */
+
+var ACKNOWLEDGE_MODE_AUTO_ACKNOWLEDGE = 1;
+var DELIVERY_MODE_TRANSIENT = 1;
+
+var messageSize = 1024;
+var maximumDuration = 10000;
+var connectionFactory = "connectionfactory";
+
+function createProducerSession(i, destination)
+{
+  return {
+    "_sessionName": "producingSession_" + i,
+    "_acknowledgeMode": ACKNOWLEDGE_MODE_AUTO_ACKNOWLEDGE,
+    "_producers": [
+      {
+        "_name": "Producer_" + i,
+        "_destinationName": destination,
+        "_messageSize": messageSize,
+        "_deliveryMode": DELIVERY_MODE_TRANSIENT,
+        "_maximumDuration": maximumDuration
+      }
+    ]
+  };
+}
+
+function createConsumerSession(i, destination)
+{
+  return {
+    "_sessionName": "consumingSession_" + i,
+    "_acknowledgeMode": ACKNOWLEDGE_MODE_AUTO_ACKNOWLEDGE,
+    "_consumers": [
+      {
+        "_name": "Consumer_" + i,
+        "_destinationName": destination,
+        "_maximumDuration": maximumDuration
+      }
+    ]
+  };
+}
+
+function createTest(numberOfSessions)
+{
+  var test = {
+    "_name": "single_connection_" + numberOfSessions + "_sessions",
+    "_queues": [],
+    "_clients": [
+      {
+        "_name": "producingClient",
+        "_connections": [
+          {
+            "_name": "producingConnection",
+            "_factory": connectionFactory,
+            "_sessions": []
+          }
+        ]
+      },
+      {
+        "_name": "consumingClient",
+        "_connections": [
+          {
+            "_name": "consumingConnection",
+            "_factory": connectionFactory,
+            "_sessions": []
+          }
+        ]
+      }
+    ]
+  };
+
+  for(var i=0; i < numberOfSessions; i++)
+  {
+    var queueName = "multiSessionQueue_" + i;
+    var destination = "BURL:direct:////" + queueName + "?durable='true'";
+    test._queues.push({"_name": destination, "_durable": true});
+
+    test._clients[0]._connections[0]._sessions.push(createProducerSession(i, destination));
+    test._clients[1]._connections[0]._sessions.push(createConsumerSession(i, destination));
+  }
+
+  return test;
+}
+
+var jsonObject = {
+  _tests: [createTest(1),
+           createTest(32)]
+};
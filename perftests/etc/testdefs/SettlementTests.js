@@ -0,0 +1,106 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+/*
+ * A single producer and a single client acknowledging consumer exchanging messages at a high rate.  Each
+ * acknowledgement settles a batch of deliveries, so varying the batch size exercises both single and ranged
+ * settlement of the broker's unsettled delivery tracking.
+ */
+
+var ACKNOWLEDGE_MODE_CLIENT_ACKNOWLEDGE = 2;
+var ACKNOWLEDGE_MODE_AUTO_ACKNOWLEDGE = 1;
+var DELIVERY_MODE_TRANSIENT = 1;
+
+var messageSize = 256;
+var maximumDuration = 10000;
+
+function createTest(batchSize)
+{
+  var queueName = "settlementQueue";
+  var destination = "BURL:direct:////" + queueName + "?durable='true'";
+
+  var test = {
+    "_name": "settle_batch_" + batchSize,
+    "_queues": [
+      {
+        "_name": destination,
+        "_durable": true
+      }
+    ],
+    "_clients": [
+      {
+        "_name": "producingClient",
+        "_connections": [
+          {
+            "_name": "producingConnection",
+            "_factory": "connectionfactory",
+            "_sessions": [
+              {
+                "_sessionName": "producingSession",
+                "_acknowledgeMode": ACKNOWLEDGE_MODE_AUTO_ACKNOWLEDGE,
+                "_producers": [
+                  {
+                    "_name": "Producer",
+                    "_destinationName": destination,
+                    "_messageSize": messageSize,
+                    "_deliveryMode": DELIVERY_MODE_TRANSIENT,
+                    "_maximumDuration": maximumDuration
+                  }
+                ]
+              }
+            ]
+          }
+        ]
+      },
+      {
+        "_name": "consumingClient",
+        "_connections": [
+          {
+            "_name": "consumingConnection",
+            "_factory": "connectionfactory",
+            "_sessions": [
+              {
+                "_sessionName": "consumingSession",
+                "_acknowledgeMode": ACKNOWLEDGE_MODE_CLIENT_ACKNOWLEDGE,
+                "_consumers": [
+                  {
+                    "_name": "Consumer",
+                    "_destinationName": destination,
+                    "_batchSize": batchSize,
+                    "_maximumDuration": maximumDuration
+                  }
+                ]
+              }
+            ]
+          }
+        ]
+      }
+    ]
+  };
+
+  return test;
+}
+
+var jsonObject = {
+  _tests: [createTest(1),
+           createTest(100),
+           createTest(1000)]
+};
@@ -0,0 +1,104 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+/*
+ * A single producer and a single auto acknowledging consumer on one queue.  The consumer is never short of messages or
+ * credit, so the broker delivers to it in batches, each taken under one acquisition of the consumer's send lock.  Run
+ * against a broker started with -Dqueue.deliveryBatchSize=1 to compare with entry by entry delivery, and compare the
+ * queue's delivery batch statistics to see how many messages each batch carried.
+ */
+
+var ACKNOWLEDGE_MODE_AUTO_ACKNOWLEDGE = 1;
+var DELIVERY_MODE_TRANSIENT = 1;
+
+var maximumDuration = 10000;
+
+function createTest(messageSize)
+{
+  var queueName = "singleConsumerQueue";
+  var destination = "BURL:direct:////" + queueName + "?durable='true'";
+
+  var test = {
+    "_name": "single_consumer_" + messageSize + "_byte_messages",
+    "_queues": [
+      {
+        "_name": destination,
+        "_durable": true
+      }
+    ],
+    "_clients": [
+      {
+        "_name": "producingClient",
+        "_connections": [
+          {
+            "_name": "producingConnection",
+            "_factory": "connectionfactory",
+            "_sessions": [
+              {
+                "_sessionName": "producingSession",
+                "_acknowledgeMode": ACKNOWLEDGE_MODE_AUTO_ACKNOWLEDGE,
+                "_producers": [
+                  {
+                    "_name": "Producer",
+                    "_destinationName": destination,
+                    "_messageSize": messageSize,
+                    "_deliveryMode": DELIVERY_MODE_TRANSIENT,
+                    "_maximumDuration": maximumDuration
+                  }
+                ]
+              }
+            ]
+          }
+        ]
+      },
+      {
+        "_name": "consumingClient",
+        "_connections": [
+          {
+            "_name": "consumingConnection",
+            "_factory": "connectionfactory",
+            "_sessions": [
+              {
+                "_sessionName": "consumingSession",
+                "_acknowledgeMode": ACKNOWLEDGE_MODE_AUTO_ACKNOWLEDGE,
+                "_consumers": [
+                  {
+                    "_name": "Consumer",
+                    "_destinationName": destination,
+                    "_maximumDuration": maximumDuration
+                  }
+                ]
+              }
+            ]
+          }
+        ]
+      }
+    ]
+  };
+
+  return test;
+}
+
+var jsonObject = {
+  _tests: [createTest(256),
+           createTest(1024),
+           createTest(65536)]
+};
@@ -0,0 +1,116 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+/*
+ * The same point to point workload over a plain and over a TLS connection, at a range of message sizes.  Comparing
+ * the throughput of each pair shows the cost of TLS on the broker, from small messages, where per-record overhead
+ * dominates, to large ones, where the cost of encryption itself does.
+ */
+
+var ACKNOWLEDGE_MODE_AUTO_ACKNOWLEDGE = 1;
+var DELIVERY_MODE_TRANSIENT = 1;
+
+var maximumDuration = 10000;
+var numberOfParticipantPairs = 5;
+
+function createProducerConnection(i, connectionFactory, destination, messageSize)
+{
+  return {
+    "_name": "producingConnection_" + i,
+    "_factory": connectionFactory,
+    "_sessions": [
+      {
+        "_sessionName": "producingSession_" + i,
+        "_acknowledgeMode": ACKNOWLEDGE_MODE_AUTO_ACKNOWLEDGE,
+        "_producers": [
+          {
+            "_name": "Producer_" + i,
+            "_destinationName": destination,
+            "_messageSize": messageSize,
+            "_deliveryMode": DELIVERY_MODE_TRANSIENT,
+            "_maximumDuration": maximumDuration
+          }
+        ]
+      }
+    ]
+  };
+}
+
+function createConsumerConnection(i, connectionFactory, destination)
+{
+  return {
+    "_name": "consumingConnection_" + i,
+    "_factory": connectionFactory,
+    "_sessions": [
+      {
+        "_sessionName": "consumingSession_" + i,
+        "_acknowledgeMode": ACKNOWLEDGE_MODE_AUTO_ACKNOWLEDGE,
+        "_consumers": [
+          {
+            "_name": "Consumer_" + i,
+            "_destinationName": destination,
+            "_maximumDuration": maximumDuration
+          }
+        ]
+      }
+    ]
+  };
+}
+
+function createTest(transport, messageSize)
+{
+  var connectionFactory = transport == "ssl" ? "sslconnectionfactory" : "connectionfactory";
+  var test = {
+    "_name": "transient_autoack_" + transport + "_" + messageSize + "b",
+    "_queues": [],
+    "_clients": [
+      {
+        "_name": "producingClient",
+        "_connections": []
+      },
+      {
+        "_name": "consumingClient",
+        "_connections": []
+      }
+    ]
+  };
+
+  for(var i=0; i < numberOfParticipantPairs; i++)
+  {
+    var queueName = "tlsTestQueue_" + i;
+    var destination = "BURL:direct:////" + queueName + "?durable='false'";
+    test._queues.push({"_name": destination, "_durable": false});
+
+    test._clients[0]._connections.push(createProducerConnection(i, connectionFactory, destination, messageSize));
+    test._clients[1]._connections.push(createConsumerConnection(i, connectionFactory, destination));
+  }
+
+  return test;
+}
+
+var jsonObject = {
+  _tests: [createTest("plain", 64),
+           createTest("ssl", 64),
+           createTest("plain", 1024),
+           createTest("ssl", 1024),
+           createTest("plain", 65536),
+           createTest("ssl", 65536)]
+};
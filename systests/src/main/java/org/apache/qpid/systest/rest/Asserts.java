@@ -131,7 +131,8 @@ public class Asserts
                                         ConfiguredObject.CONTEXT,
                                         ConfiguredObject.DESIRED_STATE,
                                         Queue.DEFAULT_FILTERS,
-                                        Queue.ENSURE_NONDESTRUCTIVE_CONSUMERS);
+                                        Queue.ENSURE_NONDESTRUCTIVE_CONSUMERS,
+                                        Queue.DUPLICATE_DETECTION_KEY);
 
         assertEquals("Unexpected value of queue attribute " + Queue.NAME, queueName, queueData.get(Queue.NAME));
         assertNotNull("Unexpected value of queue attribute " + Queue.ID, queueData.get(Queue.ID));